@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dashbuilder.kieserver.backend.rest;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.dashbuilder.kieserver.KieServerConnectionInfo;
+
+/**
+ * Short lived cache of Kie Server query results.
+ * <p>
+ * Results are keyed by connection (location and credentials), query id, filter spec and page, and kept for a few
+ * seconds so the displayers of a dashboard page share the result of identical lookups. Concurrent identical
+ * requests are deduplicated: only the first one reaches Kie Server and the others wait for its result. Failed
+ * queries are never cached.
+ */
+@SuppressWarnings("rawtypes")
+public class KieServerQueryCache {
+
+    private final long ttl;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<QueryKey, CachedResult> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+
+    public KieServerQueryCache(long ttl,
+                               int maxEntries) {
+        this(ttl,
+             maxEntries,
+             System::currentTimeMillis);
+    }
+
+    KieServerQueryCache(long ttl,
+                        int maxEntries,
+                        LongSupplier clock) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    public List<List> get(KieServerConnectionInfo connectionInfo,
+                          String uuid,
+                          QueryFilterSpec filterSpec,
+                          int page,
+                          int pageSize,
+                          Supplier<List<List>> query) {
+        if (ttl <= 0) {
+            misses.incrementAndGet();
+            return query.get();
+        }
+
+        QueryKey key = new QueryKey(connectionInfo,
+                                    uuid,
+                                    filterSpec,
+                                    page,
+                                    pageSize);
+        long now = clock.getAsLong();
+        boolean[] owner = {false};
+        CachedResult cached = entries.compute(key,
+                                              (k, current) -> {
+                                                  if (current != null && !current.isExpired(now)) {
+                                                      return current;
+                                                  }
+                                                  owner[0] = true;
+                                                  return new CachedResult();
+                                              });
+
+        if (!owner[0]) {
+            if (cached.result.isDone()) {
+                hits.incrementAndGet();
+            } else {
+                deduplicated.incrementAndGet();
+            }
+            return cached.join();
+        }
+
+        misses.incrementAndGet();
+        try {
+            List<List> result = query.get();
+            cached.complete(result,
+                            clock.getAsLong() + ttl);
+            evictIfNeeded();
+            return result;
+        } catch (Throwable e) {
+            // Errors too, or the waiting requests would never complete and the key would stay in flight
+            entries.remove(key,
+                           cached);
+            cached.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached results of the given query on the given Kie Server, e.g. after its definition changed.
+     */
+    public void invalidate(KieServerConnectionInfo connectionInfo,
+                           String uuid) {
+        String location = connectionInfo.getLocation().orElse(null);
+        entries.keySet().removeIf(key -> Objects.equals(key.location,
+                                                        location) && Objects.equals(key.uuid,
+                                                                                    uuid));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of requests that waited for an identical request already in flight instead of querying Kie Server.
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    public double getHitRatio() {
+        long served = hits.get() + deduplicated.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        Iterator<CachedResult> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            if (it.next().result.isDone()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class CachedResult {
+
+        private final CompletableFuture<List<List>> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private void complete(List<List> value,
+                              long expiresAt) {
+            this.expiresAt = expiresAt;
+            result.complete(value);
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        private List<List> join() {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private static class QueryKey {
+
+        private final String location;
+        private final String user;
+        private final String password;
+        private final String token;
+        private final String uuid;
+        private final QueryFilterSpec filterSpec;
+        private final int page;
+        private final int pageSize;
+
+        private QueryKey(KieServerConnectionInfo connectionInfo,
+                         String uuid,
+                         QueryFilterSpec filterSpec,
+                         int page,
+                         int pageSize) {
+            this.location = connectionInfo.getLocation().orElse(null);
+            this.user = connectionInfo.getUser().orElse(null);
+            this.password = connectionInfo.getPassword().orElse(null);
+            this.token = connectionInfo.getToken().orElse(null);
+            this.uuid = uuid;
+            this.filterSpec = filterSpec;
+            this.page = page;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey other = (QueryKey) o;
+            return page == other.page &&
+                    pageSize == other.pageSize &&
+                    Objects.equals(location,
+                                   other.location) &&
+                    Objects.equals(user,
+                                   other.user) &&
+                    Objects.equals(password,
+                                   other.password) &&
+                    Objects.equals(token,
+                                   other.token) &&
+                    Objects.equals(uuid,
+                                   other.uuid) &&
+                    Objects.equals(filterSpec,
+                                   other.filterSpec);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(location,
+                                user,
+                                password,
+                                token,
+                                uuid,
+                                filterSpec,
+                                page,
+                                pageSize);
+        }
+    }
+}
@@ -17,7 +17,11 @@
 package org.dashbuilder.kieserver.backend.rest;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -26,10 +30,13 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 
 import org.dashbuilder.kieserver.KieServerConnectionInfo;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 
 /**
  * Run queries on Kie Server using its REST API
- * 
+ * <p>
+ * A pooled, keep alive client is kept per Kie Server location and shared by all the requests to it; credentials
+ * are set on each request. Query results are kept for a short time in a {@link KieServerQueryCache}.
  */
 @ApplicationScoped
 public class KieServerQueryClient {
@@ -41,15 +48,24 @@ public class KieServerQueryClient {
     public static final String QUERY_DEFINITION_URI = "queries/definitions/{id}";
     public static final String QUERY_EXECUTION_URI = QUERY_DEFINITION_URI + "/filtered-data";
 
+    public static final String POOL_SIZE_PROPERTY = "org.dashbuilder.kieserver.client.poolSize";
+    public static final String CONNECTION_TTL_PROPERTY = "org.dashbuilder.kieserver.client.connectionTTL";
+    public static final String QUERY_CACHE_TTL_PROPERTY = "org.dashbuilder.kieserver.query.cache.ttl";
+    public static final String QUERY_CACHE_SIZE_PROPERTY = "org.dashbuilder.kieserver.query.cache.size";
+
+    private final int poolSize = Integer.getInteger(POOL_SIZE_PROPERTY, 20);
+    private final long connectionTTL = Long.getLong(CONNECTION_TTL_PROPERTY, 60000L);
+
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final KieServerQueryCache queryCache = new KieServerQueryCache(Long.getLong(QUERY_CACHE_TTL_PROPERTY, 3000L),
+                                                                           Integer.getInteger(QUERY_CACHE_SIZE_PROPERTY, 500));
+
     public QueryDefinition getQuery(KieServerConnectionInfo connectionInfo, String uuid) {
-        Client client = ClientBuilder.newClient();
-        WebTarget target = requestForQueryDefinition(connectionInfo, uuid, client);
-
-        QueryDefinition queryDefinition = target.request()
-                                                .accept(REQUEST_MEDIA_TYPE)
-                                                .get(QueryDefinition.class);
-        client.close();
-        return queryDefinition;
+        WebTarget target = requestForQueryDefinition(connectionInfo, uuid);
+
+        return target.request()
+                     .accept(REQUEST_MEDIA_TYPE)
+                     .get(QueryDefinition.class);
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -58,53 +74,80 @@ public class KieServerQueryClient {
                             QueryFilterSpec filterSpec,
                             int i,
                             int numberOfRows) {
-
-        Client client = ClientBuilder.newClient();
-        WebTarget target = client.target(connectionInfo.getLocation().get())
-                                 .path(QUERY_EXECUTION_URI)
-                                 .resolveTemplate("id", uuid)
-                                 .queryParam("mapper", QUERY_MAP_RAW)
-                                 .queryParam("page", i)
-                                 .queryParam("pageSize", numberOfRows);
-
-        addAuth(connectionInfo, target);
-
-        List<List> response = target.request()
-                                    .accept(REQUEST_MEDIA_TYPE)
-                                    .post(Entity.entity(filterSpec, REQUEST_MEDIA_TYPE), List.class);
-        client.close();
-        return response;
+        return queryCache.get(connectionInfo,
+                              uuid,
+                              filterSpec,
+                              i,
+                              numberOfRows,
+                              () -> {
+                                  WebTarget target = client(connectionInfo).target(connectionInfo.getLocation().get())
+                                                                           .path(QUERY_EXECUTION_URI)
+                                                                           .resolveTemplate("id", uuid)
+                                                                           .queryParam("mapper", QUERY_MAP_RAW)
+                                                                           .queryParam("page", i)
+                                                                           .queryParam("pageSize", numberOfRows);
+
+                                  addAuth(connectionInfo, target);
+
+                                  return target.request()
+                                               .accept(REQUEST_MEDIA_TYPE)
+                                               .post(Entity.entity(filterSpec, REQUEST_MEDIA_TYPE), List.class);
+                              });
     }
 
     public QueryDefinition replaceQuery(KieServerConnectionInfo connectionInfo, QueryDefinition queryDefinition) {
-        Client client = ClientBuilder.newClient();
-        WebTarget target = requestForQueryDefinition(connectionInfo, queryDefinition.getName(), client);
+        WebTarget target = requestForQueryDefinition(connectionInfo, queryDefinition.getName());
         QueryDefinition def = target.request()
                      .accept(REQUEST_MEDIA_TYPE)
                      .put(Entity.entity(queryDefinition, REQUEST_MEDIA_TYPE), QueryDefinition.class);
-        client.close();
+        queryCache.invalidate(connectionInfo, queryDefinition.getName());
         return def;
 
     }
 
     public void unregisterQuery(KieServerConnectionInfo connectionInfo, String dataSetUUID) {
-        Client client = ClientBuilder.newClient();
-        WebTarget target = requestForQueryDefinition(connectionInfo, dataSetUUID, client);
-        target.request().delete();
-        client.close();
+        WebTarget target = requestForQueryDefinition(connectionInfo, dataSetUUID);
+        // the response has to be closed to release its pooled connection
+        target.request().delete().close();
+        queryCache.invalidate(connectionInfo, dataSetUUID);
+    }
+
+    public KieServerQueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        clients.values().forEach(Client::close);
+        clients.clear();
+        queryCache.clear();
+    }
+
+    Client client(KieServerConnectionInfo connectionInfo) {
+        return clients.computeIfAbsent(connectionInfo.getLocation().get(),
+                                       location -> newClient());
+    }
+
+    private Client newClient() {
+        ClientBuilder builder = ClientBuilder.newBuilder();
+        if (builder instanceof ResteasyClientBuilder) {
+            // the default RESTEasy client holds a single connection and can't be shared by concurrent requests
+            ((ResteasyClientBuilder) builder).connectionPoolSize(poolSize)
+                                             .maxPooledPerRoute(poolSize)
+                                             .connectionTTL(connectionTTL, TimeUnit.MILLISECONDS);
+        }
+        return builder.build();
     }
 
     private WebTarget requestForQueryDefinition(KieServerConnectionInfo connectionInfo,
-                                                String dataSetUUID,
-                                                Client client) {
-        WebTarget target = client.target(connectionInfo.getLocation().get())
+                                                String dataSetUUID) {
+        WebTarget target = client(connectionInfo).target(connectionInfo.getLocation().get())
                                  .path(QUERY_DEFINITION_URI)
                                  .resolveTemplate("id", dataSetUUID);
 
         addAuth(connectionInfo, target);
         return target;
     }
-
     private void addAuth(KieServerConnectionInfo connectionInfo, WebTarget target) {
         if (connectionInfo.getUser().isPresent()) {
             String user = connectionInfo.getUser().get();
@@ -17,6 +17,7 @@ package org.dashbuilder.kieserver.backend.rest;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Objects;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -82,6 +83,27 @@ public class QueryFilterSpec {
         this.orderByClause = orderByClause;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryFilterSpec)) {
+            return false;
+        }
+        QueryFilterSpec other = (QueryFilterSpec) o;
+        return ascending == other.ascending &&
+                Objects.equals(orderBy, other.orderBy) &&
+                Arrays.equals(parameters, other.parameters) &&
+                Objects.equals(columnMapping, other.columnMapping) &&
+                Objects.equals(orderByClause, other.orderByClause);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderBy, ascending, Arrays.hashCode(parameters), columnMapping, orderByClause);
+    }
+
     @Override
     public String toString() {
         return "QueryFilterSpec{" + "orderBy='" + orderBy + '\'' + ", ascending=" + ascending + ", parameters=" + Arrays.toString(parameters) + '}';
@@ -16,6 +16,7 @@
 package org.dashbuilder.kieserver.backend.rest;
 
 import java.util.List;
+import java.util.Objects;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -67,6 +68,25 @@ public class QueryParam {
         this.value = value;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof QueryParam)) {
+            return false;
+        }
+        QueryParam other = (QueryParam) o;
+        return Objects.equals(column, other.column) &&
+                Objects.equals(operator, other.operator) &&
+                Objects.equals(value, other.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, operator, value);
+    }
+
     @Override
     public String toString() {
         return "QueryParam{" +
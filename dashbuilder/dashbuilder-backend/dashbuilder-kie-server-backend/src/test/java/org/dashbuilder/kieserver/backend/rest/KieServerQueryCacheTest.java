@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dashbuilder.kieserver.backend.rest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dashbuilder.kieserver.KieServerConnectionInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+@SuppressWarnings("rawtypes")
+public class KieServerQueryCacheTest {
+
+    private static final long TTL = 1000;
+    private static final String QUERY = "query1";
+
+    private static final KieServerConnectionInfo CONNECTION = new KieServerConnectionInfo(Optional.of("http://kieserver"),
+                                                                                          Optional.of("user"),
+                                                                                          Optional.of("password"),
+                                                                                          Optional.empty(),
+                                                                                          false);
+
+    private AtomicLong clock;
+    private AtomicInteger queries;
+    private KieServerQueryCache cache;
+
+    @Before
+    public void setup() {
+        clock = new AtomicLong();
+        queries = new AtomicInteger();
+        cache = new KieServerQueryCache(TTL,
+                                        10,
+                                        clock::get);
+    }
+
+    @Test
+    public void identicalQueriesAreServedFromCacheUntilExpired() {
+        List<List> first = query(filterSpec("name"),
+                                 0);
+        assertSame(first,
+                   query(filterSpec("name"),
+                         0));
+        assertEquals(1,
+                     queries.get());
+
+        clock.set(TTL);
+        query(filterSpec("name"),
+              0);
+        assertEquals(2,
+                     queries.get());
+        assertEquals(1,
+                     cache.getHitCount());
+        assertEquals(2,
+                     cache.getMissCount());
+    }
+
+    @Test
+    public void differentFiltersAndPagesAreCachedSeparately() {
+        query(filterSpec("name"),
+              0);
+        query(filterSpec("date"),
+              0);
+        query(filterSpec("name"),
+              1);
+
+        assertEquals(3,
+                     queries.get());
+        assertEquals(3,
+                     cache.size());
+    }
+
+    @Test
+    public void failedQueriesAreNotCached() {
+        try {
+            cache.get(CONNECTION,
+                      QUERY,
+                      filterSpec("name"),
+                      0,
+                      10,
+                      () -> {
+                          throw new IllegalStateException("Kie Server down");
+                      });
+            fail("Query failure should be propagated");
+        } catch (IllegalStateException e) {
+            assertEquals(0,
+                         cache.size());
+        }
+        query(filterSpec("name"),
+              0);
+        assertEquals(1,
+                     queries.get());
+    }
+
+    @Test
+    public void queriesFailingWithAnErrorAreNotCached() {
+        try {
+            cache.get(CONNECTION,
+                      QUERY,
+                      filterSpec("name"),
+                      0,
+                      10,
+                      () -> {
+                          throw new OutOfMemoryError("Result too large");
+                      });
+            fail("Query failure should be propagated");
+        } catch (OutOfMemoryError e) {
+            assertEquals(0,
+                         cache.size());
+        }
+        query(filterSpec("name"),
+              0);
+        assertEquals(1,
+                     queries.get());
+    }
+
+    @Test
+    public void invalidateDropsResultsOfTheQuery() {
+        query(filterSpec("name"),
+              0);
+        cache.invalidate(CONNECTION,
+                         QUERY);
+
+        assertEquals(0,
+                     cache.size());
+        query(filterSpec("name"),
+              0);
+        assertEquals(2,
+                     queries.get());
+    }
+
+    @Test
+    public void concurrentIdenticalQueriesAreDeduplicated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List> result = Collections.singletonList(Collections.singletonList("row"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<List>> inFlight = executor.submit(() -> cache.get(CONNECTION,
+                                                                          QUERY,
+                                                                          filterSpec("name"),
+                                                                          0,
+                                                                          10,
+                                                                          () -> {
+                                                                              started.countDown();
+                                                                              await(release);
+                                                                              return result;
+                                                                          }));
+            started.await(5,
+                          TimeUnit.SECONDS);
+
+            Future<List<List>> waiting = executor.submit(() -> query(filterSpec("name"),
+                                                                    0));
+            while (cache.getDeduplicatedCount() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertSame(result,
+                       inFlight.get(5,
+                                    TimeUnit.SECONDS));
+            assertSame(result,
+                       waiting.get(5,
+                                   TimeUnit.SECONDS));
+            assertEquals(0,
+                         queries.get());
+            assertEquals(1,
+                         cache.getMissCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<List> query(QueryFilterSpec filterSpec,
+                             int page) {
+        return cache.get(CONNECTION,
+                         QUERY,
+                         filterSpec,
+                         page,
+                         10,
+                         () -> {
+                             queries.incrementAndGet();
+                             return Collections.singletonList(Collections.singletonList(page));
+                         });
+    }
+
+    private QueryFilterSpec filterSpec(String orderBy) {
+        QueryFilterSpec filterSpec = new QueryFilterSpec();
+        filterSpec.setOrderBy(orderBy);
+        filterSpec.setParameters(new QueryParam[]{new QueryParam("status",
+                                                                 "EQUALS_TO",
+                                                                 Collections.singletonList(1))});
+        return filterSpec;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5,
+                        TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dashbuilder.dataset.service;
+
+/**
+ * Receives the progress of a streaming data set export and lets the caller cancel it.
+ * <p>
+ * Both methods are called from the exporting thread, once per page of rows read from the data set provider.
+ */
+public interface DataSetExportMonitor {
+
+    DataSetExportMonitor NONE = new DataSetExportMonitor() {
+    };
+
+    /**
+     * @param rowsExported Number of data rows written so far.
+     * @param totalRows Number of rows that will be exported, or -1 if the provider does not know it.
+     */
+    default void onProgress(int rowsExported,
+                            int totalRows) {
+    }
+
+    /**
+     * Checked before each page is read. Once it returns true the export is aborted, its temporary file removed and
+     * a {@link DataSetExportCancelledException} thrown.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
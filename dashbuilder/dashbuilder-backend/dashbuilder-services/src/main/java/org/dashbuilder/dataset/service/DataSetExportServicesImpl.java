@@ -24,16 +24,15 @@ import java.math.BigInteger;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
 import au.com.bytecode.opencsv.CSVWriter;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.apache.poi.ss.usermodel.Cell;
@@ -72,6 +71,13 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
 
     private static final String TEXT_CELL = "text_cell";
     protected static Logger log = LoggerFactory.getLogger(DataSetExportServicesImpl.class);
+
+    public static final String EXPORT_PAGE_SIZE_PROPERTY = "org.dashbuilder.export.pageSize";
+    public static final String EXPORT_MAX_ROWS_PROPERTY = "org.dashbuilder.export.maxRows";
+
+    // Rows of an Excel 2007+ sheet, minus the header
+    static final int EXCEL_MAX_DATA_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
     protected DataSetManagerCDI dataSetManager;
     protected DataSetDefRegistryCDI gitStorage;
     protected UUIDGenerator uuidGenerator;
@@ -87,6 +93,11 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
     protected DecimalFormat decf = new DecimalFormat(numberFormatPattern);
     protected DateFormat datef = new SimpleDateFormat(dateFormatPattern);
 
+    // Rows read from the data set provider per lookup on streaming exports
+    protected int pageSize = Integer.getInteger(EXPORT_PAGE_SIZE_PROPERTY, 5000);
+    // Max rows of a lookup export, -1 for no limit
+    protected int maxRows = Integer.getInteger(EXPORT_MAX_ROWS_PROPERTY, -1);
+
     public DataSetExportServicesImpl() {
     }
 
@@ -101,8 +112,51 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
     }
 
     public org.uberfire.backend.vfs.Path exportDataSetCSV(DataSetLookup lookup) {
-        DataSet dataSet = dataSetManager.lookupDataSet(lookup);
-        return exportDataSetCSV(dataSet);
+        return exportDataSetCSV(lookup,
+                                maxRows,
+                                DataSetExportMonitor.NONE);
+    }
+
+    /**
+     * Export a dataset, specified by a DataSetLookup, to CSV format. Rows are read from the data set provider
+     * and written to the file one page at a time, so the whole data set is never held in memory.
+     * @param lookup The dataSetLookup that defines the dataset to be exported.
+     * @param maxRows Max number of rows to export, -1 for no limit other than the lookup's own number of rows.
+     * @param monitor Progress and cancellation monitor.
+     * @return The VFS path to the export file generated
+     */
+    public org.uberfire.backend.vfs.Path exportDataSetCSV(DataSetLookup lookup,
+                                                          int maxRows,
+                                                          DataSetExportMonitor monitor) {
+        Path tempCsvPath = null;
+        try {
+            tempCsvPath = gitStorage.createTempFile(uuidGenerator.newUuid() + ".csv");
+            try (CSVWriter writer = newCSVWriter(tempCsvPath)) {
+                exportPages(lookup,
+                            maxRows,
+                            monitor,
+                            new PageWriter() {
+                                @Override
+                                public void header(DataSet page) {
+                                    writeCSVHeader(writer,
+                                                   page);
+                                }
+
+                                @Override
+                                public void rows(DataSet page,
+                                                 int rowCount) {
+                                    writeCSVRows(writer,
+                                                 page,
+                                                 rowCount);
+                                }
+                            });
+                writer.flush();
+            }
+            return Paths.convert(tempCsvPath);
+        } catch (Exception e) {
+            deleteQuietly(tempCsvPath);
+            throw handleExportException(e);
+        }
     }
 
     public org.uberfire.backend.vfs.Path exportDataSetCSV(DataSet dataSet) {
@@ -110,37 +164,16 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
             if (dataSet == null) {
                 throw new IllegalArgumentException("Null dataSet specified!");
             }
-            int columnCount = dataSet.getColumns().size();
-            int rowCount = dataSet.getRowCount();
-
-            List<String[]> lines = new ArrayList<>(rowCount+1);
-
-            String[] line = new String[columnCount];
-            for (int cc = 0; cc < columnCount; cc++) {
-                DataColumn dc = dataSet.getColumnByIndex(cc);
-                line[cc] = dc.getId();
-            }
-            lines.add(line);
-
-            for (int rc = 0; rc < rowCount; rc++) {
-                line = new String[columnCount];
-                for (int cc = 0; cc < columnCount; cc++) {
-                    line[cc] = formatAsString(dataSet.getValueAt(rc, cc));
-                }
-                lines.add(line);
-            }
-
             String tempCsvFile = uuidGenerator.newUuid() + ".csv";
             Path tempCsvPath = gitStorage.createTempFile(tempCsvFile);
 
-            try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tempCsvPath)));
-                 CSVWriter writer = new CSVWriter(bw,
-                                                  DEFAULT_SEPARATOR_CHAR.charAt(0),
-                                                  DEFAULT_QUOTE_CHAR.charAt(0),
-                                                  DEFAULT_ESCAPE_CHAR.charAt(0))
-                 ) {
-                     writer.writeAll(lines);
-                     writer.flush();
+            try (CSVWriter writer = newCSVWriter(tempCsvPath)) {
+                writeCSVHeader(writer,
+                               dataSet);
+                writeCSVRows(writer,
+                             dataSet,
+                             dataSet.getRowCount());
+                writer.flush();
             }
 
             return Paths.convert(tempCsvPath);
@@ -152,8 +185,41 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
 
     @Override
     public org.uberfire.backend.vfs.Path exportDataSetExcel(DataSetLookup dataSetLookup) {
-        DataSet dataSet = dataSetManager.lookupDataSet( dataSetLookup );
-        return exportDataSetExcel( dataSet );
+        return exportDataSetExcel(dataSetLookup,
+                                  maxRows,
+                                  DataSetExportMonitor.NONE);
+    }
+
+    /**
+     * Export a dataset, specified by a DataSetLookup, to Excel format. Rows are read from the data set provider
+     * one page at a time and flushed to disk by the streaming workbook, so the whole data set is never held in
+     * memory. The export is always limited to the max number of rows of an Excel sheet.
+     * @param dataSetLookup The dataSetLookup that defines the dataset to be exported.
+     * @param maxRows Max number of rows to export, -1 for no limit other than the lookup's own number of rows.
+     * @param monitor Progress and cancellation monitor.
+     * @return The VFS path to the export file generated
+     */
+    public org.uberfire.backend.vfs.Path exportDataSetExcel(DataSetLookup dataSetLookup,
+                                                            int maxRows,
+                                                            DataSetExportMonitor monitor) {
+        Path tempXlsPath = null;
+        SheetWriter sheetWriter = new SheetWriter();
+        try {
+            exportPages(dataSetLookup,
+                        rowLimit(maxRows,
+                                 EXCEL_MAX_DATA_ROWS),
+                        monitor,
+                        sheetWriter);
+            tempXlsPath = gitStorage.createTempFile(uuidGenerator.newUuid() + ".xlsx");
+            writeWorkbook(sheetWriter.finish(),
+                          tempXlsPath);
+            return Paths.convert(tempXlsPath);
+        } catch (Exception e) {
+            deleteQuietly(tempXlsPath);
+            throw handleExportException(e);
+        } finally {
+            dispose(sheetWriter.wb);
+        }
     }
 
     @Override
@@ -164,14 +230,11 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
             // Write workbook to Path
             String tempXlsFile = uuidGenerator.newUuid() + ".xlsx";
             Path tempXlsPath = gitStorage.createTempFile(tempXlsFile);
-            try (OutputStream os = Files.newOutputStream(tempXlsPath)) {
-                wb.write(os);
-                os.flush();
-            }
-
-            // Dispose of temporary files backing this workbook on disk
-            if (!wb.dispose()) {
-                log.warn("Could not dispose of temporary file associated to data export!");
+            try {
+                writeWorkbook(wb,
+                              tempXlsPath);
+            } finally {
+                dispose(wb);
             }
             return Paths.convert(tempXlsPath);
         } catch (Exception e) {
@@ -185,69 +248,177 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
         if (dataSet == null) {
             throw new IllegalArgumentException("Null dataSet specified!");
         }
-        int columnCount = dataSet.getColumns().size();
-        int rowCount = dataSet.getRowCount() + 1; //Include header row;
-        int row = 0;
-
-        SXSSFWorkbook wb = new SXSSFWorkbook(100); // keep 100 rows in memory, exceeding rows will be flushed to disk
-        Map<String, CellStyle> styles = createStyles(wb);
-        SXSSFSheet sh = wb.createSheet("Sheet 1");
-
-        // General setup
-        sh.setDisplayGridlines(true);
-        sh.setPrintGridlines(false);
-        sh.setFitToPage(true);
-        sh.setHorizontallyCenter(true);
-        sh.trackAllColumnsForAutoSizing();
-        PrintSetup printSetup = sh.getPrintSetup();
-        printSetup.setLandscape(true);
-
-        // Create header
-        Row header = sh.createRow(row++);
-        header.setHeightInPoints(20f);
-        for (int i = 0; i < columnCount; i++) {
-            Cell cell = header.createCell(i);
-            cell.setCellStyle(styles.get("header"));
-            cell.setCellValue(dataSet.getColumnByIndex(i).getId());
+        SheetWriter sheetWriter = new SheetWriter();
+        sheetWriter.header(dataSet);
+        sheetWriter.rows(dataSet,
+                         dataSet.getRowCount());
+        return sheetWriter.finish();
+    }
+
+    /**
+     * Runs the lookup one page at a time, starting at its row offset, until the provider runs out of rows or the
+     * row limit is reached, and hands every page to the given writer. The header is written from the first page.
+     * <p>
+     * Every page is a separate lookup, so rows are only exported once if every lookup returns them in the same
+     * order. Unsorted lookups give no such guarantee, ie., an SQL query without ORDER BY, so they are read with a
+     * single lookup of every row instead of in pages.
+     * <p>
+     * Providers not honouring the number of rows return more rows than requested, the whole data set when they
+     * ignore the row offset too. The rest of the rows are then exported from that page.
+     * @return The number of data rows exported.
+     */
+    //Package private to enable testing
+    int exportPages(DataSetLookup lookup,
+                    int maxRows,
+                    DataSetExportMonitor monitor,
+                    PageWriter pageWriter) throws IOException {
+        if (lookup == null) {
+            throw new IllegalArgumentException("Null dataSetLookup specified!");
         }
+        int offset = Math.max(lookup.getRowOffset(), 0);
+        int limit = rowLimit(lookup.getNumberOfRows(),
+                             maxRows);
+        boolean paged = lookup.getFirstSortOp() != null;
+        int exported = 0;
+        int total = -1;
+
+        while (true) {
+            if (monitor.isCancelled()) {
+                throw new DataSetExportCancelledException(exported);
+            }
+            int requested = !paged ? limit : limit < 0 ? pageSize : Math.min(pageSize, limit - exported);
+            DataSetLookup pageLookup = lookup.cloneInstance();
+            pageLookup.setRowOffset(offset + exported);
+            pageLookup.setNumberOfRows(requested);
+            DataSet page = dataSetManager.lookupDataSet(pageLookup);
+            if (page == null) {
+                throw new IllegalArgumentException("Data set not found: " + lookup.getDataSetUUID());
+            }
+            if (exported == 0) {
+                total = totalRows(page,
+                                  offset,
+                                  limit);
+                pageWriter.header(page);
+            }
 
-        // Create data rows
-        for (; row < rowCount; row++) {
-            Row _row = sh.createRow(row);
-            for (int cellnum = 0; cellnum < columnCount; cellnum++) {
-                Cell cell = _row.createCell(cellnum);
-                Object value = dataSet.getValueAt(row - 1,
-                                                  cellnum);
-                if (value instanceof Short || value instanceof Long || value instanceof Integer || value instanceof BigInteger) {
-                    cell.setCellType(CellType.NUMERIC);
-                    cell.setCellStyle(styles.get("integer_number_cell"));
-                    cell.setCellValue(((Number) value).doubleValue());
-                } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
-                    cell.setCellType(CellType.NUMERIC);
-                    cell.setCellStyle(styles.get("decimal_number_cell"));
-                    cell.setCellValue(((Number) value).doubleValue());
-                } else if (value instanceof Date) {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get("date_cell"));
-                    cell.setCellValue((Date) value);
-                } else if (value instanceof Interval) {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get(TEXT_CELL));
-                    cell.setCellValue(((Interval) value).getName());
-                } else {
-                    cell.setCellType(CellType.STRING);
-                    cell.setCellStyle(styles.get(TEXT_CELL));
-                    String val = value == null ? "" : value.toString();
-                    cell.setCellValue(val);
+            int pageRows = page.getRowCount();
+            if (requested >= 0 && pageRows > requested) {
+                // The provider returned everything at once, so the rest of the rows are in this page. If it is the
+                // whole data set, the row offset was ignored too.
+                int start = page.getRowCountNonTrimmed() == pageRows ? offset + exported : 0;
+                int rowCount = Math.max(pageRows - start,
+                                        0);
+                if (limit >= 0) {
+                    rowCount = Math.min(rowCount,
+                                        limit - exported);
+                }
+                if (rowCount > 0) {
+                    pageWriter.rows(start > 0 ? page.trim(start,
+                                                          rowCount) : page,
+                                    rowCount);
                 }
+                exported += rowCount;
+                monitor.onProgress(exported,
+                                   total);
+                return exported;
+            }
+
+            pageWriter.rows(page,
+                            pageRows);
+            exported += pageRows;
+            monitor.onProgress(exported,
+                               total);
+
+            if (!paged || pageRows < requested || exported == limit) {
+                return exported;
+            }
+        }
+    }
+
+    private int totalRows(DataSet firstPage,
+                          int offset,
+                          int limit) {
+        int nonTrimmed = firstPage.getRowCountNonTrimmed();
+        if (nonTrimmed < 0) {
+            return limit;
+        }
+        int total = Math.max(nonTrimmed - offset, 0);
+        return limit < 0 ? total : Math.min(total, limit);
+    }
+
+    /**
+     * @return The smallest of the two limits, ignoring the non positive ones, or -1 if none applies.
+     */
+    static int rowLimit(int limit1,
+                        int limit2) {
+        if (limit1 <= 0) {
+            return limit2 <= 0 ? -1 : limit2;
+        }
+        return limit2 <= 0 ? limit1 : Math.min(limit1, limit2);
+    }
+
+    private CSVWriter newCSVWriter(Path path) {
+        return new CSVWriter(new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path))),
+                             DEFAULT_SEPARATOR_CHAR.charAt(0),
+                             DEFAULT_QUOTE_CHAR.charAt(0),
+                             DEFAULT_ESCAPE_CHAR.charAt(0));
+    }
+
+    private void writeCSVHeader(CSVWriter writer,
+                                DataSet dataSet) {
+        int columnCount = dataSet.getColumns().size();
+        String[] line = new String[columnCount];
+        for (int cc = 0; cc < columnCount; cc++) {
+            DataColumn dc = dataSet.getColumnByIndex(cc);
+            line[cc] = dc.getId();
+        }
+        writer.writeNext(line);
+    }
+
+    private void writeCSVRows(CSVWriter writer,
+                              DataSet dataSet,
+                              int rowCount) {
+        int columnCount = dataSet.getColumns().size();
+        for (int rc = 0; rc < rowCount; rc++) {
+            String[] line = new String[columnCount];
+            for (int cc = 0; cc < columnCount; cc++) {
+                line[cc] = formatAsString(dataSet.getValueAt(rc, cc));
             }
+            writer.writeNext(line);
+        }
+    }
+
+    private void writeWorkbook(SXSSFWorkbook wb,
+                               Path path) throws IOException {
+        try (OutputStream os = Files.newOutputStream(path)) {
+            wb.write(os);
+            os.flush();
         }
+    }
 
-        // Adjust column size
-        for (int i = 0; i < columnCount; i++) {
-            sh.autoSizeColumn(i);
+    private void dispose(SXSSFWorkbook wb) {
+        // Dispose of temporary files backing this workbook on disk
+        if (wb != null && !wb.dispose()) {
+            log.warn("Could not dispose of temporary file associated to data export!");
         }
-        return wb;
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (Exception e) {
+            log.warn("Could not delete data export file " + path, e);
+        }
+    }
+
+    private RuntimeException handleExportException(Exception e) {
+        if (e instanceof DataSetExportCancelledException) {
+            return (DataSetExportCancelledException) e;
+        }
+        return exceptionManager.handleException(e);
     }
 
     private String formatAsString(Object value) {
@@ -314,4 +485,94 @@ public class DataSetExportServicesImpl implements DataSetExportServices {
         styles.put("date_cell", style);
         return styles;
     }
+
+    interface PageWriter {
+
+        void header(DataSet page) throws IOException;
+
+        /**
+         * Writes the first rowCount rows of the given page.
+         */
+        void rows(DataSet page,
+                  int rowCount) throws IOException;
+    }
+
+    /**
+     * Appends data set rows to the single sheet of a streaming workbook, which keeps only the last 100 rows in
+     * memory and flushes the rest to disk.
+     */
+    class SheetWriter implements PageWriter {
+
+        private final SXSSFWorkbook wb = new SXSSFWorkbook(100);
+        private final Map<String, CellStyle> styles = createStyles(wb);
+        private final SXSSFSheet sh = wb.createSheet("Sheet 1");
+        private int columnCount;
+        private int row = 0;
+
+        SheetWriter() {
+            // General setup
+            sh.setDisplayGridlines(true);
+            sh.setPrintGridlines(false);
+            sh.setFitToPage(true);
+            sh.setHorizontallyCenter(true);
+            sh.trackAllColumnsForAutoSizing();
+            PrintSetup printSetup = sh.getPrintSetup();
+            printSetup.setLandscape(true);
+        }
+
+        @Override
+        public void header(DataSet dataSet) {
+            columnCount = dataSet.getColumns().size();
+            Row header = sh.createRow(row++);
+            header.setHeightInPoints(20f);
+            for (int i = 0; i < columnCount; i++) {
+                Cell cell = header.createCell(i);
+                cell.setCellStyle(styles.get("header"));
+                cell.setCellValue(dataSet.getColumnByIndex(i).getId());
+            }
+        }
+
+        @Override
+        public void rows(DataSet dataSet,
+                         int rowCount) {
+            for (int rc = 0; rc < rowCount; rc++) {
+                Row _row = sh.createRow(row++);
+                for (int cellnum = 0; cellnum < columnCount; cellnum++) {
+                    Cell cell = _row.createCell(cellnum);
+                    Object value = dataSet.getValueAt(rc,
+                                                      cellnum);
+                    if (value instanceof Short || value instanceof Long || value instanceof Integer || value instanceof BigInteger) {
+                        cell.setCellType(CellType.NUMERIC);
+                        cell.setCellStyle(styles.get("integer_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
+                        cell.setCellType(CellType.NUMERIC);
+                        cell.setCellStyle(styles.get("decimal_number_cell"));
+                        cell.setCellValue(((Number) value).doubleValue());
+                    } else if (value instanceof Date) {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get("date_cell"));
+                        cell.setCellValue((Date) value);
+                    } else if (value instanceof Interval) {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get(TEXT_CELL));
+                        cell.setCellValue(((Interval) value).getName());
+                    } else {
+                        cell.setCellType(CellType.STRING);
+                        cell.setCellStyle(styles.get(TEXT_CELL));
+                        String val = value == null ? "" : value.toString();
+                        cell.setCellValue(val);
+                    }
+                }
+            }
+        }
+
+        SXSSFWorkbook finish() {
+            // Adjust column size
+            for (int i = 0; i < columnCount; i++) {
+                sh.autoSizeColumn(i);
+            }
+            return wb;
+        }
+    }
 }
@@ -3,18 +3,25 @@ package org.dashbuilder.dataset.service;
 import org.apache.poi.xssf.streaming.SXSSFRow;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.dashbuilder.dataset.DataSet;
+import org.dashbuilder.dataset.DataSetBuilder;
 import org.dashbuilder.dataset.DataSetDefRegistryCDI;
 import org.dashbuilder.dataset.DataSetFactory;
+import org.dashbuilder.dataset.DataSetLookup;
+import org.dashbuilder.dataset.DataSetLookupFactory;
 import org.dashbuilder.dataset.DataSetManagerCDI;
+import org.dashbuilder.dataset.sort.SortOrder;
 import org.dashbuilder.exception.ExceptionManager;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataSetExportServicesTest {
@@ -111,4 +118,238 @@ public class DataSetExportServicesTest {
         assertEquals("", secondRow.getCell(1).getStringCellValue());
         assertEquals("", secondRow.getCell(2).getStringCellValue());
     }
+
+    @Test
+    public void exportPagesReadsTheLookupOnePageAtATime() throws Exception {
+        DataSetExportServicesImpl exporter = pagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+
+        int exported = exporter.exportPages(sortedLookup(),
+                                            -1,
+                                            DataSetExportMonitor.NONE,
+                                            pageWriter);
+
+        assertEquals(12,
+                     exported);
+        assertEquals(1,
+                     pageWriter.headers);
+        assertEquals(12,
+                     pageWriter.rows);
+        ArgumentCaptor<DataSetLookup> captor = ArgumentCaptor.forClass(DataSetLookup.class);
+        verify(dataSetManagerM,
+               times(3)).lookupDataSet(captor.capture());
+        assertEquals(0,
+                     captor.getAllValues().get(0).getRowOffset());
+        assertEquals(5,
+                     captor.getAllValues().get(1).getRowOffset());
+        assertEquals(10,
+                     captor.getAllValues().get(2).getRowOffset());
+        assertEquals(5,
+                     captor.getAllValues().get(2).getNumberOfRows());
+    }
+
+    @Test
+    public void exportPagesStopsAtTheRowLimit() throws Exception {
+        DataSetExportServicesImpl exporter = pagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+
+        int exported = exporter.exportPages(sortedLookup(),
+                                            7,
+                                            DataSetExportMonitor.NONE,
+                                            pageWriter);
+
+        assertEquals(7,
+                     exported);
+        assertEquals(7,
+                     pageWriter.rows);
+        ArgumentCaptor<DataSetLookup> captor = ArgumentCaptor.forClass(DataSetLookup.class);
+        verify(dataSetManagerM,
+               times(2)).lookupDataSet(captor.capture());
+        assertEquals(2,
+                     captor.getAllValues().get(1).getNumberOfRows());
+    }
+
+    @Test
+    public void exportPagesWritesEveryRowOfProvidersIgnoringTheOffset() throws Exception {
+        DataSetExportServicesImpl exporter = unpagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+
+        int exported = exporter.exportPages(sortedLookup(),
+                                            -1,
+                                            DataSetExportMonitor.NONE,
+                                            pageWriter);
+
+        assertEquals(12,
+                     exported);
+        assertEquals(12,
+                     pageWriter.rows);
+        verify(dataSetManagerM,
+               times(1)).lookupDataSet(any(DataSetLookup.class));
+    }
+
+    @Test
+    public void exportPagesSkipsTheOffsetIgnoredByTheProvider() throws Exception {
+        DataSetExportServicesImpl exporter = unpagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+        DataSetLookup lookup = sortedLookup();
+        lookup.setRowOffset(3);
+
+        int exported = exporter.exportPages(lookup,
+                                            -1,
+                                            DataSetExportMonitor.NONE,
+                                            pageWriter);
+
+        assertEquals(9,
+                     exported);
+        assertEquals(9,
+                     pageWriter.rows);
+        assertEquals(3d,
+                     pageWriter.firstValue);
+    }
+
+    @Test
+    public void exportPagesReadsUnsortedLookupsAtOnce() throws Exception {
+        DataSetExportServicesImpl exporter = pagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+
+        int exported = exporter.exportPages(lookup(),
+                                            -1,
+                                            DataSetExportMonitor.NONE,
+                                            pageWriter);
+
+        assertEquals(12,
+                     exported);
+        assertEquals(12,
+                     pageWriter.rows);
+        ArgumentCaptor<DataSetLookup> captor = ArgumentCaptor.forClass(DataSetLookup.class);
+        verify(dataSetManagerM,
+               times(1)).lookupDataSet(captor.capture());
+        assertEquals(-1,
+                     captor.getValue().getNumberOfRows());
+    }
+
+    @Test
+    public void exportPagesCanBeCancelled() throws Exception {
+        DataSetExportServicesImpl exporter = pagedExporter(5);
+        RecordingPageWriter pageWriter = new RecordingPageWriter();
+        DataSetExportMonitor monitor = new DataSetExportMonitor() {
+            int progress;
+
+            @Override
+            public void onProgress(int rowsExported,
+                                   int totalRows) {
+                progress = rowsExported;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return progress > 0;
+            }
+        };
+
+        try {
+            exporter.exportPages(sortedLookup(),
+                                 -1,
+                                 monitor,
+                                 pageWriter);
+            fail("Export should have been cancelled");
+        } catch (DataSetExportCancelledException e) {
+            assertEquals(5,
+                         pageWriter.rows);
+            verify(dataSetManagerM,
+                   times(1)).lookupDataSet(any(DataSetLookup.class));
+        }
+    }
+
+    @Test
+    public void rowLimitIgnoresNonPositiveLimits() {
+        assertEquals(-1,
+                     DataSetExportServicesImpl.rowLimit(-1,
+                                                        0));
+        assertEquals(10,
+                     DataSetExportServicesImpl.rowLimit(-1,
+                                                        10));
+        assertEquals(10,
+                     DataSetExportServicesImpl.rowLimit(10,
+                                                        0));
+        assertEquals(5,
+                     DataSetExportServicesImpl.rowLimit(10,
+                                                        5));
+    }
+
+    private DataSetExportServicesImpl pagedExporter(int pageSize) {
+        // A 12 rows data set provider that honours the lookup's row offset and number of rows. Like the KIE Server
+        // provider, the non trimmed row count is the size of the returned page.
+        when(dataSetManagerM.lookupDataSet(any(DataSetLookup.class))).thenAnswer(invocation -> {
+            DataSetLookup lookup = (DataSetLookup) invocation.getArguments()[0];
+            int end = lookup.getNumberOfRows() < 0 ? 12 : Math.min(lookup.getRowOffset() + lookup.getNumberOfRows(),
+                                                                   12);
+            DataSetBuilder builder = DataSetFactory.newDataSetBuilder().number("Id");
+            for (int i = lookup.getRowOffset(); i < end; i++) {
+                builder.row((double) i);
+            }
+            DataSet dataSet = builder.buildDataSet();
+            dataSet.setRowCountNonTrimmed(dataSet.getRowCount());
+            return dataSet;
+        });
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+        exporter.pageSize = pageSize;
+        return exporter;
+    }
+
+    private DataSetExportServicesImpl unpagedExporter(int pageSize) {
+        // A 12 rows data set provider that ignores the lookup's row offset and number of rows
+        when(dataSetManagerM.lookupDataSet(any(DataSetLookup.class))).thenAnswer(invocation -> {
+            DataSetBuilder builder = DataSetFactory.newDataSetBuilder().number("Id");
+            for (int i = 0; i < 12; i++) {
+                builder.row((double) i);
+            }
+            DataSet dataSet = builder.buildDataSet();
+            dataSet.setRowCountNonTrimmed(12);
+            return dataSet;
+        });
+        DataSetExportServicesImpl exporter = new DataSetExportServicesImpl(dataSetManagerM,
+                                                                           gitStorageM,
+                                                                           exceptionManagerM);
+        exporter.pageSize = pageSize;
+        return exporter;
+    }
+
+    private DataSetLookup lookup() {
+        return DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("test")
+                .buildLookup();
+    }
+
+    private DataSetLookup sortedLookup() {
+        return DataSetLookupFactory.newDataSetLookupBuilder()
+                .dataset("test")
+                .sort("Id",
+                      SortOrder.ASCENDING)
+                .buildLookup();
+    }
+
+    private static class RecordingPageWriter implements DataSetExportServicesImpl.PageWriter {
+
+        int headers;
+        int rows;
+        Object firstValue;
+
+        @Override
+        public void header(DataSet page) {
+            headers++;
+        }
+
+        @Override
+        public void rows(DataSet page,
+                         int rowCount) {
+            if (rows == 0 && rowCount > 0) {
+                firstValue = page.getValueAt(0,
+                                             0);
+            }
+            rows += rowCount;
+        }
+    }
 }
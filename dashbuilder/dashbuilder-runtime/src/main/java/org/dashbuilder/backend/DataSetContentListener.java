@@ -21,7 +21,6 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.dashbuilder.backend.services.dataset.RuntimeCSVFileStorage;
 import org.dashbuilder.backend.services.dataset.provider.RuntimeDataSetProviderRegistry;
 import org.dashbuilder.dataset.def.DataSetDef;
 import org.dashbuilder.dataset.def.DataSetDefRegistry;
@@ -44,9 +43,6 @@ public class DataSetContentListener {
     @Inject
     DataSetDefRegistry registry;
 
-    @Inject
-    RuntimeCSVFileStorage storage;
-
     @Inject
     RuntimeDataSetProviderRegistry runtimeDataSetProviderRegistry;
 
@@ -65,9 +61,6 @@ public class DataSetContentListener {
         try {
             DataSetContentType contentType = content.getContentType();
             switch (contentType) {
-                case CSV:
-                    storage.storeCSV(content.getId(), content.getContent());
-                    break;
                 case DEFINITION:
                     registerDataSetDefinition(content);
                     break;
@@ -17,20 +17,38 @@
 package org.dashbuilder.backend.services.dataset;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 
 import org.dashbuilder.dataprovider.csv.CSVFileStorage;
 import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps imported CSV contents in temporary files, so large data sets are streamed to and from disk instead of
+ * being held in memory.
+ *
+ */
 @ApplicationScoped
 public class RuntimeCSVFileStorage implements CSVFileStorage {
 
-    Map<String, String> csvStorage;
+    private final Logger logger = LoggerFactory.getLogger(RuntimeCSVFileStorage.class);
+
+    Map<String, Path> csvStorage;
+
+    Path storageDir;
 
     public RuntimeCSVFileStorage() {
         // not used
@@ -38,22 +56,70 @@ public class RuntimeCSVFileStorage implements CSVFileStorage {
 
     @PostConstruct
     public void init() {
-        csvStorage = new HashMap<>();
+        csvStorage = new ConcurrentHashMap<>();
+        try {
+            storageDir = Files.createTempDirectory("dashbuilder-csv");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Not able to create CSV storage directory", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        csvStorage.values().forEach(this::delete);
+        csvStorage.clear();
+        delete(storageDir);
     }
 
     @Override
     public InputStream getCSVInputStream(CSVDataSetDef def) {
-        String csvStr = getCSVString(def);
-        return new ByteArrayInputStream(csvStr.getBytes());
+        Path csvPath = csvStorage.get(def.getUUID());
+        if (csvPath == null) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        try {
+            return Files.newInputStream(csvPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
     public String getCSVString(CSVDataSetDef def) {
-        return csvStorage.getOrDefault(def.getUUID(), "");
+        Path csvPath = csvStorage.get(def.getUUID());
+        if (csvPath == null) {
+            return "";
+        }
+        try {
+            return new String(Files.readAllBytes(csvPath), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public void storeCSV(String uuid, String csvContent) {
-        csvStorage.put(uuid, csvContent);
+        storeCSV(uuid, new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Copies the given CSV content to the storage. The stream is consumed but not closed. The content is written
+     * to a new file which then replaces the previous content, so readers never see a partially written CSV.
+     */
+    public void storeCSV(String uuid, InputStream csvContent) {
+        Path tmpPath = newCSVFile(uuid);
+        try {
+            Files.copy(csvContent, tmpPath, StandardCopyOption.REPLACE_EXISTING);
+            Path csvPath = csvStorage.putIfAbsent(uuid, tmpPath);
+            if (csvPath != null) {
+                Files.move(tmpPath,
+                           csvPath,
+                           StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            delete(tmpPath);
+            throw new UncheckedIOException("Not able to store CSV " + uuid, e);
+        }
     }
 
     @Override
@@ -67,4 +133,20 @@ public class RuntimeCSVFileStorage implements CSVFileStorage {
         // Ignored
     }
 
-}
\ No newline at end of file
+    private Path newCSVFile(String uuid) {
+        try {
+            return Files.createTempFile(storageDir, "dataset", ".csv");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Not able to delete {}", path, e);
+        }
+    }
+
+}
@@ -16,8 +16,13 @@
 
 package org.dashbuilder.backend.services.impl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -32,6 +37,7 @@ import javax.inject.Inject;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.dashbuilder.backend.navigation.RuntimeNavigationBuilder;
+import org.dashbuilder.backend.services.dataset.RuntimeCSVFileStorage;
 import org.dashbuilder.navigation.NavTree;
 import org.dashbuilder.shared.event.NewDataSetContentEvent;
 import org.dashbuilder.shared.model.DataSetContent;
@@ -46,6 +52,10 @@ import static org.dashbuilder.shared.model.ImportDefinitions.PERSPECTIVE_SUFFIX;
 
 /**
  * Parses an exported zip file from Transfer Services into RuntimeModel.
+ * <p>
+ * The zip is read as a stream: CSV contents are copied straight to {@link RuntimeCSVFileStorage} and layout
+ * templates are parsed from the entry stream, so the import runs in linear time and does not hold data set
+ * contents in memory.
  *
  */
 @ApplicationScoped
@@ -57,6 +67,9 @@ public class RuntimeModelParserImpl implements RuntimeModelParser {
     @Inject
     RuntimeNavigationBuilder runtimeNavigationBuilder;
 
+    @Inject
+    RuntimeCSVFileStorage csvStorage;
+
     Gson gson;
 
     @PostConstruct
@@ -77,13 +90,13 @@ public class RuntimeModelParserImpl implements RuntimeModelParser {
         List<DataSetContent> datasetContents = new ArrayList<>();
         List<LayoutTemplate> layoutTemplates = new ArrayList<>();
         Optional<String> navTreeOp = Optional.empty();
-        try (ZipInputStream zis = new ZipInputStream(is)) {
+        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(is))) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
                 if (!entry.isDirectory()) {
                     String entryName = entry.getName();
                     if (entryName.startsWith(DATASET_DEF_PREFIX)) {
-                        datasetContents.add(retrieveDataSetContent(entry, zis));
+                        retrieveDataSetContent(entry, zis).ifPresent(datasetContents::add);
                     }
 
                     if (entryName.endsWith(PERSPECTIVE_SUFFIX)) {
@@ -106,29 +119,34 @@ public class RuntimeModelParserImpl implements RuntimeModelParser {
     }
 
     private LayoutTemplate retrieveLayoutTemplate(final ZipInputStream zis) {
-        String content = nextEntryContent(zis);
-        return gson.fromJson(content, LayoutTemplate.class);
+        // the reader is not closed, so the zip stream stays open for the next entries
+        Reader reader = new InputStreamReader(zis, StandardCharsets.UTF_8);
+        return gson.fromJson(reader, LayoutTemplate.class);
     }
 
-    private DataSetContent retrieveDataSetContent(final ZipEntry entry, final ZipInputStream zis) {
+    private Optional<DataSetContent> retrieveDataSetContent(final ZipEntry entry, final ZipInputStream zis) {
         String fileName = entry.getName().split("/")[3];
         String[] nameParts = fileName.split("\\.");
         String id = nameParts[0];
         String ext = nameParts[1];
+        DataSetContentType contentType = DataSetContentType.fromFileExtension(ext);
+        if (contentType == DataSetContentType.CSV) {
+            csvStorage.storeCSV(id, zis);
+            return Optional.empty();
+        }
         String content = nextEntryContent(zis);
-        return new DataSetContent(id, content, DataSetContentType.fromFileExtension(ext));
+        return Optional.of(new DataSetContent(id, content, contentType));
     }
 
     private String nextEntryContent(final ZipInputStream zis) {
         try {
-            final int BUFFER_SIZE = 1024;
-            byte[] buffer = new byte[BUFFER_SIZE];
-            int read = 0;
-            String output = "";
-            while ((read = zis.read(buffer, 0, BUFFER_SIZE)) >= 0) {
-                output = output.concat(new String(buffer, 0, read));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = zis.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
             }
-            return output.trim();
+            return output.toString(StandardCharsets.UTF_8.name()).trim();
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
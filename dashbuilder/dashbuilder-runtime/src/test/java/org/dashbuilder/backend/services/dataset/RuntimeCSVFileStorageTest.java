@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dashbuilder.backend.services.dataset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.dashbuilder.dataset.def.CSVDataSetDef;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RuntimeCSVFileStorageTest {
+
+    RuntimeCSVFileStorage storage;
+
+    @Before
+    public void setup() {
+        storage = new RuntimeCSVFileStorage();
+        storage.init();
+    }
+
+    @After
+    public void tearDown() {
+        storage.destroy();
+    }
+
+    @Test
+    public void testStoreFromStream() throws IOException {
+        String csv = "id,name\n1,Jos\u00e9\n";
+        storage.storeCSV("ds1", new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(csv, storage.getCSVString(def("ds1")));
+        try (InputStream is = storage.getCSVInputStream(def("ds1"))) {
+            assertEquals(csv, new String(readAll(is), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testStoreReplacesContent() {
+        storage.storeCSV("ds1", "a,b");
+        storage.storeCSV("ds1", "c,d");
+
+        assertEquals("c,d", storage.getCSVString(def("ds1")));
+        assertEquals(1, storage.csvStorage.size());
+    }
+
+    @Test
+    public void testFailedStoreKeepsContent() throws IOException {
+        storage.storeCSV("ds1", "a,b");
+        InputStream failing = new InputStream() {
+
+            @Override
+            public int read() throws IOException {
+                throw new IOException("failed");
+            }
+        };
+
+        try {
+            storage.storeCSV("ds1", failing);
+            fail("Expected the store to fail");
+        } catch (UncheckedIOException e) {
+            // expected
+        }
+
+        assertEquals("a,b", storage.getCSVString(def("ds1")));
+        try (Stream<Path> files = Files.list(storage.storageDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testMissingContent() throws IOException {
+        assertEquals("", storage.getCSVString(def("missing")));
+        try (InputStream is = storage.getCSVInputStream(def("missing"))) {
+            assertEquals(-1, is.read());
+        }
+    }
+
+    @Test
+    public void testDestroyDeletesFiles() {
+        storage.storeCSV("ds1", "a,b");
+        Path csvPath = storage.csvStorage.get("ds1");
+        assertTrue(Files.exists(csvPath));
+
+        storage.destroy();
+
+        assertFalse(Files.exists(csvPath));
+        assertFalse(Files.exists(storage.storageDir));
+    }
+
+    private static CSVDataSetDef def(String uuid) {
+        CSVDataSetDef def = new CSVDataSetDef();
+        def.setUUID(uuid);
+        return def;
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) >= 0) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+}
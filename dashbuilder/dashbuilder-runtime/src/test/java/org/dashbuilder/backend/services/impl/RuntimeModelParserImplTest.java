@@ -16,23 +16,31 @@
 
 package org.dashbuilder.backend.services.impl;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.enterprise.event.Event;
 
 import org.dashbuilder.backend.navigation.RuntimeNavigationBuilder;
+import org.dashbuilder.backend.services.dataset.RuntimeCSVFileStorage;
 import org.dashbuilder.navigation.impl.NavTreeBuilder;
 import org.dashbuilder.shared.event.NewDataSetContentEvent;
 import org.dashbuilder.shared.model.DataSetContent;
 import org.dashbuilder.shared.model.RuntimeModel;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -41,11 +49,12 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.uberfire.ext.layout.editor.api.editor.LayoutTemplate;
 
-import static org.dashbuilder.shared.model.DataSetContentType.CSV;
 import static org.dashbuilder.shared.model.DataSetContentType.DEFINITION;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -59,9 +68,24 @@ public class RuntimeModelParserImplTest {
     @Mock
     RuntimeNavigationBuilder navigationBuilder;
 
+    @Mock
+    RuntimeCSVFileStorage csvStorage;
+
     @InjectMocks
     RuntimeModelParserImpl parser;
 
+    Map<String, byte[]> storedCSVs;
+
+    @Before
+    public void setup() {
+        storedCSVs = new HashMap<>();
+        doAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            storedCSVs.put((String) args[0], readAll((InputStream) args[1]));
+            return null;
+        }).when(csvStorage).storeCSV(anyString(), any(InputStream.class));
+    }
+
     @Test
     public void testEmptyImport() throws IOException {
         when(navigationBuilder.build(any(), any())).thenReturn(new NavTreeBuilder().build());
@@ -96,30 +120,63 @@ public class RuntimeModelParserImplTest {
         verify(newDataSetContentEventSource).fire(datasetContents.capture());
 
         NewDataSetContentEvent newDataSetContentEvent = datasetContents.getValue();
-        assertEquals(2, newDataSetContentEvent.getContent().size());
-
         List<DataSetContent> datasets = newDataSetContentEvent.getContent();
-        assertEquals(2, datasets.size());
-        assertEquals("e26a81a1-5636-493c-96e0-51bc32322b17", datasets.get(0).getId());
-        assertEquals("e26a81a1-5636-493c-96e0-51bc32322b17", datasets.get(1).getId());
-        Predicate<DataSetContent> csvMatcher = ds -> ds.getContentType().equals(CSV);
-        Predicate<DataSetContent> defMatcher = ds -> ds.getContentType().equals(DEFINITION);
-        assertTrue(datasets.stream().anyMatch(csvMatcher));
-        assertTrue(datasets.stream().anyMatch(defMatcher));
-        String dsContent = datasets.stream().filter(defMatcher).findAny().get().getContent();
-        String csvContent = datasets.stream().filter(csvMatcher).findAny().get().getContent();
-
-        assertEquals(getFileContent("/ds.dset"), dsContent);
-        assertEquals(getFileContent("/ds.csv"), csvContent);
+        assertEquals(1, datasets.size());
+
+        DataSetContent definition = datasets.get(0);
+        assertEquals("e26a81a1-5636-493c-96e0-51bc32322b17", definition.getId());
+        assertEquals(DEFINITION, definition.getContentType());
+        assertEquals(getFileContent("/ds.dset"), definition.getContent());
+
+        assertEquals(1, storedCSVs.size());
+        byte[] csvContent = storedCSVs.get("e26a81a1-5636-493c-96e0-51bc32322b17");
+        assertEquals(new String(Files.readAllBytes(resourcePath("/ds.csv")), StandardCharsets.UTF_8),
+                     new String(csvContent, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testLargeCSVIsStreamedToStorage() throws IOException {
+        parser.init();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            csv.append(i).append(",Jos\u00e9,").append(i * 0.5).append('\n');
+        }
+        byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zipBytes)) {
+            zos.putNextEntry(new ZipEntry("dashbuilder/datasets/definitions/large.csv"));
+            zos.write(csvBytes);
+            zos.closeEntry();
+        }
+
+        parser.parse(new ByteArrayInputStream(zipBytes.toByteArray()));
+
+        verify(newDataSetContentEventSource, times(0)).fire(any());
+        assertEquals(new String(csvBytes, StandardCharsets.UTF_8),
+                     new String(storedCSVs.get("large"), StandardCharsets.UTF_8));
     }
 
     private String getFileContent(String resource) throws IOException {
-        Path csvActualPath = Paths.get(this.getClass()
-                                           .getResource(resource)
-                                           .getFile());
-        return Files.readAllLines(csvActualPath)
+        return Files.readAllLines(resourcePath(resource))
                     .stream()
                     .collect(Collectors.joining(System.lineSeparator()));
     }
 
+    private Path resourcePath(String resource) {
+        return Paths.get(this.getClass()
+                             .getResource(resource)
+                             .getFile());
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) >= 0) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
 }
\ No newline at end of file
@@ -16,11 +16,16 @@
 
 package org.uberfire.backend.server.cdi.workspace;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
@@ -28,6 +33,8 @@ import javax.inject.Inject;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.cdi.workspace.Workspace;
@@ -38,25 +45,51 @@ import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull
 /**
  * Contains every workspace created in the application and the beans for those workspaces.
  * Beans are stored into a cache, with size and time expiration.
+ * <p>
+ * Workspaces are indexed by name. A workspace that was not used for {@value #IDLE_TIMEOUT_PROPERTY} milliseconds
+ * (one hour by default, 0 disables it) is deleted, along with its beans; idle workspaces are looked for while
+ * workspaces are resolved, at most twice per timeout. The statistics of the bean cache of each workspace are
+ * available with {@link #getCacheStats(Workspace)}.
  */
 @ApplicationScoped
 public class WorkspaceManager {
 
+    public static final String IDLE_TIMEOUT_PROPERTY = "org.uberfire.workspace.idleTimeout";
+
     private Logger logger = LoggerFactory.getLogger(WorkspaceManager.class);
     private WorkspaceManagerPreferences preferences;
-    private ConcurrentHashMap<Workspace, Cache<String, Object>> workspaces;
+    private ConcurrentHashMap<String, WorkspaceEntry> workspaces;
+    private final LongSupplier clock;
+    private final long idleTimeout;
+    private final AtomicLong nextIdleCheck = new AtomicLong();
+    private final AtomicLong evictedWorkspaces = new AtomicLong();
+    private volatile CacheSettings cacheSettings;
 
     public WorkspaceManager() {
+        this.clock = System::currentTimeMillis;
+        this.idleTimeout = 0;
     }
 
     @Inject
     public WorkspaceManager(WorkspaceManagerPreferences workspaceManagerPreferences) {
+        this(workspaceManagerPreferences,
+             Long.getLong(IDLE_TIMEOUT_PROPERTY,
+                          TimeUnit.HOURS.toMillis(1)),
+             System::currentTimeMillis);
+    }
+
+    WorkspaceManager(WorkspaceManagerPreferences workspaceManagerPreferences,
+                     long idleTimeout,
+                     LongSupplier clock) {
         this.preferences = workspaceManagerPreferences;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
     }
 
     @PostConstruct
     public void initialize() {
         this.workspaces = new ConcurrentHashMap<>();
+        this.nextIdleCheck.set(clock.getAsLong() + idleTimeout / 2);
     }
 
     /**
@@ -68,18 +101,18 @@ public class WorkspaceManager {
     public Workspace getOrCreateWorkspace(String name) {
         checkNotNull("name",
                      name);
-        Workspace workspace = new WorkspaceImpl(name);
-        workspaces.computeIfAbsent(new WorkspaceImpl(name),
-                                   w -> this.createCache());
-        return this.getWorkspace(name);
-    }
-
-    protected synchronized Cache<String, Object> createCache() {
-        preferences.load();
-        final Cache<String, Object> cache = CacheBuilder.newBuilder()
-                .maximumSize(preferences.getCacheMaximumSize())
-                .expireAfterAccess(preferences.getCacheExpirationTime(),
-                                   TimeUnit.valueOf(preferences.getCacheExpirationUnit()))
+        return getOrCreateEntry(name).workspace;
+    }
+
+    protected Cache<String, Object> createCache() {
+        final CacheSettings settings = getCacheSettings();
+        return CacheBuilder.newBuilder()
+                .maximumSize(settings.maximumSize)
+                .expireAfterAccess(settings.expirationTime,
+                                   settings.expirationUnit)
+                // the beans of a workspace are seldom resolved concurrently
+                .concurrencyLevel(1)
+                .recordStats()
                 .removalListener(removalNotification -> {
                     if (logger.isDebugEnabled()) {
                         logger.debug("[{},{}] {}",
@@ -89,7 +122,33 @@ public class WorkspaceManager {
                     }
                 })
                 .build();
-        return cache;
+    }
+
+    /**
+     * Returns the cache settings of the preferences, which are loaded the first time only.
+     */
+    private CacheSettings getCacheSettings() {
+        CacheSettings settings = cacheSettings;
+        if (settings == null) {
+            synchronized (this) {
+                settings = cacheSettings;
+                if (settings == null) {
+                    preferences.load();
+                    settings = new CacheSettings(preferences.getCacheMaximumSize(),
+                                                 preferences.getCacheExpirationTime(),
+                                                 TimeUnit.valueOf(preferences.getCacheExpirationUnit()));
+                    cacheSettings = settings;
+                }
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * Reloads the preferences, so that the bean caches of the workspaces created from now on use them.
+     */
+    public synchronized void reloadPreferences() {
+        cacheSettings = null;
     }
 
     /**
@@ -101,13 +160,7 @@ public class WorkspaceManager {
     public Workspace getWorkspace(String name) {
         checkNotNull("name",
                      name);
-        Optional<Workspace> optionalWorkspace = this.workspaces.keySet()
-                .stream()
-                .filter(w -> name.equals(w.getName()))
-                .findAny();
-        return optionalWorkspace
-                .orElseThrow(() -> new NoSuchElementException(String.format("Workspace <<%s>> not found",
-                                                                            name)));
+        return getEntry(name).workspace;
     }
 
     /**
@@ -123,7 +176,7 @@ public class WorkspaceManager {
                      workspace);
         checkNotNull("beanName",
                      beanName);
-        return (T) this.workspaces.get(workspace).getIfPresent(beanName);
+        return (T) getEntry(workspace.getName()).beans.getIfPresent(beanName);
     }
 
     /**
@@ -139,8 +192,8 @@ public class WorkspaceManager {
         try {
             checkNotNull("beanName",
                          beanName);
-            this.workspaces.get(workspace).get(beanName,
-                                               () -> instance);
+            getEntry(workspace.getName()).beans.get(beanName,
+                                                    () -> instance);
         } catch (ExecutionException e) {
             logger.error("An error ocurred trying to store bean <<{}>>",
                          instance.getClass().getSimpleName(),
@@ -148,13 +201,78 @@ public class WorkspaceManager {
         }
     }
 
+    /**
+     * Returns a bean based on a workspace name and a bean name. The workspace is created if it does not exist,
+     * i.e. because it was evicted. If the bean does not exist, returns null.
+     *
+     * @param workspaceName The workspace name.
+     * @param beanName      The bean name for that workspace.
+     * @return the bean instance
+     */
+    public <T> T getBean(String workspaceName,
+                         String beanName) {
+        checkNotNull("workspaceName",
+                     workspaceName);
+        checkNotNull("beanName",
+                     beanName);
+        return (T) getOrCreateEntry(workspaceName).beans.getIfPresent(beanName);
+    }
+
+    /**
+     * Returns the bean of a workspace, creating and storing it if it does not exist. The workspace is created
+     * again if it was evicted meanwhile.
+     *
+     * @param workspace The workspace of the bean
+     * @param beanName  The bean name
+     * @param creator   Creates the bean instance
+     * @return the bean instance
+     * @see #getOrCreateBean(String, String, Supplier)
+     */
+    public <T> T getOrCreateBean(Workspace workspace,
+                                 String beanName,
+                                 Supplier<T> creator) {
+        checkNotNull("workspace",
+                     workspace);
+        return getOrCreateBean(workspace.getName(),
+                               beanName,
+                               creator);
+    }
+
+    /**
+     * Returns the bean of a workspace, creating the workspace and storing the bean if they do not exist. The
+     * workspace and its bean are resolved together, so the workspace can't be evicted in between. The creation
+     * time is recorded as the load time of the workspace cache statistics.
+     *
+     * @param workspaceName The workspace name
+     * @param beanName      The bean name
+     * @param creator       Creates the bean instance
+     * @return the bean instance
+     */
+    public <T> T getOrCreateBean(String workspaceName,
+                                 String beanName,
+                                 Supplier<T> creator) {
+        checkNotNull("workspaceName",
+                     workspaceName);
+        checkNotNull("beanName",
+                     beanName);
+        try {
+            return (T) getOrCreateEntry(workspaceName).beans.get(beanName,
+                                                                 creator::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     /**
      * Deletes a workspace and its beans
      *
      * @param workspace the workspace to delete
      */
     public void delete(final Workspace workspace) {
-        this.workspaces.remove(workspace);
+        this.workspaces.remove(workspace.getName());
     }
 
     /**
@@ -173,6 +291,112 @@ public class WorkspaceManager {
      * @return The number of beans for a workspace
      */
     public long getBeansCount(final Workspace workspace) {
-        return this.workspaces.get(workspace).size();
+        return getEntry(workspace.getName()).beans.size();
+    }
+
+    /**
+     * Returns the statistics of the bean cache of a workspace: hit rate, evictions, load time...
+     *
+     * @param workspace The workspace
+     * @return The cache statistics of the workspace
+     */
+    public CacheStats getCacheStats(final Workspace workspace) {
+        return getEntry(workspace.getName()).beans.stats();
+    }
+
+    /**
+     * Returns the statistics of the bean caches of every workspace, by workspace name.
+     *
+     * @return The cache statistics of the workspaces
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        final Map<String, CacheStats> stats = new HashMap<>();
+        workspaces.forEach((name, entry) -> stats.put(name,
+                                                      entry.beans.stats()));
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * Returns the number of workspaces deleted because they were idle.
+     *
+     * @return the number of evicted workspaces
+     */
+    public long getEvictedWorkspaceCount() {
+        return evictedWorkspaces.get();
+    }
+
+    private WorkspaceEntry getOrCreateEntry(final String name) {
+        final long now = clock.getAsLong();
+        evictIdleWorkspaces(now);
+        while (true) {
+            WorkspaceEntry entry = workspaces.get(name);
+            if (entry == null) {
+                entry = workspaces.computeIfAbsent(name,
+                                                   n -> new WorkspaceEntry(new WorkspaceImpl(n),
+                                                                           this.createCache(),
+                                                                           now));
+            }
+            entry.lastAccess = now;
+            // unless evicted before its access was recorded, it can't be evicted until the idle timeout
+            if (workspaces.get(name) == entry) {
+                return entry;
+            }
+        }
+    }
+
+    private WorkspaceEntry getEntry(final String name) {
+        final WorkspaceEntry entry = workspaces.get(name);
+        if (entry == null) {
+            throw new NoSuchElementException(String.format("Workspace <<%s>> not found",
+                                                           name));
+        }
+        return entry;
+    }
+
+    private void evictIdleWorkspaces(final long now) {
+        final long nextCheck = nextIdleCheck.get();
+        if (idleTimeout <= 0 || now < nextCheck || !nextIdleCheck.compareAndSet(nextCheck,
+                                                                                 now + idleTimeout / 2)) {
+            return;
+        }
+        final long idleSince = now - idleTimeout;
+        workspaces.forEach((name, entry) -> {
+            if (entry.lastAccess <= idleSince && workspaces.remove(name,
+                                                                   entry)) {
+                evictedWorkspaces.incrementAndGet();
+                logger.debug("Workspace <<{}>> evicted after being idle",
+                             name);
+            }
+        });
+    }
+
+    private static class CacheSettings {
+
+        private final long maximumSize;
+        private final long expirationTime;
+        private final TimeUnit expirationUnit;
+
+        private CacheSettings(final long maximumSize,
+                              final long expirationTime,
+                              final TimeUnit expirationUnit) {
+            this.maximumSize = maximumSize;
+            this.expirationTime = expirationTime;
+            this.expirationUnit = expirationUnit;
+        }
+    }
+
+    private static class WorkspaceEntry {
+
+        private final Workspace workspace;
+        private final Cache<String, Object> beans;
+        private volatile long lastAccess;
+
+        private WorkspaceEntry(final Workspace workspace,
+                               final Cache<String, Object> beans,
+                               final long lastAccess) {
+            this.workspace = workspace;
+            this.beans = beans;
+            this.lastAccess = lastAccess;
+        }
     }
 }
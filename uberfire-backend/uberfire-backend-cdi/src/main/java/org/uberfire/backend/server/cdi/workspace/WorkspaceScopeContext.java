@@ -25,7 +25,6 @@ import javax.enterprise.inject.spi.BeanManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.uberfire.backend.cdi.workspace.Workspace;
 
 /**
  * Workspace context.
@@ -54,41 +53,29 @@ public class WorkspaceScopeContext implements Context {
 
         Bean<T> bean = getBean(contextual);
 
-        Workspace workspace = this.getWorkspaceManager().getOrCreateWorkspace(getWorkspaceName());
-        final T instance = getWorkspaceManager().getBean(workspace,
-                                                         bean.getBeanClass().getCanonicalName());
-
-        if (instance == null) {
-            if (logger.isTraceEnabled()) {
-                logger.trace("Creating Bean <<{}>> with creational context for workspace <<{}>>",
-                             bean.getBeanClass(),
-                             workspace.getName());
-            }
-            final T created = bean.create(creationalContext);
-            this.getWorkspaceManager().putBean(workspace,
-                                               bean.getBeanClass().getCanonicalName(),
-                                               created);
-            return created;
-        } else {
-            if (logger.isTraceEnabled()) {
-                logger.trace("Bean <<{}>> found for workspace <<{}>>",
-                             bean.getBeanClass(),
-                             workspace.getName());
-            }
-            return instance;
-        }
+        final String workspaceName = getWorkspaceName();
+        return this.getWorkspaceManager().getOrCreateBean(workspaceName,
+                                                          bean.getBeanClass().getCanonicalName(),
+                                                          () -> {
+                                                              if (logger.isTraceEnabled()) {
+                                                                  logger.trace("Creating Bean <<{}>> with creational context for workspace <<{}>>",
+                                                                               bean.getBeanClass(),
+                                                                               workspaceName);
+                                                              }
+                                                              return bean.create(creationalContext);
+                                                          });
     }
 
     @Override
     public <T> T get(final Contextual<T> contextual) {
         Bean<T> bean = getBean(contextual);
-        Workspace workspace = this.getWorkspaceManager().getOrCreateWorkspace(getWorkspaceName());
+        final String workspaceName = getWorkspaceName();
         if (logger.isTraceEnabled()) {
             logger.trace("Getting Bean <<{}>> for workspace <<{}>>",
                          bean.getBeanClass(),
-                         workspace.getName());
+                         workspaceName);
         }
-        return this.getWorkspaceManager().getBean(workspace,
+        return this.getWorkspaceManager().getBean(workspaceName,
                                                   bean.getBeanClass().getCanonicalName());
     }
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.cdi.workspace;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheStats;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.cdi.workspace.Workspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark of the resolution of @WorkspaceScoped beans with many active workspaces: every lookup resolves the
+ * workspace of a user by name, then one of its beans, like {@link WorkspaceScopeContext} does. The throughput
+ * and the cache statistics are logged.
+ * <p>
+ * Runs with 10,000 workspaces by default; use the org.uberfire.workspace.harness.workspaces and
+ * org.uberfire.workspace.harness.lookups system properties to size it.
+ */
+public class WorkspaceBeanResolutionBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceBeanResolutionBenchmarkTest.class);
+
+    private static final int WORKSPACES = Integer.getInteger("org.uberfire.workspace.harness.workspaces",
+                                                             10000);
+    private static final int LOOKUPS = Integer.getInteger("org.uberfire.workspace.harness.lookups",
+                                                          200000);
+    private static final int BEANS = 5;
+
+    @Test
+    public void resolveBeansOfManyWorkspaces() {
+        final WorkspaceManagerPreferences preferences = mock(WorkspaceManagerPreferences.class);
+        when(preferences.getCacheMaximumSize()).thenReturn(50);
+        when(preferences.getCacheExpirationTime()).thenReturn(30);
+        when(preferences.getCacheExpirationUnit()).thenReturn("MINUTES");
+        final WorkspaceManager workspaceManager = new WorkspaceManager(preferences);
+        workspaceManager.initialize();
+
+        final String[] names = new String[WORKSPACES];
+        final String[] beanNames = new String[BEANS];
+        for (int i = 0; i < WORKSPACES; i++) {
+            names[i] = "user" + i;
+        }
+        for (int i = 0; i < BEANS; i++) {
+            beanNames[i] = "org.uberfire.Bean" + i;
+        }
+
+        final long createStart = System.nanoTime();
+        for (String name : names) {
+            workspaceManager.getOrCreateWorkspace(name);
+        }
+        final long createTime = System.nanoTime() - createStart;
+
+        final long lookupStart = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            final Workspace workspace = workspaceManager.getOrCreateWorkspace(names[(i * 7919) % WORKSPACES]);
+            workspaceManager.getOrCreateBean(workspace,
+                                             beanNames[i % BEANS],
+                                             Object::new);
+        }
+        final long lookupTime = System.nanoTime() - lookupStart;
+
+        CacheStats total = new CacheStats(0,
+                                          0,
+                                          0,
+                                          0,
+                                          0,
+                                          0);
+        for (CacheStats stats : workspaceManager.getCacheStats().values()) {
+            total = total.plus(stats);
+        }
+
+        LOGGER.info("{} workspaces created in {} ms; {} bean resolutions in {} ms ({} ns/resolution); {}",
+                    WORKSPACES,
+                    TimeUnit.NANOSECONDS.toMillis(createTime),
+                    LOOKUPS,
+                    TimeUnit.NANOSECONDS.toMillis(lookupTime),
+                    lookupTime / LOOKUPS,
+                    total);
+        assertEquals(WORKSPACES,
+                     workspaceManager.getWorkspaceCount());
+        assertEquals(LOOKUPS,
+                     total.requestCount());
+    }
+}
@@ -17,6 +17,10 @@
 package org.uberfire.backend.server.cdi.workspace;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.CacheStats;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -108,4 +112,158 @@ public class WorkspaceManagerTest {
         assertNull(this.workspaceManager.getBean(workspace,
                                                  "a"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWorkspacesAreIndexedByName() {
+        final Workspace workspace = this.workspaceManager.getOrCreateWorkspace("hendrix");
+
+        assertSame(workspace,
+                   this.workspaceManager.getOrCreateWorkspace("hendrix"));
+        assertSame(workspace,
+                   this.workspaceManager.getWorkspace("hendrix"));
+        assertEquals(1,
+                     this.workspaceManager.getWorkspaceCount());
+    }
+
+    @Test
+    public void testPreferencesAreLoadedOnce() {
+        this.workspaceManager.getOrCreateWorkspace("hendrix");
+        this.workspaceManager.getOrCreateWorkspace("clapton");
+        verify(preferences,
+               times(1)).load();
+
+        this.workspaceManager.reloadPreferences();
+        this.workspaceManager.getOrCreateWorkspace("page");
+        verify(preferences,
+               times(2)).load();
+    }
+
+    @Test
+    public void testGetOrCreateBean() {
+        final Workspace workspace = this.workspaceManager.getOrCreateWorkspace("hendrix");
+        final Object bean = new Object();
+
+        assertSame(bean,
+                   this.workspaceManager.getOrCreateBean(workspace,
+                                                         "a",
+                                                         () -> bean));
+        assertSame(bean,
+                   this.workspaceManager.getOrCreateBean(workspace,
+                                                         "a",
+                                                         Object::new));
+        assertSame(bean,
+                   this.workspaceManager.getBean(workspace,
+                                                 "a"));
+    }
+
+    @Test
+    public void testGetOrCreateBeanPropagatesCreationErrors() {
+        final Workspace workspace = this.workspaceManager.getOrCreateWorkspace("hendrix");
+
+        assertThatThrownBy(() -> this.workspaceManager.getOrCreateBean(workspace,
+                                                                       "a",
+                                                                       () -> {
+                                                                           throw new IllegalArgumentException("dummy");
+                                                                       }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("dummy");
+        assertEquals(0,
+                     this.workspaceManager.getBeansCount(workspace));
+    }
+
+    @Test
+    public void testCacheStatsPerWorkspace() {
+        final Workspace hendrix = this.workspaceManager.getOrCreateWorkspace("hendrix");
+        final Workspace clapton = this.workspaceManager.getOrCreateWorkspace("clapton");
+
+        this.workspaceManager.getOrCreateBean(hendrix,
+                                              "a",
+                                              Object::new);
+        this.workspaceManager.getOrCreateBean(hendrix,
+                                              "a",
+                                              Object::new);
+        this.workspaceManager.getOrCreateBean(hendrix,
+                                              "a",
+                                              Object::new);
+
+        final CacheStats stats = this.workspaceManager.getCacheStats(hendrix);
+        assertEquals(2,
+                     stats.hitCount());
+        assertEquals(1,
+                     stats.missCount());
+        assertEquals(1,
+                     stats.loadSuccessCount());
+        assertEquals(0,
+                     this.workspaceManager.getCacheStats(clapton).requestCount());
+        assertEquals(2,
+                     this.workspaceManager.getCacheStats().size());
+        assertEquals(stats,
+                     this.workspaceManager.getCacheStats().get("hendrix"));
+    }
+
+    @Test
+    public void testIdleWorkspacesAreEvicted() {
+        final AtomicLong clock = new AtomicLong();
+        final long idleTimeout = TimeUnit.MINUTES.toMillis(60);
+        this.workspaceManager = new WorkspaceManager(preferences,
+                                                     idleTimeout,
+                                                     clock::get);
+        this.workspaceManager.initialize();
+
+        this.workspaceManager.getOrCreateWorkspace("hendrix");
+        clock.set(idleTimeout / 2);
+        this.workspaceManager.getOrCreateWorkspace("clapton");
+        assertEquals(2,
+                     this.workspaceManager.getWorkspaceCount());
+
+        clock.set(idleTimeout);
+        this.workspaceManager.getOrCreateWorkspace("clapton");
+        assertEquals(1,
+                     this.workspaceManager.getWorkspaceCount());
+        assertEquals(1,
+                     this.workspaceManager.getEvictedWorkspaceCount());
+        assertThatThrownBy(() -> workspaceManager.getWorkspace("hendrix"))
+                .isInstanceOf(NoSuchElementException.class);
+
+        clock.set(idleTimeout * 3);
+        this.workspaceManager.getOrCreateWorkspace("page");
+        assertEquals(1,
+                     this.workspaceManager.getWorkspaceCount());
+        assertEquals("page",
+                     this.workspaceManager.getWorkspace("page").getName());
+        assertEquals(2,
+                     this.workspaceManager.getEvictedWorkspaceCount());
+    }
+
+    @Test
+    public void testGetOrCreateBeanOfEvictedWorkspace() {
+        final AtomicLong clock = new AtomicLong();
+        final long idleTimeout = TimeUnit.MINUTES.toMillis(60);
+        this.workspaceManager = new WorkspaceManager(preferences,
+                                                     idleTimeout,
+                                                     clock::get);
+        this.workspaceManager.initialize();
+
+        final Workspace workspace = this.workspaceManager.getOrCreateWorkspace("hendrix");
+        clock.set(idleTimeout);
+        this.workspaceManager.getOrCreateWorkspace("clapton");
+        assertEquals(1,
+                     this.workspaceManager.getEvictedWorkspaceCount());
+
+        assertEquals("guitar",
+                     this.workspaceManager.getOrCreateBean(workspace,
+                                                           "instrument",
+                                                           () -> "guitar"));
+        assertEquals("guitar",
+                     this.workspaceManager.getBean("hendrix",
+                                                   "instrument"));
+        assertEquals(2,
+                     this.workspaceManager.getWorkspaceCount());
+
+        clock.set(idleTimeout * 2);
+        assertNull(this.workspaceManager.getBean("hendrix",
+                                                 "instrument"));
+        assertEquals("hendrix",
+                     this.workspaceManager.getWorkspace("hendrix").getName());
+    }
+}
@@ -46,6 +46,12 @@ public class LockCleanupSessionListener implements HttpSessionListener {
 
     @Override
     public void sessionDestroyed(HttpSessionEvent se) {
+        final LockTable lockTable = VFSLockServiceImpl.getLockTable();
+        if (lockTable != null) {
+            lockTable.releaseSession(se.getSession().getId());
+            return;
+        }
+
         final ConfigIOServiceProducer ioServiceProducer = ConfigIOServiceProducer.getInstance();
         final IOService ioService = ioServiceProducer.configIOService();
         final FileSystem fileSystem = ioServiceProducer.configFileSystem();
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+
+import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
+
+/**
+ * In memory table of the editor locks, used by {@link VFSLockServiceImpl} in place of lock files.
+ * <p>
+ * Locks are indexed by file URI, so the locks of a directory are a range of the table. Every lock is a lease: the
+ * node it was acquired through holds it until it is released and renews it on the other nodes with
+ * {@link #renewLeases()}; they drop it once it has not been renewed for a whole lease, e.g. because that node went
+ * down. Locks acquired on this node are released when
+ * their HTTP session ends.
+ * <p>
+ * Local changes are handed to the publisher and applied on the other nodes with {@link #apply(LockTableMessage)}.
+ * When two nodes lock the same file concurrently, every node keeps the lock acquired first.
+ */
+public class LockTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockTable.class);
+
+    private final String nodeId;
+    private final long leaseMillis;
+    private final LongSupplier clock;
+    private final ConcurrentNavigableMap<String, Lease> leases = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Consumer<LockTableMessage> publisher = message -> {
+    };
+
+    public LockTable(final String nodeId,
+                     final long leaseMillis) {
+        this(nodeId,
+             leaseMillis,
+             System::currentTimeMillis);
+    }
+
+    LockTable(final String nodeId,
+              final long leaseMillis,
+              final LongSupplier clock) {
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+    }
+
+    public void setPublisher(final Consumer<LockTableMessage> publisher) {
+        this.publisher = publisher;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the lock held on the given file, or null if it is not locked.
+     */
+    public LockTableEntry get(final Path path) {
+        return live(path.toURI());
+    }
+
+    /**
+     * Locks the given file for the user, unless another user holds it. The lock is bound to the given session, which
+     * releases it when it ends (see {@link #releaseSession(String)}).
+     * @return the lock now held on the file: a new one owned by the user, or the one of the other user.
+     */
+    public LockTableEntry acquire(final Path path,
+                                  final String userId,
+                                  final String sessionId) {
+        checkNotNull("sessionId",
+                     sessionId);
+        final long now = clock.getAsLong();
+        final LockTableEntry candidate = new LockTableEntry(path.toURI(),
+                                                            path.getFileName(),
+                                                            userId,
+                                                            sessionId,
+                                                            nodeId,
+                                                            now);
+        final Lease lease = leases.compute(candidate.getUri(),
+                                           (uri, current) -> {
+                                               if (current != null && !current.isExpired(now) && !current.entry.getUserId().equals(userId)) {
+                                                   return current;
+                                               }
+                                               return newLease(candidate,
+                                                               now);
+                                           });
+        if (lease.entry == candidate) {
+            changed(LockTableMessage.Type.ACQUIRED,
+                    Collections.singletonList(candidate));
+        }
+        return lease.entry;
+    }
+
+    /**
+     * Releases the given lock, if it is still held.
+     * @return true if the lock was released.
+     */
+    public boolean release(final LockTableEntry entry) {
+        final Lease lease = leases.get(entry.getUri());
+        if (lease != null && lease.entry.equals(entry) && leases.remove(entry.getUri(),
+                                                                        lease)) {
+            changed(LockTableMessage.Type.RELEASED,
+                    Collections.singletonList(entry));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Releases the lock held on the given file, whoever holds it.
+     */
+    public void remove(final Path path) {
+        final Lease lease = leases.remove(path.toURI());
+        if (lease != null) {
+            changed(LockTableMessage.Type.RELEASED,
+                    Collections.singletonList(lease.entry));
+        }
+    }
+
+    /**
+     * @return the locks held on the files below the given directory.
+     */
+    public List<LockTableEntry> getChildren(final Path directory) {
+        final String uri = directory.toURI();
+        final String prefix = uri.endsWith("/") ? uri : uri + "/";
+        final long now = clock.getAsLong();
+        final List<LockTableEntry> children = new ArrayList<>();
+        for (Lease lease : leases.subMap(prefix,
+                                         prefix + Character.MAX_VALUE).values()) {
+            if (!lease.isExpired(now)) {
+                children.add(lease.entry);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Releases the locks acquired through this node in the given HTTP session.
+     * @return the number of released locks.
+     */
+    public int releaseSession(final String sessionId) {
+        final List<LockTableEntry> released = new ArrayList<>();
+        for (Map.Entry<String, Lease> e : leases.entrySet()) {
+            final LockTableEntry entry = e.getValue().entry;
+            if (nodeId.equals(entry.getNodeId()) && sessionId.equals(entry.getSessionId()) && leases.remove(e.getKey(),
+                                                                                                            e.getValue())) {
+                released.add(entry);
+            }
+        }
+        if (!released.isEmpty()) {
+            changed(LockTableMessage.Type.RELEASED,
+                    released);
+        }
+        return released.size();
+    }
+
+    /**
+     * Tells the other nodes that the locks acquired through this node are still held, and drops the locks of the
+     * other nodes whose lease expired.
+     */
+    public void renewLeases() {
+        final long now = clock.getAsLong();
+        final List<LockTableEntry> renewed = new ArrayList<>();
+        for (Map.Entry<String, Lease> e : leases.entrySet()) {
+            final Lease lease = e.getValue();
+            if (nodeId.equals(lease.entry.getNodeId())) {
+                renewed.add(lease.entry);
+            } else if (lease.isExpired(now) && leases.remove(e.getKey(),
+                                                             lease)) {
+                logger.debug("Lease of lock {} expired",
+                             lease.entry);
+                version.incrementAndGet();
+            }
+        }
+        if (!renewed.isEmpty()) {
+            publisher.accept(new LockTableMessage(nodeId,
+                                                  LockTableMessage.Type.RENEWED,
+                                                  renewed));
+        }
+    }
+
+    /**
+     * Asks the other nodes for the locks they hold.
+     */
+    public void sync() {
+        publisher.accept(new LockTableMessage(nodeId,
+                                              LockTableMessage.Type.SYNC,
+                                              Collections.emptyList()));
+    }
+
+    /**
+     * Applies a change broadcast by another node.
+     */
+    public void apply(final LockTableMessage message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        switch (message.getType()) {
+            case ACQUIRED:
+            case RENEWED:
+                message.getEntries().forEach(this::applyHeld);
+                break;
+            case RELEASED:
+                message.getEntries().forEach(this::applyReleased);
+                break;
+            case SYNC:
+                final List<LockTableEntry> own = getOwnEntries();
+                if (!own.isEmpty()) {
+                    publisher.accept(new LockTableMessage(nodeId,
+                                                          LockTableMessage.Type.RENEWED,
+                                                          own));
+                }
+                break;
+        }
+    }
+
+    /**
+     * @return all the locks currently held.
+     */
+    public List<LockTableEntry> getEntries() {
+        final long now = clock.getAsLong();
+        final List<LockTableEntry> entries = new ArrayList<>();
+        for (Lease lease : leases.values()) {
+            if (!lease.isExpired(now)) {
+                entries.add(lease.entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Adds locks restored from a snapshot, taking them over as if they had been acquired through this node. Files
+     * that are already locked are left untouched.
+     */
+    public void restore(final Collection<LockTableEntry> entries) {
+        final long now = clock.getAsLong();
+        final List<LockTableEntry> restored = new ArrayList<>();
+        for (LockTableEntry entry : entries) {
+            final LockTableEntry adopted = entry.adoptedBy(nodeId);
+            if (leases.putIfAbsent(adopted.getUri(),
+                                   newLease(adopted,
+                                            now)) == null) {
+                restored.add(adopted);
+            }
+        }
+        if (!restored.isEmpty()) {
+            changed(LockTableMessage.Type.ACQUIRED,
+                    restored);
+        }
+    }
+
+    /**
+     * @return a number that changes every time a lock is added or removed.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return leases.size();
+    }
+
+    private List<LockTableEntry> getOwnEntries() {
+        final List<LockTableEntry> own = new ArrayList<>();
+        for (Lease lease : leases.values()) {
+            if (nodeId.equals(lease.entry.getNodeId())) {
+                own.add(lease.entry);
+            }
+        }
+        return own;
+    }
+
+    private void applyHeld(final LockTableEntry entry) {
+        final long now = clock.getAsLong();
+        leases.compute(entry.getUri(),
+                       (uri, current) -> {
+                           if (current == null || current.isExpired(now)) {
+                               version.incrementAndGet();
+                           } else if (!entry.winsOver(current.entry)) {
+                               return current;
+                           } else if (!current.entry.equals(entry)) {
+                               if (nodeId.equals(current.entry.getNodeId()) && !current.entry.getUserId().equals(entry.getUserId())) {
+                                   logger.warn("Lock {} lost to concurrently acquired lock {}",
+                                               current.entry,
+                                               entry);
+                               }
+                               version.incrementAndGet();
+                           }
+                           return newLease(entry,
+                                           now);
+                       });
+    }
+
+    private void applyReleased(final LockTableEntry entry) {
+        final Lease lease = leases.get(entry.getUri());
+        if (lease != null && lease.entry.equals(entry) && leases.remove(entry.getUri(),
+                                                                        lease)) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Locks acquired through this node are held until released, the other ones until their lease expires.
+     */
+    private Lease newLease(final LockTableEntry entry,
+                           final long now) {
+        return new Lease(entry,
+                         nodeId.equals(entry.getNodeId()) ? Long.MAX_VALUE : now + leaseMillis);
+    }
+
+    private LockTableEntry live(final String uri) {
+        final Lease lease = leases.get(uri);
+        if (lease == null) {
+            return null;
+        }
+        if (lease.isExpired(clock.getAsLong())) {
+            if (leases.remove(uri,
+                              lease)) {
+                version.incrementAndGet();
+            }
+            return null;
+        }
+        return lease.entry;
+    }
+
+    private void changed(final LockTableMessage.Type type,
+                         final List<LockTableEntry> entries) {
+        version.incrementAndGet();
+        publisher.accept(new LockTableMessage(nodeId,
+                                              type,
+                                              entries));
+    }
+
+    private static class Lease {
+
+        private final LockTableEntry entry;
+        private final long expiresAt;
+
+        private Lease(final LockTableEntry entry,
+                      final long expiresAt) {
+            this.entry = entry;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return now >= expiresAt;
+        }
+    }
+}
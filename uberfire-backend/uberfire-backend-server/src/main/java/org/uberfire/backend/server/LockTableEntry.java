@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+
+/**
+ * A lock held in a {@link LockTable}: the locked file, its owner, the HTTP session and the cluster node the lock
+ * was acquired through. The lease expiry is local to each node and is not part of the replicated state.
+ */
+public class LockTableEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String uri;
+    private final String fileName;
+    private final String userId;
+    private final String sessionId;
+    private final String nodeId;
+    private final long acquiredAt;
+
+    public LockTableEntry(final String uri,
+                          final String fileName,
+                          final String userId,
+                          final String sessionId,
+                          final String nodeId,
+                          final long acquiredAt) {
+        this.uri = uri;
+        this.fileName = fileName;
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.nodeId = nodeId;
+        this.acquiredAt = acquiredAt;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public Path getFile() {
+        return PathFactory.newPath(fileName,
+                                   uri);
+    }
+
+    /**
+     * Decides which of two conflicting locks on the same file survives, the same way on every node. Between two
+     * users the lock acquired first wins; a user acquiring again takes over their own lock. Locks acquired at the
+     * same time are decided by node id.
+     */
+    boolean winsOver(final LockTableEntry other) {
+        if (acquiredAt != other.acquiredAt) {
+            return userId.equals(other.userId) == acquiredAt > other.acquiredAt;
+        }
+        return nodeId.compareTo(other.nodeId) <= 0;
+    }
+
+    LockTableEntry adoptedBy(final String nodeId) {
+        return new LockTableEntry(uri,
+                                  fileName,
+                                  userId,
+                                  sessionId,
+                                  nodeId,
+                                  acquiredAt);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final LockTableEntry that = (LockTableEntry) o;
+        return acquiredAt == that.acquiredAt &&
+                uri.equals(that.uri) &&
+                userId.equals(that.userId) &&
+                nodeId.equals(that.nodeId) &&
+                Objects.equals(sessionId,
+                               that.sessionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uri,
+                            userId,
+                            nodeId,
+                            acquiredAt);
+    }
+
+    @Override
+    public String toString() {
+        return "[file=" + uri + ", lockedBy=" + userId + ", node=" + nodeId + "]";
+    }
+}
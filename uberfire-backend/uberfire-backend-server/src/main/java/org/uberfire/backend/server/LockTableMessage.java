@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Change of a {@link LockTable}, broadcast to the other nodes of the cluster.
+ */
+public class LockTableMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Type {
+        /**
+         * The entries were acquired on the sender node.
+         */
+        ACQUIRED,
+        /**
+         * The entries were released on the sender node.
+         */
+        RELEASED,
+        /**
+         * The sender node still holds the entries; their leases are extended.
+         */
+        RENEWED,
+        /**
+         * The sender node just started and asks the others for the locks they hold.
+         */
+        SYNC
+    }
+
+    private final String nodeId;
+    private final Type type;
+    private final ArrayList<LockTableEntry> entries;
+
+    public LockTableMessage(final String nodeId,
+                            final Type type,
+                            final Collection<LockTableEntry> entries) {
+        this.nodeId = nodeId;
+        this.type = type;
+        this.entries = new ArrayList<>(entries);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<LockTableEntry> getEntries() {
+        return entries;
+    }
+}
@@ -16,6 +16,10 @@
 
 package org.uberfire.backend.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,7 +28,13 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
@@ -41,6 +51,8 @@ import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.VFSLockService;
 import org.uberfire.backend.vfs.impl.LockInfo;
 import org.uberfire.backend.vfs.impl.LockResult;
+import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.commons.cluster.ClusterServiceFactory;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.file.DirectoryStream.Filter;
@@ -53,14 +65,28 @@ import org.uberfire.workbench.events.ResourceRenamedEvent;
 
 /**
  * Errai RPC endpoint exposing a {@link VFSLockService}.
+ * <p>
+ * By default every lock is a file of the system repository, so acquiring or releasing a lock is a commit. When the
+ * {@value #LOCK_TABLE_PROPERTY} system property is set to true, locks are held in a {@link LockTable} instead:
+ * they are leases bound to the HTTP session that acquired them, replicated to the other nodes through the
+ * {@link ClusterService}, and optionally saved to the system repository every
+ * {@value #LOCK_TABLE_SNAPSHOT_INTERVAL_PROPERTY} milliseconds so they survive a restart.
  */
 @Service
 @ApplicationScoped
 public class VFSLockServiceImpl implements VFSLockService {
 
     public static final String LOCK_SESSION_ATTRIBUTE_NAME = "uf-locks";
+    public static final String LOCK_TABLE_PROPERTY = "org.uberfire.locks.table";
+    public static final String LOCK_TABLE_LEASE_PROPERTY = "org.uberfire.locks.table.lease";
+    public static final String LOCK_TABLE_SNAPSHOT_INTERVAL_PROPERTY = "org.uberfire.locks.table.snapshotInterval";
+    public static final String LOCK_TABLE_CHANNEL = "UBERFIRE_LOCK_TABLE";
+    static final String LOCK_TABLE_SNAPSHOT_URI = "default://locks@system/lock-table.snapshot";
+    private static final int LOCK_TABLE_SNAPSHOT_FORMAT_VERSION = 1;
     private static final Logger logger = LoggerFactory.getLogger(VFSLockServiceImpl.class);
 
+    private static volatile LockTable activeLockTable;
+
     @Inject
     @Named("configIO")
     private IOService ioService;
@@ -72,10 +98,110 @@ public class VFSLockServiceImpl implements VFSLockService {
     @Inject
     private SessionInfo sessionInfo;
 
+    private LockTable lockTable;
+    private ClusterService clusterService;
+    private ScheduledExecutorService lockTableScheduler;
+    private long snapshotVersion = -1;
+
+    /**
+     * @return the lock table of the running lock service, or null if locks are held in lock files.
+     */
+    static LockTable getLockTable() {
+        return activeLockTable;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (Boolean.getBoolean(LOCK_TABLE_PROPERTY)) {
+            startLockTable(ClusterServiceFactory.create(),
+                           Long.getLong(LOCK_TABLE_LEASE_PROPERTY,
+                                        60000),
+                           Long.getLong(LOCK_TABLE_SNAPSHOT_INTERVAL_PROPERTY,
+                                        0));
+        }
+    }
+
+    void startLockTable(final ClusterService clusterService,
+                        final long leaseMillis,
+                        final long snapshotInterval) {
+        lockTable = new LockTable(UUID.randomUUID().toString(),
+                                  leaseMillis);
+        if (snapshotInterval > 0) {
+            restoreSnapshot();
+        }
+
+        this.clusterService = clusterService;
+        if (clusterService.isAppFormerClustered()) {
+            clusterService.connect();
+            clusterService.createConsumer(ClusterService.DestinationType.PubSub,
+                                          LOCK_TABLE_CHANNEL,
+                                          LockTableMessage.class,
+                                          lockTable::apply);
+            lockTable.setPublisher(message -> clusterService.broadcast(ClusterService.DestinationType.PubSub,
+                                                                       LOCK_TABLE_CHANNEL,
+                                                                       message));
+            lockTable.sync();
+        }
+
+        lockTableScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "uberfire-lock-table");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long renewInterval = Math.max(1,
+                                            leaseMillis / 3);
+        lockTableScheduler.scheduleWithFixedDelay(() -> runQuietly(lockTable::renewLeases),
+                                                  renewInterval,
+                                                  renewInterval,
+                                                  TimeUnit.MILLISECONDS);
+        if (snapshotInterval > 0) {
+            lockTableScheduler.scheduleWithFixedDelay(() -> runQuietly(this::writeSnapshot),
+                                                      snapshotInterval,
+                                                      snapshotInterval,
+                                                      TimeUnit.MILLISECONDS);
+        }
+        activeLockTable = lockTable;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (lockTable == null) {
+            return;
+        }
+        if (activeLockTable == lockTable) {
+            activeLockTable = null;
+        }
+        lockTableScheduler.shutdownNow();
+        if (clusterService.isAppFormerClustered()) {
+            clusterService.close();
+        }
+    }
+
     @Override
     public LockResult acquireLock(final Path path)
             throws IllegalArgumentException, IOException, UnsupportedOperationException {
 
+        if (lockTable != null) {
+            final String sessionId = getSessionId();
+            if (sessionId == null) {
+                // the lock would never be released, as it is released when its session ends
+                throw new IOException("Locks can only be acquired within an HTTP session");
+            }
+            final String userId = sessionInfo.getIdentity().getIdentifier();
+            final LockTableEntry entry = lockTable.acquire(path,
+                                                           userId,
+                                                           sessionId);
+            if (!entry.getUserId().equals(userId)) {
+                return LockResult.failed(toLockInfo(path,
+                                                    entry));
+            }
+            final LockResult result = LockResult.acquired(path,
+                                                          userId);
+            updateSession(result.getLockInfo());
+            return result;
+        }
+
         try {
             ioService.startBatch(fileSystem);
 
@@ -120,21 +246,35 @@ public class VFSLockServiceImpl implements VFSLockService {
                                    final boolean force)
             throws IllegalArgumentException, IOException {
 
+        if (lockTable != null) {
+            final LockTableEntry entry = lockTable.get(path);
+            final LockInfo lockInfo = toLockInfo(path,
+                                                 entry);
+            if (entry == null) {
+                return LockResult.failed(lockInfo);
+            }
+            checkReleaseAllowed(path,
+                                lockInfo,
+                                force);
+            lockTable.release(entry);
+            updateSession(lockInfo,
+                          true);
+            return LockResult.released(path);
+        }
+
         try {
             ioService.startBatch(fileSystem);
 
             final LockInfo lockInfo = retrieveLockInfo(path);
             final LockResult result;
             if (lockInfo.isLocked()) {
-                if (sessionInfo.getIdentity().getIdentifier().equals(lockInfo.lockedBy()) || force) {
-                    ioService.delete(Paths.convert(lockInfo.getLock()));
-                    updateSession(lockInfo,
-                                  true);
-                    result = LockResult.released(path);
-                } else {
-                    logger.error("Client requested to release a lock it doesn't hold: " + path.toURI());
-                    throw new IOException("Not allowed");
-                }
+                checkReleaseAllowed(path,
+                                    lockInfo,
+                                    force);
+                ioService.delete(Paths.convert(lockInfo.getLock()));
+                updateSession(lockInfo,
+                              true);
+                result = LockResult.released(path);
             } else {
                 result = LockResult.failed(lockInfo);
             }
@@ -144,10 +284,24 @@ public class VFSLockServiceImpl implements VFSLockService {
         }
     }
 
+    private void checkReleaseAllowed(final Path path,
+                                     final LockInfo lockInfo,
+                                     final boolean force) {
+        if (!force && !sessionInfo.getIdentity().getIdentifier().equals(lockInfo.lockedBy())) {
+            logger.error("Client requested to release a lock it doesn't hold: " + path.toURI());
+            throw new IOException("Not allowed");
+        }
+    }
+
     @Override
     public LockInfo retrieveLockInfo(Path path)
             throws IllegalArgumentException, IOException {
 
+        if (lockTable != null) {
+            return toLockInfo(path,
+                              lockTable.get(path));
+        }
+
         final Path vfsLock = PathFactory.newLock(path);
         final org.uberfire.java.nio.file.Path realLock = Paths.convert(vfsLock);
 
@@ -176,6 +330,17 @@ public class VFSLockServiceImpl implements VFSLockService {
                                             boolean excludeOwnedLocks)
             throws IllegalArgumentException, IOException {
 
+        if (lockTable != null) {
+            final List<LockInfo> lockInfos = new ArrayList<LockInfo>();
+            for (LockTableEntry entry : lockTable.getChildren(path)) {
+                if (!excludeOwnedLocks || !sessionInfo.getIdentity().getIdentifier().equals(entry.getUserId())) {
+                    lockInfos.add(toLockInfo(entry.getFile(),
+                                             entry));
+                }
+            }
+            return lockInfos;
+        }
+
         if (!Files.isDirectory(Paths.convert(path))) {
             return Collections.emptyList();
         }
@@ -273,6 +438,11 @@ public class VFSLockServiceImpl implements VFSLockService {
     }
 
     private void maybeDeleteLock(final Path path) {
+        if (lockTable != null) {
+            lockTable.remove(path);
+            return;
+        }
+
         try {
             ioService.startBatch(fileSystem);
 
@@ -284,4 +454,112 @@ public class VFSLockServiceImpl implements VFSLockService {
             ioService.endBatch();
         }
     }
-}
\ No newline at end of file
+
+    private LockInfo toLockInfo(final Path path,
+                                final LockTableEntry entry) {
+        return new LockInfo(entry != null,
+                            entry != null ? entry.getUserId() : null,
+                            path,
+                            PathFactory.newLock(path));
+    }
+
+    private String getSessionId() {
+        final HttpSession session = RpcContext.getHttpSession();
+        return session != null ? session.getId() : null;
+    }
+
+    /**
+     * Saves the lock table to the system repository, if it changed since it was last saved. The fields of each lock
+     * are written one by one, as the file can be changed by anyone who can push to the system repository.
+     */
+    void writeSnapshot() {
+        final long version = lockTable.getVersion();
+        if (version == snapshotVersion) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            final List<LockTableEntry> entries = new ArrayList<>(lockTable.getEntries());
+            out.writeInt(LOCK_TABLE_SNAPSHOT_FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (LockTableEntry entry : entries) {
+                writeString(out,
+                            entry.getUri());
+                writeString(out,
+                            entry.getFileName());
+                writeString(out,
+                            entry.getUserId());
+                writeString(out,
+                            entry.getSessionId());
+                writeString(out,
+                            entry.getNodeId());
+                out.writeLong(entry.getAcquiredAt());
+            }
+        } catch (java.io.IOException e) {
+            throw new IOException(e);
+        }
+        try {
+            ioService.startBatch(fileSystem);
+            ioService.write(ioService.get(URI.create(LOCK_TABLE_SNAPSHOT_URI)),
+                            bytes.toByteArray());
+        } finally {
+            ioService.endBatch();
+        }
+        snapshotVersion = version;
+    }
+
+    private void restoreSnapshot() {
+        try {
+            final org.uberfire.java.nio.file.Path snapshot = ioService.get(URI.create(LOCK_TABLE_SNAPSHOT_URI));
+            if (snapshot == null || !ioService.exists(snapshot)) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(ioService.readAllBytes(snapshot)))) {
+                final int formatVersion = in.readInt();
+                if (formatVersion != LOCK_TABLE_SNAPSHOT_FORMAT_VERSION) {
+                    logger.warn("Ignoring lock table snapshot of unknown format version " + formatVersion);
+                    return;
+                }
+                final int count = in.readInt();
+                final List<LockTableEntry> entries = new ArrayList<>();
+                for (int i = 0; i < count; i++) {
+                    final LockTableEntry entry = new LockTableEntry(readString(in),
+                                                                    readString(in),
+                                                                    readString(in),
+                                                                    readString(in),
+                                                                    readString(in),
+                                                                    in.readLong());
+                    if (entry.getUri() != null && entry.getUserId() != null && entry.getSessionId() != null) {
+                        entries.add(entry);
+                    }
+                }
+                lockTable.restore(entries);
+            }
+            snapshotVersion = lockTable.getVersion();
+        } catch (Exception e) {
+            logger.warn("Unable to restore the lock table snapshot",
+                        e);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out,
+                                    final String value) throws java.io.IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws java.io.IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void runQuietly(final Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            logger.error("Lock table maintenance failed",
+                         e);
+        }
+    }
+}
@@ -48,6 +48,13 @@ import org.uberfire.workbench.events.ResourceDeletedEvent;
 import org.uberfire.workbench.events.ResourceRenamedEvent;
 import org.uberfire.workbench.events.ResourceUpdatedEvent;
 
+/**
+ * Fires the resource events of the watched file systems.
+ * <p>
+ * By default every watch service is polled by its own thread. When the {@value #DISPATCHER_PROPERTY} system
+ * property is true, the watch services that support subscriptions push their keys to a {@link WatchEventDispatcher}
+ * instead, so the number of threads no longer depends on the number of file systems.
+ */
 public abstract class AbstractIOWatchService implements IOWatchService,
                                                         Filter<WatchEvent<?>> {
 
@@ -56,6 +63,10 @@ public abstract class AbstractIOWatchService implements IOWatchService,
     private static final Integer AWAIT_TERMINATION_TIMEOUT = Integer.parseInt(System.getProperty("org.uberfire.watcher.quitetimeout",
                                                                                                  "3"));
 
+    public static final String DISPATCHER_PROPERTY = "org.uberfire.watcher.dispatcher";
+    public static final String DISPATCHER_THREADS_PROPERTY = "org.uberfire.watcher.dispatcher.threads";
+    public static final String DISPATCHER_MAX_BATCH_EVENTS_PROPERTY = "org.uberfire.watcher.dispatcher.maxBatchEvents";
+
     private final List<String> fileSystems = new ArrayList<>();
     private final List<WatchService> watchServices = new ArrayList<>();
     protected boolean isDisposed = false;
@@ -73,6 +84,8 @@ public abstract class AbstractIOWatchService implements IOWatchService,
 
     private final Set<Future<?>> jobs = new CopyOnWriteArraySet<>();
 
+    private final WatchEventDispatcher dispatcher = newDispatcher();
+
     public AbstractIOWatchService() {
     }
 
@@ -119,12 +132,56 @@ public abstract class AbstractIOWatchService implements IOWatchService,
                 }));
             }
             watchThreads.clear();
+
+            if (dispatcher != null) {
+                final IOWatchServiceExecutor watchServiceExecutor = getWatchServiceExecutor();
+                for (int i = 0; i < dispatcher.getThreads(); i++) {
+                    final String description = getClass().getName() + "(dispatcher-" + i + ")";
+                    jobs.add(executorService.submit(new DescriptiveRunnable() {
+                        @Override
+                        public String getDescription() {
+                            return description;
+                        }
+
+                        @Override
+                        public void run() {
+                            dispatcher.run(watchServiceExecutor,
+                                           AbstractIOWatchService.this);
+                        }
+                    }));
+                }
+            }
         }
     }
 
+    /**
+     * @return the metrics of the watch event dispatcher, or null if it is not enabled.
+     */
+    public WatchEventDispatcherMetrics getDispatcherMetrics() {
+        return dispatcher != null ? dispatcher.getMetrics() : null;
+    }
+
+    WatchEventDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    private static WatchEventDispatcher newDispatcher() {
+        if (!Boolean.parseBoolean(System.getProperty(DISPATCHER_PROPERTY,
+                                                     "false"))) {
+            return null;
+        }
+        return new WatchEventDispatcher(Integer.parseInt(System.getProperty(DISPATCHER_THREADS_PROPERTY,
+                                                                            "2")),
+                                        Integer.parseInt(System.getProperty(DISPATCHER_MAX_BATCH_EVENTS_PROPERTY,
+                                                                            "1000")));
+    }
+
     @PreDestroy
     protected void dispose() {
         isDisposed = true;
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
         for (final WatchService watchService : watchServices) {
             watchService.close();
         }
@@ -164,6 +221,10 @@ public abstract class AbstractIOWatchService implements IOWatchService,
         fileSystems.add(fs.getName());
         watchServices.add(ws);
 
+        if (dispatcher != null && dispatcher.register(ws)) {
+            return;
+        }
+
         final AsyncWatchService asyncWatchService = new AsyncWatchService() {
             @Override
             public void execute(final IOWatchServiceExecutor wsExecutor) {
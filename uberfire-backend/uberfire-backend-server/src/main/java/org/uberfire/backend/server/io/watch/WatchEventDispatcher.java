@@ -0,0 +1,310 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.server.util.Filter;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+import org.uberfire.java.nio.file.Watchable;
+
+/**
+ * Dispatches the keys of any number of watch services with a fixed number of threads.
+ * <p>
+ * Registered watch services push their keys to a per service queue, and the services with pending keys are queued
+ * in turn for the dispatching threads. A service is handled by one thread at a time, so its keys are dispatched in
+ * order. The keys a service accumulated while waiting are coalesced into a single key, as long as they come from
+ * the same user and session, so the executor fires one {@code ResourceBatchChangesEvent} for them.
+ */
+public class WatchEventDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WatchEventDispatcher.class);
+
+    private static final PendingKeys STOP = new PendingKeys(null);
+
+    private final int threads;
+    private final int maxBatchEvents;
+    private final LongSupplier clock;
+    private final BlockingQueue<PendingKeys> ready = new LinkedBlockingQueue<>();
+    private final Map<WatchService, PendingKeys> pending = new ConcurrentHashMap<>();
+    private final WatchEventDispatcherMetrics metrics = new WatchEventDispatcherMetrics();
+    private volatile boolean closed;
+
+    public WatchEventDispatcher(final int threads,
+                                final int maxBatchEvents) {
+        this(threads,
+             maxBatchEvents,
+             System::currentTimeMillis);
+    }
+
+    WatchEventDispatcher(final int threads,
+                         final int maxBatchEvents,
+                         final LongSupplier clock) {
+        this.threads = threads;
+        this.maxBatchEvents = maxBatchEvents;
+        this.clock = clock;
+    }
+
+    /**
+     * Subscribes to the keys of the given watch service.
+     * @return false if the watch service does not support subscriptions, and has to be polled.
+     */
+    public boolean register(final WatchService ws) {
+        final PendingKeys keys = new PendingKeys(ws);
+        pending.put(ws,
+                    keys);
+        if (ws.subscribe(key -> enqueue(keys,
+                                        key))) {
+            return true;
+        }
+        pending.remove(ws);
+        return false;
+    }
+
+    /**
+     * Dispatches keys until {@link #close()} is called or the current thread is interrupted. Meant to be run by
+     * {@link #getThreads()} threads.
+     */
+    public void run(final IOWatchServiceExecutor executor,
+                    final Filter<WatchEvent<?>> filter) {
+        while (true) {
+            final PendingKeys keys;
+            try {
+                keys = ready.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (keys == STOP) {
+                return;
+            }
+            dispatch(keys,
+                     executor,
+                     filter);
+        }
+    }
+
+    /**
+     * Dispatches the pending keys of the next watch service, without waiting for one.
+     * @return false if no keys were pending.
+     */
+    boolean dispatchNext(final IOWatchServiceExecutor executor,
+                         final Filter<WatchEvent<?>> filter) {
+        final PendingKeys keys = ready.poll();
+        if (keys == null || keys == STOP) {
+            return false;
+        }
+        dispatch(keys,
+                 executor,
+                 filter);
+        return true;
+    }
+
+    public void close() {
+        closed = true;
+        for (int i = 0; i < threads; i++) {
+            ready.add(STOP);
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getWatchServiceCount() {
+        return pending.size();
+    }
+
+    public WatchEventDispatcherMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void enqueue(final PendingKeys keys,
+                         final WatchKey key) {
+        if (closed || keys.cancelled) {
+            return;
+        }
+        keys.queue.add(new QueuedKey(key,
+                                     clock.getAsLong()));
+        metrics.recordQueued();
+        if (keys.scheduled.compareAndSet(false,
+                                         true)) {
+            ready.add(keys);
+        }
+    }
+
+    private void dispatch(final PendingKeys keys,
+                          final IOWatchServiceExecutor executor,
+                          final Filter<WatchEvent<?>> filter) {
+        try {
+            final List<QueuedKey> drained = new ArrayList<>();
+            QueuedKey queued;
+            while ((queued = keys.queue.poll()) != null) {
+                drained.add(queued);
+            }
+
+            int next = 0;
+            while (next < drained.size() && !keys.cancelled) {
+                final QueuedKey first = drained.get(next);
+                final List<WatchEvent<?>> events = new ArrayList<>(first.events);
+                int end = next + 1;
+                while (end < drained.size() && canCoalesce(first,
+                                                           drained.get(end),
+                                                           events.size())) {
+                    events.addAll(drained.get(end).events);
+                    end++;
+                }
+
+                try {
+                    executor.execute(new CoalescedWatchKey(first.key.watchable(),
+                                                           events),
+                                     filter);
+                } catch (final Exception ex) {
+                    metrics.recordFailure();
+                    LOG.error("Unexpected error during WatchService execution",
+                              ex);
+                }
+                metrics.recordDispatched(end - next,
+                                         events.size(),
+                                         clock.getAsLong() - first.queuedAt);
+
+                for (int i = next; i < end; i++) {
+                    // If the key is no longer valid the watch service was closed, so stop dispatching its keys
+                    if (!drained.get(i).key.reset()) {
+                        keys.cancelled = true;
+                    }
+                }
+                next = end;
+            }
+
+            if (keys.cancelled) {
+                pending.remove(keys.ws);
+                int dropped = drained.size() - next;
+                while (keys.queue.poll() != null) {
+                    dropped++;
+                }
+                metrics.recordDropped(dropped);
+            }
+        } finally {
+            keys.scheduled.set(false);
+            if (!keys.queue.isEmpty() && !keys.cancelled && keys.scheduled.compareAndSet(false,
+                                                                                         true)) {
+                ready.add(keys);
+            }
+        }
+    }
+
+    private boolean canCoalesce(final QueuedKey first,
+                                final QueuedKey other,
+                                final int eventCount) {
+        return eventCount + other.events.size() <= maxBatchEvents && Objects.equals(first.origin,
+                                                                                    other.origin);
+    }
+
+    private static class PendingKeys {
+
+        private final WatchService ws;
+        private final Queue<QueuedKey> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private PendingKeys(final WatchService ws) {
+            this.ws = ws;
+        }
+    }
+
+    private static class QueuedKey {
+
+        private final WatchKey key;
+        private final long queuedAt;
+        private final List<WatchEvent<?>> events;
+        private final List<String> origin;
+
+        private QueuedKey(final WatchKey key,
+                          final long queuedAt) {
+            this.key = key;
+            this.queuedAt = queuedAt;
+            final List<WatchEvent<?>> events = key.pollEvents();
+            this.events = events != null ? events : new ArrayList<>();
+            this.origin = origin(this.events);
+        }
+
+        /**
+         * The user and session the events of the key come from.
+         */
+        private static List<String> origin(final List<WatchEvent<?>> events) {
+            if (events.isEmpty() || !(events.get(0).context() instanceof WatchContext)) {
+                return null;
+            }
+            final WatchContext context = (WatchContext) events.get(0).context();
+            return Arrays.asList(context.getUser(),
+                                 context.getSessionId());
+        }
+    }
+
+    private static class CoalescedWatchKey implements WatchKey {
+
+        private final transient Watchable watchable;
+        private final List<WatchEvent<?>> events;
+
+        private CoalescedWatchKey(final Watchable watchable,
+                                  final List<WatchEvent<?>> events) {
+            this.watchable = watchable;
+            this.events = events;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public List<WatchEvent<?>> pollEvents() {
+            return events;
+        }
+
+        @Override
+        public boolean reset() {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public Watchable watchable() {
+            return watchable;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and queue lag counters of a {@link WatchEventDispatcher}.
+ */
+public class WatchEventDispatcherMetrics {
+
+    private final LongAdder dispatches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    void recordQueued() {
+        pending.incrementAndGet();
+    }
+
+    void recordDispatched(final int keyCount,
+                          final int eventCount,
+                          final long lag) {
+        dispatches.increment();
+        keys.add(keyCount);
+        events.add(eventCount);
+        pending.addAndGet(-keyCount);
+        lastLag.set(lag);
+        maxLag.accumulateAndGet(lag,
+                                Math::max);
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    void recordDropped(final int keyCount) {
+        pending.addAndGet(-keyCount);
+    }
+
+    /**
+     * Number of times the watch service executor was called; coalesced keys are dispatched together.
+     */
+    public long dispatchCount() {
+        return dispatches.sum();
+    }
+
+    public long keyCount() {
+        return keys.sum();
+    }
+
+    public long eventCount() {
+        return events.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Number of keys queued and not dispatched yet.
+     */
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Time (in milliseconds) the oldest key of the last dispatch waited in the queue.
+     */
+    public long lastLag() {
+        return lastLag.get();
+    }
+
+    public long maxLag() {
+        return maxLag.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WatchEventDispatcherMetrics{" +
+                "dispatchCount[" + dispatchCount() + "], " +
+                "keyCount[" + keyCount() + "], " +
+                "eventCount[" + eventCount() + "], " +
+                "failureCount[" + failureCount() + "], " +
+                "pendingCount[" + pendingCount() + "], " +
+                "lastLag[" + lastLag() + "], " +
+                "maxLag[" + maxLag() + "]}";
+    }
+}
@@ -27,10 +27,12 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.uberfire.backend.server.io.ConfigIOServiceProducer;
 import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.impl.LockInfo;
+import org.uberfire.commons.cluster.ClusterService;
 import org.uberfire.io.IOService;
 import org.uberfire.java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -45,6 +47,9 @@ public class LockCleanupSessionListenerTest {
     @Mock
     private IOService ioService;
 
+    @Mock
+    private ClusterService clusterService;
+
     @Test
     public void throwExceptionWhenIOProducerNotInitialized() {
         final LockCleanupSessionListener listener = new LockCleanupSessionListener();
@@ -101,4 +106,35 @@ public class LockCleanupSessionListenerTest {
             producer.destroy();
         }
     }
+
+    @Test
+    public void releaseLockTableLocksOfSession() {
+        final VFSLockServiceImpl lockService = new VFSLockServiceImpl();
+        final LockCleanupSessionListener listener = new LockCleanupSessionListener();
+
+        try {
+            lockService.startLockTable(clusterService,
+                                       60000,
+                                       0);
+            final org.uberfire.backend.vfs.Path file = PathFactory.newPath("file",
+                                                                           "default://file");
+            final org.uberfire.backend.vfs.Path other = PathFactory.newPath("other",
+                                                                            "default://other");
+            VFSLockServiceImpl.getLockTable().acquire(file,
+                                                      "christian",
+                                                      "session");
+            VFSLockServiceImpl.getLockTable().acquire(other,
+                                                      "christian",
+                                                      "other-session");
+
+            when(evt.getSession()).thenReturn(session);
+            when(session.getId()).thenReturn("session");
+            listener.sessionDestroyed(evt);
+
+            assertNull(VFSLockServiceImpl.getLockTable().get(file));
+            assertNotNull(VFSLockServiceImpl.getLockTable().get(other));
+        } finally {
+            lockService.destroy();
+        }
+    }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.backend.vfs.PathFactory;
+
+import static org.junit.Assert.*;
+
+public class LockTableTest {
+
+    private static final long LEASE = 1000;
+
+    private final Path file = PathFactory.newPath("file.txt",
+                                                  "default://master@space/project/dir/file.txt");
+    private final Path other = PathFactory.newPath("other.txt",
+                                                   "default://master@space/project/other.txt");
+
+    private AtomicLong clock;
+    private LockTable node1;
+    private LockTable node2;
+    private List<LockTableMessage> published;
+
+    @Before
+    public void setup() {
+        clock = new AtomicLong(1);
+        published = new ArrayList<>();
+        node1 = new LockTable("node1",
+                              LEASE,
+                              clock::get);
+        node2 = new LockTable("node2",
+                              LEASE,
+                              clock::get);
+        // synchronous replication between the two nodes
+        node1.setPublisher(message -> {
+            published.add(message);
+            node2.apply(message);
+        });
+        node2.setPublisher(node1::apply);
+    }
+
+    @Test
+    public void acquireFailsIfLockedByAnotherUser() {
+        assertEquals("user1",
+                     node1.acquire(file,
+                                   "user1",
+                                   "session1").getUserId());
+        assertEquals("user1",
+                     node1.acquire(file,
+                                   "user2",
+                                   "session2").getUserId());
+        assertEquals("user1",
+                     node1.acquire(file,
+                                   "user1",
+                                   "session1").getUserId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acquireRequiresASession() {
+        node1.acquire(file,
+                      "user1",
+                      null);
+    }
+
+    @Test
+    public void locksAreReplicated() {
+        final LockTableEntry entry = node1.acquire(file,
+                                                   "user1",
+                                                   "session1");
+
+        assertEquals(entry,
+                     node2.get(file));
+        assertEquals("user1",
+                     node2.acquire(file,
+                                   "user2",
+                                   "session2").getUserId());
+
+        assertTrue(node1.release(entry));
+        assertNull(node1.get(file));
+        assertNull(node2.get(file));
+        assertFalse(node1.release(entry));
+    }
+
+    @Test
+    public void childrenAreAnsweredFromTheTable() {
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+        node1.acquire(other,
+                      "user2",
+                      "session2");
+        node1.acquire(PathFactory.newPath("file.txt",
+                                          "default://master@space/project-other/file.txt"),
+                      "user1",
+                      "session1");
+
+        assertEquals(2,
+                     node2.getChildren(PathFactory.newPath("project",
+                                                           "default://master@space/project")).size());
+        assertEquals(Collections.singletonList(file.toURI()),
+                     uris(node2.getChildren(PathFactory.newPath("dir",
+                                                                "default://master@space/project/dir/"))));
+        assertTrue(node2.getChildren(file).isEmpty());
+    }
+
+    @Test
+    public void sessionEndReleasesItsLocks() {
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+        node1.acquire(other,
+                      "user1",
+                      "session2");
+
+        assertEquals(1,
+                     node1.releaseSession("session1"));
+        assertEquals(0,
+                     node2.releaseSession("session2"));
+
+        assertNull(node2.get(file));
+        assertNotNull(node2.get(other));
+    }
+
+    @Test
+    public void leasesOfOtherNodesExpire() {
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+
+        clock.addAndGet(LEASE / 2);
+        node1.renewLeases();
+        clock.addAndGet(LEASE / 2);
+        assertNotNull(node2.get(file));
+
+        // node1 is gone: its locks are no longer renewed
+        node1.setPublisher(message -> {
+        });
+        node1.renewLeases();
+        clock.addAndGet(LEASE);
+
+        assertNotNull(node1.get(file));
+        assertNull(node2.get(file));
+        assertEquals("user2",
+                     node2.acquire(file,
+                                   "user2",
+                                   "session2").getUserId());
+    }
+
+    @Test
+    public void concurrentAcquireKeepsTheFirstLockOnEveryNode() {
+        node1.setPublisher(published::add);
+        node2.setPublisher(message -> {
+        });
+
+        final LockTableEntry first = node2.acquire(file,
+                                                   "user2",
+                                                   "session2");
+        clock.incrementAndGet();
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+        node2.apply(published.get(0));
+        node1.apply(new LockTableMessage("node2",
+                                         LockTableMessage.Type.ACQUIRED,
+                                         Collections.singletonList(first)));
+
+        assertEquals(first,
+                     node1.get(file));
+        assertEquals(first,
+                     node2.get(file));
+    }
+
+    @Test
+    public void userAcquiringAgainTakesOverTheirLock() {
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+        clock.incrementAndGet();
+        final LockTableEntry again = node2.acquire(file,
+                                                   "user1",
+                                                   "session2");
+
+        assertEquals(again,
+                     node1.get(file));
+        assertEquals("node2",
+                     node1.get(file).getNodeId());
+    }
+
+    @Test
+    public void syncSendsTheLocksHeldByTheOtherNodes() {
+        node1.acquire(file,
+                      "user1",
+                      "session1");
+
+        final LockTable node3 = new LockTable("node3",
+                                              LEASE,
+                                              clock::get);
+        node1.setPublisher(node3::apply);
+        node3.setPublisher(node1::apply);
+        node3.sync();
+
+        assertEquals("user1",
+                     node3.get(file).getUserId());
+    }
+
+    @Test
+    public void restoredLocksAreTakenOver() {
+        final LockTableEntry saved = new LockTableEntry(file.toURI(),
+                                                        file.getFileName(),
+                                                        "user1",
+                                                        "session1",
+                                                        "gone",
+                                                        0);
+        node2.acquire(other,
+                      "user2",
+                      "session2");
+        final long version = node1.getVersion();
+
+        node1.restore(Arrays.asList(saved,
+                                    new LockTableEntry(other.toURI(),
+                                                       other.getFileName(),
+                                                       "user1",
+                                                       "session1",
+                                                       "gone",
+                                                       0)));
+
+        assertEquals("node1",
+                     node1.get(file).getNodeId());
+        assertEquals("user2",
+                     node1.get(other).getUserId());
+        assertEquals("user1",
+                     node2.get(file).getUserId());
+        assertNotEquals(version,
+                        node1.getVersion());
+        assertEquals(1,
+                     node1.releaseSession("session1"));
+    }
+
+    private List<String> uris(final List<LockTableEntry> entries) {
+        final List<String> uris = new ArrayList<>();
+        entries.forEach(entry -> uris.add(entry.getUri()));
+        return uris;
+    }
+}
@@ -16,7 +16,12 @@
 
 package org.uberfire.backend.server;
 
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.net.URI;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import javax.servlet.http.HttpSession;
 
 import org.jboss.errai.bus.client.api.QueueSession;
@@ -25,9 +30,11 @@ import org.jboss.errai.bus.client.api.messaging.Message;
 import org.jboss.errai.bus.server.api.RpcContext;
 import org.jboss.errai.security.shared.api.identity.User;
 import org.jboss.errai.security.shared.api.identity.UserImpl;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -36,11 +43,14 @@ import org.uberfire.backend.vfs.Path;
 import org.uberfire.backend.vfs.PathFactory;
 import org.uberfire.backend.vfs.impl.LockInfo;
 import org.uberfire.backend.vfs.impl.LockResult;
+import org.uberfire.commons.cluster.ClusterService;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.NoSuchFileException;
 import org.uberfire.rpc.SessionInfo;
 
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -67,6 +77,9 @@ public class VFSLockServiceTest {
     @Mock
     private HttpSession httpSession;
 
+    @Mock
+    private ClusterService clusterService;
+
     private Path path = PathFactory.newPath("file-to-lock.txt",
                                             "default://file-to-lock.txt");
 
@@ -78,6 +91,12 @@ public class VFSLockServiceTest {
         when(sessionInfo.getIdentity()).thenReturn(testUser);
         when(queueSession.getAttribute(HttpSession.class,
                                        HttpSession.class.getName())).thenReturn(httpSession);
+        when(httpSession.getId()).thenReturn("session");
+    }
+
+    @After
+    public void tearDown() {
+        lockService.destroy();
     }
 
     @Test
@@ -264,6 +283,189 @@ public class VFSLockServiceTest {
         assertNull(info.lockedBy());
     }
 
+    @Test
+    public void lockTableDoesNotUseLockFiles() {
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   0);
+
+        assertTrue(lockService.acquireLock(path).isSuccess());
+        final LockInfo info = lockService.retrieveLockInfo(path);
+        assertTrue(info.isLocked());
+        assertEquals("testUser",
+                     info.lockedBy());
+        verify(httpSession).setAttribute(eq(VFSLockServiceImpl.LOCK_SESSION_ATTRIBUTE_NAME),
+                                         any(Set.class));
+
+        final LockResult result = lockService.releaseLock(path);
+        assertTrue(result.isSuccess());
+        assertFalse(lockService.retrieveLockInfo(path).isLocked());
+        verifyZeroInteractions(ioService);
+    }
+
+    @Test
+    public void lockTableRejectsLocksOfOtherUsers() {
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   0);
+        VFSLockServiceImpl.getLockTable().acquire(path,
+                                                  "some-other-user",
+                                                  "other-session");
+
+        final LockResult result = lockService.acquireLock(path);
+        assertFalse(result.isSuccess());
+        assertEquals("some-other-user",
+                     result.getLockInfo().lockedBy());
+
+        try {
+            lockService.releaseLock(path);
+            fail("Expected exception on attempt to release lock not owned by user");
+        } catch (Exception ioe) {
+            // expected
+        }
+
+        assertTrue(lockService.forceReleaseLock(path).isSuccess());
+        assertFalse(lockService.retrieveLockInfo(path).isLocked());
+    }
+
+    @Test
+    public void lockTableRetrievesLockInfosWithoutWalkingTheFileSystem() {
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   0);
+        final Path dir = PathFactory.newPath("dir",
+                                             "default://master@space/project/dir");
+        final Path file = PathFactory.newPath("file.txt",
+                                              "default://master@space/project/dir/file.txt");
+        lockService.acquireLock(file);
+        VFSLockServiceImpl.getLockTable().acquire(PathFactory.newPath("other.txt",
+                                                                      "default://master@space/project/dir/other.txt"),
+                                                  "some-other-user",
+                                                  "other-session");
+
+        assertEquals(2,
+                     lockService.retrieveLockInfos(dir,
+                                                   false).size());
+        final List<LockInfo> notOwned = lockService.retrieveLockInfos(dir,
+                                                                      true);
+        assertEquals(1,
+                     notOwned.size());
+        assertEquals("some-other-user",
+                     notOwned.get(0).lockedBy());
+        assertEquals("other.txt",
+                     notOwned.get(0).getFile().getFileName());
+        verifyZeroInteractions(ioService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void lockTableIsReplicatedThroughClusterService() {
+        when(clusterService.isAppFormerClustered()).thenReturn(true);
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   0);
+
+        final ArgumentCaptor<Consumer> consumer = ArgumentCaptor.forClass(Consumer.class);
+        verify(clusterService).connect();
+        verify(clusterService).createConsumer(eq(ClusterService.DestinationType.PubSub),
+                                              eq(VFSLockServiceImpl.LOCK_TABLE_CHANNEL),
+                                              eq(LockTableMessage.class),
+                                              consumer.capture());
+
+        lockService.acquireLock(path);
+        verify(clusterService,
+               times(2)).broadcast(eq(ClusterService.DestinationType.PubSub),
+                                   eq(VFSLockServiceImpl.LOCK_TABLE_CHANNEL),
+                                   any(LockTableMessage.class));
+
+        final Path remote = PathFactory.newPath("remote.txt",
+                                                "default://remote.txt");
+        consumer.getValue().accept(new LockTableMessage("other-node",
+                                                        LockTableMessage.Type.ACQUIRED,
+                                                        singletonList(new LockTableEntry(remote.toURI(),
+                                                                                         remote.getFileName(),
+                                                                                         "some-other-user",
+                                                                                         "other-session",
+                                                                                         "other-node",
+                                                                                         1))));
+        assertEquals("some-other-user",
+                     lockService.retrieveLockInfo(remote).lockedBy());
+
+        lockService.destroy();
+        verify(clusterService).close();
+    }
+
+    @Test
+    public void lockTableSnapshotIsRestored() {
+        final org.uberfire.java.nio.file.Path snapshot = mock(org.uberfire.java.nio.file.Path.class);
+        when(ioService.get(URI.create(VFSLockServiceImpl.LOCK_TABLE_SNAPSHOT_URI))).thenReturn(snapshot);
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   3600000);
+        lockService.acquireLock(path);
+
+        lockService.writeSnapshot();
+        lockService.writeSnapshot();
+
+        final ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+        verify(ioService).startBatch(fileSystem);
+        verify(ioService).write(eq(snapshot),
+                                content.capture());
+        verify(ioService).endBatch();
+        lockService.destroy();
+
+        when(ioService.exists(snapshot)).thenReturn(true);
+        when(ioService.readAllBytes(snapshot)).thenReturn(content.getValue());
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   3600000);
+
+        final LockInfo info = lockService.retrieveLockInfo(path);
+        assertTrue(info.isLocked());
+        assertEquals("testUser",
+                     info.lockedBy());
+    }
+
+    @Test
+    public void lockTableSnapshotOfUnknownFormatIsIgnored() throws Exception {
+        final org.uberfire.java.nio.file.Path snapshot = mock(org.uberfire.java.nio.file.Path.class);
+        when(ioService.get(URI.create(VFSLockServiceImpl.LOCK_TABLE_SNAPSHOT_URI))).thenReturn(snapshot);
+        when(ioService.exists(snapshot)).thenReturn(true);
+        final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(singletonList(new LockTableEntry(path.toURI(),
+                                                             path.getFileName(),
+                                                             "some-other-user",
+                                                             "other-session",
+                                                             "other-node",
+                                                             1)));
+        }
+        when(ioService.readAllBytes(snapshot)).thenReturn(serialized.toByteArray());
+
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   3600000);
+
+        assertFalse(lockService.retrieveLockInfo(path).isLocked());
+    }
+
+    @Test
+    public void lockTableRejectsLocksWithoutSession() {
+        when(queueSession.getAttribute(HttpSession.class,
+                                       HttpSession.class.getName())).thenReturn(null);
+        lockService.startLockTable(clusterService,
+                                   60000,
+                                   0);
+
+        try {
+            lockService.acquireLock(path);
+            fail("Expected exception on attempt to lock without session");
+        } catch (IOException e) {
+            // expected
+        }
+        assertFalse(lockService.retrieveLockInfo(path).isLocked());
+    }
+
     private void setupRpcContext() {
         final Message message = MessageBuilder.createMessage("for testing").signalling().done().getMessage();
         message.setResource("Session",
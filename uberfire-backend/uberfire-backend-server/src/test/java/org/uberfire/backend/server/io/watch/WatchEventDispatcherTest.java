@@ -0,0 +1,350 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.backend.server.io.watch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.ClosedWatchServiceException;
+import org.uberfire.java.nio.file.InterruptedException;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.WatchKey;
+import org.uberfire.java.nio.file.WatchService;
+import org.uberfire.java.nio.file.Watchable;
+
+import static org.junit.Assert.*;
+
+public class WatchEventDispatcherTest {
+
+    private AtomicLong clock;
+    private WatchEventDispatcher dispatcher;
+    private List<List<WatchEvent<?>>> dispatched;
+    private IOWatchServiceExecutor executor;
+
+    @Before
+    public void setup() {
+        clock = new AtomicLong();
+        dispatcher = new WatchEventDispatcher(2,
+                                              3,
+                                              clock::get);
+        dispatched = Collections.synchronizedList(new ArrayList<>());
+        executor = (wk, filter) -> dispatched.add(wk.pollEvents());
+    }
+
+    @Test
+    public void keysAreCoalescedPerWatchService() {
+        final PushWatchService ws1 = register();
+        final PushWatchService ws2 = register();
+
+        ws1.push(event("user1"));
+        ws2.push(event("user1"));
+        ws1.push(event("user1"),
+                 event("user1"));
+
+        dispatchAll();
+
+        assertEquals(2,
+                     dispatched.size());
+        assertEquals(3,
+                     dispatched.get(0).size());
+        assertEquals(1,
+                     dispatched.get(1).size());
+        assertEquals(2,
+                     dispatcher.getMetrics().dispatchCount());
+        assertEquals(3,
+                     dispatcher.getMetrics().keyCount());
+        assertEquals(4,
+                     dispatcher.getMetrics().eventCount());
+        assertEquals(0,
+                     dispatcher.getMetrics().pendingCount());
+    }
+
+    @Test
+    public void keysOfDifferentUsersAreNotCoalesced() {
+        final PushWatchService ws = register();
+
+        ws.push(event("user1"));
+        ws.push(event("user2"));
+        ws.push(event("user1"));
+
+        dispatchAll();
+
+        assertEquals(Arrays.asList("user1",
+                                   "user2",
+                                   "user1"),
+                     users());
+    }
+
+    @Test
+    public void coalescedKeysAreLimitedToMaxBatchEvents() {
+        final PushWatchService ws = register();
+
+        ws.push(event("user1"),
+                event("user1"));
+        ws.push(event("user1"));
+        ws.push(event("user1"));
+
+        dispatchAll();
+
+        assertEquals(2,
+                     dispatched.size());
+        assertEquals(3,
+                     dispatched.get(0).size());
+        assertEquals(1,
+                     dispatched.get(1).size());
+    }
+
+    @Test
+    public void queueLagIsMeasured() {
+        final PushWatchService ws = register();
+
+        ws.push(event("user1"));
+        clock.set(20);
+        ws.push(event("user1"));
+        assertEquals(2,
+                     dispatcher.getMetrics().pendingCount());
+
+        clock.set(50);
+        dispatchAll();
+
+        assertEquals(50,
+                     dispatcher.getMetrics().lastLag());
+        assertEquals(50,
+                     dispatcher.getMetrics().maxLag());
+        assertEquals(0,
+                     dispatcher.getMetrics().pendingCount());
+    }
+
+    @Test
+    public void executorFailuresAreCounted() {
+        final PushWatchService ws = register();
+        executor = (wk, filter) -> {
+            throw new RuntimeException("dummy");
+        };
+
+        ws.push(event("user1"));
+        dispatchAll();
+        ws.push(event("user1"));
+        dispatchAll();
+
+        assertEquals(2,
+                     dispatcher.getMetrics().failureCount());
+        assertEquals(2,
+                     dispatcher.getMetrics().dispatchCount());
+    }
+
+    @Test
+    public void closedWatchServicesAreDropped() {
+        final PushWatchService ws = register();
+        ws.valid = false;
+
+        ws.push(event("user1"));
+        dispatchAll();
+        ws.push(event("user1"));
+        dispatchAll();
+
+        assertEquals(1,
+                     dispatched.size());
+        assertEquals(0,
+                     dispatcher.getWatchServiceCount());
+        assertEquals(0,
+                     dispatcher.getMetrics().pendingCount());
+    }
+
+    @Test
+    public void watchServicesWithoutSubscriptionsAreNotRegistered() {
+        assertFalse(dispatcher.register(new PushWatchService() {
+            @Override
+            public boolean subscribe(final Consumer<WatchKey> subscriber) {
+                return false;
+            }
+        }));
+        assertEquals(0,
+                     dispatcher.getWatchServiceCount());
+    }
+
+    @Test
+    public void manyWatchServicesAreDispatchedByFixedThreads() throws Exception {
+        final int watchServices = 500;
+        final CountDownLatch done = new CountDownLatch(watchServices);
+        final ExecutorService threads = Executors.newFixedThreadPool(dispatcher.getThreads());
+        for (int i = 0; i < dispatcher.getThreads(); i++) {
+            threads.execute(() -> dispatcher.run((wk, filter) -> wk.pollEvents().forEach(e -> done.countDown()),
+                                                 e -> false));
+        }
+
+        final List<PushWatchService> registered = new ArrayList<>();
+        for (int i = 0; i < watchServices; i++) {
+            registered.add(register());
+        }
+        registered.forEach(ws -> ws.push(event("user1")));
+
+        assertTrue(done.await(10,
+                              TimeUnit.SECONDS));
+        dispatcher.close();
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(10,
+                                            TimeUnit.SECONDS));
+        assertEquals(watchServices,
+                     dispatcher.getMetrics().eventCount());
+    }
+
+    private PushWatchService register() {
+        final PushWatchService ws = new PushWatchService();
+        assertTrue(dispatcher.register(ws));
+        return ws;
+    }
+
+    private void dispatchAll() {
+        while (dispatcher.dispatchNext(executor,
+                                       e -> false)) {
+        }
+    }
+
+    private List<String> users() {
+        final List<String> users = new ArrayList<>();
+        for (List<WatchEvent<?>> events : dispatched) {
+            users.add(((WatchContext) events.get(0).context()).getUser());
+        }
+        return users;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WatchEvent<?> event(final String user) {
+        final WatchContext context = new WatchContext() {
+            @Override
+            public Path getPath() {
+                return null;
+            }
+
+            @Override
+            public Path getOldPath() {
+                return null;
+            }
+
+            @Override
+            public String getSessionId() {
+                return "session";
+            }
+
+            @Override
+            public String getMessage() {
+                return "message";
+            }
+
+            @Override
+            public String getUser() {
+                return user;
+            }
+        };
+        return new WatchEvent() {
+            @Override
+            public Kind kind() {
+                return StandardWatchEventKind.ENTRY_MODIFY;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Object context() {
+                return context;
+            }
+        };
+    }
+
+    private static class PushWatchService implements WatchService {
+
+        private Consumer<WatchKey> subscriber;
+        private boolean valid = true;
+
+        void push(final WatchEvent<?>... events) {
+            subscriber.accept(new WatchKey() {
+                @Override
+                public boolean isValid() {
+                    return valid;
+                }
+
+                @Override
+                public List<WatchEvent<?>> pollEvents() {
+                    return Arrays.asList(events);
+                }
+
+                @Override
+                public boolean reset() {
+                    return valid;
+                }
+
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public Watchable watchable() {
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public boolean subscribe(final Consumer<WatchKey> subscriber) {
+            this.subscriber = subscriber;
+            return true;
+        }
+
+        @Override
+        public WatchKey poll() throws ClosedWatchServiceException {
+            return null;
+        }
+
+        @Override
+        public WatchKey poll(final long timeout,
+                             final TimeUnit unit) throws ClosedWatchServiceException, InterruptedException {
+            return null;
+        }
+
+        @Override
+        public WatchKey take() throws ClosedWatchServiceException, InterruptedException {
+            return null;
+        }
+
+        @Override
+        public boolean isClose() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
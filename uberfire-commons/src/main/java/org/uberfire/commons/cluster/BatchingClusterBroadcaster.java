@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends items to the cluster asynchronously, coalescing the items broadcasted to a channel within a time window
+ * into a single binary message.
+ * <p>
+ * Messages are sent from a single background thread, so the items of a channel are delivered in the order they were
+ * broadcasted. A batch is sent when its window elapses or when it reaches the maximum batch size. When the number of
+ * items waiting to be sent reaches the maximum, {@link #broadcast(String, Object)} blocks until the sender catches up.
+ */
+public class BatchingClusterBroadcaster<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingClusterBroadcaster.class);
+
+    private final ClusterService clusterService;
+    private final ClusterService.DestinationType type;
+    private final Function<List<T>, byte[]> encoder;
+    private final long window;
+    private final int maxBatchSize;
+    private final Semaphore capacity;
+    private final ScheduledExecutorService sender;
+    private final Map<String, Channel<T>> channels = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    public BatchingClusterBroadcaster(final ClusterService clusterService,
+                                      final ClusterService.DestinationType type,
+                                      final Function<List<T>, byte[]> encoder,
+                                      final ClusterParameters clusterParameters) {
+        this(clusterService,
+             type,
+             encoder,
+             clusterParameters.getBatchWindow(),
+             clusterParameters.getBatchMaxSize(),
+             clusterParameters.getBatchMaxPending());
+    }
+
+    public BatchingClusterBroadcaster(final ClusterService clusterService,
+                                      final ClusterService.DestinationType type,
+                                      final Function<List<T>, byte[]> encoder,
+                                      final long window,
+                                      final int maxBatchSize,
+                                      final int maxPending) {
+        this.clusterService = clusterService;
+        this.type = type;
+        this.encoder = encoder;
+        this.window = window;
+        this.maxBatchSize = Math.max(1,
+                                     maxBatchSize);
+        this.capacity = new Semaphore(Math.max(1,
+                                               maxPending));
+        this.sender = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "appformer-cluster-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void broadcast(final String channelName,
+                          final T item) {
+        if (closed) {
+            LOGGER.warn("Cluster broadcaster is closed, dropping message for channel {}",
+                        channelName);
+            return;
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting to broadcast, dropping message for channel {}",
+                        channelName);
+            return;
+        }
+
+        final Channel<T> channel = channels.computeIfAbsent(channelName,
+                                                            Channel::new);
+        final boolean full;
+        final boolean schedule;
+        synchronized (channel) {
+            if (channel.pending.isEmpty()) {
+                channel.oldest = System.currentTimeMillis();
+            }
+            channel.pending.add(item);
+            channel.metrics.recordQueued();
+            full = channel.pending.size() >= maxBatchSize;
+            schedule = !channel.scheduled;
+            channel.scheduled = true;
+        }
+
+        if (full || window == 0) {
+            sender.execute(() -> send(channel));
+        } else if (schedule) {
+            sender.schedule(() -> send(channel),
+                            window,
+                            TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends every pending batch, and waits until they are sent.
+     */
+    public void flush() {
+        try {
+            sender.submit(() -> channels.values().forEach(this::send)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("Error flushing cluster messages",
+                         e);
+        }
+    }
+
+    public ClusterChannelMetrics getMetrics(final String channelName) {
+        final Channel<T> channel = channels.get(channelName);
+        return channel != null ? channel.metrics : null;
+    }
+
+    public Map<String, ClusterChannelMetrics> getMetrics() {
+        final Map<String, ClusterChannelMetrics> metrics = new ConcurrentHashMap<>();
+        channels.forEach((name, channel) -> metrics.put(name,
+                                                        channel.metrics));
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        sender.shutdown();
+    }
+
+    private void send(final Channel<T> channel) {
+        final List<T> batch;
+        final long oldest;
+        synchronized (channel) {
+            channel.scheduled = false;
+            if (channel.pending.isEmpty()) {
+                return;
+            }
+            batch = channel.pending;
+            oldest = channel.oldest;
+            channel.pending = new ArrayList<>();
+        }
+
+        try {
+            final byte[] payload = encoder.apply(batch);
+            clusterService.broadcastBinary(type,
+                                           channel.name,
+                                           payload);
+            channel.metrics.recordSent(batch.size(),
+                                       payload.length,
+                                       System.currentTimeMillis() - oldest);
+        } catch (Exception e) {
+            channel.metrics.recordFailure(batch.size());
+            LOGGER.error("Error broadcasting " + batch.size() + " messages to channel " + channel.name,
+                         e);
+        } finally {
+            capacity.release(batch.size());
+        }
+    }
+
+    private static class Channel<T> {
+
+        private final String name;
+        private final ClusterChannelMetrics metrics = new ClusterChannelMetrics();
+        private List<T> pending = new ArrayList<>();
+        private long oldest;
+        private boolean scheduled = false;
+
+        private Channel(final String name) {
+            this.name = name;
+        }
+    }
+}
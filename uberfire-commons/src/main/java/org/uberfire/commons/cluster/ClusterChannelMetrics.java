@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and lag counters of a cluster channel, recorded by {@link BatchingClusterBroadcaster} or by senders
+ * that broadcast messages one at a time. Byte counts only cover binary messages.
+ */
+public class ClusterChannelMetrics {
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    public void recordQueued() {
+        pending.incrementAndGet();
+    }
+
+    public void recordSent(final int itemCount,
+                    final int byteCount,
+                    final long lag) {
+        messages.increment();
+        items.add(itemCount);
+        bytes.add(byteCount);
+        pending.addAndGet(-itemCount);
+        lastLag.set(lag);
+        maxLag.accumulateAndGet(lag,
+                                Math::max);
+    }
+
+    public void recordFailure(final int itemCount) {
+        failures.increment();
+        pending.addAndGet(-itemCount);
+    }
+
+    public long messageCount() {
+        return messages.sum();
+    }
+
+    public long itemCount() {
+        return items.sum();
+    }
+
+    public long byteCount() {
+        return bytes.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Time (in milliseconds) the oldest item of the last message waited before being sent.
+     */
+    public long lastLag() {
+        return lastLag.get();
+    }
+
+    public long maxLag() {
+        return maxLag.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterChannelMetrics{" +
+                "messageCount[" + messageCount() + "], " +
+                "itemCount[" + itemCount() + "], " +
+                "byteCount[" + byteCount() + "], " +
+                "failureCount[" + failureCount() + "], " +
+                "pendingCount[" + pendingCount() + "], " +
+                "lastLag[" + lastLag() + "], " +
+                "maxLag[" + maxLag() + "]}";
+    }
+}
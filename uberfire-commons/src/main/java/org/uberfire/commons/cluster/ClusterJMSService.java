@@ -21,11 +21,13 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
+import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
@@ -129,6 +131,18 @@ public class ClusterJMSService implements ClusterService {
                         } catch (JMSException e) {
                             LOGGER.error("Exception receiving JMS message: " + e.getMessage());
                         }
+                    } else if (message instanceof BytesMessage && objectMessageClass.isAssignableFrom(byte[].class)) {
+                        try {
+                            BytesMessage bytesMessage = (BytesMessage) message;
+                            byte[] payload = new byte[(int) bytesMessage.getBodyLength()];
+                            bytesMessage.readBytes(payload);
+                            if (LOGGER.isTraceEnabled()) {
+                                LOGGER.trace("JSM: Consumer for channel {} - {} and session {} is accepting BytesMessage", type, channel, newSession);
+                            }
+                            listener.accept((T) payload);
+                        } catch (JMSException e) {
+                            LOGGER.error("Exception receiving JMS message: " + e.getMessage());
+                        }
                     }
                 });
                 return newSession;
@@ -145,9 +159,30 @@ public class ClusterJMSService implements ClusterService {
     }
 
     @Override
-    public synchronized void broadcast(DestinationType type,
-                                       String channel,
-                                       Serializable object) {
+    public void broadcast(DestinationType type,
+                          String channel,
+                          Serializable object) {
+        send(type,
+             channel,
+             session -> session.createObjectMessage(object));
+    }
+
+    @Override
+    public void broadcastBinary(DestinationType type,
+                                String channel,
+                                byte[] payload) {
+        send(type,
+             channel,
+             session -> {
+                 BytesMessage bytesMessage = session.createBytesMessage();
+                 bytesMessage.writeBytes(payload);
+                 return bytesMessage;
+             });
+    }
+
+    private synchronized void send(DestinationType type,
+                                   String channel,
+                                   MessageFactory messageFactory) {
 
         Session session = null;
         try {
@@ -156,12 +191,12 @@ public class ClusterJMSService implements ClusterService {
             Destination destination = createDestination(type,
                                                         channel,
                                                         session);
-            ObjectMessage objectMessage = session.createObjectMessage(object);
+            Message message = messageFactory.create(session);
             if (clusterParameters.getJmsThrottle() > 0) {
-                objectMessage.setLongProperty("_AMQ_SCHED_DELIVERY", System.currentTimeMillis() + clusterParameters.getJmsThrottle());
+                message.setLongProperty("_AMQ_SCHED_DELIVERY", System.currentTimeMillis() + clusterParameters.getJmsThrottle());
             }
             MessageProducer messageProducer = session.createProducer(destination);
-            messageProducer.send(objectMessage);
+            messageProducer.send(message);
         } catch (JMSException e) {
             LOGGER.error("Exception on JMS broadcast: " + e.getMessage());
         } finally {
@@ -200,6 +235,12 @@ public class ClusterJMSService implements ClusterService {
         return clusterParameters.isAppFormerClustered();
     }
 
+    @FunctionalInterface
+    private interface MessageFactory {
+
+        Message create(Session session) throws JMSException;
+    }
+
     public static class JMSExceptionListener implements ExceptionListener {
 
         @Override
@@ -35,6 +35,14 @@ public class ClusterParameters {
     //The specified value must be a positive long corresponding to the time the message must be delivered (in milliseconds)
     public static final String APPFORMER_JMS_THROTTLE = "appformer-jms-throttle";
 
+    //Time window (in milliseconds) in which the events broadcasted to a channel are coalesced into a single message
+    public static final String APPFORMER_JMS_BATCH_WINDOW = "appformer-jms-batch-window";
+    public static final String APPFORMER_JMS_BATCH_MAX_SIZE = "appformer-jms-batch-max-size";
+    //Maximum number of events waiting to be sent before broadcasting blocks the caller
+    public static final String APPFORMER_JMS_BATCH_MAX_PENDING = "appformer-jms-batch-max-pending";
+    //Whether watch events are sent as batched binary messages, only nodes of this version or later can read them
+    public static final String APPFORMER_JMS_BINARY_BATCHES = "appformer-jms-binary-batches";
+
     private final Properties initialContextFactory = new Properties();
     private final ConnectionMode connectionMode;
     private final String providerUrl;
@@ -42,6 +50,10 @@ public class ClusterParameters {
     private final String jmsUserName;
     private final String jmsPassword;
     private long jmsThrottle;
+    private final long batchWindow;
+    private final int batchMaxSize;
+    private final int batchMaxPending;
+    private final boolean binaryBatches;
 
     public ClusterParameters() {
         ConnectionMode connectionMode;
@@ -67,6 +79,26 @@ public class ClusterParameters {
         } catch (NumberFormatException e) {
             this.jmsThrottle = -1;
         }
+
+        this.batchWindow = parse(APPFORMER_JMS_BATCH_WINDOW,
+                                 50);
+        this.batchMaxSize = (int) parse(APPFORMER_JMS_BATCH_MAX_SIZE,
+                                        500);
+        this.batchMaxPending = (int) parse(APPFORMER_JMS_BATCH_MAX_PENDING,
+                                           10000);
+        this.binaryBatches = Boolean.parseBoolean(System.getProperty(APPFORMER_JMS_BINARY_BATCHES,
+                                                                     "false"));
+    }
+
+    private static long parse(final String property,
+                              final long defaultValue) {
+        try {
+            final long value = Long.parseLong(System.getProperty(property,
+                                                                 String.valueOf(defaultValue)));
+            return value >= 0 ? value : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
     public boolean isAppFormerClustered() {
@@ -101,4 +133,20 @@ public class ClusterParameters {
         return jmsThrottle;
     }
 
+    public long getBatchWindow() {
+        return batchWindow;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public int getBatchMaxPending() {
+        return batchMaxPending;
+    }
+
+    public boolean isBinaryBatches() {
+        return binaryBatches;
+    }
+
 }
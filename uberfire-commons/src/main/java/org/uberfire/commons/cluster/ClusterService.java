@@ -17,6 +17,18 @@ public interface ClusterService {
                    String channel,
                    Serializable object);
 
+    /**
+     * Broadcasts an already encoded payload. It is delivered to the consumers of the channel that accept
+     * {@code byte[]}; implementations may send it without the overhead of object serialization.
+     */
+    default void broadcastBinary(DestinationType type,
+                                 String channel,
+                                 byte[] payload) {
+        broadcast(type,
+                  channel,
+                  payload);
+    }
+
     boolean isAppFormerClustered();
 
     void close();
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+/**
+ * Creates the {@link ClusterService} selected by the {@link ClusterParameters#APPFORMER_JMS_CONNECTION_MODE}
+ * system property: the JMS one, or the in-process one when it is set to {@link ConnectionMode#IN_MEMORY}.
+ */
+public final class ClusterServiceFactory {
+
+    private ClusterServiceFactory() {
+    }
+
+    public static ClusterService create() {
+        if (new ClusterParameters().getConnectionMode() == ConnectionMode.IN_MEMORY) {
+            return new InMemoryClusterService(InMemoryCluster.getDefault());
+        }
+        return new ClusterJMSService();
+    }
+}
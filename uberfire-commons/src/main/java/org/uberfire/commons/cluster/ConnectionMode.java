@@ -20,5 +20,6 @@ package org.uberfire.commons.cluster;
 public enum ConnectionMode {
     REMOTE,
     JNDI,
+    IN_MEMORY,
     NONE
 }
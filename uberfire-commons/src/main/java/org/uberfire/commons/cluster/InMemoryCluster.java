@@ -0,0 +1,123 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * In-process message bus shared by the {@link InMemoryClusterService}s that simulate the nodes of a cluster.
+ * <p>
+ * Every consumer receives its own copy of a message: serializable objects are serialized and deserialized, as
+ * with a JMS ObjectMessage, and binary payloads are copied. Publish/subscribe messages reach the consumers of the
+ * channel on every node, including the sender, while load balanced ones reach a single consumer.
+ */
+public class InMemoryCluster {
+
+    private static final InMemoryCluster DEFAULT = new InMemoryCluster();
+
+    private final List<InMemoryClusterService> nodes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextConsumer = new AtomicInteger();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+
+    public static InMemoryCluster getDefault() {
+        return DEFAULT;
+    }
+
+    void join(final InMemoryClusterService node) {
+        if (!nodes.contains(node)) {
+            nodes.add(node);
+        }
+    }
+
+    void leave(final InMemoryClusterService node) {
+        nodes.remove(node);
+    }
+
+    void publish(final ClusterService.DestinationType type,
+                 final String channel,
+                 final Object payload) {
+        messages.increment();
+        final List<InMemoryClusterService> consumers = nodes.stream()
+                .filter(node -> node.consumes(channel))
+                .collect(Collectors.toList());
+        if (consumers.isEmpty()) {
+            return;
+        }
+
+        if (type == ClusterService.DestinationType.LoadBalancer) {
+            final int index = Math.floorMod(nextConsumer.getAndIncrement(),
+                                            consumers.size());
+            deliver(consumers.get(index),
+                    channel,
+                    payload);
+        } else {
+            consumers.forEach(node -> deliver(node,
+                                              channel,
+                                              payload));
+        }
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public long getMessageCount() {
+        return messages.sum();
+    }
+
+    public long getDeliveryCount() {
+        return deliveries.sum();
+    }
+
+    private void deliver(final InMemoryClusterService node,
+                         final String channel,
+                         final Object payload) {
+        deliveries.increment();
+        node.deliver(channel,
+                     copy(payload));
+    }
+
+    static Object copy(final Object payload) {
+        if (payload instanceof byte[]) {
+            return ((byte[]) payload).clone();
+        }
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(payload);
+            }
+            try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (Serializable) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Error copying cluster message",
+                                       e);
+        }
+    }
+}
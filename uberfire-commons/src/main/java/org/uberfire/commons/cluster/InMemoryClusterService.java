@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ClusterService} that exchanges messages with the other nodes of an {@link InMemoryCluster} of the same
+ * JVM, so the clustered code paths can be exercised and measured without a message broker.
+ * <p>
+ * Like JMS message listeners, the consumers of a node are called asynchronously, one message at a time, in the
+ * order the messages were sent.
+ */
+public class InMemoryClusterService implements ClusterService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryClusterService.class);
+
+    private final InMemoryCluster cluster;
+    private final Map<String, ChannelConsumer<?>> consumers = new ConcurrentHashMap<>();
+    private final ExecutorService delivery;
+
+    public InMemoryClusterService(final InMemoryCluster cluster) {
+        this.cluster = cluster;
+        this.delivery = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "appformer-in-memory-cluster");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void connect() {
+        cluster.join(this);
+    }
+
+    @Override
+    public <T> void createConsumer(final DestinationType type,
+                                   final String channel,
+                                   final Class<T> clazz,
+                                   final Consumer<T> listener) {
+        consumers.putIfAbsent(channel,
+                              new ChannelConsumer<>(clazz,
+                                                    listener));
+    }
+
+    @Override
+    public void broadcast(final DestinationType type,
+                          final String channel,
+                          final Serializable object) {
+        cluster.publish(type,
+                        channel,
+                        object);
+    }
+
+    @Override
+    public void broadcastBinary(final DestinationType type,
+                                final String channel,
+                                final byte[] payload) {
+        cluster.publish(type,
+                        channel,
+                        payload);
+    }
+
+    @Override
+    public boolean isAppFormerClustered() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        cluster.leave(this);
+        consumers.clear();
+        delivery.shutdown();
+    }
+
+    boolean consumes(final String channel) {
+        return consumers.containsKey(channel);
+    }
+
+    void deliver(final String channel,
+                 final Object payload) {
+        final ChannelConsumer<?> consumer = consumers.get(channel);
+        if (consumer == null) {
+            return;
+        }
+        try {
+            delivery.execute(() -> consumer.accept(payload));
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Node closed, dropping message for channel {}",
+                         channel);
+        }
+    }
+
+    private static class ChannelConsumer<T> {
+
+        private final Class<T> clazz;
+        private final Consumer<T> listener;
+
+        private ChannelConsumer(final Class<T> clazz,
+                                final Consumer<T> listener) {
+            this.clazz = clazz;
+            this.listener = listener;
+        }
+
+        private void accept(final Object payload) {
+            if (!clazz.isInstance(payload)) {
+                return;
+            }
+            try {
+                listener.accept(clazz.cast(payload));
+            } catch (Exception e) {
+                LOGGER.error("Error consuming cluster message: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.commons.cluster.ClusterJMSService;
 import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.commons.cluster.ClusterServiceFactory;
 import org.uberfire.commons.clusterapi.Clustered;
 import org.uberfire.commons.services.cdi.Startup;
 
@@ -51,7 +52,13 @@ public class ClusterEventObserver {
 
     @Inject
     public ClusterEventObserver(Event<Object> eventBus) {
-        this.clusterService = new ClusterJMSService();
+        this(eventBus,
+             ClusterServiceFactory.create());
+    }
+
+    public ClusterEventObserver(Event<Object> eventBus,
+                                ClusterService clusterService) {
+        this.clusterService = clusterService;
         this.eventBus = eventBus;
         if (this.clusterService.isAppFormerClustered()) {
             this.clusterService.connect();
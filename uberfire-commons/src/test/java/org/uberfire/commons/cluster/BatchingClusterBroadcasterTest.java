@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchingClusterBroadcasterTest {
+
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final RecordingClusterService clusterService = new RecordingClusterService();
+    private BatchingClusterBroadcaster<String> broadcaster;
+
+    @After
+    public void tearDown() {
+        clusterService.release.countDown();
+        if (broadcaster != null) {
+            broadcaster.close();
+        }
+    }
+
+    @Test
+    public void itemsOfAChannelAreCoalescedIntoOneMessage() {
+        broadcaster = broadcaster(NEVER,
+                                  100,
+                                  100);
+
+        broadcaster.broadcast("channel1",
+                              "a");
+        broadcaster.broadcast("channel1",
+                              "b");
+        broadcaster.broadcast("channel2",
+                              "c");
+        broadcaster.broadcast("channel1",
+                              "d");
+        assertTrue(clusterService.messages.isEmpty());
+        assertEquals(3,
+                     broadcaster.getMetrics("channel1").pendingCount());
+
+        broadcaster.flush();
+
+        assertEquals(2,
+                     clusterService.messages.size());
+        assertTrue(clusterService.messages.contains("channel1:a,b,d"));
+        assertTrue(clusterService.messages.contains("channel2:c"));
+
+        final ClusterChannelMetrics metrics = broadcaster.getMetrics("channel1");
+        assertEquals(1,
+                     metrics.messageCount());
+        assertEquals(3,
+                     metrics.itemCount());
+        assertEquals(5,
+                     metrics.byteCount());
+        assertEquals(0,
+                     metrics.pendingCount());
+        assertEquals(2,
+                     broadcaster.getMetrics().size());
+    }
+
+    @Test
+    public void fullBatchIsSentBeforeTheWindowElapses() throws Exception {
+        broadcaster = broadcaster(NEVER,
+                                  2,
+                                  100);
+
+        broadcaster.broadcast("channel",
+                              "a");
+        broadcaster.broadcast("channel",
+                              "b");
+
+        assertTrue(clusterService.sent.await(5,
+                                             TimeUnit.SECONDS));
+        assertEquals("channel:a,b",
+                     clusterService.messages.get(0));
+    }
+
+    @Test
+    public void broadcastBlocksWhenTooManyItemsArePending() throws Exception {
+        broadcaster = broadcaster(0,
+                                  100,
+                                  1);
+        clusterService.blocking = true;
+
+        broadcaster.broadcast("channel",
+                              "a");
+        final Thread producer = new Thread(() -> broadcaster.broadcast("channel",
+                                                                       "b"));
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        clusterService.release.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+
+        broadcaster.flush();
+        assertEquals(2,
+                     broadcaster.getMetrics("channel").itemCount());
+    }
+
+    @Test
+    public void failedMessagesAreCounted() {
+        broadcaster = new BatchingClusterBroadcaster<>(clusterService,
+                                                       ClusterService.DestinationType.PubSub,
+                                                       items -> {
+                                                           throw new IllegalStateException("encoding error");
+                                                       },
+                                                       NEVER,
+                                                       100,
+                                                       100);
+
+        broadcaster.broadcast("channel",
+                              "a");
+        broadcaster.flush();
+
+        final ClusterChannelMetrics metrics = broadcaster.getMetrics("channel");
+        assertEquals(1,
+                     metrics.failureCount());
+        assertEquals(0,
+                     metrics.messageCount());
+        assertEquals(0,
+                     metrics.pendingCount());
+    }
+
+    private BatchingClusterBroadcaster<String> broadcaster(final long window,
+                                                          final int maxBatchSize,
+                                                          final int maxPending) {
+        return new BatchingClusterBroadcaster<>(clusterService,
+                                                ClusterService.DestinationType.PubSub,
+                                                items -> String.join(",",
+                                                                     items).getBytes(StandardCharsets.UTF_8),
+                                                window,
+                                                maxBatchSize,
+                                                maxPending);
+    }
+
+    private static class RecordingClusterService implements ClusterService {
+
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sent = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking = false;
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public <T> void createConsumer(DestinationType type,
+                                       String channel,
+                                       Class<T> clazz,
+                                       Consumer<T> listener) {
+        }
+
+        @Override
+        public void broadcast(DestinationType type,
+                              String channel,
+                              Serializable object) {
+        }
+
+        @Override
+        public void broadcastBinary(DestinationType type,
+                                    String channel,
+                                    byte[] payload) {
+            if (blocking) {
+                try {
+                    release.await(5,
+                                  TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(channel + ":" + new String(payload,
+                                                    StandardCharsets.UTF_8));
+            sent.countDown();
+        }
+
+        @Override
+        public boolean isAppFormerClustered() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
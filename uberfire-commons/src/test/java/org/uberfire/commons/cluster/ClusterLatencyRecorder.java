@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records end-to-end latencies of cluster messages, and summarizes them as percentiles and throughput.
+ */
+public class ClusterLatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count = 0;
+
+    public synchronized void record(final long latencyNanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples,
+                                    count * 2);
+        }
+        samples[count++] = latencyNanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The latency (in nanoseconds) below which the given percentage of the samples fall.
+     */
+    public synchronized long percentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long[] sorted = Arrays.copyOf(samples,
+                                            count);
+        Arrays.sort(sorted);
+        final int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0,
+                               Math.min(count - 1,
+                                        index))];
+    }
+
+    /**
+     * @return The number of samples recorded per second, over the given elapsed time.
+     */
+    public synchronized double throughput(final long elapsedNanos) {
+        return elapsedNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public String report(final long elapsedNanos) {
+        return String.format("count[%d], p50[%dus], p90[%dus], p99[%dus], max[%dus], throughput[%.1f/s]",
+                             count(),
+                             TimeUnit.NANOSECONDS.toMicros(percentile(50)),
+                             TimeUnit.NANOSECONDS.toMicros(percentile(90)),
+                             TimeUnit.NANOSECONDS.toMicros(percentile(99)),
+                             TimeUnit.NANOSECONDS.toMicros(percentile(100)),
+                             throughput(elapsedNanos));
+    }
+}
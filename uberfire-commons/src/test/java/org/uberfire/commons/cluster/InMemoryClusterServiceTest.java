@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryClusterServiceTest {
+
+    private InMemoryCluster cluster;
+    private List<InMemoryClusterService> nodes;
+
+    @Before
+    public void setup() {
+        cluster = new InMemoryCluster();
+        nodes = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        nodes.forEach(InMemoryClusterService::close);
+    }
+
+    @Test
+    public void pubSubMessagesReachEveryNode() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<Message> received = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            node().createConsumer(ClusterService.DestinationType.PubSub,
+                                  "channel",
+                                  Message.class,
+                                  message -> {
+                                      received.add(message);
+                                      latch.countDown();
+                                  });
+        }
+
+        final Message message = new Message("hello");
+        nodes.get(0).broadcast(ClusterService.DestinationType.PubSub,
+                               "channel",
+                               message);
+
+        assertTrue(latch.await(5,
+                               TimeUnit.SECONDS));
+        assertEquals(3,
+                     received.size());
+        received.forEach(copy -> {
+            assertNotSame(message,
+                          copy);
+            assertEquals("hello",
+                         copy.text);
+        });
+        assertEquals(1,
+                     cluster.getMessageCount());
+        assertEquals(3,
+                     cluster.getDeliveryCount());
+    }
+
+    @Test
+    public void loadBalancedMessagesReachOneNode() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(4);
+        final List<Integer> receivers = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            final int nodeIndex = i;
+            node().createConsumer(ClusterService.DestinationType.LoadBalancer,
+                                  "queue",
+                                  byte[].class,
+                                  payload -> {
+                                      receivers.add(nodeIndex);
+                                      latch.countDown();
+                                  });
+        }
+
+        for (int i = 0; i < 4; i++) {
+            nodes.get(0).broadcastBinary(ClusterService.DestinationType.LoadBalancer,
+                                         "queue",
+                                         new byte[]{(byte) i});
+        }
+
+        assertTrue(latch.await(5,
+                               TimeUnit.SECONDS));
+        assertEquals(4,
+                     cluster.getDeliveryCount());
+        assertTrue(receivers.contains(0));
+        assertTrue(receivers.contains(1));
+    }
+
+    @Test
+    public void closedNodesLeaveTheCluster() {
+        final InMemoryClusterService node = node();
+        assertEquals(1,
+                     cluster.getNodeCount());
+
+        node.close();
+
+        assertEquals(0,
+                     cluster.getNodeCount());
+    }
+
+    private InMemoryClusterService node() {
+        final InMemoryClusterService node = new InMemoryClusterService(cluster);
+        node.connect();
+        nodes.add(node);
+        return node;
+    }
+
+    private static class Message implements Serializable {
+
+        private final String text;
+
+        private Message(final String text) {
+            this.text = text;
+        }
+    }
+}
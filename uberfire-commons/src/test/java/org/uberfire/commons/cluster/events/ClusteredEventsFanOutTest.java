@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.commons.cluster.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.event.Event;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.cluster.ClusterLatencyRecorder;
+import org.uberfire.commons.cluster.InMemoryCluster;
+import org.uberfire.commons.cluster.InMemoryClusterService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Fan-out harness for @Clustered CDI events: N simulated nodes broadcast events to each other through an
+ * {@link InMemoryCluster}, and the end-to-end latency percentiles and throughput are logged.
+ * <p>
+ * Runs a small configuration by default; use the org.appformer.cluster.harness.nodes and
+ * org.appformer.cluster.harness.events system properties for longer soak runs.
+ */
+public class ClusteredEventsFanOutTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusteredEventsFanOutTest.class);
+
+    private static final int NODES = Integer.getInteger("org.appformer.cluster.harness.nodes",
+                                                        4);
+    private static final int EVENTS_PER_NODE = Integer.getInteger("org.appformer.cluster.harness.events",
+                                                                  250);
+
+    @Test
+    public void eventsReachEveryOtherNode() throws Exception {
+        final InMemoryCluster cluster = new InMemoryCluster();
+        final ClusterLatencyRecorder recorder = new ClusterLatencyRecorder();
+        final CountDownLatch received = new CountDownLatch(NODES * (NODES - 1) * EVENTS_PER_NODE);
+        final List<ClusterEventObserver> observers = new ArrayList<>();
+        final List<InMemoryClusterService> services = new ArrayList<>();
+
+        for (int i = 0; i < NODES; i++) {
+            final Event<Object> eventBus = mock(Event.class);
+            doAnswer(invocation -> {
+                recorder.record(System.nanoTime() - (Long) invocation.getArguments()[0]);
+                received.countDown();
+                return null;
+            }).when(eventBus).fire(any());
+
+            final InMemoryClusterService service = new InMemoryClusterService(cluster);
+            services.add(service);
+            observers.add(new ClusterEventObserver(eventBus,
+                                                   service) {
+                @Override
+                String toJSON(Object event) {
+                    return String.valueOf(System.nanoTime());
+                }
+
+                @Override
+                Object fromJSON(ClusterSerializedCDIMessageWrapper message) {
+                    return Long.valueOf(message.getJson());
+                }
+            });
+        }
+
+        final ExecutorService senders = Executors.newFixedThreadPool(NODES);
+        final long start = System.nanoTime();
+        try {
+            observers.forEach(observer -> senders.execute(() -> {
+                for (int i = 0; i < EVENTS_PER_NODE; i++) {
+                    observer.broadcast(new ClusterEventObserverTest.EventTest());
+                }
+            }));
+
+            assertTrue(received.await(60,
+                                      TimeUnit.SECONDS));
+        } finally {
+            senders.shutdownNow();
+            services.forEach(InMemoryClusterService::close);
+        }
+
+        LOGGER.info("@Clustered events fan-out, {} nodes: {}",
+                    NODES,
+                    recorder.report(System.nanoTime() - start));
+        assertEquals(NODES * (NODES - 1) * EVENTS_PER_NODE,
+                     recorder.count());
+    }
+}
@@ -83,6 +83,7 @@ public class LuceneConfig implements MetadataConfig {
     @Override
     public void dispose() {
         indexEngine.dispose();
+        indexProvider.dispose();
         indexManager.dispose();
         metaModelStore.dispose();
         analyzer.close();
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
+
+/**
+ * Groups the commits of {@link LuceneIndex}es. When a max latency is set, a commit request only marks the index as
+ * dirty: it is committed once the max latency elapses or once it has accumulated the max batch size of changes,
+ * whichever comes first. Searches are not affected since they use near-real-time readers, only durability is
+ * deferred. With no max latency, or once disposed, every request commits immediately.
+ */
+public class LuceneIndexCommitter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LuceneIndexCommitter.class);
+
+    public static final String COMMIT_MAX_LATENCY_PROPERTY = "org.appformer.ext.metadata.lucene.commit.max.latency";
+    public static final String COMMIT_MAX_BATCH_PROPERTY = "org.appformer.ext.metadata.lucene.commit.max.batch";
+    private static final String DEFAULT_COMMIT_MAX_LATENCY = "0";
+    private static final String DEFAULT_COMMIT_MAX_BATCH = "1000";
+
+    private final long maxLatency;
+    private final int maxBatchSize;
+    private final Map<LuceneIndex, Integer> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean disposed;
+
+    public LuceneIndexCommitter() {
+        this(new ConfigProperties(System.getProperties()).get(COMMIT_MAX_LATENCY_PROPERTY,
+                                                              DEFAULT_COMMIT_MAX_LATENCY).getIntValue(),
+             new ConfigProperties(System.getProperties()).get(COMMIT_MAX_BATCH_PROPERTY,
+                                                              DEFAULT_COMMIT_MAX_BATCH).getIntValue());
+    }
+
+    /**
+     * @param maxLatency   Max time, in milliseconds, a change may stay uncommitted. Zero or less commits immediately.
+     * @param maxBatchSize Number of changes that triggers a commit before the max latency elapses.
+     */
+    public LuceneIndexCommitter(final long maxLatency,
+                                final int maxBatchSize) {
+        this.maxLatency = maxLatency;
+        this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : Integer.valueOf(DEFAULT_COMMIT_MAX_BATCH);
+    }
+
+    public boolean isGroupCommit() {
+        return maxLatency > 0;
+    }
+
+    public void commit(final LuceneIndex index) {
+        commit(index,
+               1);
+    }
+
+    /**
+     * Requests the commit of the given number of changes made to the index.
+     */
+    public void commit(final LuceneIndex index,
+                       final int changes) {
+        if (!isGroupCommit() || disposed) {
+            index.commit();
+            return;
+        }
+
+        // counted and removed atomically, so changes counted after a flush removed the count schedule a new flush
+        final boolean[] created = new boolean[1];
+        final int count = pending.compute(index,
+                                          (k, current) -> {
+                                              created[0] = current == null;
+                                              return current == null ? changes : current + changes;
+                                          });
+        if (count >= maxBatchSize) {
+            flush(index);
+        } else if (created[0] && !schedule(() -> flush(index))) {
+            flush(index);
+        }
+    }
+
+    /**
+     * Drops the pending commit of an index that is about to be deleted.
+     */
+    public void forget(final LuceneIndex index) {
+        pending.remove(index);
+    }
+
+    /**
+     * Commits every index with pending changes.
+     */
+    public void flush() {
+        pending.keySet().forEach(this::flush);
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Commits every index with pending changes, and commits any later request immediately.
+     */
+    public void dispose() {
+        synchronized (this) {
+            disposed = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+        }
+        flush();
+    }
+
+    private void flush(final LuceneIndex index) {
+        if (pending.remove(index) == null) {
+            return;
+        }
+        try {
+            index.commit();
+        } catch (final Exception e) {
+            LOG.error("Unable to commit index of cluster [{}].",
+                      index.getCluster().getClusterId(),
+                      e);
+        }
+    }
+
+    /**
+     * @return false if the committer is disposed, so the task wasn't scheduled.
+     */
+    private synchronized boolean schedule(final Runnable task) {
+        if (disposed) {
+            return false;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r,
+                                                 "lucene-index-committer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        scheduler.schedule(task,
+                           maxLatency,
+                           TimeUnit.MILLISECONDS);
+        return true;
+    }
+}
@@ -17,8 +17,7 @@
 package org.uberfire.ext.metadata.backend.lucene.index;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -107,17 +106,22 @@ public class LuceneIndexManager implements IndexManager {
             }
         }
 
-        final Collection<IndexReader> readers = new ArrayList<IndexReader>(clusters.size());
-        for (final KCluster cluster : clusters) {
-            final LuceneIndex index = indexes.get(cluster);
-            readers.add(index.nrtReader());
-        }
-
+        final Map<LuceneIndex, IndexReader> readers = new HashMap<LuceneIndex, IndexReader>(clusters.size());
         try {
-            return new SearcherFactory().newSearcher(new MultiReader(readers.toArray(new IndexReader[readers.size()])),
+            for (final KCluster cluster : clusters) {
+                final LuceneIndex index = indexes.get(cluster);
+                readers.put(index,
+                            index.nrtReader());
+            }
+
+            // the multi reader holds its own reference to each near-real-time reader, so they are released here
+            return new SearcherFactory().newSearcher(new MultiReader(readers.values().toArray(new IndexReader[readers.size()]),
+                                                                     false),
                                                      null);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            readers.forEach(LuceneIndex::nrtRelease);
         }
     }
 
@@ -17,14 +17,17 @@
 package org.uberfire.ext.metadata.backend.lucene.provider;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
@@ -35,6 +38,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.uberfire.ext.metadata.backend.lucene.fields.FieldFactory;
 import org.uberfire.ext.metadata.backend.lucene.index.LuceneIndex;
+import org.uberfire.ext.metadata.backend.lucene.index.LuceneIndexCommitter;
 import org.uberfire.ext.metadata.backend.lucene.index.LuceneIndexManager;
 import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
 import org.uberfire.ext.metadata.engine.Index;
@@ -54,12 +58,22 @@ import static org.uberfire.ext.metadata.engine.MetaIndexEngine.FULL_TEXT_FIELD;
 public class LuceneIndexProvider implements IndexProvider {
 
     private final FieldFactory fieldFactory;
+    private final LuceneIndexCommitter committer;
     private IndexManager indexManager;
 
     public LuceneIndexProvider(IndexManager indexManager,
                                FieldFactory fieldFactory) {
+        this(indexManager,
+             fieldFactory,
+             new LuceneIndexCommitter());
+    }
+
+    public LuceneIndexProvider(IndexManager indexManager,
+                               FieldFactory fieldFactory,
+                               LuceneIndexCommitter committer) {
         this.indexManager = indexManager;
         this.fieldFactory = fieldFactory;
+        this.committer = committer;
     }
 
     @Override
@@ -73,7 +87,7 @@ public class LuceneIndexProvider implements IndexProvider {
         final LuceneIndex index = (LuceneIndex) indexManager.indexOf(object);
         index.indexDocument(object.getId(),
                             newDocument(object));
-        index.commit();
+        committer.commit(index);
     }
 
     @Override
@@ -83,10 +97,11 @@ public class LuceneIndexProvider implements IndexProvider {
             index.indexDocument(ko.getId(),
                                 newDocument(ko));
         });
-        elements.stream()
-                .map(ko -> (LuceneIndex) indexManager.indexOf(ko))
-                .collect(Collectors.toSet())
-                .forEach(luceneIndex -> luceneIndex.commit());
+        final Map<LuceneIndex, Long> changes = elements.stream()
+                .collect(Collectors.groupingBy(ko -> (LuceneIndex) indexManager.indexOf(ko),
+                                               Collectors.counting()));
+        changes.forEach((luceneIndex, count) -> committer.commit(luceneIndex,
+                                                                 count.intValue()));
     }
 
     @Override
@@ -98,6 +113,10 @@ public class LuceneIndexProvider implements IndexProvider {
 
     @Override
     public void delete(String index) {
+        final LuceneIndex luceneIndex = (LuceneIndex) indexManager.get(new KClusterImpl(index));
+        if (luceneIndex != null) {
+            committer.forget(luceneIndex);
+        }
         indexManager.delete(new KClusterImpl(index));
     }
 
@@ -106,23 +125,16 @@ public class LuceneIndexProvider implements IndexProvider {
                        String id) {
         final LuceneIndex luceneIndex = (LuceneIndex) indexManager.get(new KClusterImpl(index));
         luceneIndex.deleteIfExists(id);
-        luceneIndex.commit();
+        committer.commit(luceneIndex);
     }
 
     @Override
     public List<KObject> findById(String index,
                                   String id) {
-        List<String> indices = Arrays.asList(index);
-        ScoreDoc[] docs = this.findRawByQuery(indices,
-                                              new TermQuery(new Term("id",
-                                                                     id)),
-                                              null,
-                                              0);
-
-        return Arrays.stream(docs)
-                .map(scoreDoc -> createKObject(indices,
-                                               scoreDoc))
-                .collect(Collectors.toList());
+        return this.findKObjects(Arrays.asList(index),
+                                 new TermQuery(new Term("id",
+                                                        id)),
+                                 null);
     }
 
     @Override
@@ -143,7 +155,12 @@ public class LuceneIndexProvider implements IndexProvider {
     @Override
     public long getIndexSize(String index) {
         LuceneIndex luceneIndex = ((LuceneIndex) indexManager.get(new KClusterImpl(index)));
-        return luceneIndex.nrtReader().numDocs();
+        final IndexReader reader = luceneIndex.nrtReader();
+        try {
+            return reader.numDocs();
+        } finally {
+            luceneIndex.nrtRelease(reader);
+        }
     }
 
     @Override
@@ -151,15 +168,9 @@ public class LuceneIndexProvider implements IndexProvider {
                                      Query query,
                                      int limit) {
 
-        ScoreDoc[] docs = this.findRawByQuery(indices,
-                                              query,
-                                              null,
-                                              0);
-
-        return Arrays.stream(docs)
-                .map(scoreDoc -> createKObject(indices,
-                                               scoreDoc))
-                .collect(Collectors.toList());
+        return this.findKObjects(indices,
+                                 query,
+                                 null);
     }
 
     @Override
@@ -167,25 +178,31 @@ public class LuceneIndexProvider implements IndexProvider {
                                      Query query,
                                      Sort sort,
                                      int limit) {
-        ScoreDoc[] docs = this.findRawByQuery(indices,
-                                              query,
-                                              sort,
-                                              0);
-
-        return Arrays.stream(docs)
-                .map(scoreDoc -> createKObject(indices,
-                                               scoreDoc))
-                .collect(Collectors.toList());
+        return this.findKObjects(indices,
+                                 query,
+                                 sort);
     }
 
-    private KObject createKObject(List<String> indices,
-                                  ScoreDoc scoreDoc) {
+    private List<KObject> findKObjects(List<String> indices,
+                                       Query query,
+                                       Sort sort) {
+        final LuceneIndexManager luceneIndexManager = (LuceneIndexManager) indexManager;
+        // documents are loaded from the searcher that found them, doc ids are not stable across reopened readers
+        final IndexSearcher searcher = luceneIndexManager.getIndexSearcher(toClusterSegments(indices));
         try {
-            IndexSearcher searcher = ((LuceneIndexManager) indexManager)
-                    .getIndexSearcher(toClusterSegments(indices));
-            return toKObject(searcher.doc(scoreDoc.doc));
+            final ScoreDoc[] docs = search(searcher,
+                                           query,
+                                           sort,
+                                           0);
+            final List<KObject> result = new ArrayList<>(docs.length);
+            for (final ScoreDoc scoreDoc : docs) {
+                result.add(toKObject(searcher.doc(scoreDoc.doc)));
+            }
+            return result;
         } catch (IOException e) {
             throw new RuntimeException("Can't convert document to KObject");
+        } finally {
+            luceneIndexManager.release(searcher);
         }
     }
 
@@ -219,30 +236,42 @@ public class LuceneIndexProvider implements IndexProvider {
                                      Sort sort,
                                      int limit) {
 
+        final LuceneIndexManager luceneIndexManager = (LuceneIndexManager) indexManager;
+        final IndexSearcher searcher = luceneIndexManager.getIndexSearcher(toClusterSegments(indices));
         try {
-            ClusterSegment[] clusterSegments = toClusterSegments(indices);
-            IndexSearcher searcher = ((LuceneIndexManager) indexManager).getIndexSearcher(clusterSegments);
-            int n = Integer.MAX_VALUE;
-            if (limit > 0) {
-                n = limit;
-            }
-            TopDocs topDocs;
-            if (sort != null) {
-                topDocs = searcher.search(query,
-                                          n,
-                                          sort);
-            } else {
-                topDocs = searcher.search(query,
-                                          n);
-            }
-            return topDocs.scoreDocs;
+            return search(searcher,
+                          query,
+                          sort,
+                          limit);
         } catch (IOException e) {
             e.printStackTrace();
+        } finally {
+            luceneIndexManager.release(searcher);
         }
 
         return new ScoreDoc[0];
     }
 
+    private ScoreDoc[] search(IndexSearcher searcher,
+                              Query query,
+                              Sort sort,
+                              int limit) throws IOException {
+        int n = Integer.MAX_VALUE;
+        if (limit > 0) {
+            n = limit;
+        }
+        TopDocs topDocs;
+        if (sort != null) {
+            topDocs = searcher.search(query,
+                                      n,
+                                      sort);
+        } else {
+            topDocs = searcher.search(query,
+                                      n);
+        }
+        return topDocs.scoreDocs;
+    }
+
     private ClusterSegment[] toClusterSegments(List<String> indices) {
         return indices.stream().map(index -> new ClusterSegment() {
 
@@ -260,7 +289,7 @@ public class LuceneIndexProvider implements IndexProvider {
 
     @Override
     public void dispose() {
-
+        committer.dispose();
     }
 
     private Document newDocument(final KObject object) {
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.backend.lucene.index;
+
+import org.junit.After;
+import org.junit.Test;
+import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class LuceneIndexCommitterTest {
+
+    private LuceneIndexCommitter committer;
+
+    @After
+    public void tearDown() {
+        if (committer != null) {
+            committer.dispose();
+        }
+    }
+
+    @Test
+    public void commitsImmediatelyWithoutMaxLatency() {
+        committer = new LuceneIndexCommitter(0,
+                                             10);
+        final LuceneIndex index = index("cluster");
+
+        committer.commit(index);
+        committer.commit(index);
+
+        verify(index,
+               times(2)).commit();
+        assertThat(committer.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void groupsCommitsUntilMaxBatchSize() {
+        committer = new LuceneIndexCommitter(60000,
+                                             3);
+        final LuceneIndex index = index("cluster");
+
+        committer.commit(index);
+        committer.commit(index);
+
+        verify(index,
+               never()).commit();
+        assertThat(committer.getPendingCount()).isEqualTo(1);
+
+        committer.commit(index);
+
+        verify(index).commit();
+        assertThat(committer.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void commitsOnceMaxLatencyElapses() {
+        committer = new LuceneIndexCommitter(50,
+                                             1000);
+        final LuceneIndex index = index("cluster");
+
+        committer.commit(index);
+        committer.commit(index);
+
+        verify(index,
+               timeout(5000)).commit();
+        assertThat(committer.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void flushAndForget() {
+        committer = new LuceneIndexCommitter(60000,
+                                             1000);
+        final LuceneIndex kept = index("kept");
+        final LuceneIndex deleted = index("deleted");
+
+        committer.commit(kept);
+        committer.commit(deleted);
+        committer.forget(deleted);
+        committer.flush();
+
+        verify(kept).commit();
+        verify(deleted,
+               never()).commit();
+    }
+
+    @Test
+    public void commitsImmediatelyOnceDisposed() {
+        committer = new LuceneIndexCommitter(60000,
+                                             1000);
+        final LuceneIndex index = index("cluster");
+
+        committer.commit(index);
+        committer.dispose();
+
+        verify(index).commit();
+
+        committer.commit(index);
+
+        verify(index,
+               times(2)).commit();
+        assertThat(committer.getPendingCount()).isEqualTo(0);
+    }
+
+    private LuceneIndex index(final String clusterId) {
+        final LuceneIndex index = mock(LuceneIndex.class);
+        when(index.getCluster()).thenReturn(new KClusterImpl(clusterId));
+        return index;
+    }
+}
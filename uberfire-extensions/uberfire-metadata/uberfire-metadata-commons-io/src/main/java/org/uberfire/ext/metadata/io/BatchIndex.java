@@ -18,24 +18,36 @@ package org.uberfire.ext.metadata.io;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.commons.async.DescriptiveRunnable;
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.ext.metadata.engine.BatchIndexListener;
 import org.uberfire.ext.metadata.engine.MetaIndexEngine;
 import org.uberfire.ext.metadata.engine.Observer;
 import org.uberfire.ext.metadata.io.IndexerDispatcher.IndexerDispatcherFactory;
 import org.uberfire.ext.metadata.model.KCluster;
 import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.FileSystemChangesSupport;
 import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.base.SegmentedPath;
+import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.FileVisitResult;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.SimpleFileVisitor;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
 import org.uberfire.java.nio.file.attribute.BasicFileAttributes;
 import org.uberfire.java.nio.file.attribute.FileAttributeView;
 
@@ -47,6 +59,13 @@ public final class BatchIndex {
 
     private static final Logger LOG = LoggerFactory.getLogger(BatchIndex.class);
 
+    public static final String PIPELINED_PROPERTY = "org.uberfire.metadata.index.batch.pipelined";
+    public static final String CHECKPOINT_INTERVAL_PROPERTY = "org.uberfire.metadata.index.batch.checkpoint.interval";
+    public static final String INCREMENTAL_PROPERTY = "org.uberfire.metadata.index.incremental";
+    private static final String DEFAULT_PIPELINED = "false";
+    private static final String DEFAULT_CHECKPOINT_INTERVAL = "1000";
+    private static final String DEFAULT_INCREMENTAL = "false";
+
     private final MetaIndexEngine indexEngine;
     private final Class<? extends FileAttributeView>[] views;
     private final AtomicBoolean indexDisposed = new AtomicBoolean(false);
@@ -55,7 +74,70 @@ public final class BatchIndex {
     private final IndexersFactory indexersFactory;
     private final IndexerDispatcherFactory dispatcherFactory;
     private final BatchIndexListener batchIndexListener;
+    private final ChangesDispatcher changesDispatcher;
+    private final BatchIndexCheckpointStore checkpointStore;
+    private final boolean pipelined;
+    private final int checkpointInterval;
+    private final boolean incremental;
+    private final Set<KCluster> clustersInProgress = ConcurrentHashMap.newKeySet();
+    private final Map<KCluster, AtomicInteger> eventBatchesInProgress = new ConcurrentHashMap<>();
+    private final Set<KCluster> stalledClusters = ConcurrentHashMap.newKeySet();
+
+    @SafeVarargs
+    public BatchIndex(final MetaIndexEngine indexEngine,
+                      final Observer observer,
+                      final ExecutorService executorService,
+                      final IndexersFactory indexersFactory,
+                      final IndexerDispatcherFactory dispatcherFactory,
+                      final BatchIndexListener batchIndexListener,
+                      final Class<? extends FileAttributeView>... views) {
+        this(indexEngine,
+             observer,
+             executorService,
+             indexersFactory,
+             dispatcherFactory,
+             batchIndexListener,
+             BatchIndex::queueChanges,
+             views);
+    }
+
+    @SafeVarargs
+    public BatchIndex(final MetaIndexEngine indexEngine,
+                      final Observer observer,
+                      final ExecutorService executorService,
+                      final IndexersFactory indexersFactory,
+                      final IndexerDispatcherFactory dispatcherFactory,
+                      final BatchIndexListener batchIndexListener,
+                      final ChangesDispatcher changesDispatcher,
+                      final Class<? extends FileAttributeView>... views) {
+        this(indexEngine,
+             observer,
+             executorService,
+             indexersFactory,
+             dispatcherFactory,
+             batchIndexListener,
+             changesDispatcher,
+             new BatchIndexCheckpointStore(BatchIndexCheckpointStore.defaultDir()),
+             new ConfigProperties(System.getProperties()).get(PIPELINED_PROPERTY,
+                                                              DEFAULT_PIPELINED).getBooleanValue(),
+             new ConfigProperties(System.getProperties()).get(CHECKPOINT_INTERVAL_PROPERTY,
+                                                              DEFAULT_CHECKPOINT_INTERVAL).getIntValue(),
+             new ConfigProperties(System.getProperties()).get(INCREMENTAL_PROPERTY,
+                                                              DEFAULT_INCREMENTAL).getBooleanValue(),
+             views);
+    }
 
+    /**
+     * @param changesDispatcher  Queues the changes listed since the indexed version of a cluster, in incremental mode.
+     * @param checkpointStore    Keeps the batch index checkpoints and the indexed version of each cluster.
+     * @param pipelined          When true, the walk of each cluster is streamed into indexers that are already
+     *                           running, and the progress is checkpointed so that an interrupted batch index resumes
+     *                           where it stopped. When false, the whole cluster is walked before indexing.
+     * @param checkpointInterval Number of files between two checkpoints.
+     * @param incremental        When true, an existing index whose file system supports
+     *                           {@link FileSystemChangesSupport} is brought up to date by reindexing only the changes
+     *                           made since the version it was indexed at.
+     */
     @SafeVarargs
     public BatchIndex(final MetaIndexEngine indexEngine,
                       final Observer observer,
@@ -63,7 +145,19 @@ public final class BatchIndex {
                       final IndexersFactory indexersFactory,
                       final IndexerDispatcherFactory dispatcherFactory,
                       final BatchIndexListener batchIndexListener,
+                      final ChangesDispatcher changesDispatcher,
+                      final BatchIndexCheckpointStore checkpointStore,
+                      final boolean pipelined,
+                      final int checkpointInterval,
+                      final boolean incremental,
                       final Class<? extends FileAttributeView>... views) {
+        this.changesDispatcher = checkNotNull("changesDispatcher",
+                                              changesDispatcher);
+        this.checkpointStore = checkNotNull("checkpointStore",
+                                            checkpointStore);
+        this.pipelined = pipelined;
+        this.checkpointInterval = checkpointInterval > 0 ? checkpointInterval : Integer.valueOf(DEFAULT_CHECKPOINT_INTERVAL);
+        this.incremental = incremental;
         this.indexersFactory = indexersFactory;
         this.dispatcherFactory = dispatcherFactory;
         this.indexEngine = checkNotNull("indexEngine",
@@ -133,68 +227,335 @@ public final class BatchIndex {
         final Collection<Runnable> exceptionCleanup = new ArrayList<>(1);
         for (Path rootPath : fs.getRootDirectories()) {
             final KCluster cluster = KObjectUtil.toKCluster(rootPath);
+            final boolean freshIndex = indexEngine.freshIndex(cluster);
+            final String resumeFrom = freshIndex ? null : resumableCheckpoint(cluster);
+
+            if ((freshIndex && hasContent(rootPath)) || resumeFrom != null) {
+                if (!indexCluster(rootPath,
+                                  cluster,
+                                  resumeFrom,
+                                  callback,
+                                  exceptionCleanup)) {
+                    break;
+                }
+            } else if (!freshIndex && isIncremental()) {
+                if (!reindexChanges(rootPath,
+                                    cluster,
+                                    callback,
+                                    exceptionCleanup)) {
+                    break;
+                }
+            } else if (freshIndex) {
+                checkpointStore.remove(cluster);
+                checkpointStore.removeVersion(cluster);
+            }
+        }
+    }
 
-            if (indexEngine.freshIndex(cluster) && hasContent(rootPath)) {
-                indexEngine.prepareBatch(cluster);
-
-                try {
-                    final IndexerDispatcher dispatcher = dispatcherFactory.create(indexersFactory.getIndexers(), cluster);
+    /**
+     * Indexes the whole cluster, or the part of it after the given checkpoint.
+     * @return false if the index has been disposed.
+     */
+    private boolean indexCluster(final Path rootPath,
+                                 final KCluster cluster,
+                                 final String resumeFrom,
+                                 final Runnable callback,
+                                 final Collection<Runnable> exceptionCleanup) {
+        indexEngine.prepareBatch(cluster);
+
+        try {
+            final IndexerDispatcher dispatcher = dispatcherFactory.create(indexersFactory.getIndexers(), cluster);
+
+            if (indexDisposed.get()) {
+                return false;
+            }
+            exceptionCleanup.add(() -> dispatcher.dispose());
+            clustersInProgress.add(cluster);
 
-                    if (indexDisposed.get()) {
-                        break;
-                    }
-                    exceptionCleanup.add(() -> dispatcher.dispose());
+            // the version is only recorded once the whole cluster is indexed, so it can't skip unindexed changes
+            final String version = isIncremental() ? currentVersion(rootPath) : null;
+            checkpointStore.removeVersion(cluster);
 
-                    queueIndexingEvents(rootPath, dispatcher);
+            if (isPipelined()) {
+                dispatcher.pipelined(checkpoint -> checkpointStore.save(cluster, checkpoint));
+            } else {
+                queueIndexingEvents(rootPath, dispatcher, null);
+            }
 
-                    if (!indexDisposed.get()) {
-                        logInformation("Starting indexing of " + cluster.getClusterId() + " ...");
+            if (!indexDisposed.get()) {
+                if (resumeFrom == null) {
+                    logInformation("Starting indexing of " + cluster.getClusterId() + " ...");
+                } else {
+                    logInformation("Resuming indexing of " + cluster.getClusterId() + " after [" + resumeFrom + "] ...");
+                }
 
-                        if (batchIndexListener != null) {
-                            batchIndexListener.notifyIndexIngStarted(cluster, rootPath);
-                        }
+                if (batchIndexListener != null) {
+                    batchIndexListener.notifyIndexIngStarted(cluster, rootPath);
+                }
 
-                        dispatcher.schedule(executorService)
-                        .thenRun(() -> {
-                            logInformation("Completed indexing of " + cluster.getClusterId());
+                final CompletableFuture<Void> indexing = dispatcher.schedule(executorService);
+                if (isPipelined()) {
+                    queueIndexingEventsPipelined(rootPath, cluster, dispatcher, resumeFrom);
+                }
 
-                            if (batchIndexListener != null) {
-                                batchIndexListener.notifyIndexIngFinished(cluster, rootPath);
-                            }
+                indexing.thenRun(() -> {
+                    clustersInProgress.remove(cluster);
+                    stalledClusters.remove(cluster);
+                    if (isPipelined()) {
+                        checkpointStore.remove(cluster);
+                    }
+                    if (version != null) {
+                        checkpointStore.saveVersion(cluster, version);
+                    }
+                    logInformation("Completed indexing of " + cluster.getClusterId());
 
-                            if (callback != null) {
-                                callback.run();
-                            }
-                        })
-                        .exceptionally(ex -> {
-                            try {
-                                throw ex;
-                            } catch (DisposedException de) {
-                                logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
-                            } catch (IllegalStateException ise) {
-                                logError("Index fails - Index has an invalid state. [@" + cluster.getClusterId() + "]", ex);
-                            } catch (Throwable t) {
-                                logError("Index fails. [@" + cluster.getClusterId() + "]", ex);
-                            }
-                            return null;
-                        });
-                    } else {
-                        logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
+                    if (batchIndexListener != null) {
+                        batchIndexListener.notifyIndexIngFinished(cluster, rootPath);
                     }
-                } catch (final Exception ex) {
-                    if (indexDisposed.get()) {
-                        logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
-                    } else {
-                        logError("Index fails. [@" + cluster.getClusterId() + "]", ex);
-                        exceptionCleanup.forEach(action -> action.run());
+
+                    if (callback != null) {
+                        callback.run();
                     }
+                })
+                .exceptionally(ex -> handleFailure(cluster, ex));
+            } else {
+                clustersInProgress.remove(cluster);
+                logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
+            }
+        } catch (final Exception ex) {
+            clustersInProgress.remove(cluster);
+            if (indexDisposed.get()) {
+                logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
+            } else {
+                logError("Index fails. [@" + cluster.getClusterId() + "]", ex);
+            }
+            // also wakes up the pipelined jobs waiting for events
+            exceptionCleanup.forEach(action -> action.run());
+        }
+        return true;
+    }
+
+    /**
+     * Brings an existing index up to date by indexing, renaming or deleting only the files changed since the version
+     * the cluster was indexed at. If that version is not recorded or no longer known by the file system the cluster
+     * is reindexed.
+     * @return false if the index has been disposed.
+     */
+    private boolean reindexChanges(final Path rootPath,
+                                   final KCluster cluster,
+                                   final Runnable callback,
+                                   final Collection<Runnable> exceptionCleanup) {
+        final FileSystemChangesSupport changesSupport = changesSupport(rootPath);
+        if (changesSupport == null || clustersInProgress.contains(cluster)) {
+            return true;
+        }
+
+        try {
+            final String version = changesSupport.getVersion(rootPath);
+            final String indexedVersion = checkpointStore.loadVersion(cluster).orElse(null);
+            if (version == null || version.equals(indexedVersion)) {
+                stalledClusters.remove(cluster);
+                return true;
+            }
+
+            final List<WatchEvent<?>> changes = indexedVersion == null ? null : changesSupport.listChanges(rootPath, indexedVersion);
+            if (changes == null) {
+                if (indexedVersion == null) {
+                    logWarning("No indexed version recorded for " + cluster.getClusterId() + ", reindexing whole cluster.");
+                } else {
+                    logWarning("Indexed version [" + indexedVersion + "] of " + cluster.getClusterId() + " not found, reindexing whole cluster.");
+                }
+                indexEngine.delete(cluster);
+                return indexCluster(rootPath,
+                                    cluster,
+                                    null,
+                                    callback,
+                                    exceptionCleanup);
+            }
+
+            final IndexerDispatcher dispatcher = dispatcherFactory.create(indexersFactory.getIndexers(), cluster);
+            if (indexDisposed.get()) {
+                return false;
+            }
+            exceptionCleanup.add(() -> dispatcher.dispose());
+            clustersInProgress.add(cluster);
+
+            changesDispatcher.dispatch(changes, dispatcher);
+
+            logInformation("Reindexing " + changes.size() + " changes of " + cluster.getClusterId() + " since [" + indexedVersion + "] ...");
+            dispatcher.schedule(executorService)
+                    .thenRun(() -> {
+                        clustersInProgress.remove(cluster);
+                        stalledClusters.remove(cluster);
+                        checkpointStore.saveVersion(cluster, version);
+                        logInformation("Completed reindexing of " + cluster.getClusterId());
+
+                        if (callback != null) {
+                            callback.run();
+                        }
+                    })
+                    .exceptionally(ex -> handleFailure(cluster, ex));
+        } catch (final Exception ex) {
+            clustersInProgress.remove(cluster);
+            if (indexDisposed.get()) {
+                logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
+            } else {
+                logError("Index fails. [@" + cluster.getClusterId() + "]", ex);
+                exceptionCleanup.forEach(action -> action.run());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Called before the watch events of a cluster are queued for indexing, in incremental mode it returns the version
+     * of the cluster they bring the index to: the version carried by the last of those events changing the cluster.
+     * @return The version to pass to {@link #eventsIndexed(Path, KCluster, String, boolean)}, or null if the events
+     * carry none.
+     */
+    public String eventsQueued(final Path rootPath,
+                               final KCluster cluster,
+                               final List<WatchEvent<?>> events) {
+        if (!isIncremental()) {
+            return null;
+        }
+        eventBatchesInProgress.computeIfAbsent(cluster,
+                                               k -> new AtomicInteger()).incrementAndGet();
+        String version = null;
+        for (WatchEvent<?> event : events) {
+            if (event.context() instanceof WatchContext) {
+                final WatchContext context = (WatchContext) event.context();
+                if (context.getVersion() != null && (belongsTo(context.getPath(), cluster) || belongsTo(context.getOldPath(), cluster))) {
+                    version = context.getVersion();
                 }
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Called once the watch events queued after {@link #eventsQueued(Path, KCluster, List)} are indexed. When no other
+     * events of the cluster are being indexed, the indexed version of the cluster is advanced to the given version so
+     * a restart doesn't list those changes again. A cluster without indexed version (being batch indexed, or indexed
+     * before versions were recorded) is left alone. Once indexing events failed the version isn't advanced any more,
+     * and when the cluster is idle the changes since the last version known to be indexed are reindexed to catch up.
+     */
+    public void eventsIndexed(final Path rootPath,
+                              final KCluster cluster,
+                              final String version,
+                              final boolean succeeded) {
+        final AtomicInteger inProgress = eventBatchesInProgress.get(cluster);
+        if (inProgress == null) {
+            return;
+        }
+        if (!succeeded) {
+            stalledClusters.add(cluster);
+        }
+        if (inProgress.decrementAndGet() > 0 || clustersInProgress.contains(cluster)) {
+            return;
+        }
+        if (stalledClusters.contains(cluster)) {
+            catchUp(rootPath,
+                    cluster);
+        } else if (version != null && checkpointStore.loadVersion(cluster).isPresent()) {
+            checkpointStore.saveVersion(cluster, version);
+        }
+    }
+
+    /**
+     * Reindexes the changes of a stalled cluster since its indexed version, which clears the stall once done.
+     */
+    private void catchUp(final Path rootPath,
+                         final KCluster cluster) {
+        if (!checkpointStore.loadVersion(cluster).isPresent()) {
+            // nothing to advance, the cluster gets an indexed version once batch indexed
+            stalledClusters.remove(cluster);
+            return;
+        }
+        if (indexDisposed.get() || !indexEngine.isAlive()) {
+            return;
+        }
+        logWarning("Indexing changes of " + cluster.getClusterId() + " failed, reindexing the changes since its indexed version.");
+        reindexChanges(rootPath,
+                       cluster,
+                       null,
+                       new ArrayList<>(1));
+    }
+
+    private boolean belongsTo(final Path path,
+                              final KCluster cluster) {
+        return path instanceof SegmentedPath && path.getFileSystem() instanceof FileSystemId && cluster.equals(KObjectUtil.toKCluster(path));
+    }
+
+    private Void handleFailure(final KCluster cluster,
+                               final Throwable ex) {
+        clustersInProgress.remove(cluster);
+        try {
+            throw ex;
+        } catch (DisposedException de) {
+            logWarning("Batch index couldn't finish. [@" + cluster.getClusterId() + "]");
+        } catch (IllegalStateException ise) {
+            logError("Index fails - Index has an invalid state. [@" + cluster.getClusterId() + "]", ex);
+        } catch (Throwable t) {
+            logError("Index fails. [@" + cluster.getClusterId() + "]", ex);
+        }
+        return null;
+    }
+
+    private String currentVersion(final Path rootPath) {
+        final FileSystemChangesSupport changesSupport = changesSupport(rootPath);
+        return changesSupport == null ? null : changesSupport.getVersion(rootPath);
+    }
+
+    private FileSystemChangesSupport changesSupport(final Path rootPath) {
+        final Object provider = rootPath.getFileSystem().provider();
+        return provider instanceof FileSystemChangesSupport ? (FileSystemChangesSupport) provider : null;
+    }
+
+    private boolean isIncremental() {
+        return incremental;
+    }
+
+    private boolean isPipelined() {
+        return pipelined;
+    }
 
+    /**
+     * @return The checkpoint of an interrupted batch index of the cluster, or null if there is nothing to resume.
+     */
+    private String resumableCheckpoint(final KCluster cluster) {
+        if (!isPipelined() || clustersInProgress.contains(cluster)) {
+            return null;
+        }
+        return checkpointStore.load(cluster).orElse(null);
+    }
+
+    /**
+     * Walks the root on the calling thread, while the already scheduled indexers consume the queued events. The walk
+     * is not submitted to the executor, as it could then wait behind the indexers it feeds. Every
+     * {@link #checkpointInterval} files a checkpoint is queued, and saved once every indexer has committed it.
+     */
+    private void queueIndexingEventsPipelined(final Path root,
+                                              final KCluster cluster,
+                                              final IndexerDispatcher dispatcher,
+                                              final String resumeFrom) {
+        try {
+            if (!queueIndexingEvents(root, dispatcher, resumeFrom)) {
+                logWarning("Batch index checkpoint [" + resumeFrom + "] not found, indexing whole cluster. [@" + cluster.getClusterId() + "]");
+                queueIndexingEvents(root, dispatcher, null);
             }
+        } finally {
+            dispatcher.close();
         }
     }
 
-    private void queueIndexingEvents(Path root, final IndexerDispatcher dispatcher) {
+    /**
+     * @param resumeFrom When not null, the files are skipped up to (and including) this one.
+     * @return false if the walk finished without finding the file to resume from.
+     */
+    private boolean queueIndexingEvents(Path root, final IndexerDispatcher dispatcher, final String resumeFrom) {
+        final AtomicBoolean skipping = new AtomicBoolean(resumeFrom != null);
+        final AtomicInteger queued = new AtomicInteger();
         walkFileTree(checkNotNull("root",
                                   root),
                      new SimpleFileVisitor<Path>() {
@@ -205,6 +566,12 @@ public final class BatchIndex {
                 if (indexDisposed.get()) {
                     return FileVisitResult.TERMINATE;
                 }
+                if (skipping.get()) {
+                    if (file.toString().equals(resumeFrom)) {
+                        skipping.set(false);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
                 try {
                     checkNotNull("file",
                                  file);
@@ -215,6 +582,9 @@ public final class BatchIndex {
 
                         if (!indexDisposed.get()) {
                             dispatcher.offer(new IndexableIOEvent.NewFileEvent(file));
+                            if (isPipelined() && queued.incrementAndGet() % checkpointInterval == 0) {
+                                dispatcher.checkpoint(file.toString());
+                            }
                         } else {
                             return FileVisitResult.TERMINATE;
                         }
@@ -234,6 +604,7 @@ public final class BatchIndex {
                 return FileVisitResult.CONTINUE;
             }
         });
+        return !skipping.get();
     }
 
     private void logInformation(final String message) {
@@ -256,4 +627,36 @@ public final class BatchIndex {
     public void dispose() {
         indexEngine.dispose();
     }
+
+    /**
+     * Default {@link ChangesDispatcher}, which maps each change to the event of its kind and skips dot files.
+     */
+    static void queueChanges(final List<WatchEvent<?>> changes,
+                             final IndexerDispatcher dispatcher) {
+        for (WatchEvent<?> change : changes) {
+            final WatchContext context = (WatchContext) change.context();
+            final Path path = change.kind() == StandardWatchEventKind.ENTRY_DELETE ? context.getOldPath() : context.getPath();
+            if (path == null || path.getFileName() == null || path.getFileName().toString().startsWith(".")) {
+                continue;
+            }
+            if (change.kind() == StandardWatchEventKind.ENTRY_RENAME) {
+                dispatcher.offer(new IndexableIOEvent.RenamedFileEvent(context.getOldPath(),
+                                                                       path));
+            } else if (change.kind() == StandardWatchEventKind.ENTRY_DELETE) {
+                dispatcher.offer(new IndexableIOEvent.DeletedFileEvent(path));
+            } else {
+                dispatcher.offer(new IndexableIOEvent.NewFileEvent(path));
+            }
+        }
+    }
+
+    /**
+     * Queues the changes made to a cluster since the version it was indexed at.
+     */
+    @FunctionalInterface
+    public interface ChangesDispatcher {
+
+        void dispatch(final List<WatchEvent<?>> changes,
+                      final IndexerDispatcher dispatcher);
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.ext.metadata.model.KCluster;
+
+/**
+ * Persists the progress of the initial batch indexing of each {@link KCluster}, so that an interrupted batch index can
+ * be resumed after a restart. The checkpoint of a cluster is kept in its own file until the batch index completes.
+ * <p>
+ * It also keeps the version (e.g. the commit id) of the content each cluster was last indexed at, so that an index can
+ * be brought up to date by reindexing only the changes made since then.
+ */
+public class BatchIndexCheckpointStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchIndexCheckpointStore.class);
+
+    public static final String CHECKPOINT_DIR_PROPERTY = "org.uberfire.metadata.index.checkpoint.dir";
+    private static final String INDEX_DIR_PROPERTY = "org.uberfire.metadata.index.dir";
+    private static final String CHECKPOINTS_DIR = ".index-checkpoints";
+    private static final String VERSIONS_DIR = ".versions";
+
+    private final File dir;
+
+    public BatchIndexCheckpointStore(final File dir) {
+        this.dir = dir;
+    }
+
+    public static File defaultDir() {
+        final String checkpointDir = System.getProperty(CHECKPOINT_DIR_PROPERTY);
+        if (checkpointDir != null && !checkpointDir.trim().isEmpty()) {
+            return new File(checkpointDir.trim());
+        }
+        final String indexDir = System.getProperty(INDEX_DIR_PROPERTY);
+        if (indexDir == null || indexDir.trim().isEmpty()) {
+            return new File(CHECKPOINTS_DIR);
+        }
+        return new File(indexDir.trim(),
+                        CHECKPOINTS_DIR);
+    }
+
+    /**
+     * @return The last checkpoint saved for the cluster, or empty if it has no unfinished batch index.
+     */
+    public Optional<String> load(final KCluster cluster) {
+        return read(fileOf(dir,
+                           cluster),
+                    cluster);
+    }
+
+    public void save(final KCluster cluster,
+                     final String checkpoint) {
+        write(fileOf(dir,
+                     cluster),
+              cluster,
+              checkpoint);
+    }
+
+    public void remove(final KCluster cluster) {
+        delete(fileOf(dir,
+                      cluster),
+               cluster);
+    }
+
+    /**
+     * @return The version of the content the cluster was last fully indexed at, or empty if it is unknown.
+     */
+    public Optional<String> loadVersion(final KCluster cluster) {
+        return read(fileOf(versionsDir(),
+                           cluster),
+                    cluster);
+    }
+
+    public void saveVersion(final KCluster cluster,
+                            final String version) {
+        write(fileOf(versionsDir(),
+                     cluster),
+              cluster,
+              version);
+    }
+
+    public void removeVersion(final KCluster cluster) {
+        delete(fileOf(versionsDir(),
+                      cluster),
+               cluster);
+    }
+
+    private Optional<String> read(final File file,
+                                  final KCluster cluster) {
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new String(Files.readAllBytes(file.toPath()),
+                                          StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOG.warn("Unable to read batch index checkpoint of cluster [{}].",
+                     cluster.getClusterId(),
+                     e);
+            return Optional.empty();
+        }
+    }
+
+    private void write(final File file,
+                       final KCluster cluster,
+                       final String content) {
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            final File temp = new File(file.getParentFile(),
+                                       file.getName() + ".tmp");
+            Files.write(temp.toPath(),
+                        content.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp.toPath(),
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Unable to save batch index checkpoint of cluster [{}].",
+                     cluster.getClusterId(),
+                     e);
+        }
+    }
+
+    private void delete(final File file,
+                        final KCluster cluster) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            LOG.warn("Unable to remove batch index checkpoint of cluster [{}].",
+                     cluster.getClusterId(),
+                     e);
+        }
+    }
+
+    private File versionsDir() {
+        return new File(dir,
+                        VERSIONS_DIR);
+    }
+
+    private File fileOf(final File parent,
+                        final KCluster cluster) {
+        try {
+            return new File(parent,
+                            URLEncoder.encode(cluster.getClusterId(),
+                                              StandardCharsets.UTF_8.name()));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -168,6 +168,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                                          indexersFactory,
                                          dispatcherFactory,
                                          batchIndexListener,
+                                         this::queueChanges,
                                          views);
         ensureCoreIndexerExists();
     }
@@ -194,6 +195,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                                          indexersFactory,
                                          dispatcherFactory,
                                          batchIndexListener,
+                                         this::queueChanges,
                                          views);
         ensureCoreIndexerExists();
     }
@@ -221,6 +223,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                                          indexersFactory,
                                          dispatcherFactory,
                                          batchIndexListener,
+                                         this::queueChanges,
                                          views);
         ensureCoreIndexerExists();
     }
@@ -250,6 +253,7 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                                          indexersFactory,
                                          dispatcherFactory,
                                          batchIndexListener,
+                                         this::queueChanges,
                                          views);
         ensureCoreIndexerExists();
     }
@@ -350,14 +354,23 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                                 IndexerDispatcher dispatcher = dispatcherFactory.create(indexersFactory.getIndexers(),
                                                                                         kCluster);
                                 final Set<Path> eventRealPaths = getRealCreatedPaths(events);
+                                final String version = batchIndex.eventsQueued(rootPath,
+                                                                               kCluster,
+                                                                               events);
                                 try {
                                     queueEvents(events,
                                                 eventRealPaths,
                                                 dispatcher);
                                     scheduleIndexing(dispatcher,
                                                      events,
-                                                     kCluster);
+                                                     rootPath,
+                                                     kCluster,
+                                                     version);
                                 } catch (DisposedException e) {
+                                    batchIndex.eventsIndexed(rootPath,
+                                                             kCluster,
+                                                             version,
+                                                             false);
                                     return;
                                 }
                             });
@@ -365,13 +378,21 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
 
                         private void scheduleIndexing(IndexerDispatcher dispatcher,
                                                       List<WatchEvent<?>> events,
-                                                      KCluster kCluster) {
+                                                      Path rootPath,
+                                                      KCluster kCluster,
+                                                      String version) {
                             activeIndexerDispatchers.add(dispatcher);
                             dispatcher.schedule(executorService)
                                     .thenRun(() -> LOGGER.info("Completed indexing {} events in cluster [{}].",
                                                                events.size(),
                                                                kCluster))
-                                    .whenComplete((result, exception) -> activeIndexerDispatchers.remove(dispatcher));
+                                    .whenComplete((result, exception) -> {
+                                        activeIndexerDispatchers.remove(dispatcher);
+                                        batchIndex.eventsIndexed(rootPath,
+                                                                 kCluster,
+                                                                 version,
+                                                                 exception == null);
+                                    });
                         }
 
                         private void queueEvents(final List<WatchEvent<?>> events,
@@ -394,27 +415,6 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                             }
                         }
 
-                        private void queueEvent(final Set<Path> eventRealPaths,
-                                                WatchEvent event,
-                                                final WatchContext context,
-                                                final IndexerDispatcher dispatcher) throws DisposedException {
-                            if (event.kind() == ENTRY_MODIFY || event.kind() == ENTRY_CREATE) {
-                                queueCreationAndModificationEvent(eventRealPaths,
-                                                                  context,
-                                                                  dispatcher);
-                            }
-
-                            if (event.kind() == StandardWatchEventKind.ENTRY_RENAME) {
-                                queueRenameEvent(context,
-                                                 dispatcher);
-                            }
-
-                            if (event.kind() == StandardWatchEventKind.ENTRY_DELETE) {
-                                queueDeleteEvent(context,
-                                                 dispatcher);
-                            }
-                        }
-
                         private boolean isDisposed() {
                             return isDisposed || ws.isClose();
                         }
@@ -453,6 +453,47 @@ public class IOServiceIndexedImpl extends IOServiceDotFileImpl {
                      options);
     }
 
+    /**
+     * Queues the changes listed by the file system since the version a cluster was last indexed at, the same way
+     * watch events are queued.
+     */
+    void queueChanges(final List<WatchEvent<?>> events,
+                      final IndexerDispatcher dispatcher) {
+        final Set<Path> eventRealPaths = getRealCreatedPaths(events);
+        for (WatchEvent event : events) {
+            try {
+                queueEvent(eventRealPaths,
+                           event,
+                           ((WatchContext) event.context()),
+                           dispatcher);
+            } catch (final Exception ex) {
+                LOGGER.error("Error during indexing. { " + event.toString() + " }",
+                             ex);
+            }
+        }
+    }
+
+    void queueEvent(final Set<Path> eventRealPaths,
+                    final WatchEvent event,
+                    final WatchContext context,
+                    final IndexerDispatcher dispatcher) throws DisposedException {
+        if (event.kind() == ENTRY_MODIFY || event.kind() == ENTRY_CREATE) {
+            queueCreationAndModificationEvent(eventRealPaths,
+                                              context,
+                                              dispatcher);
+        }
+
+        if (event.kind() == StandardWatchEventKind.ENTRY_RENAME) {
+            queueRenameEvent(context,
+                             dispatcher);
+        }
+
+        if (event.kind() == StandardWatchEventKind.ENTRY_DELETE) {
+            queueDeleteEvent(context,
+                             dispatcher);
+        }
+    }
+
     void queueDeleteEvent(final WatchContext context,
                                   final IndexerDispatcher dispatcher) throws DisposedException {
         final Path oldPath = context.getOldPath();
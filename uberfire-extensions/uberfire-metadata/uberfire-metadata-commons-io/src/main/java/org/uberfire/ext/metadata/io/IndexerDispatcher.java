@@ -16,16 +16,17 @@
 package org.uberfire.ext.metadata.io;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -74,6 +75,9 @@ public class IndexerDispatcher {
     private final Logger logger;
     private final Event<BatchIndexEvent> batchIndexEvent;
     private final Factory schedulerFactory;
+    private final List<String> checkpoints = new ArrayList<>();
+    private int reachedCheckpoint = -1;
+    private Consumer<String> checkpointListener;
 
     public IndexerDispatcher(MetaIndexEngine indexEngine,
                              Collection<? extends Indexer> indexers,
@@ -85,7 +89,7 @@ public class IndexerDispatcher {
         this.batchIndexEvent = batchIndexEvent;
         this.logger = logger;
         jobs = indexers.stream()
-                       .map(indexer -> new IndexerJob(indexEngine, indexer, cluster, logger))
+                       .map(indexer -> new IndexerJob(indexEngine, indexer, cluster, logger, this::checkpointReached))
                        .collect(Collectors.toList());
     }
 
@@ -108,6 +112,46 @@ public class IndexerDispatcher {
             });
     }
 
+    /**
+     * Switches this dispatcher to pipelined mode: the scheduled jobs keep waiting for queued events until
+     * {@link #close()} is called, so that events can be offered while the jobs are already running.
+     * @param checkpointListener Notified with the last checkpoint (see {@link #checkpoint(String)}) that every job
+     *                           has committed. May be null.
+     */
+    public void pipelined(Consumer<String> checkpointListener) {
+        this.checkpointListener = checkpointListener;
+        jobs.forEach(job -> job.pipelined.set(true));
+    }
+
+    /**
+     * Queues a checkpoint after the events offered so far. Each job commits its pending batch when it reaches the
+     * checkpoint, and once all of them did the checkpoint listener is notified.
+     */
+    public synchronized void checkpoint(String checkpoint) {
+        final int index = checkpoints.size();
+        checkpoints.add(checkpoint);
+        jobs.forEach(job -> job.offer(new Checkpoint(index)));
+    }
+
+    /**
+     * Signals the pipelined jobs that no more events will be offered.
+     */
+    public void close() {
+        jobs.forEach(job -> job.close());
+    }
+
+    private synchronized void checkpointReached(IndexerJob job, Checkpoint checkpoint) {
+        job.reachedCheckpoint = checkpoint.index;
+        final int reached = jobs.stream().mapToInt(j -> j.reachedCheckpoint).min().orElse(-1);
+        if (reached > reachedCheckpoint) {
+            reachedCheckpoint = reached;
+            logger.debug("All indexers reached checkpoint [{}].", checkpoints.get(reached));
+            if (checkpointListener != null) {
+                checkpointListener.accept(checkpoints.get(reached));
+            }
+        }
+    }
+
     /**
      * Note that a CDI {@link BatchIndexEvent} is fired for each individual indexer job that finishes.
      *
@@ -162,28 +206,56 @@ public class IndexerDispatcher {
         return indexer.supportsPath(path);
     }
 
+    @FunctionalInterface
+    private interface CheckpointCallback {
+
+        void reached(IndexerJob job, Checkpoint checkpoint);
+    }
+
+    private static class Checkpoint {
+
+        private final int index;
+
+        Checkpoint(int index) {
+            this.index = index;
+        }
+    }
+
     private static class IndexerJob implements Supplier<List<IndexEvent>> {
+        private static final Object END_OF_INPUT = new Object();
+        private static final Object DISPOSED = new Object();
+
         private final Indexer indexer;
-        private final Deque<IndexableIOEvent> inputEvents = new ArrayDeque<>();
+        private final BlockingDeque<Object> inputEvents = new LinkedBlockingDeque<>();
         private final MetaIndexEngine indexEngine;
         private final AtomicBoolean disposed = new AtomicBoolean(false);
+        private final AtomicBoolean pipelined = new AtomicBoolean(false);
         private final Logger logger;
         private final KCluster cluster;
+        private final CheckpointCallback checkpointCallback;
+        private int reachedCheckpoint = -1;
 
-        IndexerJob(MetaIndexEngine indexEngine, Indexer indexer, KCluster cluster, Logger logger) {
+        IndexerJob(MetaIndexEngine indexEngine, Indexer indexer, KCluster cluster, Logger logger, CheckpointCallback checkpointCallback) {
             this.indexEngine = indexEngine;
             this.indexer = indexer;
             this.cluster = cluster;
             this.logger = logger;
+            this.checkpointCallback = checkpointCallback;
         }
 
-        void offer(IndexableIOEvent event) {
+        void offer(Object event) {
             inputEvents.add(event);
         }
 
+        void close() {
+            inputEvents.add(END_OF_INPUT);
+        }
+
         void dispose() {
             logger.debug("Disposing job for indexer [id={}].", indexer.getIndexerId());
             disposed.set(true);
+            // wakes up a pipelined job waiting for input
+            inputEvents.addFirst(DISPOSED);
         }
 
         @Override
@@ -208,12 +280,16 @@ public class IndexerDispatcher {
 
         private List<IndexEvent> processEvents() {
             List<IndexEvent> outputEvents = new ArrayList<>(inputEvents.size());
-            IndexableIOEvent event;
-            while (!inputEvents.isEmpty()) {
-                event = inputEvents.poll();
+            Object next;
+            while ((next = nextInput()) != END_OF_INPUT) {
                 if (disposed.get()) {
                     throw new DisposedException();
-                } else if (isFileSystemOpen(event)) {
+                } else if (next instanceof Checkpoint) {
+                    commitCheckpoint((Checkpoint) next);
+                    continue;
+                }
+                final IndexableIOEvent event = (IndexableIOEvent) next;
+                if (isFileSystemOpen(event)) {
                     processEvent(event).ifPresent(outputEvents::add);
                 } else {
                     logger.debug("Skipping indexing of [{}] for indexer [id={}], because the filesystem [{}] is closed.",
@@ -226,6 +302,29 @@ public class IndexerDispatcher {
             return outputEvents;
         }
 
+        /**
+         * @return The next queued input, or {@link #END_OF_INPUT} once the queue is drained. A pipelined job blocks
+         *         until an input is queued, as the queue is only drained once closed.
+         */
+        private Object nextInput() {
+            if (!pipelined.get()) {
+                final Object next = inputEvents.poll();
+                return next == null ? END_OF_INPUT : next;
+            }
+            try {
+                return inputEvents.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DisposedException();
+            }
+        }
+
+        private void commitCheckpoint(Checkpoint checkpoint) {
+            indexEngine.commit(cluster, indexer.getIndexerId());
+            indexEngine.startBatch(cluster);
+            checkpointCallback.reached(this, checkpoint);
+        }
+
         private static boolean isFileSystemOpen(IndexableIOEvent event) {
             return fileSystemOf(event).isOpen();
         }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.io.common;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.ext.metadata.io.BatchIndexCheckpointStore;
+import org.uberfire.ext.metadata.model.KCluster;
+
+import static org.junit.Assert.*;
+
+public class BatchIndexCheckpointStoreTest {
+
+    private File dir;
+    private BatchIndexCheckpointStore store;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("checkpoints").toFile();
+        store = new BatchIndexCheckpointStore(new File(dir,
+                                                       "store"));
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void checkpointsAreKeptPerCluster() {
+        final KCluster master = new KClusterImpl("space/repo/master");
+        final KCluster dev = new KClusterImpl("space/repo/dev");
+
+        assertEquals(Optional.empty(),
+                     store.load(master));
+
+        store.save(master,
+                   "/dir/file1.txt");
+        store.save(master,
+                   "/dir/file2.txt");
+        store.save(dev,
+                   "/other.txt");
+
+        assertEquals(Optional.of("/dir/file2.txt"),
+                     store.load(master));
+        assertEquals(Optional.of("/other.txt"),
+                     store.load(dev));
+
+        final BatchIndexCheckpointStore reloaded = new BatchIndexCheckpointStore(new File(dir,
+                                                                                          "store"));
+        assertEquals(Optional.of("/dir/file2.txt"),
+                     reloaded.load(master));
+
+        store.remove(master);
+
+        assertEquals(Optional.empty(),
+                     store.load(master));
+        assertEquals(Optional.of("/other.txt"),
+                     store.load(dev));
+    }
+
+    @Test
+    public void versionsAreKeptApartFromCheckpoints() {
+        final KCluster master = new KClusterImpl("space/repo/master");
+
+        store.save(master,
+                   "/dir/file1.txt");
+        store.saveVersion(master,
+                          "a1b2c3");
+
+        assertEquals(Optional.of("/dir/file1.txt"),
+                     store.load(master));
+        assertEquals(Optional.of("a1b2c3"),
+                     store.loadVersion(master));
+
+        store.remove(master);
+
+        assertEquals(Optional.of("a1b2c3"),
+                     store.loadVersion(master));
+
+        store.removeVersion(master);
+
+        assertEquals(Optional.empty(),
+                     store.loadVersion(master));
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.io.common;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.ext.metadata.engine.MetaIndexEngine;
+import org.uberfire.ext.metadata.engine.Observer;
+import org.uberfire.ext.metadata.io.BatchIndex;
+import org.uberfire.ext.metadata.io.BatchIndexCheckpointStore;
+import org.uberfire.ext.metadata.io.IndexerDispatcher;
+import org.uberfire.ext.metadata.io.IndexerDispatcher.IndexerDispatcherFactory;
+import org.uberfire.ext.metadata.io.IndexersFactory;
+import org.uberfire.ext.metadata.io.KObjectUtil;
+import org.uberfire.ext.metadata.model.KCluster;
+import org.uberfire.java.nio.base.FileSystemChangesSupport;
+import org.uberfire.java.nio.base.FileSystemId;
+import org.uberfire.java.nio.base.SegmentedPath;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.file.spi.FileSystemProvider;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class BatchIndexIncrementalTest {
+
+    private File dir;
+    private BatchIndexCheckpointStore store;
+    private MetaIndexEngine indexEngine;
+    private IndexerDispatcherFactory dispatcherFactory;
+    private IndexerDispatcher dispatcher;
+    private BatchIndex.ChangesDispatcher changesDispatcher;
+    private FileSystem fs;
+    private FileSystemChangesSupport changesSupport;
+    private Path root;
+    private KCluster cluster;
+    private BatchIndex batchIndex;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("incremental").toFile();
+        store = new BatchIndexCheckpointStore(dir);
+        indexEngine = mock(MetaIndexEngine.class);
+        dispatcher = mock(IndexerDispatcher.class);
+        when(dispatcher.schedule(any(ExecutorService.class))).thenReturn(CompletableFuture.completedFuture(null));
+        dispatcherFactory = mock(IndexerDispatcherFactory.class);
+        when(dispatcherFactory.create(any(),
+                                      any())).thenReturn(dispatcher);
+        changesDispatcher = mock(BatchIndex.ChangesDispatcher.class);
+
+        final FileSystemProvider provider = mock(FileSystemProvider.class,
+                                                 withSettings().extraInterfaces(FileSystemChangesSupport.class));
+        changesSupport = (FileSystemChangesSupport) provider;
+        fs = mock(FileSystem.class,
+                  withSettings().extraInterfaces(FileSystemId.class));
+        when(((FileSystemId) fs).id()).thenReturn("repo");
+        when(fs.provider()).thenReturn(provider);
+        root = mock(Path.class,
+                    withSettings().extraInterfaces(SegmentedPath.class));
+        when(((SegmentedPath) root).getSegmentId()).thenReturn("master");
+        when(root.getFileSystem()).thenReturn(fs);
+        when(fs.getRootDirectories()).thenReturn(Collections.singletonList(root));
+        cluster = KObjectUtil.toKCluster(root);
+
+        batchIndex = new BatchIndex(indexEngine,
+                                    mock(Observer.class),
+                                    mock(ExecutorService.class),
+                                    new IndexersFactory(),
+                                    dispatcherFactory,
+                                    null,
+                                    changesDispatcher,
+                                    store,
+                                    false,
+                                    100,
+                                    true);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(dir);
+    }
+
+    @Test
+    public void onlyChangesSinceIndexedVersionAreQueued() {
+        final List<WatchEvent<?>> changes = Collections.singletonList(mock(WatchEvent.class));
+        store.saveVersion(cluster,
+                          "v1");
+        when(changesSupport.getVersion(root)).thenReturn("v2");
+        when(changesSupport.listChanges(root,
+                                        "v1")).thenReturn(changes);
+
+        batchIndex.run(fs,
+                       null);
+
+        verify(changesDispatcher).dispatch(changes,
+                                           dispatcher);
+        verify(dispatcher).schedule(any(ExecutorService.class));
+        verify(indexEngine,
+               never()).prepareBatch(cluster);
+        assertEquals(Optional.of("v2"),
+                     store.loadVersion(cluster));
+    }
+
+    @Test
+    public void upToDateIndexIsNotReindexed() {
+        store.saveVersion(cluster,
+                          "v1");
+        when(changesSupport.getVersion(root)).thenReturn("v1");
+
+        batchIndex.run(fs,
+                       null);
+
+        verify(changesSupport,
+               never()).listChanges(any(),
+                                    any());
+        verify(dispatcherFactory,
+               never()).create(any(),
+                               any());
+    }
+
+    @Test
+    public void clusterWithoutRecordedVersionIsReindexed() {
+        when(changesSupport.getVersion(root)).thenReturn("v1");
+
+        batchIndex.run(fs,
+                       null);
+
+        verify(changesSupport,
+               never()).listChanges(any(),
+                                    any());
+        verify(indexEngine).delete(cluster);
+        verify(indexEngine).prepareBatch(cluster);
+    }
+
+    @Test
+    public void indexedEventsAdvanceTheVersion() {
+        store.saveVersion(cluster,
+                          "v1");
+
+        final String first = batchIndex.eventsQueued(root,
+                                                     cluster,
+                                                     events("v2"));
+        final String second = batchIndex.eventsQueued(root,
+                                                      cluster,
+                                                      events("v3"));
+        // a commit whose events are not indexed yet
+        when(changesSupport.getVersion(root)).thenReturn("v4");
+
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 first,
+                                 true);
+        assertEquals(Optional.of("v1"),
+                     store.loadVersion(cluster));
+
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 second,
+                                 true);
+        assertEquals(Optional.of("v3"),
+                     store.loadVersion(cluster));
+    }
+
+    @Test
+    public void eventsWithoutVersionDontAdvanceTheVersion() {
+        store.saveVersion(cluster,
+                          "v1");
+
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 batchIndex.eventsQueued(root,
+                                                         cluster,
+                                                         events(null)),
+                                 true);
+
+        assertEquals(Optional.of("v1"),
+                     store.loadVersion(cluster));
+    }
+
+    @Test
+    public void failedEventsReindexChangesSinceTheIndexedVersion() {
+        final List<WatchEvent<?>> changes = Collections.singletonList(mock(WatchEvent.class));
+        when(indexEngine.isAlive()).thenReturn(true);
+        store.saveVersion(cluster,
+                          "v1");
+        when(changesSupport.getVersion(root)).thenReturn("v3");
+        when(changesSupport.listChanges(root,
+                                        "v1")).thenReturn(changes);
+
+        final String first = batchIndex.eventsQueued(root,
+                                                     cluster,
+                                                     events("v2"));
+        final String second = batchIndex.eventsQueued(root,
+                                                      cluster,
+                                                      events("v3"));
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 first,
+                                 false);
+        verify(changesDispatcher,
+               never()).dispatch(any(),
+                                 any());
+        assertEquals(Optional.of("v1"),
+                     store.loadVersion(cluster));
+
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 second,
+                                 true);
+        verify(changesDispatcher).dispatch(changes,
+                                           dispatcher);
+        assertEquals(Optional.of("v3"),
+                     store.loadVersion(cluster));
+
+        // caught up, so indexed events advance the version again
+        batchIndex.eventsIndexed(root,
+                                 cluster,
+                                 batchIndex.eventsQueued(root,
+                                                         cluster,
+                                                         events("v4")),
+                                 true);
+        assertEquals(Optional.of("v4"),
+                     store.loadVersion(cluster));
+    }
+
+    @Test
+    public void unknownIndexedVersionRebuildsCluster() {
+        store.saveVersion(cluster,
+                          "gone");
+        when(changesSupport.getVersion(root)).thenReturn("v2");
+        when(changesSupport.listChanges(root,
+                                        "gone")).thenReturn(null);
+
+        batchIndex.run(fs,
+                       null);
+
+        verify(indexEngine).delete(cluster);
+        verify(indexEngine).prepareBatch(cluster);
+        verify(changesDispatcher,
+               never()).dispatch(any(),
+                                 any());
+    }
+
+    private List<WatchEvent<?>> events(final String version) {
+        final WatchContext context = mock(WatchContext.class);
+        when(context.getPath()).thenReturn(root);
+        when(context.getVersion()).thenReturn(version);
+        final WatchEvent<?> event = mock(WatchEvent.class);
+        doReturn(context).when(event).context();
+        return Collections.singletonList(event);
+    }
+}
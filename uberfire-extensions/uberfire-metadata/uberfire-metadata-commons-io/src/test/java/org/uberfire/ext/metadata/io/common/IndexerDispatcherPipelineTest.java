@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.ext.metadata.io.common;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.event.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.uberfire.ext.metadata.backend.lucene.model.KClusterImpl;
+import org.uberfire.ext.metadata.engine.Indexer;
+import org.uberfire.ext.metadata.engine.MetaIndexEngine;
+import org.uberfire.ext.metadata.event.BatchIndexEvent;
+import org.uberfire.ext.metadata.io.ConstrainedIndexerScheduler.ConstraintBuilder;
+import org.uberfire.ext.metadata.io.IndexerDispatcher;
+import org.uberfire.ext.metadata.model.KCluster;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class IndexerDispatcherPipelineTest {
+
+    private KCluster cluster;
+    private MetaIndexEngine indexEngine;
+    private ExecutorService executor;
+    private IndexerDispatcher dispatcher;
+    private List<String> checkpoints;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        cluster = new KClusterImpl("test-cluster");
+        indexEngine = mock(MetaIndexEngine.class);
+        final Event<BatchIndexEvent> event = mock(Event.class);
+        when(event.select(any(Annotation.class))).thenReturn(event);
+        executor = Executors.newCachedThreadPool();
+        checkpoints = new CopyOnWriteArrayList<>();
+
+        dispatcher = new IndexerDispatcher(indexEngine,
+                                           Arrays.asList(indexer("first"),
+                                                         indexer("second")),
+                                           cluster,
+                                           new ConstraintBuilder().createFactory(),
+                                           event,
+                                           LoggerFactory.getLogger(IndexerDispatcher.class));
+        dispatcher.pipelined(checkpoints::add);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void pipelinedJobsWaitUntilClosed() throws Exception {
+        final CompletableFuture<Void> future = dispatcher.schedule(executor);
+
+        Thread.sleep(300);
+        assertFalse(future.isDone());
+
+        dispatcher.close();
+        future.get(10,
+                   TimeUnit.SECONDS);
+
+        verify(indexEngine).commit(cluster,
+                                   "first");
+        verify(indexEngine).commit(cluster,
+                                   "second");
+    }
+
+    @Test
+    public void disposedPipelinedJobsStopWaiting() throws Exception {
+        final CompletableFuture<Void> future = dispatcher.schedule(executor);
+
+        Thread.sleep(300);
+        dispatcher.dispose();
+
+        try {
+            future.get(10,
+                       TimeUnit.SECONDS);
+            fail("Disposed jobs should not complete");
+        } catch (ExecutionException e) {
+            verify(indexEngine,
+                   never()).commit(any(KCluster.class),
+                                   any(String.class));
+        }
+    }
+
+    @Test
+    public void checkpointsAreReportedOnceCommittedByEveryJob() throws Exception {
+        dispatcher.checkpoint("/a");
+        dispatcher.checkpoint("/b");
+        dispatcher.close();
+
+        dispatcher.schedule(executor).get(10,
+                                          TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("/a",
+                                   "/b"),
+                     checkpoints);
+        verify(indexEngine,
+               times(3)).commit(cluster,
+                                "first");
+        verify(indexEngine,
+               times(3)).commit(cluster,
+                                "second");
+    }
+
+    private Indexer indexer(final String id) {
+        final Indexer indexer = mock(Indexer.class);
+        when(indexer.getIndexerId()).thenReturn(id);
+        return indexer;
+    }
+}
@@ -777,6 +777,23 @@ public class IOSecurityService implements IOService {
                              options);
     }
 
+    @Override
+    public void writeAll(Map<Path, byte[]> contents,
+                         Set<Path> deletions,
+                         Option... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
+        final Set<Path> paths = new HashSet<>(contents.keySet());
+        paths.addAll(deletions);
+        for (final Path path : paths) {
+            if (!authManager.authorize(toResource(path),
+                                       getUser())) {
+                throw new SecurityException();
+            }
+        }
+        service.writeAll(contents,
+                         deletions,
+                         options);
+    }
+
     private Resource toResource(final FileSystem fs) {
         return new FileSystemResourceAdaptor(new FileSystemMetadata(fs));
     }
@@ -430,6 +430,13 @@ public class MockIOService implements IOService {
         return null;
     }
 
+    @Override
+    public void writeAll(Map<Path, byte[]> contents,
+                         Set<Path> deletions,
+                         Option... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
+
+    }
+
     @Override
     public int priority() {
         return 0;
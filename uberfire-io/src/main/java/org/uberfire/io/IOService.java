@@ -332,6 +332,20 @@ public interface IOService extends PriorityDisposable {
                final OpenOption... options)
             throws IllegalArgumentException, IOException, UnsupportedOperationException;
 
+    /**
+     * Writes the given contents and deletes the given paths as a single change. On file systems that support it
+     * (see {@link org.uberfire.java.nio.base.BulkWriteSupport}) this produces exactly one commit and one set of
+     * watch events; on other file systems the operations are applied in a batch.
+     * @param contents content of the paths to create or overwrite
+     * @param deletions paths to delete
+     * @param options optional {@link org.uberfire.java.nio.base.options.CommentedOption} with the author and
+     * message of the change
+     */
+    void writeAll(final Map<Path, byte[]> contents,
+                  final Set<Path> deletions,
+                  final Option... options)
+            throws IllegalArgumentException, IOException, UnsupportedOperationException;
+
     public abstract static class NewFileSystemListener {
 
         public abstract void execute(final FileSystem newFileSystem,
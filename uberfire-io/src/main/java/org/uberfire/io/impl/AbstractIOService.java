@@ -40,9 +40,12 @@ import org.uberfire.io.IOWatchService;
 import org.uberfire.io.lock.BatchLockControl;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractPath;
+import org.uberfire.java.nio.base.BulkWriteSupport;
 import org.uberfire.java.nio.base.FileSystemState;
+import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.channels.SeekableByteChannel;
 import org.uberfire.java.nio.file.CopyOption;
+import org.uberfire.java.nio.file.DeleteOption;
 import org.uberfire.java.nio.file.DirectoryNotEmptyException;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.FileAlreadyExistsException;
@@ -686,6 +689,80 @@ public abstract class AbstractIOService implements IOServiceIdentifiable,
         return path;
     }
 
+    @Override
+    public void writeAll(final Map<Path, byte[]> contents,
+                         final Set<Path> deletions,
+                         final Option... options)
+            throws IllegalArgumentException, IOException, UnsupportedOperationException {
+        checkNotNull("contents",
+                     contents);
+        checkNotNull("deletions",
+                     deletions);
+        if (contents.isEmpty() && deletions.isEmpty()) {
+            return;
+        }
+
+        final Path first = contents.isEmpty() ? deletions.iterator().next() : contents.keySet().iterator().next();
+        final FileSystem fs = first.getFileSystem();
+        final CommentedOption commentedOption = extractCommentedOption(options);
+
+        if (fs.provider() instanceof BulkWriteSupport) {
+            ((BulkWriteSupport) fs.provider()).writeAll(contents,
+                                                        deletions,
+                                                        buildCompanionDeletions(deletions),
+                                                        commentedOption);
+            clearCache(contents.keySet());
+            clearCache(deletions);
+            return;
+        }
+
+        if (commentedOption != null) {
+            startBatch(fs,
+                       commentedOption);
+        } else {
+            startBatch(fs);
+        }
+        try {
+            for (final Map.Entry<Path, byte[]> content : contents.entrySet()) {
+                write(content.getKey(),
+                      content.getValue(),
+                      commentedOption != null ? new OpenOption[]{commentedOption} : new OpenOption[0]);
+            }
+            for (final Path deletion : deletions) {
+                deleteIfExists(deletion,
+                               commentedOption != null ? new DeleteOption[]{commentedOption} : new DeleteOption[0]);
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Paths deleted by a bulk write in addition to the requested ones, they are not part of the change description.
+     */
+    protected Set<Path> buildCompanionDeletions(final Set<Path> deletions) {
+        return Collections.emptySet();
+    }
+
+    private CommentedOption extractCommentedOption(final Option... options) {
+        if (options != null) {
+            for (final Option option : options) {
+                if (option instanceof CommentedOption) {
+                    return (CommentedOption) option;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void clearCache(final Set<Path> paths) {
+        for (final Path path : paths) {
+            if (path instanceof AbstractPath) {
+                ((AbstractPath) path).clearCache();
+            }
+        }
+    }
+
     protected abstract Set<? extends OpenOption> buildOptions(final Set<? extends OpenOption> options,
                                                               final OpenOption... other);
 
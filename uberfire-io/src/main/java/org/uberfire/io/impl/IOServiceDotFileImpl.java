@@ -106,6 +106,15 @@ public class IOServiceDotFileImpl
         return result;
     }
 
+    @Override
+    protected Set<Path> buildCompanionDeletions(final Set<Path> deletions) {
+        final Set<Path> result = new HashSet<>(deletions.size());
+        for (final Path path : deletions) {
+            result.add(dot(path));
+        }
+        return result;
+    }
+
     @Override
     public SeekableByteChannel newByteChannel(final Path path,
                                               final Set<? extends OpenOption> options,
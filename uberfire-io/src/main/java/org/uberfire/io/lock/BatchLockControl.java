@@ -16,79 +16,159 @@
 
 package org.uberfire.io.lock;
 
-import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
-
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.uberfire.commons.config.ConfigProperties;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.LockableFileSystem;
 
+import static org.kie.soup.commons.validation.PortablePreconditions.checkNotNull;
+
+/**
+ * Controls the batches running on file systems.
+ * <p>
+ * By default a single fair lock is shared by all the file systems, so only one batch runs at a time. When
+ * {@value #BATCH_LOCK_STRIPES} is set to a positive number, file systems are spread over that number of fair locks
+ * instead, so batches on unrelated file systems don't queue behind each other.
+ * <p>
+ * A batch belongs to the thread that started it and runs on a single file system, nested batches on the same file
+ * system are reentrant.
+ */
 public class BatchLockControl {
 
-    private ReentrantLock lock = new ReentrantLock(true);
-    private FileSystem fileSystemOnBatch;
+    public static final String BATCH_LOCK_STRIPES = "org.uberfire.io.batch.lock.stripes";
+
+    private final ReentrantLock[] locks;
+    private final ThreadLocal<Batch> currentBatch = new ThreadLocal<>();
+    private final BatchLockMetrics metrics = new BatchLockMetrics();
+
+    public BatchLockControl() {
+        this(new ConfigProperties(System.getProperties()).get(BATCH_LOCK_STRIPES,
+                                                               "0").getIntValue());
+    }
+
+    public BatchLockControl(final int stripes) {
+        this.locks = new ReentrantLock[Math.max(1,
+                                                stripes)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock(true);
+        }
+    }
 
     public void lock(final FileSystem fs) {
         checkNotNull("fs", fs);
-        lock.lock();
-        try{
-            makeSureThatIsOnlyOneFSOnCurrentBatch(fs);
-
-            if (!isAlreadyOnBatch(fs)) {
-                if (isLockable(fs)) {
-                    fileSystemOnBatch = fs;
-                    ((LockableFileSystem) fs).lock();
-                } else {
-                    throw new BatchRuntimeException("Not a LockableFileSystem : "
-                            + fs.toString());
-                }
-            }
+
+        final Batch batch = currentBatch.get();
+        if (batch != null) {
+            makeSureThatIsOnCurrentBatch(batch,
+                                         fs);
+            batch.holdCount++;
+            return;
+        }
+
+        if (!isLockable(fs)) {
+            throw new BatchRuntimeException("Not a LockableFileSystem : "
+                                                    + fs.toString());
         }
-        catch (BatchRuntimeException e){
+
+        final ReentrantLock lock = locks[stripe(fs)];
+        acquire(lock);
+        try {
+            ((LockableFileSystem) fs).lock();
+        } catch (final RuntimeException e) {
             lock.unlock();
             throw e;
         }
+
+        currentBatch.set(new Batch(fs,
+                                   lock));
+        metrics.recordHolder(holderKey(fs),
+                             Thread.currentThread().getName());
     }
 
-    private void makeSureThatIsOnlyOneFSOnCurrentBatch(FileSystem fs) {
-        if (fileSystemOnBatch != null && !fileSystemOnBatch.equals(fs)) {
+    private void makeSureThatIsOnCurrentBatch(final Batch batch,
+                                              final FileSystem fs) {
+        if (!batch.fileSystem.equals(fs)) {
             throw new BatchRuntimeException("We already have a batch process running on another FS : "
-                                                    + fileSystemOnBatch.toString());
+                                                    + batch.fileSystem.toString());
         }
     }
 
-    private boolean isAlreadyOnBatch(FileSystem fileSystem) {
-        return fileSystemOnBatch != null && fileSystemOnBatch.equals(fileSystem);
+    private void acquire(final ReentrantLock lock) {
+        final boolean contended = lock.isLocked() || lock.hasQueuedThreads();
+        final long start = System.nanoTime();
+        lock.lock();
+        metrics.recordAcquisition(contended,
+                                  System.nanoTime() - start);
     }
 
     public void unlock() {
-        if (lock.isLocked()) {
-            if (shouldUnlockLockedFileSystems()) {
-                ((LockableFileSystem) fileSystemOnBatch).unlock();
-                fileSystemOnBatch = null;
-            }
-            lock.unlock();
+        final Batch batch = currentBatch.get();
+        if (batch == null) {
+            return;
+        }
+        if (batch.holdCount > 1) {
+            batch.holdCount--;
+            return;
         }
+        currentBatch.remove();
+        metrics.removeHolder(holderKey(batch.fileSystem));
+        try {
+            ((LockableFileSystem) batch.fileSystem).unlock();
+        } finally {
+            batch.lock.unlock();
+        }
+    }
+
+    private int stripe(final FileSystem fileSystem) {
+        return (holderKey(fileSystem).hashCode() & 0x7fffffff) % locks.length;
     }
 
-    private boolean shouldUnlockLockedFileSystems() {
-        return lock.getHoldCount() == 1 && fileSystemOnBatch != null && isLockable(fileSystemOnBatch);
+    private String holderKey(final FileSystem fileSystem) {
+        return fileSystem.getName() != null ? fileSystem.getName() : fileSystem.toString();
     }
 
     private boolean isLockable(FileSystem fileSystem) {
         return fileSystem instanceof LockableFileSystem;
     }
 
+    /**
+     * Whether the current thread is on a batch. Batches of other threads are not taken into account, use
+     * {@link #getMetrics()} to look at them.
+     */
     public boolean isLocked() {
-        return lock.isLocked();
+        return currentBatch.get() != null;
     }
 
     public int getHoldCount() {
-        return lock.getHoldCount();
+        final Batch batch = currentBatch.get();
+        return batch == null ? 0 : batch.holdCount;
     }
 
     public FileSystem getFileSystemOnBatch() {
-        return fileSystemOnBatch;
+        final Batch batch = currentBatch.get();
+        return batch == null ? null : batch.fileSystem;
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+
+    public BatchLockMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static class Batch {
+
+        private final FileSystem fileSystem;
+        private final ReentrantLock lock;
+        private int holdCount = 1;
+
+        private Batch(final FileSystem fileSystem,
+                      final ReentrantLock lock) {
+            this.fileSystem = fileSystem;
+            this.lock = lock;
+        }
     }
 
     public class BatchRuntimeException extends RuntimeException {
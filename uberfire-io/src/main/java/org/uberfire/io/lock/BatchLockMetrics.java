@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io.lock;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acquisition, contention and holder information of the locks of a {@link BatchLockControl}.
+ */
+public class BatchLockMetrics {
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder totalWaitTime = new LongAdder();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+    private final Map<String, String> holders = new ConcurrentHashMap<>();
+
+    void recordAcquisition(final boolean contended,
+                           final long waitTimeNanos) {
+        acquisitions.increment();
+        if (contended) {
+            contentions.increment();
+        }
+        totalWaitTime.add(waitTimeNanos);
+        maxWaitTime.accumulateAndGet(waitTimeNanos,
+                                     Math::max);
+    }
+
+    void recordHolder(final String fileSystem,
+                      final String thread) {
+        holders.put(fileSystem,
+                    thread);
+    }
+
+    void removeHolder(final String fileSystem) {
+        holders.remove(fileSystem);
+    }
+
+    public long acquisitionCount() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Number of acquisitions that found the lock held or queued for by another thread.
+     */
+    public long contentionCount() {
+        return contentions.sum();
+    }
+
+    public long totalWaitTimeNanos() {
+        return totalWaitTime.sum();
+    }
+
+    public long maxWaitTimeNanos() {
+        return maxWaitTime.get();
+    }
+
+    /**
+     * File systems currently on batch, mapped to the name of the thread holding them.
+     */
+    public Map<String, String> holders() {
+        return Collections.unmodifiableMap(new HashMap<>(holders));
+    }
+}
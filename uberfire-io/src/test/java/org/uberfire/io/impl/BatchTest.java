@@ -23,8 +23,10 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -47,6 +49,7 @@ import org.uberfire.io.lock.BatchLockControl;
 import org.uberfire.java.nio.base.WatchContext;
 import org.uberfire.java.nio.base.options.CommentedOption;
 import org.uberfire.java.nio.base.version.VersionAttributeView;
+import org.uberfire.java.nio.base.version.VersionRecord;
 import org.uberfire.java.nio.file.FileSystem;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.StandardWatchEventKind;
@@ -894,6 +897,55 @@ public class BatchTest {
         assertEquals(2, postCommitHookCalled.get());
     }
 
+    @Test
+    public void writeAllShouldProduceSingleCommitAndEventBatch() {
+        final Path old = ioService.get(URI.create("git://check-amend-repo-test-2/bulk/old.txt"));
+        final Path file1 = ioService.get(URI.create("git://check-amend-repo-test-2/bulk/file1.txt"));
+        final Path file2 = ioService.get(URI.create("git://check-amend-repo-test-2/bulk/file2.txt"));
+        final WatchService ws = old.getFileSystem().newWatchService();
+
+        ioService.write(old,
+                        "old!");
+        {
+            List<WatchEvent<?>> events = ws.poll().pollEvents();
+            assertEquals(1,
+                         events.size());
+        }
+
+        final Map<Path, byte[]> contents = new HashMap<>();
+        contents.put(file1,
+                     "content 1".getBytes());
+        contents.put(file2,
+                     "content 2".getBytes());
+        ioService.writeAll(contents,
+                           Collections.singleton(old),
+                           new CommentedOption("User Tester",
+                                               "bulk"));
+        {
+            List<WatchEvent<?>> events = ws.poll().pollEvents();
+            assertEquals(3,
+                         events.size()); // add two files, delete one
+        }
+        assertNull(ws.poll());
+
+        assertEquals("content 1",
+                     ioService.readAllString(file1));
+        assertEquals("content 2",
+                     ioService.readAllString(file2));
+        assertFalse(ioService.exists(old));
+
+        final List<VersionRecord> records1 = ioService.getFileAttributeView(file1,
+                                                                            VersionAttributeView.class).readAttributes().history().records();
+        final List<VersionRecord> records2 = ioService.getFileAttributeView(file2,
+                                                                            VersionAttributeView.class).readAttributes().history().records();
+        assertEquals(1,
+                     records1.size());
+        assertEquals(records1.get(0).id(),
+                     records2.get(0).id());
+        assertTrue(records1.get(0).comment().startsWith("bulk {bulk/file"));
+        assertTrue(records1.get(0).comment().endsWith(" and 2 more}"));
+    }
+
     static void writeMockHook(final File hooksDirectory,
                               final String hookName)
             throws FileNotFoundException, UnsupportedEncodingException {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.io.lock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.uberfire.java.nio.file.FileSystem;
+import org.uberfire.java.nio.file.LockableFileSystem;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BatchLockControlTest {
+
+    @Test
+    public void nestedBatchOnSameFileSystemIsReentrant() {
+        final BatchLockControl control = new BatchLockControl(1);
+        final FileSystem fs = fileSystem("fs1");
+
+        control.lock(fs);
+        control.lock(fs);
+        assertEquals(2,
+                     control.getHoldCount());
+        assertSame(fs,
+                   control.getFileSystemOnBatch());
+
+        control.unlock();
+        assertTrue(control.isLocked());
+        verify((LockableFileSystem) fs,
+               never()).unlock();
+
+        control.unlock();
+        assertFalse(control.isLocked());
+        assertNull(control.getFileSystemOnBatch());
+        verify((LockableFileSystem) fs,
+               times(1)).lock();
+        verify((LockableFileSystem) fs,
+               times(1)).unlock();
+    }
+
+    @Test(expected = BatchLockControl.BatchRuntimeException.class)
+    public void batchOnAnotherFileSystemIsRejected() {
+        final BatchLockControl control = new BatchLockControl(16);
+        control.lock(fileSystem("fs1"));
+        try {
+            control.lock(fileSystem("fs2"));
+        } finally {
+            assertEquals(1,
+                         control.getHoldCount());
+            control.unlock();
+        }
+    }
+
+    @Test(expected = BatchLockControl.BatchRuntimeException.class)
+    public void notLockableFileSystemIsRejected() {
+        final BatchLockControl control = new BatchLockControl(1);
+        try {
+            control.lock(mock(FileSystem.class));
+        } finally {
+            assertFalse(control.isLocked());
+        }
+    }
+
+    @Test
+    public void batchIsOnlyVisibleToItsThread() throws Exception {
+        final BatchLockControl control = new BatchLockControl(1);
+        control.lock(fileSystem("fs1"));
+
+        final AtomicBoolean lockedOnOtherThread = new AtomicBoolean(true);
+        final Thread other = new Thread(() -> lockedOnOtherThread.set(control.isLocked()));
+        other.start();
+        other.join();
+
+        assertFalse(lockedOnOtherThread.get());
+        assertTrue(control.isLocked());
+        control.unlock();
+    }
+
+    @Test
+    public void stripedBatchesOnDifferentFileSystemsRunConcurrently() throws Exception {
+        final BatchLockControl control = new BatchLockControl(64);
+        final FileSystem fs1 = fileSystem("fs1");
+        final FileSystem fs2 = fileSystem("fs2");
+
+        control.lock(fs1);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final Thread other = new Thread(() -> {
+            control.lock(fs2);
+            locked.countDown();
+            control.unlock();
+        });
+        other.start();
+
+        assertTrue(locked.await(5,
+                                TimeUnit.SECONDS));
+        other.join();
+        assertEquals(0,
+                     control.getMetrics().contentionCount());
+        control.unlock();
+    }
+
+    @Test
+    public void globalLockSerializesBatchesAndRecordsContention() throws Exception {
+        final BatchLockControl control = new BatchLockControl(1);
+        final FileSystem fs1 = fileSystem("fs1");
+        final FileSystem fs2 = fileSystem("fs2");
+        final AtomicBoolean otherLocked = new AtomicBoolean(false);
+
+        control.lock(fs1);
+        assertEquals(Thread.currentThread().getName(),
+                     control.getMetrics().holders().get("fs1"));
+
+        final Thread other = new Thread(() -> {
+            control.lock(fs2);
+            otherLocked.set(true);
+            control.unlock();
+        });
+        other.start();
+        while (other.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        assertFalse(otherLocked.get());
+
+        control.unlock();
+        other.join();
+
+        assertTrue(otherLocked.get());
+        assertEquals(2,
+                     control.getMetrics().acquisitionCount());
+        assertEquals(1,
+                     control.getMetrics().contentionCount());
+        assertTrue(control.getMetrics().holders().isEmpty());
+    }
+
+    private FileSystem fileSystem(final String name) {
+        final FileSystem fs = mock(FileSystem.class,
+                                   withSettings().extraInterfaces(LockableFileSystem.class));
+        when(fs.getName()).thenReturn(name);
+        return fs;
+    }
+}
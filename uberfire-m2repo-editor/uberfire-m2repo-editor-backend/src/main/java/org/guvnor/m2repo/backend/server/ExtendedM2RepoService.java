@@ -48,4 +48,9 @@ public interface ExtendedM2RepoService extends M2RepoService {
      */
     void deployPom(InputStream is,
                    GAV gav);
+
+    /**
+     * Rebuilds the catalog used to list the artifacts, reconciling it with the content of the repositories.
+     */
+    void rebuildArtifactCatalog();
 }
@@ -16,6 +16,7 @@
 
 package org.guvnor.m2repo.backend.server;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,6 +30,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.function.Predicate;
@@ -40,6 +42,7 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -47,11 +50,16 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.appformer.maven.support.MinimalPomParser;
+import org.appformer.maven.support.PomModel;
 import org.codehaus.plexus.util.IOUtil;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.util.artifact.SubArtifact;
 import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalog;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogEntry;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogWatcher;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryService;
 import org.slf4j.Logger;
@@ -83,6 +91,8 @@ public class GuvnorM2Repository {
     private final List<ArtifactRepository> repositories = new ArrayList<>();
     private final List<ArtifactRepository> pomRepositories = new ArrayList<>();
     private ArtifactRepositoryService artifactRepositoryFactory;
+    private ArtifactCatalog artifactCatalog;
+    private ArtifactCatalogWatcher artifactCatalogWatcher;
 
     public GuvnorM2Repository() {
     }
@@ -95,6 +105,14 @@ public class GuvnorM2Repository {
     @PostConstruct
     public void init() {
         setM2Repos();
+        setArtifactCatalog();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (artifactCatalogWatcher != null) {
+            artifactCatalogWatcher.stop();
+        }
     }
 
     private void setM2Repos() {
@@ -103,6 +121,29 @@ public class GuvnorM2Repository {
         this.pomRepositories.addAll(this.artifactRepositoryFactory.getPomRepositories());
     }
 
+    private void setArtifactCatalog() {
+        final List<ArtifactRepository> catalogedRepositories = this.repositories.stream()
+                .filter(ArtifactRepository::isFileSystemRepository)
+                .collect(Collectors.toList());
+        this.artifactCatalog = new ArtifactCatalog(catalogedRepositories,
+                                                   GuvnorM2Repository::loadGAV);
+
+        //The watcher reconciles persisted catalogs in the background, otherwise it has to be done now
+        final boolean watch = ArtifactCatalogWatcher.isEnabled() && !catalogedRepositories.isEmpty();
+        this.artifactCatalog.load(!watch);
+        if (watch) {
+            this.artifactCatalogWatcher = new ArtifactCatalogWatcher(artifactCatalog);
+            this.artifactCatalogWatcher.start();
+        }
+    }
+
+    /**
+     * Reconciles the artifact catalog with the content of the repositories.
+     */
+    public void rebuildArtifactCatalog() {
+        artifactCatalog.rebuild();
+    }
+
     public String getM2RepositoryDir(String repositoryName) {
         return this.getM2RepositoryRootDir(repositoryName).replaceAll(Matcher.quoteReplacement(File.separator)+"$",
                                                                       "");
@@ -269,6 +310,7 @@ public class GuvnorM2Repository {
                 artifactRepository.deploy(pomXML,
                                           finalPomXMLArtifact);
             });
+            artifactCatalog.refresh(gav);
         } finally {
             try {
                 pomXMLFile.delete();
@@ -307,6 +349,7 @@ public class GuvnorM2Repository {
             this.repositories.stream().filter(filter).forEach((repository) -> repository.deploy(pomXML,
                                                                         finalJarArtifact,
                                                                         finalPomXMLArtifact));
+            artifactCatalog.refresh(gav);
 
             //Only deploy to additional repositories if required. This flag is principally for Unit Tests
             if (!includeAdditionalRepositories) {
@@ -362,6 +405,7 @@ public class GuvnorM2Repository {
             artifactRepository.deploy(null,
                                       finalPomArtifact);
         });
+        artifactCatalog.refresh(gav);
     }
 
     /**
@@ -392,31 +436,49 @@ public class GuvnorM2Repository {
      */
     public List<File> listFiles(final String filters,
                                 List<String> fileFormats) {
-        final List<String> wildcards = new ArrayList<String>();
-        String wildcardPrefix = "";
-
-        if (filters != null) {
-            wildcardPrefix = "*" + filters;
-        }
-
-        if (fileFormats == null) {
-            fileFormats = new ArrayList<String>();
-            fileFormats.add("jar");
-            fileFormats.add("kjar");
-            fileFormats.add(POM);
-        }
-
-        for (String fileFormat : fileFormats) {
-            wildcards.add(wildcardPrefix + "*." + fileFormat);
-        }
-
-        final List<File> files = new ArrayList<File>(getFiles(wildcards));
+        final List<File> files = new ArrayList<File>(getFiles(toWildcards(filters,
+                                                                          fileFormats)));
 
         return files;
     }
 
     public List<Artifact> listArtifacts(final String filters,
                                         List<String> fileFormats) {
+        final List<Artifact> files = new ArrayList<>(getArtifacts(toWildcards(filters,
+                                                                               fileFormats)));
+
+        return files;
+    }
+
+    /**
+     * Finds the catalog entries of the files within the repository with the given filters and formats. As opposed to
+     * {@link #listArtifacts(String, List)}, the entries carry the GAV, size and timestamp of the files, so they can be
+     * sorted without accessing the file system.
+     * @param filters filter to apply when finding files, see {@link #listFiles(String, List)}.
+     * @param fileFormats file formats to apply when finding files, ie., [ "jar", "kjar" ].
+     * @return the entries of the matching files
+     */
+    public List<ArtifactCatalogEntry> listArtifactEntries(final String filters,
+                                                          List<String> fileFormats) {
+        final List<String> wildcards = toWildcards(filters,
+                                                   fileFormats);
+        final List<ArtifactCatalogEntry> entries = new ArrayList<>(artifactCatalog.find(wildcards));
+        uncatalogedRepositories().forEach(artifactRepository -> {
+            for (Artifact artifact : artifactRepository.listArtifacts(wildcards)) {
+                final File file = artifact.getFile();
+                entries.add(new ArtifactCatalogEntry(artifactRepository.getName(),
+                                                     file,
+                                                     file.getPath(),
+                                                     loadGAV(file),
+                                                     file.length(),
+                                                     file.lastModified()));
+            }
+        });
+        return entries;
+    }
+
+    private List<String> toWildcards(final String filters,
+                                     List<String> fileFormats) {
         final List<String> wildcards = new ArrayList<String>();
         String wildcardPrefix = "";
 
@@ -434,21 +496,35 @@ public class GuvnorM2Repository {
         for (String fileFormat : fileFormats) {
             wildcards.add(wildcardPrefix + "*." + fileFormat);
         }
-
-        final List<Artifact> files = new ArrayList<>(getArtifacts(wildcards));
-
-        return files;
+        return wildcards;
     }
 
     protected Collection<File> getFiles(final List<String> wildcards) {
-        return this.repositories.stream()
-                .flatMap(artifactRepository -> artifactRepository.listFiles(wildcards).stream())
+        final List<File> files = artifactCatalog.find(wildcards).stream()
+                .map(ArtifactCatalogEntry::getFile)
                 .collect(Collectors.toList());
+        uncatalogedRepositories().forEach(artifactRepository -> files.addAll(artifactRepository.listFiles(wildcards)));
+        return files;
     }
 
     protected Collection<Artifact> getArtifacts(final List<String> wildcards) {
+        final List<Artifact> artifacts = artifactCatalog.find(wildcards).stream()
+                .map(entry -> {
+                    final HashMap<String, String> map = new HashMap<String, String>();
+                    map.put("repository",
+                            entry.getRepositoryName());
+                    final ArtifactImpl artifact = new ArtifactImpl(entry.getFile());
+                    artifact.setProperties(map);
+                    return artifact;
+                })
+                .collect(Collectors.toList());
+        uncatalogedRepositories().forEach(artifactRepository -> artifacts.addAll(artifactRepository.listArtifacts(wildcards)));
+        return artifacts;
+    }
+
+    private List<ArtifactRepository> uncatalogedRepositories() {
         return this.repositories.stream()
-                .flatMap(artifactRepository -> artifactRepository.listArtifacts(wildcards).stream())
+                .filter(artifactRepository -> !artifactCatalog.contains(artifactRepository))
                 .collect(Collectors.toList());
     }
 
@@ -526,6 +602,35 @@ public class GuvnorM2Repository {
         return null;
     }
 
+    /**
+     * Loads the GAV declared by the pom.xml of a jar, kjar or pom file.
+     * @return the GAV, or null if it can't be determined.
+     */
+    static GAV loadGAV(final File file) {
+        final String path = file.getPath();
+        final String pom;
+        if (isJar(path) || isKJar(path)) {
+            pom = loadPomFromJar(file);
+        } else if (isDeployedPom(path)) {
+            pom = loadPom(file);
+        } else {
+            return null;
+        }
+        if (pom == null) {
+            return null;
+        }
+        try {
+            final PomModel model = MinimalPomParser.parse(path,
+                                                          new ByteArrayInputStream(pom.getBytes(StandardCharsets.UTF_8)));
+            return new GAV(model.getReleaseId().getGroupId(),
+                           model.getReleaseId().getArtifactId(),
+                           model.getReleaseId().getVersion());
+        } catch (RuntimeException e) {
+            //RuntimeException is thrown by MinimalPomParser for any Exception..
+            return null;
+        }
+    }
+
     public GAV loadGAVFromJar(final String jarPath) {
         ArtifactRepository repository = this.getArtifactRepository(ArtifactRepositoryService.GLOBAL_M2_REPO_NAME);
         File zip = new File(repository.getRootDir(),
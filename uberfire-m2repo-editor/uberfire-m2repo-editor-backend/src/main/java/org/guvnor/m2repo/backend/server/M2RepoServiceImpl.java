@@ -24,8 +24,6 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
@@ -35,8 +33,8 @@ import javax.inject.Inject;
 
 import org.appformer.maven.support.MinimalPomParser;
 import org.appformer.maven.support.PomModel;
-import org.eclipse.aether.artifact.Artifact;
 import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogEntry;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryService;
 import org.guvnor.m2repo.model.JarListPageRequest;
 import org.guvnor.m2repo.model.JarListPageRow;
@@ -53,6 +51,8 @@ import org.uberfire.paging.PageResponse;
 public class M2RepoServiceImpl implements M2RepoService,
                                           ExtendedM2RepoService {
 
+    private static final String UNDETERMINED = "<undetermined>";
+
     private Logger logger;
 
     private GuvnorM2Repository repository;
@@ -114,98 +114,74 @@ public class M2RepoServiceImpl implements M2RepoService,
 
     @Override
     public PageResponse<JarListPageRow> listArtifacts(final JarListPageRequest pageRequest) {
-        //Get unsorted files matching filter
+        //Get unsorted catalog entries matching filter
         final String filters = pageRequest.getFilters();
         final List<String> fileFormats = pageRequest.getFileFormats();
         final String dataSourceName = pageRequest.getDataSourceName();
         final boolean isAscending = pageRequest.isAscending();
-        final Collection<Artifact> files = repository.listArtifacts(filters,
-                                                                    fileFormats);
-
-        //Convert files to JarListPageRow
-        final List<JarListPageRow> jarPageRowList = new ArrayList<JarListPageRow>();
-        for (Artifact artifact : files) {
-            final File file = artifact.getFile();
-            JarListPageRow jarListPageRow = new JarListPageRow();
-            jarListPageRow.setName(file.getName());
-            jarListPageRow.setPath(getJarPath(file.getPath(),
-                                              File.separator));
-            jarListPageRow.setGav(getGAV(jarListPageRow.getPath()));
-            jarListPageRow.setLastModified(new Date(file.lastModified()));
-            jarListPageRow.setRepositoryName(artifact.getProperty("repository",
-                                                                  "undefined"));
-            jarPageRowList.add(jarListPageRow);
-        }
+        final List<ArtifactCatalogEntry> entries = repository.listArtifactEntries(filters,
+                                                                                  fileFormats);
 
-        //Sort JarListPageRow entries, if required
+        //Sort entries, if required. Entries hold everything needed so the files are not accessed
         if (dataSourceName != null) {
-            final int order = (isAscending ? 1 : -1);
-            if (dataSourceName.equals(JarListPageRequest.COLUMN_NAME)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         return o1.getName().compareTo(o2.getName()) * order;
-                                     }
-                                 });
-            } else if (dataSourceName.equals(JarListPageRequest.COLUMN_PATH)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         return o1.getPath().compareTo(o2.getPath()) * order;
-                                     }
-                                 });
-            } else if (dataSourceName.equals(JarListPageRequest.COLUMN_GAV)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         final GAV gav1 = o1.getGav();
-                                         final GAV gav2 = o2.getGav();
-                                         return gav1.toString().compareToIgnoreCase(gav2.toString()) * order;
-                                     }
-                                 });
-            } else if (dataSourceName.equals(JarListPageRequest.COLUMN_LAST_MODIFIED)) {
-                Collections.sort(jarPageRowList,
-                                 new Comparator<JarListPageRow>() {
-                                     @Override
-                                     public int compare(final JarListPageRow o1,
-                                                        final JarListPageRow o2) {
-                                         final Long ft1 = o1.getLastModified().getTime();
-                                         final Long ft2 = o2.getLastModified().getTime();
-                                         return ft1.compareTo(ft2) * order;
-                                     }
-                                 });
+            final Comparator<ArtifactCatalogEntry> comparator = getComparator(dataSourceName);
+            if (comparator != null) {
+                entries.sort(isAscending ? comparator : comparator.reversed());
             }
         }
 
-        //Copy request "page" of entries to response
+        //Convert the request "page" of entries to JarListPageRow
         final Integer pageSize = pageRequest.getPageSize();
         final int startRowIndex = pageRequest.getStartRowIndex();
-        final int endRowIndex = Math.min(jarPageRowList.size(),
-                                         (pageSize == null ? jarPageRowList.size() : startRowIndex + pageSize));
+        final int endRowIndex = Math.min(entries.size(),
+                                         (pageSize == null ? entries.size() : startRowIndex + pageSize));
         final List<JarListPageRow> responsePageRowList = new ArrayList<JarListPageRow>();
-        if (startRowIndex < jarPageRowList.size()) {
-            int i = startRowIndex;
-            while (i < endRowIndex && i < jarPageRowList.size()) {
-                responsePageRowList.add(jarPageRowList.get(i));
-                i++;
-            }
+        for (int i = startRowIndex; i < endRowIndex; i++) {
+            final ArtifactCatalogEntry entry = entries.get(i);
+            final JarListPageRow jarListPageRow = new JarListPageRow();
+            jarListPageRow.setName(entry.getName());
+            jarListPageRow.setPath(getJarPath(entry.getFile().getPath(),
+                                              File.separator));
+            jarListPageRow.setGav(getGAV(entry));
+            jarListPageRow.setLastModified(new Date(entry.getLastModified()));
+            jarListPageRow.setRepositoryName(entry.getRepositoryName());
+            responsePageRowList.add(jarListPageRow);
         }
 
         final PageResponse<JarListPageRow> response = new PageResponse<JarListPageRow>();
         response.setPageRowList(responsePageRowList);
         response.setStartRowIndex(pageRequest.getStartRowIndex());
-        response.setTotalRowSize(files.size());
+        response.setTotalRowSize(entries.size());
         response.setTotalRowSizeExact(true);
 
         return response;
     }
 
+    @Override
+    public void rebuildArtifactCatalog() {
+        repository.rebuildArtifactCatalog();
+    }
+
+    private Comparator<ArtifactCatalogEntry> getComparator(final String dataSourceName) {
+        if (dataSourceName.equals(JarListPageRequest.COLUMN_NAME)) {
+            return Comparator.comparing(ArtifactCatalogEntry::getName);
+        } else if (dataSourceName.equals(JarListPageRequest.COLUMN_PATH)) {
+            return Comparator.comparing(ArtifactCatalogEntry::getPath);
+        } else if (dataSourceName.equals(JarListPageRequest.COLUMN_GAV)) {
+            return (o1, o2) -> getGAV(o1).toString().compareToIgnoreCase(getGAV(o2).toString());
+        } else if (dataSourceName.equals(JarListPageRequest.COLUMN_LAST_MODIFIED)) {
+            return Comparator.comparingLong(ArtifactCatalogEntry::getLastModified);
+        }
+        return null;
+    }
+
+    private GAV getGAV(final ArtifactCatalogEntry entry) {
+        if (entry.getGav() == null) {
+            return undeterminedGAV();
+        }
+        return entry.getGav();
+    }
+
     // The file separator is provided as a parameter so that we can test for correct JAR path creation on both
     // Windows and Linux based Operating Systems in Unit tests running on either platform. See JarPathTest.
     String getJarPath(final String path,
@@ -232,9 +208,7 @@ public class M2RepoServiceImpl implements M2RepoService,
                           model.getReleaseId().getVersion());
         } catch (RuntimeException rte) {
             //RuntimeException is thrown by MinimalPomParser for any Exception..
-            gav = new GAV("<undetermined>",
-                          "<undetermined>",
-                          "<undetermined>");
+            gav = undeterminedGAV();
         } finally {
             if (is != null) {
                 try {
@@ -247,6 +221,12 @@ public class M2RepoServiceImpl implements M2RepoService,
         return gav;
     }
 
+    private static GAV undeterminedGAV() {
+        return new GAV(UNDETERMINED,
+                       UNDETERMINED,
+                       UNDETERMINED);
+    }
+
     /**
      * URL point to local file system if URL property is not available.
      * @return String
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Catalog of the files held by file system based artifact repositories.
+ * <p>
+ * Listing the repositories used to walk their whole directory tree on every call. The catalog keeps an entry per
+ * file instead, with its GAV, size and timestamp, so listing, filtering and sorting only touch memory. Each
+ * repository catalog is persisted in the {@link #CATALOG_DIR_PROPERTY} directory, never in the repository itself as
+ * it is served to Maven clients, and reconciled with the file system on load: files whose size and timestamp did not
+ * change keep their entry, so their pom.xml is not parsed again.
+ * <p>
+ * The catalog has to be told about changes, either by the deployment operations or by an
+ * {@link ArtifactCatalogWatcher}.
+ */
+public class ArtifactCatalog {
+
+    public static final String CATALOG_DIR_PROPERTY = "org.guvnor.m2repo.catalog.dir";
+    public static final String CATALOG_FILE_NAME = ".artifact-catalog";
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCatalog.class);
+
+    private static final int MAGIC = 0x4D324341;
+    private static final int FORMAT_VERSION = 2;
+
+    private final Map<String, RepositoryCatalog> catalogs = new LinkedHashMap<>();
+    private final Function<File, GAV> gavResolver;
+
+    /**
+     * @param repositories file system based repositories, see {@link ArtifactRepository#isFileSystemRepository()}.
+     * @param gavResolver resolves the GAV of a jar, kjar or pom file; returns null if it can't be determined.
+     */
+    public ArtifactCatalog(final Collection<? extends ArtifactRepository> repositories,
+                           final Function<File, GAV> gavResolver) {
+        this(repositories,
+             getDefaultCatalogDir(),
+             gavResolver);
+    }
+
+    /**
+     * @param catalogDir directory the catalogs are persisted to.
+     */
+    public ArtifactCatalog(final Collection<? extends ArtifactRepository> repositories,
+                           final File catalogDir,
+                           final Function<File, GAV> gavResolver) {
+        this.gavResolver = gavResolver;
+        for (ArtifactRepository repository : repositories) {
+            catalogs.put(repository.getName(),
+                         new RepositoryCatalog(repository.getName(),
+                                               new File(repository.getRootDir()),
+                                               catalogDir));
+        }
+    }
+
+    public static File getDefaultCatalogDir() {
+        return new File(System.getProperty(CATALOG_DIR_PROPERTY,
+                                           CATALOG_FILE_NAME)).getAbsoluteFile();
+    }
+
+    public boolean contains(final ArtifactRepository repository) {
+        return catalogs.containsKey(repository.getName());
+    }
+
+    public List<File> getRootDirs() {
+        final List<File> rootDirs = new ArrayList<>();
+        catalogs.values().forEach(catalog -> rootDirs.add(catalog.root));
+        return rootDirs;
+    }
+
+    /**
+     * Loads the persisted catalogs. Repositories without one are scanned.
+     * @param reconcile whether loaded catalogs are also reconciled with the file system.
+     */
+    public void load(final boolean reconcile) {
+        for (RepositoryCatalog catalog : catalogs.values()) {
+            final boolean loaded = catalog.load();
+            if (!loaded || reconcile) {
+                catalog.reconcile(catalog.root);
+                catalog.persist();
+            }
+        }
+    }
+
+    /**
+     * Reconciles all the catalogs with the file system.
+     */
+    public void rebuild() {
+        for (RepositoryCatalog catalog : catalogs.values()) {
+            catalog.reconcile(catalog.root);
+            catalog.persist();
+        }
+    }
+
+    /**
+     * Reconciles the directory of the given GAV in every repository, ie., after it has been deployed.
+     */
+    public void refresh(final GAV gav) {
+        final String versionPath = gav.getGroupId().replace('.',
+                                                            '/') + "/" + gav.getArtifactId() + "/" + gav.getVersion();
+        for (RepositoryCatalog catalog : catalogs.values()) {
+            catalog.reconcile(new File(catalog.root,
+                                       versionPath));
+            catalog.persist();
+        }
+    }
+
+    /**
+     * Reconciles a file, or a directory tree, that has been created, modified or deleted.
+     * @return whether the file belongs to any of the repositories.
+     */
+    public boolean refresh(final File file) {
+        for (RepositoryCatalog catalog : catalogs.values()) {
+            if (catalog.relativePath(file) != null) {
+                catalog.reconcile(file);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void persist() {
+        catalogs.values().forEach(RepositoryCatalog::persist);
+    }
+
+    /**
+     * Finds the files whose name matches any of the given wildcards, ignoring case.
+     */
+    public List<ArtifactCatalogEntry> find(final List<String> wildcards) {
+        final List<ArtifactCatalogEntry> result = new ArrayList<>();
+        for (RepositoryCatalog catalog : catalogs.values()) {
+            for (ArtifactCatalogEntry entry : catalog.entries.values()) {
+                if (matches(entry.getName(),
+                            wildcards)) {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return catalogs.values().stream().mapToInt(catalog -> catalog.entries.size()).sum();
+    }
+
+    private static boolean matches(final String name,
+                                   final List<String> wildcards) {
+        for (String wildcard : wildcards) {
+            if (FilenameUtils.wildcardMatch(name,
+                                            wildcard,
+                                            IOCase.INSENSITIVE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private class RepositoryCatalog {
+
+        private final String name;
+        private final File root;
+        private final File catalogFile;
+        private final ConcurrentNavigableMap<String, ArtifactCatalogEntry> entries = new ConcurrentSkipListMap<>();
+        private boolean dirty = false;
+
+        private RepositoryCatalog(final String name,
+                                  final File root,
+                                  final File catalogDir) {
+            this.name = name;
+            this.root = root;
+            //Repositories may share a name across servers using the same catalog directory, but not their root
+            this.catalogFile = new File(catalogDir,
+                                        name.replaceAll("[^A-Za-z0-9._-]",
+                                                        "_") + "-" + Integer.toHexString(rootPath().hashCode()));
+        }
+
+        private String rootPath() {
+            return root.getAbsoluteFile().toPath().normalize().toString();
+        }
+
+        private String relativePath(final File file) {
+            final java.nio.file.Path rootPath = root.getAbsoluteFile().toPath().normalize();
+            final java.nio.file.Path filePath = file.getAbsoluteFile().toPath().normalize();
+            if (!filePath.startsWith(rootPath)) {
+                return null;
+            }
+            return FilenameUtils.separatorsToUnix(rootPath.relativize(filePath).toString());
+        }
+
+        private void reconcile(final File file) {
+            final String path = relativePath(file);
+            if (path == null) {
+                return;
+            }
+            if (file.isDirectory()) {
+                final Set<String> seen = new HashSet<>();
+                scan(file,
+                     seen);
+                removeMissing(path,
+                              seen);
+            } else {
+                update(file,
+                       path);
+                removeMissing(path,
+                              null);
+            }
+        }
+
+        private void scan(final File dir,
+                          final Set<String> seen) {
+            final File[] children = dir.listFiles();
+            if (children == null) {
+                return;
+            }
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    scan(child,
+                         seen);
+                } else {
+                    final String path = relativePath(child);
+                    seen.add(path);
+                    update(child,
+                           path);
+                }
+            }
+        }
+
+        private synchronized void update(final File file,
+                                         final String path) {
+            if (!file.isFile() || path.isEmpty()) {
+                return;
+            }
+            final ArtifactCatalogEntry cached = entries.get(path);
+            if (cached != null && cached.isUpToDate(file)) {
+                return;
+            }
+            final long size = file.length();
+            final long lastModified = file.lastModified();
+            entries.put(path,
+                        new ArtifactCatalogEntry(name,
+                                                 new File(root,
+                                                          path),
+                                                 path,
+                                                 resolveGAV(file),
+                                                 size,
+                                                 lastModified));
+            dirty = true;
+        }
+
+        //Entries of the given file or directory tree that were not seen and no longer exist
+        private synchronized void removeMissing(final String path,
+                                                final Set<String> seen) {
+            final Collection<String> candidates = new ArrayList<>();
+            if (path.isEmpty()) {
+                candidates.addAll(entries.keySet());
+            } else {
+                if (entries.containsKey(path)) {
+                    candidates.add(path);
+                }
+                candidates.addAll(entries.subMap(path + "/",
+                                                 path + "/\uffff").keySet());
+            }
+            for (String candidate : candidates) {
+                if ((seen == null || !seen.contains(candidate)) && !new File(root,
+                                                                             candidate).isFile()) {
+                    entries.remove(candidate);
+                    dirty = true;
+                }
+            }
+        }
+
+        private GAV resolveGAV(final File file) {
+            try {
+                return gavResolver.apply(file);
+            } catch (RuntimeException e) {
+                logger.debug("Unable to resolve GAV of " + file,
+                             e);
+                return null;
+            }
+        }
+
+        private synchronized boolean load() {
+            if (!catalogFile.isFile()) {
+                return false;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(catalogFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    logger.info("Ignoring artifact catalog with unknown format: " + catalogFile);
+                    return false;
+                }
+                if (!rootPath().equals(in.readUTF())) {
+                    logger.info("Ignoring artifact catalog of another repository: " + catalogFile);
+                    return false;
+                }
+                final int count = in.readInt();
+                entries.clear();
+                for (int i = 0; i < count; i++) {
+                    final String path = in.readUTF();
+                    final long size = in.readLong();
+                    final long lastModified = in.readLong();
+                    final GAV gav = in.readBoolean() ? new GAV(in.readUTF(),
+                                                               in.readUTF(),
+                                                               in.readUTF()) : null;
+                    entries.put(path,
+                                new ArtifactCatalogEntry(name,
+                                                         new File(root,
+                                                                  path),
+                                                         path,
+                                                         gav,
+                                                         size,
+                                                         lastModified));
+                }
+                dirty = false;
+                return true;
+            } catch (IOException e) {
+                logger.warn("Unable to load artifact catalog " + catalogFile + ", it will be rebuilt.",
+                            e);
+                entries.clear();
+                return false;
+            }
+        }
+
+        private synchronized void persist() {
+            if (!dirty || !root.isDirectory()) {
+                return;
+            }
+            final File tmpFile = new File(catalogFile.getParentFile(),
+                                          catalogFile.getName() + ".tmp");
+            try {
+                Files.createDirectories(catalogFile.getParentFile().toPath());
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(rootPath());
+                    final Collection<ArtifactCatalogEntry> values = new ArrayList<>(entries.values());
+                    out.writeInt(values.size());
+                    for (ArtifactCatalogEntry entry : values) {
+                        out.writeUTF(entry.getPath());
+                        out.writeLong(entry.getSize());
+                        out.writeLong(entry.getLastModified());
+                        final GAV gav = entry.getGav();
+                        final boolean hasGav = gav != null && gav.getGroupId() != null && gav.getArtifactId() != null && gav.getVersion() != null;
+                        out.writeBoolean(hasGav);
+                        if (hasGav) {
+                            out.writeUTF(gav.getGroupId());
+                            out.writeUTF(gav.getArtifactId());
+                            out.writeUTF(gav.getVersion());
+                        }
+                    }
+                }
+                Files.move(tmpFile.toPath(),
+                           catalogFile.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+                dirty = false;
+            } catch (IOException e) {
+                logger.warn("Unable to persist artifact catalog " + catalogFile,
+                            e);
+                tmpFile.delete();
+            }
+        }
+    }
+}
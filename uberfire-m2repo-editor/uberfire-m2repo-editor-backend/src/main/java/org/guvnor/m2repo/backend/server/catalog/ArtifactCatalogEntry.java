@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.File;
+
+import org.guvnor.common.services.project.model.GAV;
+
+/**
+ * A file of an artifact repository, as recorded by the {@link ArtifactCatalog}.
+ */
+public class ArtifactCatalogEntry {
+
+    private final String repositoryName;
+    private final File file;
+    private final String path;
+    private final GAV gav;
+    private final long size;
+    private final long lastModified;
+
+    public ArtifactCatalogEntry(final String repositoryName,
+                                final File file,
+                                final String path,
+                                final GAV gav,
+                                final long size,
+                                final long lastModified) {
+        this.repositoryName = repositoryName;
+        this.file = file;
+        this.path = path;
+        this.gav = gav;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getName() {
+        return file.getName();
+    }
+
+    /**
+     * @return Path of the file relative to the repository root, using "/" as separator.
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return GAV declared by the pom.xml of the artifact, or null if it could not be determined.
+     */
+    public GAV getGav() {
+        return gav;
+    }
+
+    /**
+     * @return File extension, ie., "jar", "kjar" or "pom".
+     */
+    public String getPackaging() {
+        final String name = getName();
+        final int index = name.lastIndexOf('.');
+        return index < 0 ? "" : name.substring(index + 1);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    boolean isUpToDate(final File file) {
+        return size == file.length() && lastModified == file.lastModified();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Keeps an {@link ArtifactCatalog} in sync with changes made to the repositories outside of the workbench, ie., by a
+ * Maven build deploying to the same directory.
+ * <p>
+ * On start the catalog is reconciled with the file system in the background. Changes are then applied as they are
+ * notified, and the catalog is persisted once no more changes are pending.
+ * <p>
+ * Every directory of the repositories needs its own watch, so large repositories may exceed the limit of the OS (ie.,
+ * fs.inotify.max_user_watches). If the repositories can't be watched, the whole catalog is reconciled every
+ * {@link #POLL_INTERVAL_PROPERTY} milliseconds instead.
+ */
+public class ArtifactCatalogWatcher implements Runnable {
+
+    public static final String WATCH_PROPERTY = "org.guvnor.m2repo.catalog.watch";
+    public static final String POLL_INTERVAL_PROPERTY = "org.guvnor.m2repo.catalog.poll.interval";
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactCatalogWatcher.class);
+    private static final long QUIET_PERIOD = 500;
+
+    private final ArtifactCatalog catalog;
+    private final long pollInterval = Long.getLong(POLL_INTERVAL_PROPERTY,
+                                                   60000);
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public ArtifactCatalogWatcher(final ArtifactCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty(WATCH_PROPERTY,
+                                                       "true"));
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            logger.warn("Unable to watch the artifact repositories, the artifact catalog will be reconciled every " + pollInterval + " ms.",
+                        e);
+        }
+        thread = new Thread(this,
+                            "artifact-catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        closeWatchService();
+        thread.interrupt();
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        if (watchService == null) {
+            poll();
+            return;
+        }
+        try {
+            watch();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            //Stopped
+        } catch (Exception e) {
+            logger.warn("Unable to watch the artifact repositories, the artifact catalog will be reconciled every " + pollInterval + " ms.",
+                        e);
+            closeWatchService();
+            poll();
+        }
+    }
+
+    private void watch() throws IOException, InterruptedException {
+        //Register before reconciling, so that no change made meanwhile is missed
+        for (File rootDir : catalog.getRootDirs()) {
+            register(rootDir.toPath());
+        }
+        catalog.rebuild();
+
+        while (true) {
+            WatchKey key = watchService.take();
+            //Drain the changes in progress before persisting
+            while (key != null) {
+                process(key);
+                key = watchService.poll(QUIET_PERIOD,
+                                        TimeUnit.MILLISECONDS);
+            }
+            catalog.persist();
+        }
+    }
+
+    private void poll() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                catalog.rebuild();
+            } catch (RuntimeException e) {
+                logger.error("Unable to reconcile the artifact catalog.",
+                             e);
+            }
+            try {
+                Thread.sleep(pollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void closeWatchService() {
+        directories.clear();
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug(e.getMessage(),
+                         e);
+        }
+    }
+
+    private void process(final WatchKey key) throws IOException {
+        final Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                logger.info("Artifact catalog watcher missed changes, reconciling the whole catalog.");
+                catalog.rebuild();
+                continue;
+            }
+            if (dir == null) {
+                continue;
+            }
+            final Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                register(path);
+            }
+            catalog.refresh(path.toFile());
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+        }
+    }
+
+    private void register(final Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root,
+                           new SimpleFileVisitor<Path>() {
+                               @Override
+                               public FileVisitResult preVisitDirectory(final Path dir,
+                                                                        final BasicFileAttributes attrs) throws IOException {
+                                   try {
+                                       directories.put(dir.register(watchService,
+                                                                    ENTRY_CREATE,
+                                                                    ENTRY_MODIFY,
+                                                                    ENTRY_DELETE),
+                                                       dir);
+                                   } catch (NoSuchFileException e) {
+                                       //Deleted meanwhile
+                                       return FileVisitResult.SKIP_SUBTREE;
+                                   }
+                                   return FileVisitResult.CONTINUE;
+                               }
+
+                               @Override
+                               public FileVisitResult visitFileFailed(final Path file,
+                                                                      final IOException e) throws IOException {
+                                   if (e instanceof NoSuchFileException) {
+                                       return FileVisitResult.CONTINUE;
+                                   }
+                                   throw e;
+                               }
+                           });
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.helpers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.enterprise.context.ApplicationScoped;
+
+/**
+ * Computes the SHA-1 and MD5 checksums of repository files copied without their ".sha1" and ".md5" files, so Maven
+ * clients can still verify downloads. Deployments write those files, so this is not the common case.
+ * <p>
+ * Both checksums are computed in a single pass and kept in memory for as long as the file length and timestamp don't
+ * change. Nothing is written to the repository.
+ */
+@ApplicationScoped
+public class ArtifactChecksums {
+
+    public static final String SHA1 = "sha1";
+    public static final String MD5 = "md5";
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final int BUFFER_SIZE = 65536;
+
+    private final Map<String, Checksums> cache = Collections.synchronizedMap(new LinkedHashMap<String, Checksums>(16,
+                                                                                                                   0.75f,
+                                                                                                                   true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Checksums> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    });
+
+    /**
+     * @return whether the file name is the one of a checksum file, ie., "artifact.jar.sha1".
+     */
+    public static boolean isChecksumFile(final String fileName) {
+        return fileName.endsWith("." + SHA1) || fileName.endsWith("." + MD5);
+    }
+
+    /**
+     * @return the file the given checksum file is the checksum of, ie., "artifact.jar" for "artifact.jar.sha1".
+     */
+    public static File getChecksummedFile(final File checksumFile) {
+        final String name = checksumFile.getName();
+        return new File(checksumFile.getParentFile(),
+                        name.substring(0,
+                                       name.lastIndexOf('.')));
+    }
+
+    /**
+     * @param algorithm either {@link #SHA1} or {@link #MD5}.
+     */
+    public String getChecksum(final File file,
+                              final String algorithm) throws IOException {
+        final Checksums checksums = getChecksums(file);
+        return SHA1.equals(algorithm) ? checksums.sha1 : checksums.md5;
+    }
+
+    private Checksums getChecksums(final File file) throws IOException {
+        final String key = file.getCanonicalPath();
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+
+        final Checksums cached = cache.get(key);
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            return cached;
+        }
+
+        final Checksums checksums = compute(file,
+                                            length,
+                                            lastModified);
+        cache.put(key,
+                  checksums);
+        return checksums;
+    }
+
+    private static Checksums compute(final File file,
+                                     final long length,
+                                     final long lastModified) throws IOException {
+        final MessageDigest sha1 = digest("SHA-1");
+        final MessageDigest md5 = digest("MD5");
+        try (InputStream in = new FileInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha1.update(buffer,
+                            0,
+                            read);
+                md5.update(buffer,
+                           0,
+                           read);
+            }
+        }
+        return new Checksums(length,
+                             lastModified,
+                             toHex(sha1.digest()),
+                             toHex(md5.digest()));
+    }
+
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF,
+                                         16));
+            sb.append(Character.forDigit(b & 0xF,
+                                         16));
+        }
+        return sb.toString();
+    }
+
+    private static class Checksums {
+
+        private final long length;
+        private final long lastModified;
+        private final String sha1;
+        private final String md5;
+
+        private Checksums(final long length,
+                          final long lastModified,
+                          final String sha1,
+                          final String md5) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sha1 = sha1;
+            this.md5 = md5;
+        }
+    }
+}
@@ -19,10 +19,15 @@ package org.guvnor.m2repo.backend.server.helpers;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.zip.GZIPOutputStream;
 import javax.inject.Inject;
@@ -31,6 +36,7 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FilenameUtils;
 import org.guvnor.m2repo.backend.server.GuvnorM2Repository;
 import org.guvnor.m2repo.service.M2RepoService;
 
@@ -39,6 +45,8 @@ public class HttpGetHelper {
     private static final int DEFAULT_BUFFER_SIZE = 10240;
     private static final long DEFAULT_EXPIRE_TIME = 604800000L; //1 week.
     private static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
+    //Requests with more ranges than this, once overlapping ranges are merged, get the full content
+    static final int MAX_RANGES = 16;
 
     @Inject
     private M2RepoService m2RepoService;
@@ -46,6 +54,9 @@ public class HttpGetHelper {
     @Inject
     private GuvnorM2Repository repository;
 
+    @Inject
+    private ArtifactChecksums checksums;
+
     public void handle(final HttpServletRequest request,
                        final HttpServletResponse response,
                        final ServletContext context) throws IOException {
@@ -81,6 +92,14 @@ public class HttpGetHelper {
         }
 
         if (!file.exists()) {
+            //Checksums are computed for files copied to the repository without them
+            final File checksummedFile = ArtifactChecksums.getChecksummedFile(file);
+            if (ArtifactChecksums.isChecksumFile(file.getName()) && checksummedFile.isFile()) {
+                sendChecksum(checksummedFile,
+                             FilenameUtils.getExtension(file.getName()),
+                             response);
+                return;
+            }
             response.sendError(HttpServletResponse.SC_NOT_FOUND);
             return;
         }
@@ -89,7 +108,7 @@ public class HttpGetHelper {
         String fileName = file.getName();
         long length = file.length();
         long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+        String eTag = "\"" + length + "-" + lastModified + "\"";
 
         String ifNoneMatch = request.getHeader("If-None-Match");
         if (ifNoneMatch != null && matches(ifNoneMatch,
@@ -126,6 +145,68 @@ public class HttpGetHelper {
                                length);
         List<Range> ranges = new ArrayList<Range>();
 
+        // Process the Range header
+        String range = request.getHeader("Range");
+        if (range != null) {
+            if (!range.matches("^bytes=\\s*\\d*-\\d*(\\s*,\\s*\\d*-\\d*)*\\s*$")) {
+                response.setHeader("Content-Range",
+                                   "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+
+            // The ranges only apply if the file didn't change since If-Range, otherwise the full file is sent
+            String ifRange = request.getHeader("If-Range");
+            if (ifRange != null && !ifRange.equals(eTag)) {
+                try {
+                    long ifRangeTime = request.getDateHeader("If-Range");
+                    if (ifRangeTime == -1 || ifRangeTime + 1000 < lastModified) {
+                        ranges.add(full);
+                    }
+                } catch (IllegalArgumentException ignore) {
+                    ranges.add(full);
+                }
+            }
+
+            if (ranges.isEmpty()) {
+                final List<Range> requested = new ArrayList<Range>();
+                for (String part : range.substring(6).trim().split("\\s*,\\s*")) {
+                    long start = sublong(part,
+                                         0,
+                                         part.indexOf("-"));
+                    long end = sublong(part,
+                                       part.indexOf("-") + 1,
+                                       part.length());
+
+                    if (start == -1) {
+                        // Suffix range, ie., the last "end" bytes
+                        start = Math.max(0,
+                                         length - end);
+                        end = length - 1;
+                    } else if (end == -1 || end > length - 1) {
+                        end = length - 1;
+                    }
+
+                    if (start > end) {
+                        response.setHeader("Content-Range",
+                                           "bytes */" + length);
+                        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+
+                    requested.add(new Range(start,
+                                            end,
+                                            length));
+                }
+
+                ranges.addAll(merge(requested));
+                if (ranges.size() > MAX_RANGES) {
+                    ranges.clear();
+                    ranges.add(full);
+                }
+            }
+        }
+
         String contentType = context.getMimeType(fileName);
         boolean acceptsGzip = false;
         String disposition = "inline";
@@ -163,19 +244,17 @@ public class HttpGetHelper {
         response.setDateHeader("Expires",
                                System.currentTimeMillis() + DEFAULT_EXPIRE_TIME);
 
-        RandomAccessFile input = null;
+        FileChannel input = null;
         OutputStream output = null;
 
         try {
-            input = new RandomAccessFile(file,
-                                         "r");
+            input = FileChannel.open(file.toPath(),
+                                     StandardOpenOption.READ);
             output = response.getOutputStream();
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
                 Range r = full;
                 response.setContentType(contentType);
-                response.setHeader("Content-Range",
-                                   "bytes " + r.start + "-" + r.end + "/" + r.total);
 
                 if (acceptsGzip) {
                     response.setHeader("Content-Encoding",
@@ -234,6 +313,20 @@ public class HttpGetHelper {
         }
     }
 
+    private void sendChecksum(final File file,
+                              final String algorithm,
+                              final HttpServletResponse response) throws IOException {
+        final byte[] checksum = checksums.getChecksum(file,
+                                                      algorithm).getBytes(StandardCharsets.UTF_8);
+        response.reset();
+        response.setContentType("text/plain");
+        response.setHeader("Content-Length",
+                           String.valueOf(checksum.length));
+        try (OutputStream output = response.getOutputStream()) {
+            output.write(checksum);
+        }
+    }
+
     private static boolean accepts(final String acceptHeader,
                                    final String toAccept) {
         String[] acceptValues = acceptHeader.split("\\s*(,|;)\\s*");
@@ -257,37 +350,53 @@ public class HttpGetHelper {
                                        "*") > -1;
     }
 
-    private static void copyRange(final RandomAccessFile input,
+    /**
+     * Merges the overlapping and adjacent ranges, the result is sorted by start.
+     */
+    private List<Range> merge(final List<Range> ranges) {
+        final List<Range> sorted = new ArrayList<Range>(ranges);
+        sorted.sort(Comparator.comparingLong(r -> r.start));
+        final List<Range> merged = new ArrayList<Range>();
+        for (Range r : sorted) {
+            final Range last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && r.start <= last.end + 1) {
+                merged.set(merged.size() - 1,
+                           new Range(last.start,
+                                     Math.max(last.end,
+                                              r.end),
+                                     last.total));
+            } else {
+                merged.add(r);
+            }
+        }
+        return merged;
+    }
+
+    private static long sublong(final String value,
+                                final int beginIndex,
+                                final int endIndex) {
+        String substring = value.substring(beginIndex,
+                                           endIndex);
+        return (substring.length() > 0) ? Long.parseLong(substring) : -1;
+    }
+
+    private static void copyRange(final FileChannel input,
                                   final OutputStream output,
                                   final long start,
                                   final long length) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-
-        if (input.length() == length) {
-            // Write full range.
-            while ((read = input.read(buffer)) > 0) {
-                output.write(buffer,
-                             0,
-                             read);
-            }
-        } else {
-            // Write partial range.
-            input.seek(start);
-            long toRead = length;
-
-            while ((read = input.read(buffer)) > 0) {
-                if ((toRead -= read) > 0) {
-                    output.write(buffer,
-                                 0,
-                                 read);
-                } else {
-                    output.write(buffer,
-                                 0,
-                                 (int) toRead + read);
-                    break;
-                }
+        //The target is not a file or socket channel, so this is still a buffered copy rather than a zero-copy transfer
+        final WritableByteChannel target = Channels.newChannel(output);
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            final long transferred = input.transferTo(position,
+                                                      remaining,
+                                                      target);
+            if (transferred <= 0) {
+                break;
             }
+            position += transferred;
+            remaining -= transferred;
         }
     }
 
@@ -97,4 +97,13 @@ public interface ArtifactRepository {
      * @return
      */
     boolean isPomRepository();
+
+    /**
+     * Identifies if the files listed by {@link #listFiles(List)} are all the files under {@link #getRootDir()}, so
+     * they can be cataloged instead of listed on every call.
+     * @return
+     */
+    default boolean isFileSystemRepository() {
+        return false;
+    }
 }
@@ -157,6 +157,11 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
         return true;
     }
 
+    @Override
+    public boolean isFileSystemRepository() {
+        return true;
+    }
+
     @Override
     public void deploy(final String pom,
                        final Artifact... artifacts) {
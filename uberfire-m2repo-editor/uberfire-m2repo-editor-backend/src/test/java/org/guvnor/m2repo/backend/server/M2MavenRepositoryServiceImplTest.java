@@ -22,7 +22,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.jar.JarEntry;
@@ -30,8 +29,8 @@ import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 
 import org.apache.commons.fileupload.FileItem;
-import org.eclipse.aether.artifact.Artifact;
 import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.catalog.ArtifactCatalogEntry;
 import org.guvnor.m2repo.backend.server.helpers.FormData;
 import org.guvnor.m2repo.backend.server.helpers.HttpPostHelper;
 import org.guvnor.m2repo.backend.server.repositories.ArtifactRepositoryService;
@@ -305,24 +304,24 @@ public class M2MavenRepositoryServiceImplTest {
      */
     @Test
     public void testListArtifacts() throws Exception {
-        List<Artifact> artifacts = new ArrayList<Artifact>();
+        List<ArtifactCatalogEntry> entries = new ArrayList<ArtifactCatalogEntry>();
         final int TOTAL = 5;
         final int PAGE_START = 1;
         final int PAGE_SIZE = 2;
         for (int i = 0; i < TOTAL; i++) {
-            final ArtifactImpl artifact = new ArtifactImpl(new File(repo.getM2RepositoryRootDir(ArtifactRepositoryService.GLOBAL_M2_REPO_NAME),
-                                                                    "path/x" + i));
-            final HashMap<String, String> map = new HashMap<String, String>();
-            map.put("repository",
-                    "guvnor-m2-repo");
-            artifact.setProperties(map);
-            artifacts.add(artifact);
+            entries.add(new ArtifactCatalogEntry("guvnor-m2-repo",
+                                                 new File(repo.getM2RepositoryRootDir(ArtifactRepositoryService.GLOBAL_M2_REPO_NAME),
+                                                          "path/x" + i),
+                                                 "path/x" + i,
+                                                 null,
+                                                 0,
+                                                 0));
         }
         // Create a mock repository to make the test independent on any project deployment
         GuvnorM2Repository mockRepo = mock(GuvnorM2Repository.class);
-        Mockito.when(mockRepo.listArtifacts(Mockito.anyString(),
-                                            Matchers.<List<String>>any()))
-                .thenReturn(artifacts);
+        Mockito.when(mockRepo.listArtifactEntries(Mockito.anyString(),
+                                                  Matchers.<List<String>>any()))
+                .thenReturn(entries);
         when(mockRepo.getM2RepositoryDir(any())).thenReturn(repo.getM2RepositoryDir(ArtifactRepositoryService.GLOBAL_M2_REPO_NAME));
 
         // Create a shell M2RepoService with injected mock M2Repository
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.catalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.guvnor.common.services.project.model.GAV;
+import org.guvnor.m2repo.backend.server.repositories.ArtifactRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class ArtifactCatalogTest {
+
+    private static final List<String> ALL = Arrays.asList("*.jar",
+                                                          "*.kjar",
+                                                          "*.pom");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private File catalogDir;
+    private ArtifactRepository repository;
+    private AtomicInteger resolutions;
+
+    @Before
+    public void setup() throws IOException {
+        root = temporaryFolder.newFolder("repository");
+        catalogDir = new File(temporaryFolder.getRoot(),
+                              "catalog");
+        repository = mock(ArtifactRepository.class);
+        when(repository.getName()).thenReturn("global-m2-repo");
+        when(repository.getRootDir()).thenReturn(root.getPath());
+        resolutions = new AtomicInteger();
+    }
+
+    @Test
+    public void loadScansRepository() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        write("org/kie/kie-api/1.0/kie-api-1.0.pom");
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar.sha1");
+
+        final ArtifactCatalog catalog = catalog();
+        catalog.load(false);
+
+        assertEquals(3,
+                     catalog.size());
+        final List<ArtifactCatalogEntry> entries = catalog.find(ALL);
+        assertEquals(Arrays.asList("org/kie/kie-api/1.0/kie-api-1.0.jar",
+                                   "org/kie/kie-api/1.0/kie-api-1.0.pom"),
+                     paths(entries));
+
+        final ArtifactCatalogEntry jar = entries.get(0);
+        assertEquals("kie-api-1.0.jar",
+                     jar.getName());
+        assertEquals("jar",
+                     jar.getPackaging());
+        assertEquals("global-m2-repo",
+                     jar.getRepositoryName());
+        assertEquals(new GAV("org.kie",
+                             "kie-api",
+                             "1.0"),
+                     jar.getGav());
+        assertEquals(new File(root,
+                              "org/kie/kie-api/1.0/kie-api-1.0.jar"),
+                     jar.getFile());
+        assertEquals(jar.getFile().length(),
+                     jar.getSize());
+        assertEquals(jar.getFile().lastModified(),
+                     jar.getLastModified());
+        assertEquals(1,
+                     catalogDir.list().length);
+        assertFalse(new File(root,
+                             ArtifactCatalog.CATALOG_FILE_NAME).exists());
+    }
+
+    @Test
+    public void findMatchesWildcardsIgnoringCase() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        write("org/kie/kie-api/1.0/kie-api-1.0.pom");
+        write("org/drools/drools-core/1.0/drools-core-1.0.jar");
+
+        final ArtifactCatalog catalog = catalog();
+        catalog.load(false);
+
+        assertEquals(Collections.singletonList("org/kie/kie-api/1.0/kie-api-1.0.jar"),
+                     paths(catalog.find(Collections.singletonList("*KIE*.jar"))));
+        assertEquals(2,
+                     catalog.find(Collections.singletonList("*.jar")).size());
+    }
+
+    @Test
+    public void persistedCatalogIsReused() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        catalog().load(false);
+        assertEquals(1,
+                     resolutions.get());
+
+        final ArtifactCatalog reloaded = catalog();
+        reloaded.load(true);
+
+        assertEquals(1,
+                     resolutions.get());
+        assertEquals(new GAV("org.kie",
+                             "kie-api",
+                             "1.0"),
+                     reloaded.find(ALL).get(0).getGav());
+    }
+
+    @Test
+    public void persistedCatalogIsReconciled() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        catalog().load(false);
+
+        write("org/kie/kie-api/2.0/kie-api-2.0.jar");
+        FileUtils.deleteDirectory(new File(root,
+                                           "org/kie/kie-api/1.0"));
+
+        final ArtifactCatalog reloaded = catalog();
+        reloaded.load(true);
+
+        assertEquals(Collections.singletonList("org/kie/kie-api/2.0/kie-api-2.0.jar"),
+                     paths(reloaded.find(ALL)));
+    }
+
+    @Test
+    public void persistedCatalogOfAnotherRootIsIgnored() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        catalog().load(false);
+
+        root = temporaryFolder.newFolder("other-repository");
+        when(repository.getRootDir()).thenReturn(root.getPath());
+        final ArtifactCatalog other = catalog();
+        other.load(false);
+
+        assertEquals(0,
+                     other.size());
+    }
+
+    @Test
+    public void refreshDeployedGAV() throws IOException {
+        final ArtifactCatalog catalog = catalog();
+        catalog.load(false);
+        assertEquals(0,
+                     catalog.size());
+
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        write("org/kie/kie-api/1.0/kie-api-1.0.pom");
+        write("org/kie/other/1.0/other-1.0.jar");
+        catalog.refresh(new GAV("org.kie",
+                                "kie-api",
+                                "1.0"));
+
+        assertEquals(Arrays.asList("org/kie/kie-api/1.0/kie-api-1.0.jar",
+                                   "org/kie/kie-api/1.0/kie-api-1.0.pom"),
+                     paths(catalog.find(ALL)));
+    }
+
+    @Test
+    public void refreshDeletedDirectory() throws IOException {
+        write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        write("org/kie/kie-api/2.0/kie-api-2.0.jar");
+        write("org/kie/kie-api-extra/1.0/kie-api-extra-1.0.jar");
+        final ArtifactCatalog catalog = catalog();
+        catalog.load(false);
+
+        final File deleted = new File(root,
+                                      "org/kie/kie-api");
+        FileUtils.deleteDirectory(deleted);
+
+        assertTrue(catalog.refresh(deleted));
+        assertEquals(Collections.singletonList("org/kie/kie-api-extra/1.0/kie-api-extra-1.0.jar"),
+                     paths(catalog.find(ALL)));
+        assertFalse(catalog.refresh(temporaryFolder.getRoot()));
+    }
+
+    @Test
+    public void refreshModifiedFile() throws IOException {
+        final File jar = write("org/kie/kie-api/1.0/kie-api-1.0.jar");
+        final ArtifactCatalog catalog = catalog();
+        catalog.load(false);
+
+        FileUtils.writeStringToFile(jar,
+                                    "modified content",
+                                    "UTF-8");
+        jar.setLastModified(jar.lastModified() + 1000);
+        catalog.refresh(jar);
+
+        assertEquals(jar.length(),
+                     catalog.find(ALL).get(0).getSize());
+        assertEquals(2,
+                     resolutions.get());
+    }
+
+    private ArtifactCatalog catalog() {
+        return new ArtifactCatalog(Collections.singletonList(repository),
+                                   catalogDir,
+                                   this::resolveGAV);
+    }
+
+    private GAV resolveGAV(final File file) {
+        resolutions.incrementAndGet();
+        if (!file.getName().endsWith(".jar")) {
+            return null;
+        }
+        final File versionDir = file.getParentFile();
+        final File artifactDir = versionDir.getParentFile();
+        return new GAV(root.toPath().relativize(artifactDir.getParentFile().toPath()).toString().replace(File.separatorChar,
+                                                                                                         '.'),
+                       artifactDir.getName(),
+                       versionDir.getName());
+    }
+
+    private File write(final String path) throws IOException {
+        final File file = new File(root,
+                                   path);
+        FileUtils.writeStringToFile(file,
+                                    path,
+                                    "UTF-8");
+        return file;
+    }
+
+    private List<String> paths(final List<ArtifactCatalogEntry> entries) {
+        return entries.stream().map(ArtifactCatalogEntry::getPath).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.m2repo.backend.server.helpers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.guvnor.m2repo.backend.server.GuvnorM2Repository;
+import org.guvnor.m2repo.service.M2RepoService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HttpGetHelperTest {
+
+    private static final String CONTENT = "0123456789";
+    private static final String CONTENT_SHA1 = "87acec17cd9dcd20a716cc2cf67417b71c8a7016";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private M2RepoService m2RepoService;
+
+    @Mock
+    private GuvnorM2Repository repository;
+
+    @Spy
+    private ArtifactChecksums checksums = new ArtifactChecksums();
+
+    @InjectMocks
+    private HttpGetHelper helper;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private ServletContext context;
+
+    private ByteArrayOutputStream output;
+    private File jar;
+
+    @Before
+    public void setup() throws IOException {
+        final File root = temporaryFolder.newFolder("repository");
+        jar = new File(root,
+                       "org/kie/kie-api/1.0/kie-api-1.0.jar");
+        jar.getParentFile().mkdirs();
+        Files.write(jar.toPath(),
+                    CONTENT.getBytes(StandardCharsets.UTF_8));
+
+        when(repository.getM2RepositoryRootDir(anyString())).thenReturn(root.getPath() + File.separator);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getPathInfo()).thenReturn("/org/kie/kie-api/1.0/kie-api-1.0.jar");
+        when(request.getDateHeader(anyString())).thenReturn(-1L);
+
+        output = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(final int b) {
+                output.write(b);
+            }
+        });
+    }
+
+    @Test
+    public void fullContent() throws IOException {
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals(CONTENT,
+                     body());
+        verify(response).setHeader("Content-Length",
+                                   "10");
+        verify(response).setHeader("ETag",
+                                   eTag());
+        verify(response,
+               never()).setHeader(eq("Content-Range"),
+                                  anyString());
+        verify(response,
+               never()).setStatus(anyInt());
+        verify(checksums,
+               never()).getChecksum(any(File.class),
+                                    anyString());
+    }
+
+    @Test
+    public void missingChecksumFileIsGenerated() throws IOException {
+        when(request.getPathInfo()).thenReturn("/org/kie/kie-api/1.0/kie-api-1.0.jar.sha1");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals(CONTENT_SHA1,
+                     body());
+        verify(response,
+               never()).sendError(anyInt());
+        assertFalse(new File(jar.getPath() + ".sha1").exists());
+        assertFalse(new File(jar.getPath() + ".md5").exists());
+    }
+
+    @Test
+    public void singleRange() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=2-5");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals("2345",
+                     body());
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range",
+                                   "bytes 2-5/10");
+        verify(response).setHeader("Content-Length",
+                                   "4");
+    }
+
+    @Test
+    public void suffixRange() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=-3");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals("789",
+                     body());
+        verify(response).setHeader("Content-Range",
+                                   "bytes 7-9/10");
+    }
+
+    @Test
+    public void multipleRanges() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=0-1,8-");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        final String body = body();
+        assertTrue(body.contains("Content-Range: bytes 0-1/10"));
+        assertTrue(body.contains("Content-Range: bytes 8-9/10"));
+        assertTrue(body.contains("01"));
+        assertTrue(body.contains("89"));
+        verify(response).setContentType("multipart/byteranges; boundary=MULTIPART_BYTERANGES");
+    }
+
+    @Test
+    public void multipleRangesWithWhitespace() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=0-1, 5-6 ,8-");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        final String body = body();
+        assertTrue(body.contains("Content-Range: bytes 0-1/10"));
+        assertTrue(body.contains("Content-Range: bytes 5-6/10"));
+        assertTrue(body.contains("Content-Range: bytes 8-9/10"));
+        verify(response,
+               never()).sendError(anyInt());
+    }
+
+    @Test
+    public void overlappingRangesAreMerged() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=4-6,0-3,2-4");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals("0123456",
+                     body());
+        verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(response).setHeader("Content-Range",
+                                   "bytes 0-6/10");
+    }
+
+    @Test
+    public void tooManyRangesGetTheFullContent() throws IOException {
+        final StringBuilder content = new StringBuilder();
+        final StringBuilder range = new StringBuilder("bytes=");
+        for (int i = 0; i <= HttpGetHelper.MAX_RANGES; i++) {
+            content.append("ab");
+            range.append(i == 0 ? "" : ",").append(i * 2).append('-').append(i * 2);
+        }
+        Files.write(jar.toPath(),
+                    content.toString().getBytes(StandardCharsets.UTF_8));
+        when(request.getHeader("Range")).thenReturn(range.toString());
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals(content.toString(),
+                     body());
+        verify(response,
+               never()).setStatus(anyInt());
+    }
+
+    @Test
+    public void unsatisfiableRange() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=8-2");
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        verify(response).setHeader("Content-Range",
+                                   "bytes */10");
+        verify(response).sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertEquals("",
+                     body());
+    }
+
+    @Test
+    public void rangeIgnoredWhenIfRangeDoesNotMatch() throws IOException {
+        when(request.getHeader("Range")).thenReturn("bytes=2-5");
+        when(request.getHeader("If-Range")).thenReturn("\"another\"");
+        when(request.getDateHeader("If-Range")).thenThrow(new IllegalArgumentException());
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals(CONTENT,
+                     body());
+        verify(response,
+               never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    }
+
+    @Test
+    public void notModified() throws IOException {
+        when(request.getHeader("If-None-Match")).thenReturn(eTag());
+
+        helper.handle(request,
+                      response,
+                      context);
+
+        verify(response).sendError(HttpServletResponse.SC_NOT_MODIFIED);
+        assertEquals("",
+                     body());
+    }
+
+    @Test
+    public void checksumsAreComputedOnce() throws IOException {
+        when(request.getPathInfo()).thenReturn("/org/kie/kie-api/1.0/kie-api-1.0.jar.sha1");
+        helper.handle(request,
+                      response,
+                      context);
+
+        //Same length and timestamp, so the file is not read again
+        final long lastModified = jar.lastModified();
+        Files.write(jar.toPath(),
+                    "abcdefghij".getBytes(StandardCharsets.UTF_8));
+        jar.setLastModified(lastModified);
+        output.reset();
+        helper.handle(request,
+                      response,
+                      context);
+
+        assertEquals(CONTENT_SHA1,
+                     body());
+    }
+
+    private String body() {
+        return new String(output.toByteArray(),
+                          StandardCharsets.UTF_8);
+    }
+
+    private String eTag() {
+        return "\"" + jar.length() + "-" + jar.lastModified() + "\"";
+    }
+}
@@ -19,7 +19,6 @@ package org.uberfire.java.nio.fs.jgit;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FilterOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
@@ -56,7 +55,9 @@ import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.internal.ketch.KetchLeaderCache;
 import org.eclipse.jgit.internal.ketch.KetchSystem;
 import org.eclipse.jgit.internal.storage.file.WindowCache;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -87,6 +88,8 @@ import org.uberfire.java.nio.EncodingUtil;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.base.AbstractPath;
 import org.uberfire.java.nio.base.BasicFileAttributesImpl;
+import org.uberfire.java.nio.base.BulkWriteSupport;
+import org.uberfire.java.nio.base.FileSystemChangesSupport;
 import org.uberfire.java.nio.base.ExtendedAttributeView;
 import org.uberfire.java.nio.base.FileDiff;
 import org.uberfire.java.nio.base.FileSystemState;
@@ -137,11 +140,15 @@ import org.uberfire.java.nio.fs.jgit.daemon.ssh.BaseGitCommand;
 import org.uberfire.java.nio.fs.jgit.daemon.ssh.GitSSHService;
 import org.uberfire.java.nio.fs.jgit.manager.JGitFileSystemsCache;
 import org.uberfire.java.nio.fs.jgit.manager.JGitFileSystemsManager;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollectionScheduler;
+import org.uberfire.java.nio.fs.jgit.util.BlobOutputStream;
 import org.uberfire.java.nio.fs.jgit.util.Git;
 import org.uberfire.java.nio.fs.jgit.util.GitHookSupport;
 import org.uberfire.java.nio.fs.jgit.util.ProxyAuthenticator;
 import org.uberfire.java.nio.fs.jgit.util.commands.Clone;
 import org.uberfire.java.nio.fs.jgit.util.commands.PathUtil;
+import org.uberfire.java.nio.fs.jgit.util.exceptions.GitException;
+import org.uberfire.java.nio.fs.jgit.util.model.BlobCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.CopyCommitContent;
@@ -157,6 +164,8 @@ import org.uberfire.java.nio.security.SSHAuthenticator;
 import org.uberfire.java.nio.security.SecuredFileSystemProvider;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
 import static org.eclipse.jgit.lib.Constants.DOT_GIT_EXT;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkCondition;
 import static org.kie.soup.commons.validation.PortablePreconditions.checkNotEmpty;
@@ -181,6 +190,8 @@ import static org.uberfire.java.nio.fs.jgit.util.model.PathType.DIRECTORY;
 import static org.uberfire.java.nio.fs.jgit.util.model.PathType.NOT_FOUND;
 
 public class JGitFileSystemProvider implements SecuredFileSystemProvider,
+                                               BulkWriteSupport,
+                                               FileSystemChangesSupport,
                                                Disposable,
                                                GitHookSupport {
 
@@ -215,6 +226,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
     JGitFileSystemsEventsManager fsEventsManager;
 
+    JGitGarbageCollectionScheduler gcScheduler;
+
     /**
      * Creates a JGit filesystem provider which takes its configuration from system properties. In a normal production
      * deployment of UberFire, this is the constructor that will be invoked by the ServiceLoader mechanism.
@@ -249,6 +262,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
         setupFileSystemsManager();
 
+        setupGarbageCollection();
+
         setupFSEvents();
 
         setupGitDefaultCredentials();
@@ -271,6 +286,14 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                                config);
     }
 
+    private void setupGarbageCollection() {
+        if (config.isGitGcBackground()) {
+            gcScheduler = new JGitGarbageCollectionScheduler(config);
+        } else {
+            gcScheduler = null;
+        }
+    }
+
     private void setupConfigs(ConfigProperties gitPrefs) {
         config = new JGitFileSystemProviderConfiguration();
 
@@ -498,6 +521,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                         "<" + protocol + ">",
                                         user.getIdentifier(),
                                         revCommit.getFullMessage(),
+                                        revCommit.getName(),
                                         parent,
                                         revCommit.getTree());
                         }
@@ -547,6 +571,9 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         fsManager.getOpenFileSystems().forEach(JGitFileSystem::close);
         shutdownSSH();
         forceStopDaemon();
+        if (gcScheduler != null) {
+            gcScheduler.shutdown();
+        }
         fsManager.clear();
     }
 
@@ -1028,27 +1055,133 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
             throw new NotDirectoryException(path.toString());
         }
 
-        try {
-            final File file = File.createTempFile("gitz",
-                                                  "woot");
-            return new FilterOutputStream(new FileOutputStream(file)) {
-                @Override
-                public void close() throws java.io.IOException {
-                    super.close();
+        return new BlobOutputStream(config.getJgitStreamBufferThreshold()) {
+            @Override
+            public void close() throws java.io.IOException {
+                if (isClosed()) {
+                    return;
+                }
+                super.close();
+
+                try {
+                    final ObjectId blobId;
+                    try (final ObjectInserter inserter = gPath.getFileSystem().getGit().getRepository().newObjectInserter()) {
+                        blobId = insert(inserter);
+                        inserter.flush();
+                    }
 
                     commit(gPath,
                            buildCommitInfo("{" + toPathImpl(path).getPath() + "}",
                                            Arrays.asList(options)),
-                           new DefaultCommitContent(new HashMap<String, File>() {{
-                               put(gPath.getPath(),
-                                   file);
-                           }}));
+                           new BlobCommitContent(singletonMap(gPath.getPath(),
+                                                              blobId)));
+                } finally {
+                    release();
                 }
-            };
+            }
+        };
+    }
+
+    @Override
+    public void writeAll(final Map<Path, byte[]> contents,
+                         final Set<Path> deletions,
+                         final Set<Path> companionDeletions,
+                         final CommentedOption option) {
+        checkNotNull("contents",
+                     contents);
+        checkNotNull("deletions",
+                     deletions);
+        checkNotNull("companionDeletions",
+                     companionDeletions);
+
+        final List<Path> paths = new ArrayList<>(contents.keySet());
+        paths.addAll(deletions);
+        if (paths.isEmpty()) {
+            return;
+        }
+
+        final JGitPathImpl first = toPathImpl(paths.get(0));
+        final Git git = first.getFileSystem().getGit();
+        final List<Path> allPaths = new ArrayList<>(paths);
+        allPaths.addAll(companionDeletions);
+        for (final Path path : allPaths) {
+            final JGitPathImpl gPath = toPathImpl(path);
+            if (gPath.getFileSystem().getGit() != git || !gPath.getRefTree().equals(first.getRefTree())) {
+                throw new IllegalArgumentException("All paths must belong to the same file system branch.");
+            }
+        }
+
+        final Map<String, ObjectId> blobs = new HashMap<>(paths.size());
+        try (final ObjectInserter inserter = git.getRepository().newObjectInserter()) {
+            for (final Map.Entry<Path, byte[]> content : contents.entrySet()) {
+                final JGitPathImpl gPath = toPathImpl(content.getKey());
+                final PathInfo result = git.getPathInfo(gPath.getRefTree(),
+                                                        gPath.getPath());
+                if (result.getPathType().equals(PathType.DIRECTORY)) {
+                    throw new NotDirectoryException(content.getKey().toString());
+                }
+                blobs.put(gPath.getPath(),
+                          inserter.insert(Constants.OBJ_BLOB,
+                                          checkNotNull("content",
+                                                       content.getValue())));
+            }
+            inserter.flush();
         } catch (java.io.IOException e) {
-            throw new IOException("Could not create file or output stream.",
+            throw new IOException("Failed to write the content of the bulk write.",
                                   e);
         }
+        final Set<Path> allDeletions = new HashSet<>(deletions);
+        allDeletions.addAll(companionDeletions);
+        for (final Path deletion : allDeletions) {
+            final String path = toPathImpl(deletion).getPath();
+            if (!blobs.containsKey(path)) {
+                blobs.put(path,
+                          null);
+            }
+        }
+
+        final String defaultMessage;
+        if (paths.size() == 1) {
+            defaultMessage = "{" + first.getPath() + "}";
+        } else {
+            defaultMessage = "{" + first.getPath() + " and " + (paths.size() - 1) + " more}";
+        }
+        commit(first,
+               buildCommitInfo(defaultMessage,
+                               option == null ? emptyList() : singletonList(option)),
+               new BlobCommitContent(blobs));
+    }
+
+    @Override
+    public String getVersion(final Path root) {
+        final JGitPathImpl gPath = toPathImpl(root);
+        final RevCommit commit = gPath.getFileSystem().getGit().getLastCommit(gPath.getRefTree());
+        return commit == null ? null : commit.getName();
+    }
+
+    @Override
+    public List<WatchEvent<?>> listChanges(final Path root,
+                                           final String fromVersion) {
+        final JGitPathImpl gPath = toPathImpl(root);
+        final JGitFileSystem fs = gPath.getFileSystem();
+        final RevCommit from;
+        try {
+            from = fs.getGit().getCommit(checkNotEmpty("fromVersion",
+                                                       fromVersion));
+        } catch (final GitException e) {
+            return null;
+        }
+        if (from == null) {
+            return null;
+        }
+        return compareDiffs(fs,
+                            gPath.getRefTree(),
+                            null,
+                            null,
+                            null,
+                            null,
+                            from.getTree(),
+                            fs.getGit().getTreeFromRef(gPath.getRefTree()));
     }
 
     private CommitInfo buildCommitInfo(final String defaultMessage,
@@ -2442,7 +2575,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                 if (hasCommit) {
                     int value = fileSystem.incrementAndGetCommitCount();
                     if (value >= config.getCommitLimit()) {
-                        git.gc();
+                        requestGarbageCollection(fileSystem,
+                                                 true);
                         fileSystem.resetCommitCount();
                     }
                 }
@@ -2480,6 +2614,8 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                                                             sessionId,
                                                                             userName,
                                                                             message,
+                                                                            lastCommitName(fileSystem,
+                                                                                           branchName),
                                                                             oldHead,
                                                                             newHead);
 
@@ -2519,17 +2655,73 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
 
             int value = fileSystem.incrementAndGetCommitCount();
             if (value >= config.getCommitLimit()) {
-                fileSystem.getGit().gc();
+                requestGarbageCollection(fileSystem,
+                                         true);
                 fileSystem.resetCommitCount();
             }
         }
     }
 
+    /**
+     * Garbage collects the repository of the given file system if its statistics call for it, on a background thread
+     * unless background garbage collection is disabled.
+     */
+    public void requestGarbageCollection(final JGitFileSystem fileSystem) {
+        requestGarbageCollection(fileSystem,
+                                 false);
+    }
+
+    /**
+     * Garbage collects the repository of the given file system, on a background thread unless background garbage
+     * collection is disabled.
+     * @param required when true the repository gets an aggressive collection even if its statistics don't call for
+     * it, e.g. when the commit limit was reached
+     */
+    public void requestGarbageCollection(final JGitFileSystem fileSystem,
+                                         final boolean required) {
+        if (gcScheduler != null) {
+            gcScheduler.schedule(fileSystem.getName(),
+                                 fileSystem.getGit(),
+                                 required);
+        } else {
+            fileSystem.getGit().gc();
+        }
+    }
+
+    /**
+     * Returns the background garbage collection scheduler, or null if background garbage collection is disabled.
+     */
+    public JGitGarbageCollectionScheduler getGarbageCollectionScheduler() {
+        return gcScheduler;
+    }
+
+    List<WatchEvent<?>> notifyDiffs(final JGitFileSystem fs,
+                                    final String _tree,
+                                    final String sessionId,
+                                    final String userName,
+                                    final String message,
+                                    final ObjectId oldHead,
+                                    final ObjectId newHead) {
+        return notifyDiffs(fs,
+                           _tree,
+                           sessionId,
+                           userName,
+                           message,
+                           lastCommitName(fs,
+                                          _tree),
+                           oldHead,
+                           newHead);
+    }
+
+    /**
+     * @param commitId The commit the changes between the two trees belong to, carried by the watch events.
+     */
     List<WatchEvent<?>> notifyDiffs(final JGitFileSystem fs,
                                     final String _tree,
                                     final String sessionId,
                                     final String userName,
                                     final String message,
+                                    final String commitId,
                                     final ObjectId oldHead,
                                     final ObjectId newHead) {
 
@@ -2538,6 +2730,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                                        sessionId,
                                                        userName,
                                                        message,
+                                                       commitId,
                                                        oldHead,
                                                        newHead);
 
@@ -2566,6 +2759,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
                                      final String sessionId,
                                      final String userName,
                                      final String message,
+                                     final String commitId,
                                      final ObjectId oldHead,
                                      final ObjectId newHead) {
 
@@ -2610,6 +2804,7 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
             WatchEvent e = new JGitWatchEvent(sessionId,
                                               userName,
                                               message,
+                                              commitId,
                                               diffEntry.getChangeType().name(),
                                               oldPath,
                                               newPath);
@@ -2619,6 +2814,12 @@ public class JGitFileSystemProvider implements SecuredFileSystemProvider,
         return events;
     }
 
+    private String lastCommitName(final JGitFileSystem fs,
+                                  final String tree) {
+        final RevCommit commit = fs.getGit().getLastCommit(tree);
+        return commit == null ? null : commit.getName();
+    }
+
     GitSSHService getGitSSHService() {
         return gitSSHService;
     }
@@ -62,6 +62,11 @@ public class JGitFileSystemProviderConfiguration {
     public static final String GIT_SSH_ALGORITHM = "org.uberfire.nio.git.ssh.algorithm";
     public static final String GIT_SSH_PASSPHRASE = "org.uberfire.nio.git.ssh.passphrase";
     public static final String GIT_GC_LIMIT = "org.uberfire.nio.git.gc.limit";
+    public static final String GIT_GC_BACKGROUND = "org.uberfire.nio.git.gc.background";
+    public static final String GIT_GC_MAX_CONCURRENT = "org.uberfire.nio.git.gc.max.concurrent";
+    public static final String GIT_GC_BUDGET = "org.uberfire.nio.git.gc.budget";
+    public static final String GIT_GC_LOOSE_OBJECTS_THRESHOLD = "org.uberfire.nio.git.gc.loose.objects.threshold";
+    public static final String GIT_GC_PACK_FILES_THRESHOLD = "org.uberfire.nio.git.gc.pack.files.threshold";
     public static final String GIT_HTTP_SSL_VERIFY = "org.uberfire.nio.git.http.sslVerify";
     public static final String SSH_OVER_HTTP = "org.uberfire.nio.git.proxy.ssh.over.http";
     public static final String HTTP_PROXY_HOST = "http.proxyHost";
@@ -79,6 +84,10 @@ public class JGitFileSystemProviderConfiguration {
     public static final String JGIT_REMOVE_ELDEST_ENTRY_ITERATIONS = "org.uberfire.nio.jgit.remove.eldest.iterations";
     public static final String JGIT_CACHE_EVICT_THRESHOLD_DURATION = "org.uberfire.nio.jgit.cache.evict.threshold.duration";
     public static final String JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT = "org.uberfire.nio.jgit.cache.evict.threshold.time.unit";
+    public static final String JGIT_CACHE_WEIGHTED = "org.uberfire.nio.jgit.cache.weighted";
+    public static final String JGIT_CACHE_MAX_WEIGHT = "org.uberfire.nio.jgit.cache.max.weight";
+    public static final String JGIT_CACHE_IDLE_TIMEOUT = "org.uberfire.nio.jgit.cache.idle.timeout";
+    public static final String JGIT_STREAM_BUFFER_THRESHOLD = "org.uberfire.nio.jgit.stream.buffer.threshold";
 
     public static final String GIT_ENV_KEY_DEST_PATH = "out-dir";
     public static final String GIT_ENV_KEY_USER_NAME = "username";
@@ -108,6 +117,11 @@ public class JGitFileSystemProviderConfiguration {
     public static final String DEFAULT_SSH_ALGORITHM = "RSA";
     public static final String DEFAULT_SSH_CERT_PASSPHRASE = "";
     public static final String DEFAULT_COMMIT_LIMIT_TO_GC = "20";
+    public static final String DEFAULT_GIT_GC_BACKGROUND = "true";
+    public static final String DEFAULT_GIT_GC_MAX_CONCURRENT = "1";
+    public static final String DEFAULT_GIT_GC_BUDGET = "0.25";
+    public static final String DEFAULT_GIT_GC_LOOSE_OBJECTS_THRESHOLD = "256";
+    public static final String DEFAULT_GIT_GC_PACK_FILES_THRESHOLD = "8";
     public static final Boolean DEFAULT_GIT_HTTP_SSL_VERIFY = Boolean.TRUE;
     public static final String DEFAULT_ENABLE_GIT_KETCH = "false";
     public static final String DEFAULT_JGIT_FILE_SYSTEM_INSTANCES_CACHE = "10000";
@@ -115,8 +129,22 @@ public class JGitFileSystemProviderConfiguration {
     public static final String DEFAULT_JGIT_CACHE_OVERFLOW_CLEANUP_SIZE = "10";
     public static final String DEFAULT_JGIT_CACHE_EVICT_THRESHOLD_DURATION = "5";
     public static final TimeUnit DEFAULT_JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT = TimeUnit.MINUTES;
+    public static final String DEFAULT_JGIT_CACHE_WEIGHTED = "false";
+    public static final String DEFAULT_JGIT_CACHE_MAX_WEIGHT = "536870912";
+    public static final String DEFAULT_JGIT_CACHE_IDLE_TIMEOUT = "1800";
+    public static final String DEFAULT_JGIT_STREAM_BUFFER_THRESHOLD = "1048576";
 
     private int commitLimit;
+    //Run garbage collections on background threads instead of on the thread that reached the commit limit
+    private boolean gitGcBackground;
+    //Max number of repositories garbage collected at the same time when running in background
+    private int gitGcMaxConcurrent;
+    //Fraction (0, 1] of its time a background garbage collection thread may spend collecting
+    private double gitGcBudget;
+    //Number of loose objects from which a repository gets a garbage collection that reuses the existing deltas
+    private int gitGcLooseObjectsThreshold;
+    //Number of pack files from which a repository gets a garbage collection that reuses the existing deltas
+    private int gitGcPackFilesThreshold;
     private boolean sslVerify;
     private boolean daemonEnabled;
     private int daemonPort;
@@ -169,6 +197,14 @@ public class JGitFileSystemProviderConfiguration {
     private long jgitCacheEvictThresholdDuration;
     //TimeUnit of Threshold of jgit file system instances evict
     private TimeUnit jgitCacheEvictThresholdTimeUnit;
+    //Evict jgit file system instances by estimated heap footprint instead of by number of instances
+    private boolean jgitCacheWeighted;
+    //Max estimated heap footprint (in bytes) of the cached jgit file system instances when weighted
+    private long jgitCacheMaxWeight;
+    //Seconds a cached jgit file system instance may stay idle before being evicted when weighted (0 disables it)
+    private long jgitCacheIdleTimeout;
+    //Max size (in bytes) of the content written through an output stream that is kept in memory before spilling to disk
+    private int jgitStreamBufferThreshold;
 
     public void load(ConfigProperties systemConfig) {
         LOG.debug("Configuring from properties:");
@@ -226,6 +262,16 @@ public class JGitFileSystemProviderConfiguration {
                                                                                    DEFAULT_SSH_CERT_PASSPHRASE);
         final ConfigProperties.ConfigProperty commitLimitProp = systemConfig.get(GIT_GC_LIMIT,
                                                                                  DEFAULT_COMMIT_LIMIT_TO_GC);
+        final ConfigProperties.ConfigProperty gcBackgroundProp = systemConfig.get(GIT_GC_BACKGROUND,
+                                                                                  DEFAULT_GIT_GC_BACKGROUND);
+        final ConfigProperties.ConfigProperty gcMaxConcurrentProp = systemConfig.get(GIT_GC_MAX_CONCURRENT,
+                                                                                     DEFAULT_GIT_GC_MAX_CONCURRENT);
+        final ConfigProperties.ConfigProperty gcBudgetProp = systemConfig.get(GIT_GC_BUDGET,
+                                                                              DEFAULT_GIT_GC_BUDGET);
+        final ConfigProperties.ConfigProperty gcLooseObjectsThresholdProp = systemConfig.get(GIT_GC_LOOSE_OBJECTS_THRESHOLD,
+                                                                                             DEFAULT_GIT_GC_LOOSE_OBJECTS_THRESHOLD);
+        final ConfigProperties.ConfigProperty gcPackFilesThresholdProp = systemConfig.get(GIT_GC_PACK_FILES_THRESHOLD,
+                                                                                          DEFAULT_GIT_GC_PACK_FILES_THRESHOLD);
         final ConfigProperties.ConfigProperty sslVerifyProp = systemConfig.get(GIT_HTTP_SSL_VERIFY,
                                                                                DEFAULT_GIT_HTTP_SSL_VERIFY.toString());
         final ConfigProperties.ConfigProperty sshOverHttpProxyProp = systemConfig.get(SSH_OVER_HTTP,
@@ -264,6 +310,18 @@ public class JGitFileSystemProviderConfiguration {
         final ConfigProperties.ConfigProperty jgitCacheEvictThresoldTimeUnitProp = systemConfig.get(JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT,
                                                                                                     DEFAULT_JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT.name());
 
+        final ConfigProperties.ConfigProperty jgitCacheWeightedProp = systemConfig.get(JGIT_CACHE_WEIGHTED,
+                                                                                       DEFAULT_JGIT_CACHE_WEIGHTED);
+
+        final ConfigProperties.ConfigProperty jgitCacheMaxWeightProp = systemConfig.get(JGIT_CACHE_MAX_WEIGHT,
+                                                                                        DEFAULT_JGIT_CACHE_MAX_WEIGHT);
+
+        final ConfigProperties.ConfigProperty jgitCacheIdleTimeoutProp = systemConfig.get(JGIT_CACHE_IDLE_TIMEOUT,
+                                                                                          DEFAULT_JGIT_CACHE_IDLE_TIMEOUT);
+
+        final ConfigProperties.ConfigProperty jgitStreamBufferThresholdProp = systemConfig.get(JGIT_STREAM_BUFFER_THRESHOLD,
+                                                                                               DEFAULT_JGIT_STREAM_BUFFER_THRESHOLD);
+
         final ConfigProperties.ConfigProperty jgitSshCiphers = systemConfig.get(GIT_SSH_CIPHERS, null);
         final ConfigProperties.ConfigProperty jgitSshMacs = systemConfig.get(GIT_SSH_MACS, null);
 
@@ -303,6 +361,37 @@ public class JGitFileSystemProviderConfiguration {
         gitReposParentDir = new File(bareReposDirProp.getValue(),
                                      reposDirNameProp.getValue());
         commitLimit = commitLimitProp.getIntValue();
+
+        gitGcBackground = gcBackgroundProp.getBooleanValue();
+
+        gitGcMaxConcurrent = gcMaxConcurrentProp.getIntValue();
+        if (gitGcMaxConcurrent < 1) {
+            gitGcMaxConcurrent = Integer.valueOf(DEFAULT_GIT_GC_MAX_CONCURRENT);
+        }
+
+        try {
+            gitGcBudget = Double.valueOf(gcBudgetProp.getValue());
+        } catch (NumberFormatException e) {
+            gitGcBudget = -1;
+        }
+        if (gitGcBudget <= 0 || gitGcBudget > 1) {
+            LOG.warn("Invalid value {}={}, it must be in (0, 1]. Using default instead: {}",
+                     GIT_GC_BUDGET,
+                     gcBudgetProp.getValue(),
+                     DEFAULT_GIT_GC_BUDGET);
+            gitGcBudget = Double.valueOf(DEFAULT_GIT_GC_BUDGET);
+        }
+
+        gitGcLooseObjectsThreshold = gcLooseObjectsThresholdProp.getIntValue();
+        if (gitGcLooseObjectsThreshold < 1) {
+            gitGcLooseObjectsThreshold = Integer.valueOf(DEFAULT_GIT_GC_LOOSE_OBJECTS_THRESHOLD);
+        }
+
+        gitGcPackFilesThreshold = gcPackFilesThresholdProp.getIntValue();
+        if (gitGcPackFilesThreshold < 1) {
+            gitGcPackFilesThreshold = Integer.valueOf(DEFAULT_GIT_GC_PACK_FILES_THRESHOLD);
+        }
+
         sslVerify = sslVerifyProp.getBooleanValue();
 
         jgitFileSystemsInstancesCache = jgitFileSystemsInstancesCacheProp.getIntValue();
@@ -339,6 +428,23 @@ public class JGitFileSystemProviderConfiguration {
             jgitCacheEvictThresholdTimeUnit = DEFAULT_JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT;
         }
 
+        jgitCacheWeighted = jgitCacheWeightedProp.getBooleanValue();
+
+        jgitCacheMaxWeight = Long.valueOf(jgitCacheMaxWeightProp.getValue());
+        if (jgitCacheMaxWeight < 1) {
+            jgitCacheMaxWeight = Long.valueOf(DEFAULT_JGIT_CACHE_MAX_WEIGHT);
+        }
+
+        jgitCacheIdleTimeout = Long.valueOf(jgitCacheIdleTimeoutProp.getValue());
+        if (jgitCacheIdleTimeout < 0) {
+            jgitCacheIdleTimeout = Long.valueOf(DEFAULT_JGIT_CACHE_IDLE_TIMEOUT);
+        }
+
+        jgitStreamBufferThreshold = Integer.valueOf(jgitStreamBufferThresholdProp.getValue());
+        if (jgitStreamBufferThreshold < 0) {
+            jgitStreamBufferThreshold = Integer.valueOf(DEFAULT_JGIT_STREAM_BUFFER_THRESHOLD);
+        }
+
         daemonEnabled = enabledProp.getBooleanValue();
         if (daemonEnabled) {
             daemonPort = portProp.getIntValue();
@@ -390,6 +496,26 @@ public class JGitFileSystemProviderConfiguration {
         return commitLimit;
     }
 
+    public boolean isGitGcBackground() {
+        return gitGcBackground;
+    }
+
+    public int getGitGcMaxConcurrent() {
+        return gitGcMaxConcurrent;
+    }
+
+    public double getGitGcBudget() {
+        return gitGcBudget;
+    }
+
+    public int getGitGcLooseObjectsThreshold() {
+        return gitGcLooseObjectsThreshold;
+    }
+
+    public int getGitGcPackFilesThreshold() {
+        return gitGcPackFilesThreshold;
+    }
+
     public boolean isSslVerify() {
         return sslVerify;
     }
@@ -546,6 +672,22 @@ public class JGitFileSystemProviderConfiguration {
         return jgitCacheEvictThresholdDuration;
     }
 
+    public boolean isJgitCacheWeighted() {
+        return jgitCacheWeighted;
+    }
+
+    public long getJgitCacheMaxWeight() {
+        return jgitCacheMaxWeight;
+    }
+
+    public long getJgitCacheIdleTimeout() {
+        return jgitCacheIdleTimeout;
+    }
+
+    public int getJgitStreamBufferThreshold() {
+        return jgitStreamBufferThreshold;
+    }
+
     public String getGitSshCiphers() {
         return gitSshCiphers;
     }
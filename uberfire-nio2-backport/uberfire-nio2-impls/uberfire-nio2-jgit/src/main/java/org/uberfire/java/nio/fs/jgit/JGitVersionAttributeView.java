@@ -57,6 +57,28 @@ public class JGitVersionAttributeView extends VersionAttributeView<JGitPathImpl>
         return attrs;
     }
 
+    /**
+     * Reads a page of the version history of the path, newest records first, without loading the whole history.
+     * @param offset number of newest records to skip
+     * @param pageSize max number of records to return
+     */
+    public List<VersionRecord> readHistory(final int offset,
+                                           final int pageSize) throws IOException {
+        final JGitFileSystem fs = path.getFileSystem();
+        final PathInfo pathInfo = fs.getGit().getPathInfo(path.getRefTree(),
+                                                          path.getPath());
+
+        if (pathInfo == null || pathInfo.getPathType().equals(PathType.NOT_FOUND)) {
+            throw new NoSuchFileException(path.getPath());
+        }
+
+        return listRecords(fs,
+                           path.getRefTree(),
+                           pathInfo,
+                           offset,
+                           pageSize);
+    }
+
     @Override
     public Class<? extends BasicFileAttributeView>[] viewTypes() {
         return new Class[]{VersionAttributeView.class, JGitVersionAttributeView.class};
@@ -72,51 +94,11 @@ public class JGitVersionAttributeView extends VersionAttributeView<JGitPathImpl>
             throw new NoSuchFileException(path);
         }
 
-        final Ref refId = fs.getGit().getRef(branchName);
-        final List<VersionRecord> records = new ArrayList<>();
-
-        if (refId != null) {
-            try {
-                final CommitHistory history = fs.getGit().listCommits(refId, pathInfo.getPath());
-                for (final RevCommit commit : history.getCommits()) {
-                    final String recordPath = history.trackedFileNameChangeFor(commit.getId());
-                    records.add(new VersionRecord() {
-                        @Override
-                        public String id() {
-                            return commit.name();
-                        }
-
-                        @Override
-                        public String author() {
-                            return commit.getAuthorIdent().getName();
-                        }
-
-                        @Override
-                        public String email() {
-                            return commit.getAuthorIdent().getEmailAddress();
-                        }
-
-                        @Override
-                        public String comment() {
-                            return commit.getFullMessage();
-                        }
-
-                        @Override
-                        public Date date() {
-                            return commit.getAuthorIdent().getWhen();
-                        }
-
-                        @Override
-                        public String uri() {
-                            return fs.getPath(commit.name(),
-                                              recordPath).toUri().toString();
-                        }
-                    });
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
+        final List<VersionRecord> records = listRecords(fs,
+                                                        branchName,
+                                                        pathInfo,
+                                                        0,
+                                                        Integer.MAX_VALUE);
 
         Collections.reverse(records);
 
@@ -178,4 +160,68 @@ public class JGitVersionAttributeView extends VersionAttributeView<JGitPathImpl>
             }
         };
     }
+
+    private List<VersionRecord> listRecords(final JGitFileSystem fs,
+                                            final String branchName,
+                                            final PathInfo pathInfo,
+                                            final int offset,
+                                            final int pageSize) {
+        final Ref refId = fs.getGit().getRef(branchName);
+        final List<VersionRecord> records = new ArrayList<>();
+
+        if (refId != null) {
+            try {
+                final CommitHistory history = fs.getGit().listCommits(refId,
+                                                                      pathInfo.getPath(),
+                                                                      offset,
+                                                                      pageSize);
+                for (final RevCommit commit : history.getCommits()) {
+                    records.add(toRecord(fs,
+                                         commit,
+                                         history.trackedFileNameChangeFor(commit.getId())));
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return records;
+    }
+
+    private VersionRecord toRecord(final JGitFileSystem fs,
+                                   final RevCommit commit,
+                                   final String recordPath) {
+        return new VersionRecord() {
+            @Override
+            public String id() {
+                return commit.name();
+            }
+
+            @Override
+            public String author() {
+                return commit.getAuthorIdent().getName();
+            }
+
+            @Override
+            public String email() {
+                return commit.getAuthorIdent().getEmailAddress();
+            }
+
+            @Override
+            public String comment() {
+                return commit.getFullMessage();
+            }
+
+            @Override
+            public Date date() {
+                return commit.getAuthorIdent().getWhen();
+            }
+
+            @Override
+            public String uri() {
+                return fs.getPath(commit.name(),
+                                  recordPath).toUri().toString();
+            }
+        };
+    }
 }
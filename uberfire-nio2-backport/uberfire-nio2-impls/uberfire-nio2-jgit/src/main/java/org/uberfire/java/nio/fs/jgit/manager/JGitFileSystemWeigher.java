@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+
+import static org.eclipse.jgit.lib.Constants.PACKED_REFS;
+import static org.eclipse.jgit.lib.Constants.R_REFS;
+
+/**
+ * Estimates the heap footprint of an open {@link JGitFileSystem}.
+ * <p>
+ * The estimate is based on the on disk size of the structures JGit keeps in memory for an open repository:
+ * pack indexes and bitmaps, the packed refs and the loose refs, plus a fixed per instance overhead.
+ */
+public class JGitFileSystemWeigher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JGitFileSystemWeigher.class);
+
+    static final long BASE_WEIGHT = 64 * 1024;
+    static final long LOOSE_REF_WEIGHT = 512;
+
+    public long weigh(final JGitFileSystem fs) {
+        try {
+            if (fs.getGit() == null || fs.getGit().getRepository() == null) {
+                return BASE_WEIGHT;
+            }
+            final Repository repository = fs.getGit().getRepository();
+            final File gitDir = repository.getDirectory();
+            if (gitDir == null) {
+                return BASE_WEIGHT;
+            }
+
+            return BASE_WEIGHT +
+                    packWeight(new File(gitDir,
+                                        "objects/pack")) +
+                    new File(gitDir,
+                             PACKED_REFS).length() +
+                    countLooseRefs(new File(gitDir,
+                                            R_REFS)) * LOOSE_REF_WEIGHT;
+        } catch (final Exception e) {
+            LOGGER.debug("Unable to estimate weight of file system [" + fs.getName() + "]",
+                         e);
+            return BASE_WEIGHT;
+        }
+    }
+
+    private long packWeight(final File packDir) {
+        final File[] files = packDir.listFiles((dir, name) -> name.endsWith(".idx") || name.endsWith(".bitmap"));
+        if (files == null) {
+            return 0;
+        }
+        long weight = 0;
+        for (final File file : files) {
+            weight += file.length();
+        }
+        return weight;
+    }
+
+    private long countLooseRefs(final File dir) {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long count = 0;
+        for (final File file : files) {
+            if (file.isDirectory()) {
+                count += countLooseRefs(file);
+            } else {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -35,9 +35,16 @@ public class JGitFileSystemsCache {
     //limited amount of real instances of FS
     final Map<String, Supplier<JGitFileSystem>> memoizedSuppliers;
 
+    final JGitFileSystemsCacheMetrics metrics = new JGitFileSystemsCacheMetrics();
+
     public JGitFileSystemsCache(JGitFileSystemProviderConfiguration config) {
 
-        memoizedSuppliers = JGitFileSystemsCacheDataStructure.create(config);
+        if (config.isJgitCacheWeighted()) {
+            memoizedSuppliers = JGitFileSystemsCacheDataStructure.createWeighted(config,
+                                                                                 metrics);
+        } else {
+            memoizedSuppliers = JGitFileSystemsCacheDataStructure.create(config);
+        }
     }
 
     public void addSupplier(String fsKey,
@@ -75,9 +82,11 @@ public class JGitFileSystemsCache {
 
         Supplier<JGitFileSystem> memoizedSupplier = memoizedSuppliers.get(fsName);
         if (memoizedSupplier != null) {
+            metrics.recordHit();
             return new JGitFileSystemProxy(fsName,
                                            memoizedSupplier);
         } else if (fileSystemsSuppliers.get(fsName) != null) {
+            metrics.recordMiss();
             Supplier<JGitFileSystem> newMemoizedSupplier = createMemoizedSupplier(fsName,
                                                                                   fileSystemsSuppliers.get(fsName));
             return new JGitFileSystemProxy(fsName,
@@ -88,12 +97,26 @@ public class JGitFileSystemsCache {
 
     private Supplier<JGitFileSystem> createMemoizedSupplier(String fsKey,
                                                             Supplier<JGitFileSystem> createFSSupplier) {
-        Supplier<JGitFileSystem> memoizedFSSupplier = MemoizedFileSystemsSupplier.of(createFSSupplier);
+        Supplier<JGitFileSystem> memoizedFSSupplier = MemoizedFileSystemsSupplier.of(timed(createFSSupplier));
         memoizedSuppliers.putIfAbsent(fsKey,
                                       memoizedFSSupplier);
         return memoizedFSSupplier;
     }
 
+    private Supplier<JGitFileSystem> timed(Supplier<JGitFileSystem> createFSSupplier) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                final JGitFileSystem fs = createFSSupplier.get();
+                metrics.recordLoad(System.nanoTime() - start);
+                return fs;
+            } catch (RuntimeException e) {
+                metrics.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+        };
+    }
+
     public void clear() {
         memoizedSuppliers.clear();
         fileSystemsSuppliers.clear();
@@ -121,9 +144,58 @@ public class JGitFileSystemsCache {
             return memoizedSuppliers.keySet();
         }
 
+        public long hitCount() {
+            return metrics.hitCount();
+        }
+
+        public long missCount() {
+            return metrics.missCount();
+        }
+
+        public double hitRate() {
+            return metrics.hitRate();
+        }
+
+        public long loadCount() {
+            return metrics.loadCount();
+        }
+
+        public long loadFailureCount() {
+            return metrics.loadFailureCount();
+        }
+
+        /**
+         * Total time, in nanoseconds, spent loading file systems.
+         */
+        public long totalLoadTime() {
+            return metrics.totalLoadTime();
+        }
+
+        /**
+         * Average time, in nanoseconds, spent loading a file system.
+         */
+        public double averageLoadPenalty() {
+            return metrics.averageLoadPenalty();
+        }
+
+        public long evictionCount() {
+            return metrics.evictionCount();
+        }
+
+        public long evictedWeight() {
+            return metrics.evictedWeight();
+        }
+
+        /**
+         * Estimated heap footprint, in bytes, of the loaded file systems. Only tracked when the cache is weighted.
+         */
+        public long weight() {
+            return metrics.weight();
+        }
+
         @Override
         public String toString() {
-            return "JGitFileSystemsCacheInfo{fileSystemsCacheSize[" + fileSystemsCacheSize() + "], memoizedFileSystemsCacheKeys[" + memoizedFileSystemsCacheKeys() + "]}";
+            return "JGitFileSystemsCacheInfo{fileSystemsCacheSize[" + fileSystemsCacheSize() + "], memoizedFileSystemsCacheKeys[" + memoizedFileSystemsCacheKeys() + "], metrics[" + metrics + "]}";
         }
     }
 }
@@ -20,6 +20,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
@@ -27,6 +31,8 @@ import org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration;
 
 public class JGitFileSystemsCacheDataStructure {
 
+    static final long MAX_SWEEP_PERIOD_SECONDS = 60;
+
     public static Map<String, Supplier<JGitFileSystem>> create(JGitFileSystemProviderConfiguration config) {
 
         return Collections.synchronizedMap(new LinkedHashMap<String, Supplier<JGitFileSystem>>(config.getJgitFileSystemsInstancesCache() + 1,
@@ -80,4 +86,97 @@ public class JGitFileSystemsCacheDataStructure {
             }
         });
     }
+
+    public static Map<String, Supplier<JGitFileSystem>> createWeighted(JGitFileSystemProviderConfiguration config,
+                                                                       JGitFileSystemsCacheMetrics metrics) {
+        //idle file systems must be evicted even if no new file system is added to the cache
+        final long sweepPeriod = config.getJgitCacheIdleTimeout() > 0 ?
+                Math.min(config.getJgitCacheIdleTimeout(),
+                         MAX_SWEEP_PERIOD_SECONDS) :
+                MAX_SWEEP_PERIOD_SECONDS;
+        final Evictor evictor = new Evictor(sweepPeriod);
+
+        final JGitFileSystemsWeightedMap weightedMap = new JGitFileSystemsWeightedMap(config.getJgitCacheMaxWeight(),
+                                                                                      TimeUnit.SECONDS.toNanos(config.getJgitCacheIdleTimeout()),
+                                                                                      new JGitFileSystemWeigher(),
+                                                                                      metrics,
+                                                                                      evictor,
+                                                                                      System::nanoTime) {
+            @Override
+            public Supplier<JGitFileSystem> putIfAbsent(String key,
+                                                        Supplier<JGitFileSystem> value) {
+                evictor.start();
+                return super.putIfAbsent(key,
+                                         value);
+            }
+
+            @Override
+            public void clear() {
+                super.clear();
+                evictor.shutdown();
+            }
+        };
+        final Map<String, Supplier<JGitFileSystem>> map = Collections.synchronizedMap(weightedMap);
+        evictor.setSweep(() -> {
+            synchronized (map) {
+                weightedMap.evict();
+            }
+        });
+        return map;
+    }
+
+    /**
+     * Runs the idle sweeps and the repository closes of a weighted cache on a daemon thread. The thread is started
+     * when file systems are added to the cache, and stopped when the cache is cleared.
+     */
+    static class Evictor implements Executor {
+
+        private final long sweepPeriod;
+        private Runnable sweep;
+        private ScheduledExecutorService executor;
+
+        Evictor(long sweepPeriod) {
+            this.sweepPeriod = sweepPeriod;
+        }
+
+        void setSweep(Runnable sweep) {
+            this.sweep = sweep;
+        }
+
+        synchronized void start() {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r,
+                                                 "jgit-fs-cache-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleWithFixedDelay(sweep,
+                                            sweepPeriod,
+                                            sweepPeriod,
+                                            TimeUnit.SECONDS);
+        }
+
+        @Override
+        public synchronized void execute(Runnable task) {
+            start();
+            executor.execute(task);
+        }
+
+        /**
+         * Stops the sweeps; repositories already waiting to be closed are still closed.
+         */
+        synchronized void shutdown() {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+
+        synchronized boolean isRunning() {
+            return executor != null;
+        }
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit, miss, load and eviction counters of the {@link JGitFileSystemsCache}.
+ */
+public class JGitFileSystemsCacheMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictedWeight = new LongAdder();
+    private final AtomicLong weight = new AtomicLong();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordLoad(final long loadTimeNanos) {
+        loads.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordLoadFailure(final long loadTimeNanos) {
+        loadFailures.increment();
+        totalLoadTime.add(loadTimeNanos);
+    }
+
+    void recordEviction(final long evicted) {
+        evictions.increment();
+        evictedWeight.add(evicted);
+    }
+
+    void setWeight(final long currentWeight) {
+        weight.set(currentWeight);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        final long hitCount = hitCount();
+        final long requestCount = hitCount + missCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long loadCount() {
+        return loads.sum();
+    }
+
+    public long loadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public long totalLoadTime() {
+        return totalLoadTime.sum();
+    }
+
+    public double averageLoadPenalty() {
+        final long loadCount = loadCount() + loadFailureCount();
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime() / loadCount;
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long evictedWeight() {
+        return evictedWeight.sum();
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    @Override
+    public String toString() {
+        return "JGitFileSystemsCacheMetrics{" +
+                "hitCount[" + hitCount() + "], " +
+                "missCount[" + missCount() + "], " +
+                "loadCount[" + loadCount() + "], " +
+                "loadFailureCount[" + loadFailureCount() + "], " +
+                "totalLoadTime[" + totalLoadTime() + "], " +
+                "evictionCount[" + evictionCount() + "], " +
+                "evictedWeight[" + evictedWeight() + "], " +
+                "weight[" + weight() + "]}";
+    }
+}
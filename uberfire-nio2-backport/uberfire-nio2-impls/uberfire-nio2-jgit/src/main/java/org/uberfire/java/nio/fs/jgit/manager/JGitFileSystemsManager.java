@@ -140,7 +140,7 @@ public class JGitFileSystemsManager {
                                                          fsEventsManager,
                                                          fsHooks);
 
-        fs.getGit().gc();
+        jGitFileSystemProvider.requestGarbageCollection(fs);
 
         return fs;
     }
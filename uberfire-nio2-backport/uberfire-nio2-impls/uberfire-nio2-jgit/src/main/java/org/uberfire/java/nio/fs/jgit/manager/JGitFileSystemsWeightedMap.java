@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+
+/**
+ * Access ordered map of memoized file system suppliers that evicts loaded file systems by their estimated heap
+ * footprint and by idle time, instead of by number of instances.
+ * <p>
+ * File systems that are in use are never evicted. Proxies and paths created before an eviction keep using the
+ * evicted instance, so its repository is only closed once that instance is no longer reachable. Repositories are
+ * closed on the given executor, so eviction never pays the close cost on the thread that triggered it.
+ * <p>
+ * This class is not thread safe, access must be synchronized externally (see
+ * {@link JGitFileSystemsCacheDataStructure#createWeighted}).
+ */
+public class JGitFileSystemsWeightedMap extends LinkedHashMap<String, Supplier<JGitFileSystem>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JGitFileSystemsWeightedMap.class);
+
+    private final long maxWeight;
+    private final long idleTimeoutNanos;
+    private final JGitFileSystemWeigher weigher;
+    private final JGitFileSystemsCacheMetrics metrics;
+    private final Executor closeExecutor;
+    private final LongSupplier clock;
+
+    private final Map<String, Long> weights = new HashMap<>();
+    private final Map<String, Long> lastAccess = new HashMap<>();
+    private final ReferenceQueue<JGitFileSystem> releasedFileSystems = new ReferenceQueue<>();
+    private final Map<Reference<JGitFileSystem>, PendingClose> pendingCloses = new HashMap<>();
+    private long totalWeight = 0;
+
+    JGitFileSystemsWeightedMap(final long maxWeight,
+                               final long idleTimeoutNanos,
+                               final JGitFileSystemWeigher weigher,
+                               final JGitFileSystemsCacheMetrics metrics,
+                               final Executor closeExecutor,
+                               final LongSupplier clock) {
+        super(16,
+              0.75f,
+              true);
+        this.maxWeight = maxWeight;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.weigher = weigher;
+        this.metrics = metrics;
+        this.closeExecutor = closeExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public Supplier<JGitFileSystem> get(final Object key) {
+        final Supplier<JGitFileSystem> supplier = super.get(key);
+        if (supplier != null) {
+            lastAccess.put((String) key,
+                           clock.getAsLong());
+        }
+        return supplier;
+    }
+
+    @Override
+    public Supplier<JGitFileSystem> putIfAbsent(final String key,
+                                                final Supplier<JGitFileSystem> value) {
+        final Supplier<JGitFileSystem> supplier = super.putIfAbsent(key,
+                                                                    value);
+        if (supplier == null) {
+            lastAccess.put(key,
+                           clock.getAsLong());
+            evict();
+        }
+        return supplier;
+    }
+
+    @Override
+    public Supplier<JGitFileSystem> replace(final String key,
+                                            final Supplier<JGitFileSystem> value) {
+        final Supplier<JGitFileSystem> supplier = super.replace(key,
+                                                                value);
+        if (supplier != null) {
+            lastAccess.put(key,
+                           clock.getAsLong());
+            dropWeight(key);
+        }
+        return supplier;
+    }
+
+    @Override
+    public Supplier<JGitFileSystem> remove(final Object key) {
+        final Supplier<JGitFileSystem> supplier = super.remove(key);
+        if (supplier != null) {
+            lastAccess.remove(key);
+            dropWeight(key);
+        }
+        return supplier;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        weights.clear();
+        lastAccess.clear();
+        totalWeight = 0;
+        metrics.setWeight(0);
+    }
+
+    long getTotalWeight() {
+        return totalWeight;
+    }
+
+    int getPendingCloseCount() {
+        return pendingCloses.size();
+    }
+
+    /**
+     * Evicts the least recently used file systems that are not in use while the total weight exceeds the budget,
+     * and any file system that has been idle for longer than the idle timeout.
+     */
+    void evict() {
+        final long now = clock.getAsLong();
+        closeReleasedRepositories();
+        weighLoadedFileSystems();
+
+        final Iterator<Map.Entry<String, Supplier<JGitFileSystem>>> iterator = entrySet().iterator();
+        while (iterator.hasNext()) {
+            final boolean overBudget = totalWeight > maxWeight;
+            if (!overBudget && idleTimeoutNanos <= 0) {
+                break;
+            }
+            final Map.Entry<String, Supplier<JGitFileSystem>> entry = iterator.next();
+            final String key = entry.getKey();
+            final boolean idle = idleTimeoutNanos > 0 && now - lastAccess.getOrDefault(key,
+                                                                                       now) >= idleTimeoutNanos;
+            if (!overBudget && !idle) {
+                //access ordered, all the remaining entries were used more recently
+                break;
+            }
+            final JGitFileSystem fs = loadedFileSystem(entry.getValue());
+            if (fs == null || fs.hasBeenInUse()) {
+                continue;
+            }
+            final boolean reloadable = entry.getValue() instanceof MemoizedFileSystemsSupplier;
+            iterator.remove();
+            lastAccess.remove(key);
+            metrics.recordEviction(dropWeight(key));
+            if (reloadable) {
+                //suppliers of already created instances would hand out the same file system again
+                closeWhenReleased(key,
+                                  fs);
+            }
+        }
+        metrics.setWeight(totalWeight);
+    }
+
+    private void weighLoadedFileSystems() {
+        for (final Map.Entry<String, Supplier<JGitFileSystem>> entry : entrySet()) {
+            if (!weights.containsKey(entry.getKey())) {
+                final JGitFileSystem fs = loadedFileSystem(entry.getValue());
+                if (fs != null) {
+                    final long weight = weigher.weigh(fs);
+                    weights.put(entry.getKey(),
+                                weight);
+                    totalWeight += weight;
+                }
+            }
+        }
+    }
+
+    private long dropWeight(final Object key) {
+        final Long weight = weights.remove(key);
+        if (weight == null) {
+            return 0;
+        }
+        totalWeight -= weight;
+        metrics.setWeight(totalWeight);
+        return weight;
+    }
+
+    private JGitFileSystem loadedFileSystem(final Supplier<JGitFileSystem> supplier) {
+        if (supplier instanceof MemoizedFileSystemsSupplier && !((MemoizedFileSystemsSupplier) supplier).isLoaded()) {
+            return null;
+        }
+        return supplier.get();
+    }
+
+    private void closeWhenReleased(final String key,
+                                   final JGitFileSystem fs) {
+        if (fs.getGit() == null || fs.getGit().getRepository() == null) {
+            return;
+        }
+        pendingCloses.put(new WeakReference<>(fs,
+                                              releasedFileSystems),
+                          new PendingClose(key,
+                                           fs.getGit().getRepository()));
+    }
+
+    private void closeReleasedRepositories() {
+        Reference<? extends JGitFileSystem> released;
+        while ((released = releasedFileSystems.poll()) != null) {
+            final PendingClose pendingClose = pendingCloses.remove(released);
+            if (pendingClose != null) {
+                closeExecutor.execute(pendingClose::close);
+            }
+        }
+    }
+
+    private static class PendingClose {
+
+        private final String key;
+        private final Repository repository;
+
+        private PendingClose(final String key,
+                             final Repository repository) {
+            this.key = key;
+            this.repository = repository;
+        }
+
+        private void close() {
+            try {
+                repository.close();
+            } catch (final Exception e) {
+                LOGGER.warn("Error closing repository of evicted file system [" + key + "]",
+                            e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run counters of the {@link JGitGarbageCollectionScheduler}, and the duration of the garbage collections of each
+ * repository.
+ */
+public class JGitGarbageCollectionMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder repackRuns = new LongAdder();
+    private final LongAdder aggressiveRuns = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final Map<String, RepositoryMetrics> repositories = new ConcurrentHashMap<>();
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordRun(final String repository,
+                   final JGitGarbageCollectionScheduler.Mode mode,
+                   final long durationNanos) {
+        if (mode == JGitGarbageCollectionScheduler.Mode.AGGRESSIVE) {
+            aggressiveRuns.increment();
+        } else {
+            repackRuns.increment();
+        }
+        totalTime.add(durationNanos);
+        repositories.computeIfAbsent(repository,
+                                     k -> new RepositoryMetrics()).record(mode,
+                                                                          durationNanos);
+    }
+
+    void recordSkip() {
+        skipped.increment();
+    }
+
+    void recordFailure() {
+        failures.increment();
+    }
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    public long repackRunCount() {
+        return repackRuns.sum();
+    }
+
+    public long aggressiveRunCount() {
+        return aggressiveRuns.sum();
+    }
+
+    public long skipCount() {
+        return skipped.sum();
+    }
+
+    public long failureCount() {
+        return failures.sum();
+    }
+
+    public long totalTime() {
+        return totalTime.sum();
+    }
+
+    /**
+     * Returns the metrics of the repository with the given name, or null if it was never garbage collected.
+     */
+    public RepositoryMetrics getRepositoryMetrics(final String repository) {
+        return repositories.get(repository);
+    }
+
+    public Map<String, RepositoryMetrics> getRepositoryMetrics() {
+        return Collections.unmodifiableMap(repositories);
+    }
+
+    @Override
+    public String toString() {
+        return "JGitGarbageCollectionMetrics{" +
+                "requestCount[" + requestCount() + "], " +
+                "repackRunCount[" + repackRunCount() + "], " +
+                "aggressiveRunCount[" + aggressiveRunCount() + "], " +
+                "skipCount[" + skipCount() + "], " +
+                "failureCount[" + failureCount() + "], " +
+                "totalTime[" + totalTime() + "]}";
+    }
+
+    public static class RepositoryMetrics {
+
+        private long runs;
+        private long totalTime;
+        private long lastDuration;
+        private JGitGarbageCollectionScheduler.Mode lastMode;
+
+        private synchronized void record(final JGitGarbageCollectionScheduler.Mode mode,
+                                         final long durationNanos) {
+            runs++;
+            totalTime += durationNanos;
+            lastDuration = durationNanos;
+            lastMode = mode;
+        }
+
+        public synchronized long runCount() {
+            return runs;
+        }
+
+        public synchronized long totalTime() {
+            return totalTime;
+        }
+
+        public synchronized long lastDuration() {
+            return lastDuration;
+        }
+
+        public synchronized JGitGarbageCollectionScheduler.Mode lastMode() {
+            return lastMode;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "RepositoryMetrics{" +
+                    "runCount[" + runs + "], " +
+                    "totalTime[" + totalTime + "], " +
+                    "lastDuration[" + lastDuration + "], " +
+                    "lastMode[" + lastMode + "]}";
+        }
+    }
+}
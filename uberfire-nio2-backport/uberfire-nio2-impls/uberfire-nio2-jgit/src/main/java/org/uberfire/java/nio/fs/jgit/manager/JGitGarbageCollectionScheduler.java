@@ -0,0 +1,374 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+
+/**
+ * Runs repository garbage collections on a small pool of background threads, so they never run on the thread that
+ * requested them.
+ * <p>
+ * Requests for the same repository are coalesced until its collection starts. When a worker is free it reads the
+ * statistics of every pending repository and collects the one with the most loose objects and pack files first.
+ * Repositories with many packs or many loose objects get a regular collection that reuses the existing deltas, and
+ * repositories below both thresholds are skipped. Required collections, e.g. because the commit limit was reached,
+ * always run and get an aggressive collection that recomputes the deltas. After each run the worker pauses so that it
+ * only spends the configured fraction of its time collecting.
+ * <p>
+ * Both modes repack the whole repository, JGit has no repack of the loose objects only.
+ */
+public class JGitGarbageCollectionScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JGitGarbageCollectionScheduler.class);
+
+    public enum Mode {
+        /**
+         * Regular {@code git gc}: repacks the repository reusing the existing deltas.
+         */
+        REPACK,
+        /**
+         * {@code git gc --aggressive}: repacks the repository recomputing all the deltas.
+         */
+        AGGRESSIVE
+    }
+
+    private final int maxConcurrent;
+    private final double budget;
+    private final int looseObjectsThreshold;
+    private final int packFilesThreshold;
+    private final StatisticsReader statisticsReader;
+    private final Collector collector;
+    private final JGitGarbageCollectionMetrics metrics = new JGitGarbageCollectionMetrics();
+
+    private final Map<String, Request> pending = new LinkedHashMap<>();
+    private final Set<String> running = new HashSet<>();
+    private ExecutorService executor;
+
+    public JGitGarbageCollectionScheduler(final JGitFileSystemProviderConfiguration config) {
+        this(config.getGitGcMaxConcurrent(),
+             config.getGitGcBudget(),
+             config.getGitGcLooseObjectsThreshold(),
+             config.getGitGcPackFilesThreshold(),
+             JGitGarbageCollectionScheduler::readStatistics,
+             (git, mode) -> git.gc(mode == Mode.AGGRESSIVE));
+    }
+
+    JGitGarbageCollectionScheduler(final int maxConcurrent,
+                                   final double budget,
+                                   final int looseObjectsThreshold,
+                                   final int packFilesThreshold,
+                                   final StatisticsReader statisticsReader,
+                                   final Collector collector) {
+        this.maxConcurrent = maxConcurrent;
+        this.budget = budget;
+        this.looseObjectsThreshold = looseObjectsThreshold;
+        this.packFilesThreshold = packFilesThreshold;
+        this.statisticsReader = statisticsReader;
+        this.collector = collector;
+    }
+
+    /**
+     * Requests a garbage collection of the given repository if its statistics call for one. Returns immediately, the
+     * collection runs later on a background thread.
+     */
+    public void schedule(final String name,
+                         final Git git) {
+        schedule(name,
+                 git,
+                 false);
+    }
+
+    /**
+     * Requests a garbage collection of the given repository. Returns immediately, the collection runs later on a
+     * background thread.
+     * @param required when true the repository gets an aggressive collection, even if it is below both thresholds
+     */
+    public synchronized void schedule(final String name,
+                                      final Git git,
+                                      final boolean required) {
+        metrics.recordRequest();
+        final Request request = pending.get(name);
+        if (request != null && request.git == git) {
+            request.required |= required;
+            return;
+        }
+        pending.put(name,
+                    new Request(git,
+                                required));
+        if (request == null && !running.contains(name)) {
+            executor().execute(this::collectNext);
+        }
+    }
+
+    /**
+     * Drops the pending requests and interrupts the running collections. The scheduler starts new workers on the
+     * next request.
+     */
+    public synchronized void shutdown() {
+        pending.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public JGitGarbageCollectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    Mode selectMode(final RepositoryStatistics statistics,
+                    final boolean required) {
+        if (required) {
+            return Mode.AGGRESSIVE;
+        }
+        if (statistics == null ||
+                statistics.getPackFiles() >= packFilesThreshold ||
+                statistics.getLooseObjects() >= looseObjectsThreshold) {
+            return Mode.REPACK;
+        }
+        return null;
+    }
+
+    double score(final RepositoryStatistics statistics) {
+        if (statistics == null) {
+            return 0;
+        }
+        return (double) statistics.getLooseObjects() / looseObjectsThreshold +
+                (double) statistics.getPackFiles() / packFilesThreshold;
+    }
+
+    private ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(maxConcurrent,
+                                                    new GarbageCollectionThreadFactory());
+        }
+        return executor;
+    }
+
+    private void collectNext() {
+        final Candidate candidate = claimNext();
+        if (candidate == null) {
+            return;
+        }
+        long duration = 0;
+        try {
+            duration = collect(candidate);
+        } finally {
+            synchronized (this) {
+                running.remove(candidate.name);
+                if (pending.containsKey(candidate.name) && executor != null) {
+                    executor.execute(this::collectNext);
+                }
+            }
+        }
+        pause(duration);
+    }
+
+    private Candidate claimNext() {
+        while (true) {
+            final List<Candidate> candidates = new ArrayList<>();
+            synchronized (this) {
+                pending.forEach((name, request) -> {
+                    if (!running.contains(name)) {
+                        candidates.add(new Candidate(name,
+                                                     request));
+                    }
+                });
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            candidates.forEach(this::readStatistics);
+            candidates.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+
+            synchronized (this) {
+                for (final Candidate candidate : candidates) {
+                    if (pending.get(candidate.name) == candidate.request && !running.contains(candidate.name)) {
+                        pending.remove(candidate.name);
+                        running.add(candidate.name);
+                        return candidate;
+                    }
+                }
+            }
+        }
+    }
+
+    private void readStatistics(final Candidate candidate) {
+        try {
+            candidate.statistics = statisticsReader.read(candidate.request.git);
+        } catch (final IOException | RuntimeException e) {
+            LOG.debug("Unable to read the statistics of repository '{}'.",
+                      candidate.name,
+                      e);
+        }
+        candidate.score = score(candidate.statistics);
+    }
+
+    private long collect(final Candidate candidate) {
+        final Mode mode = selectMode(candidate.statistics,
+                                     candidate.request.required);
+        if (mode == null) {
+            metrics.recordSkip();
+            return 0;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            collector.collect(candidate.request.git,
+                              mode);
+        } catch (final RuntimeException e) {
+            metrics.recordFailure();
+            LOG.warn("Garbage collection of repository '{}' failed.",
+                     candidate.name,
+                     e);
+            return System.nanoTime() - start;
+        }
+        final long duration = System.nanoTime() - start;
+        metrics.recordRun(candidate.name,
+                          mode,
+                          duration);
+        LOG.debug("{} garbage collection of repository '{}' took {} ms.",
+                  mode,
+                  candidate.name,
+                  TimeUnit.NANOSECONDS.toMillis(duration));
+        return duration;
+    }
+
+    private void pause(final long durationNanos) {
+        if (durationNanos <= 0 || budget >= 1.0) {
+            return;
+        }
+        final long pauseMillis = TimeUnit.NANOSECONDS.toMillis((long) (durationNanos * (1.0 - budget) / budget));
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static RepositoryStatistics readStatistics(final Git git) throws IOException {
+        final Repository repository = git.getRepository();
+        if (!(repository instanceof FileRepository)) {
+            return null;
+        }
+        final GC.RepoStatistics statistics = new GC((FileRepository) repository).getStatistics();
+        return new RepositoryStatistics(statistics.numberOfLooseObjects,
+                                        statistics.numberOfPackFiles);
+    }
+
+    @FunctionalInterface
+    interface StatisticsReader {
+
+        RepositoryStatistics read(Git git) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Collector {
+
+        void collect(Git git,
+                     Mode mode);
+    }
+
+    static class RepositoryStatistics {
+
+        private final long looseObjects;
+        private final long packFiles;
+
+        RepositoryStatistics(final long looseObjects,
+                             final long packFiles) {
+            this.looseObjects = looseObjects;
+            this.packFiles = packFiles;
+        }
+
+        long getLooseObjects() {
+            return looseObjects;
+        }
+
+        long getPackFiles() {
+            return packFiles;
+        }
+    }
+
+    private static class Request {
+
+        private final Git git;
+        private boolean required;
+
+        private Request(final Git git,
+                        final boolean required) {
+            this.git = git;
+            this.required = required;
+        }
+    }
+
+    private static class Candidate {
+
+        private final String name;
+        private final Request request;
+        private RepositoryStatistics statistics;
+        private double score;
+
+        private Candidate(final String name,
+                          final Request request) {
+            this.name = name;
+            this.request = request;
+        }
+    }
+
+    private static class GarbageCollectionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r,
+                                             "jgit-gc-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -37,6 +37,10 @@ public class MemoizedFileSystemsSupplier<T> implements Supplier<T> {
         return t;
     }
 
+    public boolean isLoaded() {
+        return this.map.containsKey(MemoizedFileSystemsSupplier.class);
+    }
+
     public static <T> Supplier<T> of(Supplier<T> provider) {
         return new MemoizedFileSystemsSupplier<>(provider);
     }
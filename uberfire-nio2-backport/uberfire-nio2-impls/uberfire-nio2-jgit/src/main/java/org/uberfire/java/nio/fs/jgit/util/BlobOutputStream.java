@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+
+/**
+ * Output stream that collects the content of a blob to be inserted in a repository.
+ * <p>
+ * Content is kept in memory up to the given threshold, and only spilled to a temporary file when it grows
+ * beyond it, so small files never touch the local disk before being inserted in the object database.
+ */
+public class BlobOutputStream extends OutputStream {
+
+    private final int threshold;
+    private Buffer buffer = new Buffer();
+    private File spillFile;
+    private OutputStream spill;
+    private long length = 0;
+    private boolean closed = false;
+
+    public BlobOutputStream(final int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        ensureOpen();
+        prepare(1);
+        current().write(b);
+        length++;
+    }
+
+    @Override
+    public void write(final byte[] b,
+                      final int off,
+                      final int len) throws IOException {
+        ensureOpen();
+        prepare(len);
+        current().write(b,
+                        off,
+                        len);
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (spill != null) {
+            spill.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (spill != null) {
+                spill.close();
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Inserts the collected content as a blob, the stream must be closed first. The caller is responsible for
+     * flushing the inserter.
+     */
+    public ObjectId insert(final ObjectInserter inserter) throws IOException {
+        if (!closed) {
+            throw new IllegalStateException("Stream must be closed before inserting its content.");
+        }
+        if (spillFile == null) {
+            return inserter.insert(Constants.OBJ_BLOB,
+                                   buffer.data(),
+                                   0,
+                                   buffer.size());
+        }
+        try (final InputStream in = new FileInputStream(spillFile)) {
+            return inserter.insert(Constants.OBJ_BLOB,
+                                   length,
+                                   in);
+        }
+    }
+
+    /**
+     * Releases the memory buffer and deletes the spill file, if any.
+     */
+    public void release() {
+        buffer = null;
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    private OutputStream current() {
+        return spill != null ? spill : buffer;
+    }
+
+    private void prepare(final int len) throws IOException {
+        if (spill == null && length + len > threshold) {
+            spillFile = File.createTempFile("gitz",
+                                            "woot");
+            spill = new BufferedOutputStream(new FileOutputStream(spillFile));
+            buffer.writeTo(spill);
+            buffer = new Buffer();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed.");
+        }
+    }
+
+    private static class Buffer extends ByteArrayOutputStream {
+
+        private byte[] data() {
+            return buf;
+        }
+    }
+}
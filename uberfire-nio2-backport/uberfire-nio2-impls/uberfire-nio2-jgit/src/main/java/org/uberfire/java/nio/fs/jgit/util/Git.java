@@ -219,6 +219,8 @@ public interface Git {
 
     void gc();
 
+    void gc(final boolean aggressive);
+
     RevCommit getCommit(final String commitId);
 
     RevCommit getLastCommit(final String refName);
@@ -231,6 +233,11 @@ public interface Git {
     CommitHistory listCommits(final Ref ref,
                               final String path) throws IOException, GitAPIException;
 
+    CommitHistory listCommits(final Ref ref,
+                              final String path,
+                              final int offset,
+                              final int pageSize) throws IOException, GitAPIException;
+
     List<RevCommit> listCommits(final String startCommitId,
                                 final String endCommitId);
 
@@ -96,6 +96,7 @@ import org.uberfire.java.nio.fs.jgit.util.model.CommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitHistory;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.PathType;
 
 import static org.uberfire.java.nio.fs.jgit.util.commands.PathUtil.normalize;
 
@@ -106,6 +107,7 @@ public class GitImpl implements Git {
     private static int JGIT_RETRY_TIMES = initRetryValue();
     private static final int JGIT_RETRY_SLEEP_TIME = initSleepTime();
     private static final String MASTER_BRANCH = "master";
+    private static boolean HISTORY_INDEX_ENABLED = initHistoryIndexEnabled();
     private boolean isEnabled = false;
 
     private static int initSleepTime() {
@@ -114,6 +116,12 @@ public class GitImpl implements Git {
                           DEFAULT_JGIT_RETRY_SLEEP_TIME).getIntValue();
     }
 
+    private static boolean initHistoryIndexEnabled() {
+        final ConfigProperties config = new ConfigProperties(System.getProperties());
+        return config.get("org.uberfire.nio.git.history.index.enabled",
+                          "false").getBooleanValue();
+    }
+
     private static int initRetryValue() {
         final ConfigProperties config = new ConfigProperties(System.getProperties());
         final String osName = config.get("os.name",
@@ -135,6 +143,8 @@ public class GitImpl implements Git {
     private org.eclipse.jgit.api.Git git;
     private KetchLeaderCache leaders;
     private final AtomicBoolean isHeadInitialized = new AtomicBoolean(false);
+    private final PathInfoCache pathInfoCache = new PathInfoCache();
+    private PathHistoryIndex historyIndex;
 
     public GitImpl(final org.eclipse.jgit.api.Git git) {
         this(git,
@@ -161,6 +171,7 @@ public class GitImpl implements Git {
     public void deleteRef(final Ref ref) {
         new DeleteBranch(this,
                          ref).execute();
+        pathInfoCache.invalidate(Repository.shortenRefName(ref.getName()));
     }
 
     @Override
@@ -186,6 +197,12 @@ public class GitImpl implements Git {
         new GarbageCollector(this).execute();
     }
 
+    @Override
+    public void gc(final boolean aggressive) {
+        new GarbageCollector(this,
+                             aggressive).execute();
+    }
+
     @Override
     public RevCommit getCommit(final String commitId) {
         return new GetCommit(this,
@@ -216,9 +233,53 @@ public class GitImpl implements Git {
     @Override
     public CommitHistory listCommits(final Ref ref,
                                      final String path) throws IOException, GitAPIException {
+        return listCommits(ref,
+                           path,
+                           0,
+                           Integer.MAX_VALUE);
+    }
+
+    @Override
+    public CommitHistory listCommits(final Ref ref,
+                                     final String path,
+                                     final int offset,
+                                     final int pageSize) throws IOException, GitAPIException {
+        if (isIndexedHistory(ref,
+                             path)) {
+            final CommitHistory indexed = getHistoryIndex().history(ref.getName(),
+                                                                    ref.getObjectId(),
+                                                                    normalize(path),
+                                                                    offset,
+                                                                    pageSize);
+            //null while the index of the branch is being built
+            if (indexed != null) {
+                return indexed;
+            }
+        }
         return new ListCommits(this,
                                ref,
-                               path).execute();
+                               path,
+                               offset,
+                               pageSize).execute();
+    }
+
+    private boolean isIndexedHistory(final Ref ref,
+                                     final String path) {
+        //only file histories of real refs are indexed
+        if (!HISTORY_INDEX_ENABLED || path == null || normalize(path).isEmpty() ||
+                ref.getStorage() == Ref.Storage.NEW || ref.getObjectId() == null) {
+            return false;
+        }
+        final PathInfo pathInfo = getPathInfo(ref.getName(),
+                                              path);
+        return pathInfo != null && pathInfo.getPathType() == PathType.FILE;
+    }
+
+    private synchronized PathHistoryIndex getHistoryIndex() {
+        if (historyIndex == null) {
+            historyIndex = new PathHistoryIndex(getRepository());
+        }
+        return historyIndex;
     }
 
     @Override
@@ -270,7 +331,8 @@ public class GitImpl implements Git {
     @Override
     public ObjectId getTreeFromRef(final String treeRef) {
         return new GetTreeFromRef(this,
-                                  treeRef).execute();
+                                  treeRef,
+                                  pathInfoCache).execute();
     }
 
     @Override
@@ -520,7 +582,8 @@ public class GitImpl implements Git {
         return retryIfNeeded(RuntimeException.class,
                              () -> new GetPathInfo(this,
                                                    branchName,
-                                                   path).execute());
+                                                   path,
+                                                   pathInfoCache).execute());
     }
 
     @Override
@@ -529,7 +592,8 @@ public class GitImpl implements Git {
         return retryIfNeeded(RuntimeException.class,
                              () -> new ListPathContent(this,
                                                        branchName,
-                                                       path).execute());
+                                                       path,
+                                                       pathInfoCache).execute());
     }
 
     @Override
@@ -546,14 +610,18 @@ public class GitImpl implements Git {
     public void refUpdate(final String branch,
                           final RevCommit commit)
             throws IOException, ConcurrentRefUpdateException {
-        if (getRepository().getRefDatabase() instanceof RefTreeDatabase) {
-            new RefTreeUpdateCommand(this,
-                                     branch,
-                                     commit).execute();
-        } else {
-            new SimpleRefUpdateCommand(this,
-                                       branch,
-                                       commit).execute();
+        try {
+            if (getRepository().getRefDatabase() instanceof RefTreeDatabase) {
+                new RefTreeUpdateCommand(this,
+                                         branch,
+                                         commit).execute();
+            } else {
+                new SimpleRefUpdateCommand(this,
+                                           branch,
+                                           commit).execute();
+            }
+        } finally {
+            pathInfoCache.invalidate(branch);
         }
     }
 
@@ -579,6 +647,10 @@ public class GitImpl implements Git {
     @Override
     public void updateRepo(final Repository repo) {
         this.git = new org.eclipse.jgit.api.Git(repo);
+        pathInfoCache.clear();
+        synchronized (this) {
+            historyIndex = null;
+        }
     }
 
     @Override
@@ -607,6 +679,11 @@ public class GitImpl implements Git {
         JGIT_RETRY_TIMES = retryTimes;
     }
 
+    //just for test purposes
+    static void setHistoryIndexEnabled(boolean enabled) {
+        HISTORY_INDEX_ENABLED = enabled;
+    }
+
     public static <E extends Throwable, T> T retryIfNeeded(final Class<E> eclazz,
                                                            final ThrowableSupplier<T> supplier) throws E {
         int i = 0;
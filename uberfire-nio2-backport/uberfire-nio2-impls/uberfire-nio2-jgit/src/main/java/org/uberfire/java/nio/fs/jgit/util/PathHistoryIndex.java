@@ -0,0 +1,703 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.config.ConfigProperties;
+import org.uberfire.java.nio.fs.jgit.util.model.CommitHistory;
+
+/**
+ * Persistent, incrementally updated path to commits index of a repository, used to answer file history queries in
+ * time proportional to the size of the result instead of the size of the repository history.
+ * <p>
+ * Each branch has its own append only log file that records for every commit reachable from the branch the paths it
+ * added, modified, deleted or renamed. Commits are numbered in topological order (parents first) as they are
+ * indexed. Index files are kept in the git dir of the repository, unless {@link #INDEX_DIR_PROPERTY} is set. Since
+ * git dirs may be shared by the nodes of a cluster, appends are done under a file lock, and commits recorded twice are
+ * skipped on load.
+ * <p>
+ * Branch indexes are loaded on their first query, and only the most recently used ones are kept in memory (see
+ * {@link #MAX_LOADED_PROPERTY}). A loaded branch index that is up to date, or only behind the branch tip, answers
+ * queries right away, indexing the new commits first. Building or loading an index is done in the background; until
+ * it is ready {@link #history(String, ObjectId, String, int, int)} returns null and callers fall back to walking the
+ * history. If the branch was rewritten the index is rebuilt from scratch.
+ * <p>
+ * Renames are detected on non merge commits only, and a merge commit is only recorded for a path if the path
+ * differs from every parent of the merge.
+ */
+public class PathHistoryIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PathHistoryIndex.class);
+
+    public static final String INDEX_DIR_PROPERTY = "org.uberfire.nio.git.history.index.dir";
+
+    public static final String INDEX_DIR = "uf-history-index";
+
+    public static final String MAX_LOADED_PROPERTY = "org.uberfire.nio.git.history.index.maxLoaded";
+
+    private static final int MAX_LOADED = new ConfigProperties(System.getProperties())
+            .get(MAX_LOADED_PROPERTY,
+                 "16").getIntValue();
+
+    private static final byte COMMIT = 'C';
+    private static final byte MODIFY = 'M';
+    private static final byte DELETE = 'D';
+    private static final byte RENAME = 'R';
+    private static final byte CHECKPOINT = 'T';
+
+    private static final Executor BUILDER = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r,
+                                         "uf-history-index-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //file locks are held by the JVM, so index files are also guarded in process
+    private static final Map<String, ReentrantLock> FILE_LOCKS = new ConcurrentHashMap<>();
+
+    //loaded branch indexes of every repository, least recently used first; guarded by itself
+    private static final Map<BranchIndex, Boolean> LOADED = new LinkedHashMap<>(16,
+                                                                                0.75f,
+                                                                                true);
+
+    private final Repository repository;
+    private final File indexDir;
+    private final Executor builder;
+    private final Map<String, BranchIndex> branches = new ConcurrentHashMap<>();
+
+    public PathHistoryIndex(final Repository repository) {
+        this(repository,
+             defaultIndexDir(repository),
+             BUILDER);
+    }
+
+    PathHistoryIndex(final Repository repository,
+                     final File indexDir,
+                     final Executor builder) {
+        this.repository = repository;
+        this.indexDir = indexDir;
+        this.builder = builder;
+    }
+
+    /**
+     * Returns a page of the history of the given path on the given branch, newest commits first, or null if the
+     * index of the branch is still being built.
+     * @param branchName branch name, as used on its ref
+     * @param tip current tip of the branch
+     * @param path path to follow, renames included
+     * @param offset number of newest commits to skip
+     * @param pageSize max number of commits to return
+     */
+    public CommitHistory history(final String branchName,
+                                 final ObjectId tip,
+                                 final String path,
+                                 final int offset,
+                                 final int pageSize) throws IOException {
+        final BranchIndex branchIndex = branches.computeIfAbsent(branchName,
+                                                                 name -> new BranchIndex(indexFile(name)));
+        final CommitHistory history = branchIndex.tryHistory(tip,
+                                                             path,
+                                                             offset,
+                                                             pageSize);
+        if (history != null) {
+            return history;
+        }
+        branchIndex.scheduleBuild(tip);
+        //the build may already be done, e.g. if the builder runs on the calling thread
+        return branchIndex.tryHistory(tip,
+                                      path,
+                                      offset,
+                                      pageSize);
+    }
+
+    public void clear() {
+        branches.values().forEach(BranchIndex::unload);
+        branches.clear();
+    }
+
+    private File indexFile(final String branchName) {
+        try {
+            return new File(indexDir,
+                            URLEncoder.encode(branchName,
+                                              "UTF-8") + ".idx");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File defaultIndexDir(final Repository repository) {
+        final String indexDir = System.getProperty(INDEX_DIR_PROPERTY);
+        if (indexDir == null) {
+            return new File(repository.getDirectory(),
+                            INDEX_DIR);
+        }
+        return new File(indexDir,
+                        repositoryDirName(repository));
+    }
+
+    /**
+     * Records the given branch index as the most recently used one, unloading the least recently used ones above
+     * {@link #MAX_LOADED}.
+     */
+    private static void touch(final BranchIndex branchIndex) {
+        final List<BranchIndex> evicted = new ArrayList<>();
+        synchronized (LOADED) {
+            LOADED.put(branchIndex,
+                       Boolean.TRUE);
+            final Iterator<BranchIndex> it = LOADED.keySet().iterator();
+            while (LOADED.size() - evicted.size() > MAX_LOADED && it.hasNext()) {
+                final BranchIndex eldest = it.next();
+                if (eldest != branchIndex) {
+                    evicted.add(eldest);
+                }
+            }
+        }
+        evicted.forEach(BranchIndex::unload);
+    }
+
+    private static String repositoryDirName(final Repository repository) {
+        final File gitDir = repository.getDirectory().getAbsoluteFile();
+        final byte[] hash = Constants.newMessageDigest().digest(gitDir.getPath().getBytes(StandardCharsets.UTF_8));
+        return gitDir.getName() + "-" + ObjectId.fromRaw(hash).name().substring(0,
+                                                                                16);
+    }
+
+    private static class Change {
+
+        private final int seq;
+        private final byte type;
+        private final String path;
+        private final String oldPath;
+
+        private Change(final int seq,
+                       final byte type,
+                       final String path,
+                       final String oldPath) {
+            this.seq = seq;
+            this.type = type;
+            this.path = path;
+            this.oldPath = oldPath;
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileAction {
+
+        void run(FileChannel channel) throws IOException;
+    }
+
+    private class BranchIndex {
+
+        private final File file;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean buildScheduled = new AtomicBoolean(false);
+        private final List<ObjectId> commits = new ArrayList<>();
+        private final Map<String, List<Change>> changesByPath = new HashMap<>();
+        private ObjectId tip;
+        private boolean loaded = false;
+        private long indexedLength = 0;
+
+        private BranchIndex(final File file) {
+            this.file = file;
+        }
+
+        /**
+         * Answers the query if the index is loaded and either up to date or only behind the given tip, in which case
+         * the new commits are indexed first. Never waits for a build in progress.
+         */
+        CommitHistory tryHistory(final ObjectId currentTip,
+                                 final String path,
+                                 final int offset,
+                                 final int pageSize) throws IOException {
+            if (!lock.tryLock()) {
+                return null;
+            }
+            try {
+                if (!loaded || file.length() != indexedLength) {
+                    return null;
+                }
+                if (!currentTip.equals(tip)) {
+                    if (tip == null || !isAncestor(tip,
+                                                   currentTip)) {
+                        return null;
+                    }
+                    update(currentTip);
+                }
+                touch(this);
+                return query(path,
+                             offset,
+                             pageSize);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void scheduleBuild(final ObjectId currentTip) {
+            if (!buildScheduled.compareAndSet(false,
+                                              true)) {
+                return;
+            }
+            try {
+                builder.execute(() -> build(currentTip.copy()));
+            } catch (final RejectedExecutionException e) {
+                buildScheduled.set(false);
+                LOGGER.warn("Unable to schedule the build of path history index [" + file + "]",
+                            e);
+            }
+        }
+
+        private void build(final ObjectId currentTip) {
+            lock.lock();
+            try {
+                update(currentTip);
+                touch(this);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.warn("Unable to build path history index [" + file + "]",
+                            e);
+            } finally {
+                buildScheduled.set(false);
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Drops the loaded state, unless the index is in use; it is loaded again on its next query.
+         */
+        void unload() {
+            synchronized (LOADED) {
+                LOADED.remove(this);
+            }
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                clearState();
+                loaded = false;
+                indexedLength = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private CommitHistory query(final String path,
+                                    final int offset,
+                                    final int pageSize) throws IOException {
+            final List<RevCommit> result = new ArrayList<>();
+            final Map<AnyObjectId, String> pathByCommit = new HashMap<>();
+            final long max = (long) offset + pageSize;
+            int found = 0;
+
+            try (final RevWalk rw = new RevWalk(repository)) {
+                String curPath = path;
+                int upperSeq = Integer.MAX_VALUE;
+                while (curPath != null && found < max) {
+                    final List<Change> changes = changesByPath.getOrDefault(curPath,
+                                                                            new ArrayList<>());
+                    String nextPath = null;
+                    for (int i = lastBefore(changes,
+                                            upperSeq); i >= 0 && found < max; i--) {
+                        final Change change = changes.get(i);
+                        if (change.type == DELETE) {
+                            continue;
+                        }
+                        if (found++ >= offset) {
+                            final RevCommit commit = rw.parseCommit(commits.get(change.seq));
+                            result.add(commit);
+                            pathByCommit.put(commit.getId(),
+                                             curPath);
+                        }
+                        if (change.type == RENAME) {
+                            nextPath = change.oldPath;
+                            upperSeq = change.seq;
+                            break;
+                        }
+                    }
+                    curPath = nextPath;
+                }
+            }
+            return new CommitHistory(result,
+                                     pathByCommit,
+                                     path);
+        }
+
+        private int lastBefore(final List<Change> changes,
+                               final int upperSeq) {
+            int low = 0;
+            int high = changes.size() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (changes.get(mid).seq < upperSeq) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * Brings the index up to date with the given tip, reloading it first if the file was changed by another
+         * index instance or node. Must be called with {@link #lock} held.
+         */
+        private void update(final ObjectId newTip) throws IOException {
+            try {
+                withFileLock(channel -> {
+                    if (!loaded || channel.size() != indexedLength) {
+                        load(channel);
+                    }
+                    if (!newTip.equals(tip)) {
+                        index(channel,
+                              newTip);
+                    }
+                });
+            } catch (final IOException | RuntimeException e) {
+                //drop the partially indexed batch, it is discarded from the file on next load
+                clearState();
+                loaded = false;
+                throw e;
+            }
+        }
+
+        private void withFileLock(final FileAction action) throws IOException {
+            file.getParentFile().mkdirs();
+            final ReentrantLock fileLock = FILE_LOCKS.computeIfAbsent(file.getAbsolutePath(),
+                                                                      k -> new ReentrantLock());
+            fileLock.lock();
+            try (final FileChannel channel = FileChannel.open(file.toPath(),
+                                                              StandardOpenOption.CREATE,
+                                                              StandardOpenOption.READ,
+                                                              StandardOpenOption.WRITE);
+                 final FileLock ignored = channel.lock()) {
+                action.run(channel);
+            } finally {
+                fileLock.unlock();
+            }
+        }
+
+        private void index(final FileChannel channel,
+                           final ObjectId newTip) throws IOException {
+            if (tip != null && !isAncestor(tip,
+                                           newTip)) {
+                LOGGER.debug("Branch history rewritten, rebuilding path history index [" + file + "]");
+                clearState();
+                channel.truncate(0);
+            }
+
+            channel.position(channel.size());
+            //not closed, closing it would close the channel before its lock is released
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            try (final RevWalk rw = new RevWalk(repository);
+                 final ObjectReader reader = repository.newObjectReader()) {
+                rw.sort(RevSort.TOPO,
+                        true);
+                rw.sort(RevSort.REVERSE,
+                        true);
+                rw.markStart(rw.parseCommit(newTip));
+                if (tip != null) {
+                    rw.markUninteresting(rw.parseCommit(tip));
+                }
+                for (final RevCommit commit : rw) {
+                    indexCommit(rw,
+                                reader,
+                                commit,
+                                out);
+                }
+                out.writeByte(CHECKPOINT);
+                writeId(out,
+                        newTip);
+            }
+            out.flush();
+            tip = newTip.copy();
+            indexedLength = channel.size();
+        }
+
+        private boolean isAncestor(final ObjectId ancestor,
+                                   final ObjectId commit) throws IOException {
+            try (final RevWalk rw = new RevWalk(repository)) {
+                return rw.isMergedInto(rw.parseCommit(ancestor),
+                                       rw.parseCommit(commit));
+            } catch (final MissingObjectException e) {
+                return false;
+            }
+        }
+
+        private void indexCommit(final RevWalk rw,
+                                 final ObjectReader reader,
+                                 final RevCommit commit,
+                                 final DataOutputStream out) throws IOException {
+            final int seq = commits.size();
+            commits.add(commit.copy());
+            out.writeByte(COMMIT);
+            writeId(out,
+                    commit);
+
+            if (commit.getParentCount() > 1) {
+                indexMergeCommit(rw,
+                                 reader,
+                                 commit,
+                                 seq,
+                                 out);
+                return;
+            }
+
+            try (final TreeWalk tw = new TreeWalk(reader)) {
+                tw.setRecursive(true);
+                tw.setFilter(TreeFilter.ANY_DIFF);
+                if (commit.getParentCount() == 0) {
+                    tw.addTree(new EmptyTreeIterator());
+                } else {
+                    tw.addTree(rw.parseCommit(commit.getParent(0)).getTree());
+                }
+                tw.addTree(commit.getTree());
+
+                final RenameDetector renameDetector = new RenameDetector(repository);
+                renameDetector.addAll(DiffEntry.scan(tw));
+                for (final DiffEntry entry : renameDetector.compute(reader,
+                                                                    NullProgressMonitor.INSTANCE)) {
+                    switch (entry.getChangeType()) {
+                        case DELETE:
+                            record(out,
+                                   seq,
+                                   DELETE,
+                                   entry.getOldPath(),
+                                   null);
+                            break;
+                        case RENAME:
+                            record(out,
+                                   seq,
+                                   DELETE,
+                                   entry.getOldPath(),
+                                   null);
+                            record(out,
+                                   seq,
+                                   RENAME,
+                                   entry.getNewPath(),
+                                   entry.getOldPath());
+                            break;
+                        default:
+                            record(out,
+                                   seq,
+                                   MODIFY,
+                                   entry.getNewPath(),
+                                   null);
+                    }
+                }
+            }
+        }
+
+        private void indexMergeCommit(final RevWalk rw,
+                                      final ObjectReader reader,
+                                      final RevCommit commit,
+                                      final int seq,
+                                      final DataOutputStream out) throws IOException {
+            try (final TreeWalk tw = new TreeWalk(reader)) {
+                tw.setRecursive(true);
+                tw.setFilter(TreeFilter.ANY_DIFF);
+                tw.addTree(commit.getTree());
+                for (final RevCommit parent : commit.getParents()) {
+                    tw.addTree(rw.parseCommit(parent).getTree());
+                }
+                while (tw.next()) {
+                    if (!differsFromAllParents(tw)) {
+                        continue;
+                    }
+                    record(out,
+                           seq,
+                           tw.getRawMode(0) == FileMode.MISSING.getBits() ? DELETE : MODIFY,
+                           tw.getPathString(),
+                           null);
+                }
+            }
+        }
+
+        private boolean differsFromAllParents(final TreeWalk tw) {
+            for (int i = 1; i < tw.getTreeCount(); i++) {
+                if (tw.getRawMode(0) == tw.getRawMode(i) && tw.idEqual(0,
+                                                                       i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void record(final DataOutputStream out,
+                            final int seq,
+                            final byte type,
+                            final String path,
+                            final String oldPath) throws IOException {
+            out.writeByte(type);
+            out.writeUTF(path);
+            if (type == RENAME) {
+                out.writeUTF(oldPath);
+            }
+            apply(new Change(seq,
+                             type,
+                             path,
+                             oldPath));
+        }
+
+        private void apply(final Change change) {
+            changesByPath.computeIfAbsent(change.path,
+                                          k -> new ArrayList<>()).add(change);
+        }
+
+        private void writeId(final DataOutputStream out,
+                             final AnyObjectId id) throws IOException {
+            final byte[] raw = new byte[20];
+            id.copyRawTo(raw,
+                         0);
+            out.write(raw);
+        }
+
+        private ObjectId readId(final DataInputStream in) throws IOException {
+            final byte[] raw = new byte[20];
+            in.readFully(raw);
+            return ObjectId.fromRaw(raw);
+        }
+
+        private void clearState() {
+            commits.clear();
+            changesByPath.clear();
+            tip = null;
+        }
+
+        /**
+         * Streams the index up to its last checkpoint, discarding (and truncating) any partially written batch.
+         * Commits recorded more than once are only loaded once.
+         */
+        private void load(final FileChannel channel) throws IOException {
+            clearState();
+            final long size = channel.size();
+            final Set<ObjectId> indexed = new HashSet<>();
+            final List<ObjectId> pendingCommits = new ArrayList<>();
+            final List<Change> pendingChanges = new ArrayList<>();
+            boolean duplicate = false;
+            long checkpointEnd = 0;
+
+            channel.position(0);
+            //not closed, closing it would close the channel before its lock is released
+            final CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            final DataInputStream in = new DataInputStream(counter);
+            try {
+                int next;
+                while ((next = in.read()) >= 0) {
+                    final byte type = (byte) next;
+                    switch (type) {
+                        case COMMIT:
+                            final ObjectId id = readId(in);
+                            duplicate = !indexed.add(id);
+                            if (!duplicate) {
+                                pendingCommits.add(id);
+                            }
+                            break;
+                        case MODIFY:
+                        case DELETE:
+                            final String path = in.readUTF();
+                            if (!duplicate) {
+                                pendingChanges.add(new Change(commits.size() + pendingCommits.size() - 1,
+                                                              type,
+                                                              path,
+                                                              null));
+                            }
+                            break;
+                        case RENAME:
+                            final String newPath = in.readUTF();
+                            final String oldPath = in.readUTF();
+                            if (!duplicate) {
+                                pendingChanges.add(new Change(commits.size() + pendingCommits.size() - 1,
+                                                              type,
+                                                              newPath,
+                                                              oldPath));
+                            }
+                            break;
+                        case CHECKPOINT:
+                            tip = readId(in);
+                            commits.addAll(pendingCommits);
+                            pendingChanges.forEach(this::apply);
+                            pendingCommits.clear();
+                            pendingChanges.clear();
+                            checkpointEnd = counter.getByteCount();
+                            break;
+                        default:
+                            throw new IOException("Corrupted path history index [" + file + "]");
+                    }
+                }
+            } catch (final EOFException | UTFDataFormatException e) {
+                LOGGER.warn("Incomplete path history index [" + file + "], discarding last batch.");
+            } catch (final IOException e) {
+                LOGGER.warn("Unable to read path history index [" + file + "], rebuilding it.",
+                            e);
+                clearState();
+                checkpointEnd = 0;
+            }
+
+            if (checkpointEnd < size) {
+                channel.truncate(checkpointEnd);
+            }
+            indexedLength = checkpointEnd;
+            loaded = true;
+        }
+    }
+}
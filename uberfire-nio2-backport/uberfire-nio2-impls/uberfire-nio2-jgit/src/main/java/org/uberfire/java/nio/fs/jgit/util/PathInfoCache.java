@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+
+/**
+ * Per repository cache of {@link PathInfo} lookups and directory listings.
+ * <p>
+ * Entries are keyed by immutable object ids: branch tips are mapped to their root tree, and path lookups are
+ * keyed by (root tree, path), so a cached entry can never be stale. A branch update only has to drop the tip of
+ * that branch and the entries of its previous tree, which is O(1). Trees are evicted in LRU order.
+ */
+public class PathInfoCache {
+
+    public static final int DEFAULT_MAX_TREES = 32;
+    public static final int DEFAULT_MAX_ENTRIES_PER_TREE = 4096;
+
+    private final int maxEntriesPerTree;
+    private final Map<String, BranchTip> tips = new ConcurrentHashMap<>();
+    private final Map<ObjectId, TreeEntries> trees;
+
+    public PathInfoCache() {
+        this(DEFAULT_MAX_TREES,
+             DEFAULT_MAX_ENTRIES_PER_TREE);
+    }
+
+    public PathInfoCache(final int maxTrees,
+                         final int maxEntriesPerTree) {
+        this.maxEntriesPerTree = maxEntriesPerTree;
+        this.trees = Collections.synchronizedMap(new LinkedHashMap<ObjectId, TreeEntries>(maxTrees + 1,
+                                                                                          0.75f,
+                                                                                          true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ObjectId, TreeEntries> eldest) {
+                return size() > maxTrees;
+            }
+        });
+    }
+
+    public ObjectId getTree(final String branchName,
+                            final ObjectId tip,
+                            final Loader<ObjectId> treeLoader) throws IOException {
+        final BranchTip cached = tips.get(branchName);
+        if (cached != null && cached.tip.equals(tip)) {
+            return cached.tree;
+        }
+        final ObjectId tree = treeLoader.load();
+        if (tree != null) {
+            tips.put(branchName,
+                     new BranchTip(tip.copy(),
+                                   tree.copy()));
+        }
+        return tree;
+    }
+
+    public PathInfo getPathInfo(final ObjectId tree,
+                                final String path,
+                                final Loader<PathInfo> loader) throws IOException {
+        final TreeEntries entries = entries(tree);
+        final PathInfo cached = entries.pathInfos.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        final PathInfo result = loader.load();
+        if (entries.pathInfos.size() < maxEntriesPerTree) {
+            entries.pathInfos.put(path,
+                                  result);
+        }
+        return result;
+    }
+
+    public List<PathInfo> listPathContent(final ObjectId tree,
+                                          final String path,
+                                          final Loader<List<PathInfo>> loader) throws IOException {
+        final TreeEntries entries = entries(tree);
+        final List<PathInfo> cached = entries.listings.get(path);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+        final List<PathInfo> result = loader.load();
+        if (entries.listings.size() < maxEntriesPerTree) {
+            entries.listings.put(path,
+                                 Collections.unmodifiableList(new ArrayList<>(result)));
+        }
+        return result;
+    }
+
+    /**
+     * Drops the cached tip of the given branch, and the entries of the tree it pointed to.
+     */
+    public void invalidate(final String branchName) {
+        final BranchTip removed = tips.remove(branchName);
+        if (removed != null) {
+            trees.remove(removed.tree);
+        }
+    }
+
+    public void clear() {
+        tips.clear();
+        trees.clear();
+    }
+
+    int size() {
+        return trees.size();
+    }
+
+    private TreeEntries entries(final ObjectId tree) {
+        return trees.computeIfAbsent(tree.copy(),
+                                     k -> new TreeEntries());
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        T load() throws IOException;
+    }
+
+    private static class BranchTip {
+
+        private final ObjectId tip;
+        private final ObjectId tree;
+
+        private BranchTip(final ObjectId tip,
+                          final ObjectId tree) {
+            this.tip = tip;
+            this.tree = tree;
+        }
+    }
+
+    private static class TreeEntries {
+
+        private final Map<String, PathInfo> pathInfos = new ConcurrentHashMap<>();
+        private final Map<String, List<PathInfo>> listings = new ConcurrentHashMap<>();
+    }
+}
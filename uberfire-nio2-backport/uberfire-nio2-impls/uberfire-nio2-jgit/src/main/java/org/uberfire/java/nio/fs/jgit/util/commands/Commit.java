@@ -31,6 +31,7 @@ import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.model.BlobCommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitContent;
 import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
 import org.uberfire.java.nio.fs.jgit.util.model.CopyCommitContent;
@@ -126,6 +127,11 @@ public class Commit {
                                                   originId,
                                                   odi,
                                                   (RevertCommitContent) content).execute();
+            } else if (content instanceof BlobCommitContent) {
+                tree = new CreateBlobCommitTree(git,
+                                                originId,
+                                                odi,
+                                                (BlobCommitContent) content).execute();
             } else {
                 tree = Optional.empty();
             }
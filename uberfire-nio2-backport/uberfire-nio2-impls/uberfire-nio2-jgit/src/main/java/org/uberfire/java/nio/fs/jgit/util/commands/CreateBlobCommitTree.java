@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.commands;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.model.BlobCommitContent;
+
+import static org.eclipse.jgit.lib.FileMode.REGULAR_FILE;
+
+public class CreateBlobCommitTree extends BaseCreateCommitTree<BlobCommitContent> {
+
+    public CreateBlobCommitTree(final Git git,
+                                final ObjectId headId,
+                                final ObjectInserter inserter,
+                                final BlobCommitContent commitContent) {
+        super(git,
+              headId,
+              inserter,
+              commitContent);
+    }
+
+    public Optional<ObjectId> execute() {
+        final Map<String, ObjectId> paths = new HashMap<>(commitContent.getContent().size());
+        final Set<String> path2delete = new HashSet<>();
+        commitContent.getContent().forEach((path, blobId) -> {
+            if (blobId == null) {
+                path2delete.add(PathUtil.normalize(path));
+            } else {
+                paths.put(PathUtil.normalize(path),
+                          blobId);
+            }
+        });
+        final AtomicBoolean hasDeletes = new AtomicBoolean(false);
+
+        final DirCacheEditor editor = DirCache.newInCore().editor();
+
+        try {
+            iterateOverTreeWalk(git,
+                                headId,
+                                (walkPath, hTree) -> {
+                                    if (paths.containsKey(walkPath) && paths.get(walkPath).equals(hTree.getEntryObjectId())) {
+                                        paths.remove(walkPath);
+                                    } else if (!paths.containsKey(walkPath) && isDeleted(path2delete,
+                                                                                         walkPath)) {
+                                        hasDeletes.set(true);
+                                        return;
+                                    }
+
+                                    if (paths.get(walkPath) == null) {
+                                        addToTemporaryInCoreIndex(editor,
+                                                                  new DirCacheEntry(walkPath),
+                                                                  hTree.getEntryObjectId(),
+                                                                  hTree.getEntryFileMode());
+                                    }
+                                });
+
+            paths.forEach((key, value) -> addToTemporaryInCoreIndex(editor,
+                                                                    new DirCacheEntry(key),
+                                                                    value,
+                                                                    REGULAR_FILE));
+
+            editor.finish();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        if (paths.isEmpty() && !hasDeletes.get()) {
+            editor.getDirCache().clear();
+            return Optional.empty();
+        }
+
+        return buildTree(editor);
+    }
+
+    private static boolean isDeleted(final Set<String> path2delete,
+                                     final String walkPath) {
+        if (path2delete.isEmpty()) {
+            return false;
+        }
+        if (path2delete.contains(walkPath)) {
+            return true;
+        }
+        for (int i = walkPath.lastIndexOf('/'); i > 0; i = walkPath.lastIndexOf('/',
+                                                                              i - 1)) {
+            if (path2delete.contains(walkPath.substring(0,
+                                                        i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
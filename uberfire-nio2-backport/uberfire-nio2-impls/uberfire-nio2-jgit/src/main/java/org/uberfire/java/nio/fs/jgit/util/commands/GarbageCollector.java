@@ -28,15 +28,23 @@ public class GarbageCollector {
     private Logger logger = LoggerFactory.getLogger(GarbageCollector.class);
 
     private final GitImpl git;
+    private final boolean aggressive;
 
     public GarbageCollector(final GitImpl git) {
+        this(git,
+             false);
+    }
+
+    public GarbageCollector(final GitImpl git,
+                            final boolean aggressive) {
         this.git = git;
+        this.aggressive = aggressive;
     }
 
     public void execute() {
         try {
             if (!(git.getRepository().getRefDatabase() instanceof RefTreeDatabase)) {
-                git._gc().call();
+                git._gc().setAggressive(aggressive).call();
             }
         } catch (GitAPIException | JGitInternalException e) {
             if (this.logger.isDebugEnabled()) {
@@ -16,23 +16,64 @@
 
 package org.uberfire.java.nio.fs.jgit.util.commands;
 
+import java.io.IOException;
+
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.uberfire.java.nio.fs.jgit.util.Git;
+import org.uberfire.java.nio.fs.jgit.util.PathInfoCache;
 
 public class GetTreeFromRef {
 
     private final Git git;
     private final String treeRefName;
+    private final PathInfoCache cache;
 
     public GetTreeFromRef(final Git git,
                           final String treeRefName) {
+        this(git,
+             treeRefName,
+             null);
+    }
+
+    public GetTreeFromRef(final Git git,
+                          final String treeRefName,
+                          final PathInfoCache cache) {
         this.git = git;
         this.treeRefName = treeRefName;
+        this.cache = cache;
     }
 
     public ObjectId execute() {
-        final RevCommit commit = git.getLastCommit(treeRefName);
+        if (cache == null) {
+            final RevCommit commit = git.getLastCommit(treeRefName);
+            if (commit == null) {
+                return null;
+            }
+            return commit.getTree().getId();
+        }
+
+        final Ref ref = git.getRef(treeRefName);
+        if (ref == null) {
+            return null;
+        }
+        try {
+            final ObjectId tip = ref.getTarget().getObjectId();
+            //only real refs are cached, commit ids resolved as refs are not
+            if (tip != null && ref.getStorage() != Ref.Storage.NEW) {
+                return cache.getTree(treeRefName,
+                                     tip,
+                                     () -> treeOf(ref));
+            }
+            return treeOf(ref);
+        } catch (final IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private ObjectId treeOf(final Ref ref) throws IOException {
+        final RevCommit commit = git.getLastCommit(ref);
         if (commit == null) {
             return null;
         }
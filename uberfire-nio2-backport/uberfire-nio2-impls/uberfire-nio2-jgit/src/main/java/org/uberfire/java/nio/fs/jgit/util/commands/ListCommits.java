@@ -53,14 +53,35 @@ public class ListCommits {
     private final ObjectId startRange;
     private final ObjectId endRange;
     private final String path;
+    private final int offset;
+    private final int pageSize;
 
     public ListCommits(final Git git,
                        final Ref ref,
                        final String path) {
+        this(git,
+             ref,
+             path,
+             0,
+             Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lists a page of the history of the path, newest commits first, stopping the walk once the page is complete.
+     * @param offset number of newest commits to skip
+     * @param pageSize max number of commits to return
+     */
+    public ListCommits(final Git git,
+                       final Ref ref,
+                       final String path,
+                       final int offset,
+                       final int pageSize) {
         this.git = git;
         this.path = makeRelative(path);
         this.startRange = null;
         this.endRange = ref.getObjectId();
+        this.offset = offset;
+        this.pageSize = pageSize;
     }
 
     private static String makeRelative(String path) {
@@ -74,6 +95,8 @@ public class ListCommits {
         this.startRange = startRange;
         this.endRange = endRange;
         this.path = null;
+        this.offset = 0;
+        this.pageSize = Integer.MAX_VALUE;
     }
 
     public CommitHistory execute() throws IOException, GitAPIException {
@@ -95,8 +118,13 @@ public class ListCommits {
          * rename callback to map commits to path renames.
          */
         final TreeRevFilter revFilter = createTreeRevFilter(rw, path, renameCaptor);
+        final long max = (long) offset + pageSize;
+        int found = 0;
         String curPath = path;
         for (final RevCommit commit : rw) {
+            if (found >= max) {
+                break;
+            }
             if (revFilter.include(rw, commit)) {
                 @SuppressWarnings("resource")
                 final TreeWalk tw = new TreeWalk(rw.getObjectReader());
@@ -105,9 +133,11 @@ public class ListCommits {
                 tw.addTree(commit.getTree());
                 // Checks for special case that path wasn't deleted in this commit
                 if (tw.next()) {
-                    commits.add(commit);
+                    if (found++ >= offset) {
+                        commits.add(commit);
+                        pathByCommit.put(commit.getId(), curPath);
+                    }
                     // There is a rename to track
-                    pathByCommit.put(commit.getId(), curPath);
                     if (renameCaptor.hasCaptured()) {
                         curPath = renameCaptor.getAndReset().getOldPath();
                     }
@@ -119,7 +149,10 @@ public class ListCommits {
     }
 
     private CommitHistory fullCommitHistory(final RevWalk rw) {
-        final List<RevCommit> commits = stream(rw.spliterator(), false).collect(toList());
+        final List<RevCommit> commits = stream(rw.spliterator(), false)
+                .skip(offset)
+                .limit(pageSize)
+                .collect(toList());
         return new CommitHistory(commits, Collections.emptyMap(), null);
     }
 
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util.model;
+
+import java.util.Map;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Commit content made of blobs that were already inserted in the repository object database, keyed by path.
+ * A null blob id deletes the path, and everything under it when it is a directory.
+ */
+public class BlobCommitContent implements CommitContent {
+
+    private final Map<String, ObjectId> content;
+
+    public BlobCommitContent(final Map<String, ObjectId> content) {
+        this.content = content;
+    }
+
+    public Map<String, ObjectId> getContent() {
+        return content;
+    }
+}
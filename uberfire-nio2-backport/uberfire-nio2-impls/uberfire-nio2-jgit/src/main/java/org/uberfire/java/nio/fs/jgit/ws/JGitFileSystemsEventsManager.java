@@ -21,8 +21,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.uberfire.commons.cluster.ClusterJMSService;
 import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.commons.cluster.ClusterServiceFactory;
 import org.uberfire.java.nio.IOException;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.WatchEvent;
@@ -48,7 +48,7 @@ public class JGitFileSystemsEventsManager {
     }
 
     ClusterService createClusterJMSService() {
-        return new ClusterJMSService();
+        return ClusterServiceFactory.create();
     }
 
     void setupJGitEventsBroadcast() {
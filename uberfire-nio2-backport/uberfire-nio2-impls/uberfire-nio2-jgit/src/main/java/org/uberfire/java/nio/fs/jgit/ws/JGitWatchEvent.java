@@ -34,6 +34,7 @@ public class JGitWatchEvent implements WatchEvent {
     private final String sessionId;
     private final String userName;
     private final String message;
+    private final String commitId;
     private final String changeType;
 
     public JGitWatchEvent(String sessionId,
@@ -42,13 +43,61 @@ public class JGitWatchEvent implements WatchEvent {
                           String changeType,
                           Path oldPath,
                           Path newPath) {
+        this(sessionId,
+             userName,
+             message,
+             null,
+             changeType,
+             oldPath,
+             newPath);
+    }
+
+    public JGitWatchEvent(String sessionId,
+                          String userName,
+                          String message,
+                          String commitId,
+                          String changeType,
+                          Path oldPath,
+                          Path newPath) {
+        this(sessionId,
+             userName,
+             message,
+             commitId,
+             changeType,
+             oldPath != null ? oldPath.toUri() : null,
+             newPath != null ? newPath.toUri() : null);
+    }
+
+    public JGitWatchEvent(String sessionId,
+                          String userName,
+                          String message,
+                          String changeType,
+                          URI oldPath,
+                          URI newPath) {
+        this(sessionId,
+             userName,
+             message,
+             null,
+             changeType,
+             oldPath,
+             newPath);
+    }
+
+    public JGitWatchEvent(String sessionId,
+                          String userName,
+                          String message,
+                          String commitId,
+                          String changeType,
+                          URI oldPath,
+                          URI newPath) {
 
         this.sessionId = sessionId;
         this.userName = userName;
         this.message = message;
+        this.commitId = commitId;
         this.changeType = changeType;
-        this.oldPath = oldPath != null ? oldPath.toUri() : null;
-        this.newPath = newPath != null ? newPath.toUri() : null;
+        this.oldPath = oldPath;
+        this.newPath = newPath;
     }
 
     @Override
@@ -112,6 +161,11 @@ public class JGitWatchEvent implements WatchEvent {
             public String getUser() {
                 return userName;
             }
+
+            @Override
+            public String getVersion() {
+                return commitId;
+            }
         };
     }
 
@@ -123,6 +177,7 @@ public class JGitWatchEvent implements WatchEvent {
                 ", sessionId='" + sessionId + '\'' +
                 ", userName='" + userName + '\'' +
                 ", message='" + message + '\'' +
+                ", commitId='" + commitId + '\'' +
                 ", changeType=" + changeType +
                 '}';
     }
@@ -33,6 +33,7 @@ public class JGitWatchService implements WatchService {
     private final Queue<WatchKey> events = new ConcurrentLinkedQueue<>();
     private final String fsName;
     private Consumer<JGitWatchService> notifyClose;
+    private volatile Consumer<WatchKey> subscriber;
 
     public JGitWatchService(String fsName,
                             Consumer<JGitWatchService> notifyClose) {
@@ -68,6 +69,16 @@ public class JGitWatchService implements WatchService {
         }
     }
 
+    @Override
+    public synchronized boolean subscribe(final Consumer<WatchKey> subscriber) {
+        WatchKey wk;
+        while ((wk = events.poll()) != null) {
+            subscriber.accept(wk);
+        }
+        this.subscriber = subscriber;
+        return true;
+    }
+
     @Override
     public boolean isClose() {
         return wsClose;
@@ -93,6 +104,14 @@ public class JGitWatchService implements WatchService {
     }
 
     public void publish(WatchKey wk) {
-        events.add(wk);
+        if (subscriber == null) {
+            synchronized (this) {
+                if (subscriber == null) {
+                    events.add(wk);
+                    return;
+                }
+            }
+        }
+        subscriber.accept(wk);
     }
 }
\ No newline at end of file
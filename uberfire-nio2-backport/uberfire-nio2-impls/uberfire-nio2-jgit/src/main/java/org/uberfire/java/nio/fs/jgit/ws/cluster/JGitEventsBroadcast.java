@@ -15,12 +15,20 @@
  */
 package org.uberfire.java.nio.fs.jgit.ws.cluster;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uberfire.commons.cluster.BatchingClusterBroadcaster;
+import org.uberfire.commons.cluster.ClusterChannelMetrics;
+import org.uberfire.commons.cluster.ClusterParameters;
 import org.uberfire.commons.cluster.ClusterService;
 import org.uberfire.java.nio.file.Path;
 import org.uberfire.java.nio.file.WatchEvent;
@@ -33,11 +41,30 @@ public class JGitEventsBroadcast {
     private String nodeId = UUID.randomUUID().toString();
     private Consumer<WatchEventsWrapper> eventsPublisher;
     private final ClusterService clusterService;
+    // only created when binary batches are enabled
+    private final BatchingClusterBroadcaster<WatchEventsWrapper> broadcaster;
+    private final Map<String, ClusterChannelMetrics> wrapperMetrics = new ConcurrentHashMap<>();
 
     public JGitEventsBroadcast(ClusterService clusterService,
                                Consumer<WatchEventsWrapper> eventsPublisher) {
+        this(clusterService,
+             eventsPublisher,
+             new ClusterParameters());
+    }
+
+    JGitEventsBroadcast(ClusterService clusterService,
+                        Consumer<WatchEventsWrapper> eventsPublisher,
+                        ClusterParameters clusterParameters) {
         this.clusterService = clusterService;
         this.eventsPublisher = eventsPublisher;
+        if (clusterParameters.isBinaryBatches()) {
+            this.broadcaster = new BatchingClusterBroadcaster<>(clusterService,
+                                                                ClusterService.DestinationType.PubSub,
+                                                                WatchEventsCodec::encode,
+                                                                clusterParameters);
+        } else {
+            this.broadcaster = null;
+        }
         setupJMSConnection();
     }
 
@@ -49,23 +76,80 @@ public class JGitEventsBroadcast {
         clusterService.createConsumer(
                 ClusterService.DestinationType.PubSub,
                 getChannelName(topicName),
-                WatchEventsWrapper.class,
-                (we) -> {
-                    if (!we.getNodeId().equals(nodeId)) {
-                        eventsPublisher.accept(we);
-                    }
-                });
+                Serializable.class,
+                this::consume);
+    }
+
+    void consume(Serializable message) {
+        if (message instanceof byte[]) {
+            try {
+                WatchEventsCodec.decode((byte[]) message).forEach(this::publish);
+            } catch (Exception e) {
+                LOGGER.error("Error decoding cluster watch events: " + e.getMessage());
+            }
+        } else if (message instanceof WatchEventsWrapper) {
+            // sent by a node that does not batch its events
+            publish((WatchEventsWrapper) message);
+        }
+    }
+
+    private void publish(WatchEventsWrapper we) {
+        if (!we.getNodeId().equals(nodeId)) {
+            eventsPublisher.accept(we);
+        }
+    }
+
+    /**
+     * Sends the events to the other nodes. Unless {@link ClusterParameters#APPFORMER_JMS_BINARY_BATCHES} is enabled,
+     * each call is sent as a serialized {@link WatchEventsWrapper}, which every node version understands; the binary
+     * batches must only be enabled once every node of the cluster runs a version that reads them.
+     */
+    public void broadcast(String fsName,
+                          Path watchable,
+                          List<WatchEvent<?>> events) {
+        final WatchEventsWrapper wrapper = new WatchEventsWrapper(nodeId,
+                                                                  fsName,
+                                                                  watchable,
+                                                                  new ArrayList<>(events));
+        if (broadcaster != null) {
+            broadcaster.broadcast(getChannelName(fsName),
+                                  wrapper);
+        } else {
+            broadcastWrapper(getChannelName(fsName),
+                             wrapper);
+        }
+    }
+
+    private synchronized void broadcastWrapper(String channelName,
+                                               WatchEventsWrapper wrapper) {
+        final ClusterChannelMetrics metrics = wrapperMetrics.computeIfAbsent(channelName,
+                                                                             name -> new ClusterChannelMetrics());
+        final long queued = System.currentTimeMillis();
+        metrics.recordQueued();
+        try {
+            clusterService.broadcast(ClusterService.DestinationType.PubSub,
+                                     channelName,
+                                     wrapper);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(1);
+            throw e;
+        }
+        metrics.recordSent(1,
+                           0,
+                           System.currentTimeMillis() - queued);
     }
 
-    public synchronized void broadcast(String fsName,
-                                       Path watchable,
-                                       List<WatchEvent<?>> events) {
-        clusterService.broadcast(ClusterService.DestinationType.PubSub,
-                                 getChannelName(fsName),
-                                 new WatchEventsWrapper(nodeId,
-                                                        fsName,
-                                                        watchable,
-                                                        events));
+    public Map<String, ClusterChannelMetrics> getMetrics() {
+        if (broadcaster != null) {
+            return broadcaster.getMetrics();
+        }
+        return Collections.unmodifiableMap(wrapperMetrics);
+    }
+
+    void flush() {
+        if (broadcaster != null) {
+            broadcaster.flush();
+        }
     }
 
     private String getChannelName(String fsName) {
@@ -78,6 +162,9 @@ public class JGitEventsBroadcast {
     }
 
     public void close() {
+        if (broadcaster != null) {
+            broadcaster.close();
+        }
         clusterService.close();
     }
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.ws.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.uberfire.java.nio.IOException;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.fs.jgit.ws.JGitWatchEvent;
+
+/**
+ * Compact binary encoding of a batch of {@link WatchEventsWrapper}s, used instead of Java serialization to send
+ * them to the other nodes of the cluster.
+ * <p>
+ * Consecutive wrappers of the same node, file system and watchable are coalesced into one, and the payload is
+ * deflated, so the repeated node ids, file system names and path prefixes take little space.
+ */
+public final class WatchEventsCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final WatchEvent.Kind<?>[] KINDS = {
+            StandardWatchEventKind.ENTRY_CREATE,
+            StandardWatchEventKind.ENTRY_DELETE,
+            StandardWatchEventKind.ENTRY_MODIFY,
+            StandardWatchEventKind.ENTRY_RENAME
+    };
+
+    // change types JGitWatchEvent maps back to the kinds above
+    private static final String[] CHANGE_TYPES = {"ADD", "DELETE", "MODIFY", "RENAME"};
+
+    private WatchEventsCodec() {
+    }
+
+    public static byte[] encode(final List<WatchEventsWrapper> wrappers) {
+        final List<WatchEventsWrapper> coalesced = coalesce(wrappers);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(coalesced.size());
+            for (final WatchEventsWrapper wrapper : coalesced) {
+                writeString(out,
+                            wrapper.getNodeId());
+                writeString(out,
+                            wrapper.getFsName());
+                writeUri(out,
+                         wrapper.getWatchableUri());
+                final List<WatchEvent<?>> events = eventsOf(wrapper);
+                out.writeInt(events.size());
+                for (final WatchEvent<?> event : events) {
+                    writeEvent(out,
+                               event);
+                }
+            }
+        } catch (java.io.IOException e) {
+            throw new IOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<WatchEventsWrapper> decode(final byte[] payload) {
+        try (final DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+            final byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported watch events format version: " + version);
+            }
+            final int wrapperCount = in.readInt();
+            final List<WatchEventsWrapper> wrappers = new ArrayList<>(wrapperCount);
+            for (int i = 0; i < wrapperCount; i++) {
+                final String nodeId = readString(in);
+                final String fsName = readString(in);
+                final URI watchable = readUri(in);
+                final int eventCount = in.readInt();
+                final List<WatchEvent<?>> events = new ArrayList<>(eventCount);
+                for (int j = 0; j < eventCount; j++) {
+                    events.add(readEvent(in));
+                }
+                wrappers.add(new WatchEventsWrapper(nodeId,
+                                                    fsName,
+                                                    watchable,
+                                                    events));
+            }
+            return wrappers;
+        } catch (java.io.IOException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static List<WatchEventsWrapper> coalesce(final List<WatchEventsWrapper> wrappers) {
+        final List<WatchEventsWrapper> coalesced = new ArrayList<>(wrappers.size());
+        WatchEventsWrapper last = null;
+        for (final WatchEventsWrapper wrapper : wrappers) {
+            if (last != null &&
+                    Objects.equals(last.getNodeId(),
+                                   wrapper.getNodeId()) &&
+                    Objects.equals(last.getFsName(),
+                                   wrapper.getFsName()) &&
+                    Objects.equals(last.getWatchableUri(),
+                                   wrapper.getWatchableUri())) {
+                final List<WatchEvent<?>> events = new ArrayList<>(eventsOf(last));
+                events.addAll(eventsOf(wrapper));
+                last = new WatchEventsWrapper(last.getNodeId(),
+                                              last.getFsName(),
+                                              last.getWatchableUri(),
+                                              events);
+                coalesced.set(coalesced.size() - 1,
+                              last);
+            } else {
+                last = wrapper;
+                coalesced.add(wrapper);
+            }
+        }
+        return coalesced;
+    }
+
+    private static List<WatchEvent<?>> eventsOf(final WatchEventsWrapper wrapper) {
+        return wrapper.getEvents() != null ? wrapper.getEvents() : Collections.emptyList();
+    }
+
+    private static void writeEvent(final DataOutputStream out,
+                                   final WatchEvent<?> event) throws java.io.IOException {
+        out.writeByte(kindIndex(event.kind()));
+        final WatchContext context = event.context() instanceof WatchContext ? (WatchContext) event.context() : null;
+        writeString(out,
+                    context != null ? context.getSessionId() : null);
+        writeString(out,
+                    context != null ? context.getUser() : null);
+        writeString(out,
+                    context != null ? context.getMessage() : null);
+        writeUri(out,
+                 context != null ? toUri(context.getOldPath()) : null);
+        writeUri(out,
+                 context != null ? toUri(context.getPath()) : null);
+    }
+
+    private static WatchEvent<?> readEvent(final DataInputStream in) throws java.io.IOException {
+        final byte kind = in.readByte();
+        if (kind < 0 || kind >= CHANGE_TYPES.length) {
+            throw new IOException("Unsupported watch event kind: " + kind);
+        }
+        final String sessionId = readString(in);
+        final String user = readString(in);
+        final String message = readString(in);
+        final URI oldPath = readUri(in);
+        final URI newPath = readUri(in);
+        return new JGitWatchEvent(sessionId,
+                                  user,
+                                  message,
+                                  CHANGE_TYPES[kind],
+                                  oldPath,
+                                  newPath);
+    }
+
+    private static int kindIndex(final WatchEvent.Kind<?> kind) {
+        for (int i = 0; i < KINDS.length; i++) {
+            if (KINDS[i].name().equals(kind.name())) {
+                return i;
+            }
+        }
+        throw new IOException("Unsupported watch event kind: " + kind.name());
+    }
+
+    private static URI toUri(final Path path) {
+        return path != null ? path.toUri() : null;
+    }
+
+    private static void writeUri(final DataOutputStream out,
+                                 final URI uri) throws java.io.IOException {
+        writeString(out,
+                    uri != null ? uri.toString() : null);
+    }
+
+    private static URI readUri(final DataInputStream in) throws java.io.IOException {
+        final String uri = readString(in);
+        return uri != null ? URI.create(uri) : null;
+    }
+
+    private static void writeString(final DataOutputStream out,
+                                    final String value) throws java.io.IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws java.io.IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes,
+                          StandardCharsets.UTF_8);
+    }
+}
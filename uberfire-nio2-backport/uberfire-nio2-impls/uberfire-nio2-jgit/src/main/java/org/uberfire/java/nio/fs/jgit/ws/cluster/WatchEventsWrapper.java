@@ -35,10 +35,25 @@ public class WatchEventsWrapper implements Serializable {
                               Path watchable,
                               List<WatchEvent<?>> events) {
 
+        this(nodeId,
+             fsName,
+             watchable != null ? watchable.toUri() : null,
+             events);
+    }
+
+    WatchEventsWrapper(String nodeId,
+                       String fsName,
+                       URI watchable,
+                       List<WatchEvent<?>> events) {
+
         this.nodeId = nodeId;
         this.fsName = fsName;
         this.events = events;
-        this.watchable = watchable != null ? watchable.toUri() : null;
+        this.watchable = watchable;
+    }
+
+    URI getWatchableUri() {
+        return watchable;
     }
 
     public String getFsName() {
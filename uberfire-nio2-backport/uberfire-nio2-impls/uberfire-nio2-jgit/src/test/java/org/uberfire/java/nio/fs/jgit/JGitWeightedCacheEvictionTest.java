@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.fs.jgit.manager.JGitFileSystemsCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration.JGIT_CACHE_EVICT_THRESHOLD_DURATION;
+import static org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration.JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT;
+import static org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration.JGIT_CACHE_MAX_WEIGHT;
+import static org.uberfire.java.nio.fs.jgit.JGitFileSystemProviderConfiguration.JGIT_CACHE_WEIGHTED;
+
+public class JGitWeightedCacheEvictionTest extends AbstractTestInfra {
+
+    private JGitFileSystemsCache fsCache;
+
+    @Before
+    public void createGitFsProvider() {
+        Map<String, String> gitPreferences = getGitPreferences();
+        gitPreferences.put(JGIT_CACHE_EVICT_THRESHOLD_DURATION, "1");
+        gitPreferences.put(JGIT_CACHE_EVICT_THRESHOLD_TIME_UNIT, TimeUnit.MILLISECONDS.name());
+        gitPreferences.put(JGIT_CACHE_WEIGHTED, "true");
+        //any loaded file system is over budget
+        gitPreferences.put(JGIT_CACHE_MAX_WEIGHT, "1");
+        provider = new JGitFileSystemProvider(gitPreferences);
+        fsCache = provider.getFsManager().getFsCache();
+    }
+
+    @Test
+    public void pathKeepsWorkingAfterItsFileSystemIsEvicted() throws Exception {
+        provider.newFileSystem(URI.create("git://evicted-repo"),
+                               EMPTY_ENV);
+        final Path path = provider.getPath(URI.create("git://master@evicted-repo/file.txt"));
+        write(path,
+              "before eviction");
+
+        //let the file system stop being considered in use
+        Thread.sleep(50);
+        provider.newFileSystem(URI.create("git://other-repo"),
+                               EMPTY_ENV);
+
+        assertThat(fsCache.getCacheInfo().memoizedFileSystemsCacheKeys()).doesNotContain("evicted-repo");
+        assertThat(fsCache.getCacheInfo().evictionCount()).isGreaterThanOrEqualTo(1);
+
+        //give a pending close, if any, the chance to run on the evictor thread
+        Thread.sleep(200);
+
+        assertThat(read(path)).isEqualTo("before eviction");
+        write(path,
+              "after eviction");
+        assertThat(read(path)).isEqualTo("after eviction");
+        assertThat(read(provider.getPath(URI.create("git://master@evicted-repo/file.txt")))).isEqualTo("after eviction");
+    }
+
+    private void write(final Path path,
+                       final String content) throws IOException {
+        try (OutputStream out = provider.newOutputStream(path)) {
+            out.write(content.getBytes());
+        }
+    }
+
+    private String read(final Path path) {
+        try (InputStream in = provider.newInputStream(path);
+             Scanner scanner = new Scanner(in)) {
+            return scanner.useDelimiter("\\A").next();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
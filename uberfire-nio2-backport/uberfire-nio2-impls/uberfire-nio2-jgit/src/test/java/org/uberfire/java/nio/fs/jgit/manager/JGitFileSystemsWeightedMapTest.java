@@ -0,0 +1,277 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.JGitFileSystem;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class JGitFileSystemsWeightedMapTest {
+
+    private static final long IDLE_TIMEOUT = 1000;
+
+    private JGitFileSystemWeigher weigher;
+    private JGitFileSystemsCacheMetrics metrics;
+    private AtomicLong clock;
+    private JGitFileSystemsWeightedMap map;
+
+    @Before
+    public void setup() {
+        weigher = mock(JGitFileSystemWeigher.class);
+        metrics = new JGitFileSystemsCacheMetrics();
+        clock = new AtomicLong();
+        map = new JGitFileSystemsWeightedMap(100,
+                                             IDLE_TIMEOUT,
+                                             weigher,
+                                             metrics,
+                                             Runnable::run,
+                                             clock::get);
+    }
+
+    @Test
+    public void evictLeastRecentlyUsedWhenOverBudget() {
+        final JGitFileSystem fs1 = fileSystem(60);
+        final JGitFileSystem fs2 = fileSystem(60);
+
+        map.putIfAbsent("fs1",
+                        loaded(fs1));
+        map.putIfAbsent("fs2",
+                        loaded(fs2));
+
+        assertFalse(map.containsKey("fs1"));
+        assertTrue(map.containsKey("fs2"));
+        assertEquals(60,
+                     map.getTotalWeight());
+        assertEquals(1,
+                     metrics.evictionCount());
+        assertEquals(60,
+                     metrics.evictedWeight());
+        assertEquals(60,
+                     metrics.weight());
+        //fs1 is still referenced, so its repository must stay open
+        assertEquals(1,
+                     map.getPendingCloseCount());
+        verify(fs1.getGit().getRepository(),
+               never()).close();
+        verify(fs2.getGit().getRepository(),
+               never()).close();
+    }
+
+    @Test
+    public void repositoryIsClosedOnceEvictedFileSystemIsReleased() throws Exception {
+        final Repository repository = mock(Repository.class);
+        final JGitFileSystemsWeightedMap map = new JGitFileSystemsWeightedMap(100,
+                                                                              IDLE_TIMEOUT,
+                                                                              new JGitFileSystemWeigher() {
+                                                                                  @Override
+                                                                                  public long weigh(final JGitFileSystem fs) {
+                                                                                      return 60;
+                                                                                  }
+                                                                              },
+                                                                              metrics,
+                                                                              Runnable::run,
+                                                                              clock::get);
+        putUnreferencedFileSystem(map,
+                                  "fs1",
+                                  repository);
+        putUnreferencedFileSystem(map,
+                                  "fs2",
+                                  mock(Repository.class));
+        assertFalse(map.containsKey("fs1"));
+
+        for (int i = 0; i < 100 && map.getPendingCloseCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            map.evict();
+        }
+
+        assertEquals(0,
+                     map.getPendingCloseCount());
+        verify(repository).close();
+    }
+
+    @Test
+    public void recentlyAccessedFileSystemIsKept() {
+        final JGitFileSystem fs1 = fileSystem(40);
+        final JGitFileSystem fs2 = fileSystem(40);
+        final JGitFileSystem fs3 = fileSystem(40);
+
+        map.putIfAbsent("fs1",
+                        loaded(fs1));
+        map.putIfAbsent("fs2",
+                        loaded(fs2));
+        map.get("fs1");
+        map.putIfAbsent("fs3",
+                        loaded(fs3));
+
+        assertTrue(map.containsKey("fs1"));
+        assertFalse(map.containsKey("fs2"));
+        assertTrue(map.containsKey("fs3"));
+    }
+
+    @Test
+    public void fileSystemsInUseAreNotEvicted() {
+        final JGitFileSystem fs1 = fileSystem(60);
+        when(fs1.hasBeenInUse()).thenReturn(true);
+        final JGitFileSystem fs2 = fileSystem(60);
+
+        map.putIfAbsent("fs1",
+                        loaded(fs1));
+        map.putIfAbsent("fs2",
+                        loaded(fs2));
+
+        assertTrue(map.containsKey("fs1"));
+        assertFalse(map.containsKey("fs2"));
+        verify(fs1.getGit().getRepository(),
+               never()).close();
+    }
+
+    @Test
+    public void notLoadedFileSystemsAreNotWeighedNorEvicted() {
+        final JGitFileSystem fs1 = fileSystem(200);
+        final Supplier<JGitFileSystem> notLoaded = MemoizedFileSystemsSupplier.of(() -> fs1);
+
+        map.putIfAbsent("fs1",
+                        notLoaded);
+
+        assertTrue(map.containsKey("fs1"));
+        assertEquals(0,
+                     map.getTotalWeight());
+        verify(weigher,
+               never()).weigh(any());
+    }
+
+    @Test
+    public void evictIdleFileSystems() {
+        final JGitFileSystem fs1 = fileSystem(10);
+        final JGitFileSystem fs2 = fileSystem(10);
+
+        map.putIfAbsent("fs1",
+                        loaded(fs1));
+        clock.set(IDLE_TIMEOUT / 2);
+        map.putIfAbsent("fs2",
+                        loaded(fs2));
+
+        clock.set(IDLE_TIMEOUT);
+        map.evict();
+
+        assertFalse(map.containsKey("fs1"));
+        assertTrue(map.containsKey("fs2"));
+
+        clock.set(IDLE_TIMEOUT * 2);
+        map.evict();
+
+        assertTrue(map.isEmpty());
+        assertEquals(0,
+                     map.getTotalWeight());
+        assertEquals(2,
+                     metrics.evictionCount());
+    }
+
+    @Test
+    public void removeAndClearReleaseWeight() {
+        map.putIfAbsent("fs1",
+                        loaded(fileSystem(30)));
+        map.putIfAbsent("fs2",
+                        loaded(fileSystem(30)));
+        map.evict();
+        assertEquals(60,
+                     map.getTotalWeight());
+
+        map.remove("fs1");
+        assertEquals(30,
+                     map.getTotalWeight());
+
+        map.clear();
+        assertEquals(0,
+                     map.getTotalWeight());
+        assertEquals(0,
+                     metrics.weight());
+        assertEquals(0,
+                     metrics.evictionCount());
+    }
+
+    @Test
+    public void evictorIsStoppedWhenTheCacheIsCleared() throws Exception {
+        final JGitFileSystemsCacheDataStructure.Evictor evictor = new JGitFileSystemsCacheDataStructure.Evictor(60);
+        evictor.setSweep(() -> {
+        });
+        assertFalse(evictor.isRunning());
+
+        evictor.start();
+        assertTrue(evictor.isRunning());
+
+        evictor.shutdown();
+        assertFalse(evictor.isRunning());
+
+        //a cache that is used again after being cleared starts a new thread
+        final CountDownLatch closed = new CountDownLatch(1);
+        evictor.execute(closed::countDown);
+        assertTrue(closed.await(5,
+                                TimeUnit.SECONDS));
+        assertTrue(evictor.isRunning());
+        evictor.shutdown();
+    }
+
+    private void putUnreferencedFileSystem(final JGitFileSystemsWeightedMap map,
+                                           final String key,
+                                           final Repository repository) {
+        final Git git = mock(Git.class);
+        when(git.getRepository()).thenReturn(repository);
+        //not a mock, so nothing but the cache references the file system
+        final JGitFileSystem fs = (JGitFileSystem) Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                                         new Class<?>[]{JGitFileSystem.class},
+                                                                         (proxy, method, args) -> {
+                                                                             if (method.getName().equals("getGit")) {
+                                                                                 return git;
+                                                                             }
+                                                                             if (method.getName().equals("hasBeenInUse")) {
+                                                                                 return false;
+                                                                             }
+                                                                             return null;
+                                                                         });
+        map.putIfAbsent(key,
+                        loaded(fs));
+    }
+
+    private Supplier<JGitFileSystem> loaded(final JGitFileSystem fs) {
+        final Supplier<JGitFileSystem> supplier = MemoizedFileSystemsSupplier.of(() -> fs);
+        supplier.get();
+        return supplier;
+    }
+
+    private JGitFileSystem fileSystem(final long weight) {
+        final JGitFileSystem fs = mock(JGitFileSystem.class);
+        final Git git = mock(Git.class);
+        final Repository repository = mock(Repository.class);
+        when(fs.getGit()).thenReturn(git);
+        when(git.getRepository()).thenReturn(repository);
+        when(weigher.weigh(fs)).thenReturn(weight);
+        return fs;
+    }
+}
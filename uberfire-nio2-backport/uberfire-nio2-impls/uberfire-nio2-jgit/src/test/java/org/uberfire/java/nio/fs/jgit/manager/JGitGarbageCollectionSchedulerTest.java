@@ -0,0 +1,267 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.manager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollectionScheduler.Mode;
+import org.uberfire.java.nio.fs.jgit.manager.JGitGarbageCollectionScheduler.RepositoryStatistics;
+import org.uberfire.java.nio.fs.jgit.util.Git;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class JGitGarbageCollectionSchedulerTest {
+
+    private Map<Git, RepositoryStatistics> statistics;
+    private Map<Git, String> names;
+    private List<String> collected;
+    private List<Mode> modes;
+    private List<String> threads;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private JGitGarbageCollectionScheduler scheduler;
+
+    @Before
+    public void setup() {
+        statistics = new HashMap<>();
+        names = new HashMap<>();
+        collected = new CopyOnWriteArrayList<>();
+        modes = new CopyOnWriteArrayList<>();
+        threads = new CopyOnWriteArrayList<>();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(0);
+        scheduler = new JGitGarbageCollectionScheduler(1,
+                                                       1.0,
+                                                       100,
+                                                       10,
+                                                       git -> statistics.get(git),
+                                                       (git, mode) -> {
+                                                           started.countDown();
+                                                           await(release);
+                                                           collected.add(names.get(git));
+                                                           modes.add(mode);
+                                                           threads.add(Thread.currentThread().getName());
+                                                       });
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void collectsOnBackgroundThread() throws Exception {
+        scheduler.schedule("repo",
+                           git("repo",
+                               200,
+                               1));
+
+        waitFor(() -> collected.size() == 1);
+
+        assertEquals("repo",
+                     collected.get(0));
+        assertEquals(Mode.REPACK,
+                     modes.get(0));
+        assertNotEquals(Thread.currentThread().getName(),
+                        threads.get(0));
+        assertTrue(threads.get(0).startsWith("jgit-gc-"));
+        waitFor(() -> scheduler.getMetrics().getRepositoryMetrics("repo") != null);
+        assertEquals(1,
+                     scheduler.getMetrics().getRepositoryMetrics("repo").runCount());
+        assertEquals(Mode.REPACK,
+                     scheduler.getMetrics().getRepositoryMetrics("repo").lastMode());
+    }
+
+    @Test
+    public void requestsForTheSameRepositoryAreCoalesced() throws Exception {
+        release = new CountDownLatch(1);
+        final Git blocker = git("blocker",
+                                200,
+                                1);
+        final Git repo = git("repo",
+                             200,
+                             1);
+
+        scheduler.schedule("blocker",
+                           blocker);
+        assertTrue(started.await(10,
+                                 TimeUnit.SECONDS));
+        scheduler.schedule("repo",
+                           repo);
+        scheduler.schedule("repo",
+                           repo);
+        scheduler.schedule("repo",
+                           repo);
+        assertEquals(1,
+                     scheduler.getPendingCount());
+
+        release.countDown();
+        waitFor(() -> collected.size() == 2);
+        Thread.sleep(100);
+
+        assertEquals(2,
+                     collected.size());
+        assertEquals(4,
+                     scheduler.getMetrics().requestCount());
+    }
+
+    @Test
+    public void mostFragmentedRepositoryIsCollectedFirst() throws Exception {
+        release = new CountDownLatch(1);
+
+        scheduler.schedule("blocker",
+                           git("blocker",
+                               200,
+                               1));
+        assertTrue(started.await(10,
+                                 TimeUnit.SECONDS));
+        scheduler.schedule("loose",
+                           git("loose",
+                               150,
+                               1));
+        scheduler.schedule("packs",
+                           git("packs",
+                               0,
+                               30));
+        release.countDown();
+
+        waitFor(() -> collected.size() == 3);
+
+        assertEquals("packs",
+                     collected.get(1));
+        assertEquals(Mode.REPACK,
+                     modes.get(1));
+        assertEquals("loose",
+                     collected.get(2));
+        assertEquals(Mode.REPACK,
+                     modes.get(2));
+    }
+
+    @Test
+    public void compactRepositoriesAreSkipped() throws Exception {
+        scheduler.schedule("repo",
+                           git("repo",
+                               10,
+                               1));
+
+        waitFor(() -> scheduler.getMetrics().skipCount() == 1);
+
+        assertTrue(collected.isEmpty());
+        assertNull(scheduler.getMetrics().getRepositoryMetrics("repo"));
+    }
+
+    @Test
+    public void repositoryIsCollectedAgainWhenRequestedWhileRunning() throws Exception {
+        release = new CountDownLatch(1);
+        final Git repo = git("repo",
+                             200,
+                             1);
+
+        scheduler.schedule("repo",
+                           repo);
+        assertTrue(started.await(10,
+                                 TimeUnit.SECONDS));
+        scheduler.schedule("repo",
+                           repo);
+        release.countDown();
+
+        waitFor(() -> collected.size() == 2);
+    }
+
+    @Test
+    public void requiredCollectionRunsOnCompactRepositories() throws Exception {
+        scheduler.schedule("repo",
+                           git("repo",
+                               10,
+                               1),
+                           true);
+
+        waitFor(() -> collected.size() == 1);
+
+        assertEquals(Mode.AGGRESSIVE,
+                     modes.get(0));
+        assertEquals(0,
+                     scheduler.getMetrics().skipCount());
+    }
+
+    @Test
+    public void selectMode() {
+        assertEquals(Mode.REPACK,
+                     scheduler.selectMode(null,
+                                          false));
+        assertNull(scheduler.selectMode(new RepositoryStatistics(99,
+                                                                 9),
+                                        false));
+        assertEquals(Mode.AGGRESSIVE,
+                     scheduler.selectMode(null,
+                                          true));
+        assertEquals(Mode.AGGRESSIVE,
+                     scheduler.selectMode(new RepositoryStatistics(99,
+                                                                   9),
+                                          true));
+        assertEquals(Mode.REPACK,
+                     scheduler.selectMode(new RepositoryStatistics(100,
+                                                                   9),
+                                          false));
+        assertEquals(Mode.REPACK,
+                     scheduler.selectMode(new RepositoryStatistics(0,
+                                                                   10),
+                                          false));
+    }
+
+    private Git git(final String name,
+                    final long looseObjects,
+                    final long packFiles) {
+        final Git git = mock(Git.class);
+        names.put(git,
+                  name);
+        statistics.put(git,
+                       new RepositoryStatistics(looseObjects,
+                                                packFiles));
+        return git;
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(10,
+                        TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
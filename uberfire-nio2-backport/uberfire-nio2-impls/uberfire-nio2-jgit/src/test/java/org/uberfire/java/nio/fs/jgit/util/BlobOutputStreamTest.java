@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BlobOutputStreamTest {
+
+    private final ObjectInserter.Formatter formatter = new ObjectInserter.Formatter();
+
+    @Test
+    public void smallContentIsKeptInMemory() throws IOException {
+        final byte[] content = "my cool content".getBytes(StandardCharsets.UTF_8);
+        final BlobOutputStream out = new BlobOutputStream(1024);
+        out.write(content);
+        out.close();
+
+        assertFalse(out.isSpilled());
+        assertEquals(content.length,
+                     out.length());
+        assertEquals(formatter.idFor(Constants.OBJ_BLOB,
+                                     content),
+                     out.insert(formatter));
+        out.release();
+    }
+
+    @Test
+    public void largeContentIsSpilledToDisk() throws IOException {
+        final byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        final BlobOutputStream out = new BlobOutputStream(16);
+        out.write(content);
+        assertFalse(out.isSpilled());
+        out.write(content);
+        out.write('x');
+        out.close();
+
+        assertTrue(out.isSpilled());
+        assertEquals(21,
+                     out.length());
+        assertEquals(formatter.idFor(Constants.OBJ_BLOB,
+                                     "01234567890123456789x".getBytes(StandardCharsets.UTF_8)),
+                     out.insert(formatter));
+        out.release();
+        assertFalse(out.isSpilled());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void insertRequiresClosedStream() throws IOException {
+        final BlobOutputStream out = new BlobOutputStream(16);
+        out.write('x');
+        out.insert(formatter);
+    }
+
+    @Test(expected = IOException.class)
+    public void writeAfterCloseFails() throws IOException {
+        final BlobOutputStream out = new BlobOutputStream(16);
+        out.close();
+        out.write('x');
+    }
+}
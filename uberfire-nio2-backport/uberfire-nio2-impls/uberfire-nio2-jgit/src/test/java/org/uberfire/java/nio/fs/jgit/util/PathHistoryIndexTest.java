@@ -0,0 +1,298 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.AbstractTestInfra;
+import org.uberfire.java.nio.fs.jgit.util.commands.Commit;
+import org.uberfire.java.nio.fs.jgit.util.commands.CreateRepository;
+import org.uberfire.java.nio.fs.jgit.util.commands.ListCommits;
+import org.uberfire.java.nio.fs.jgit.util.model.CommitHistory;
+import org.uberfire.java.nio.fs.jgit.util.model.CommitInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.MoveCommitContent;
+
+import static org.junit.Assert.*;
+
+public class PathHistoryIndexTest extends AbstractTestInfra {
+
+    private Git git;
+    private File indexDir;
+    private PathHistoryIndex index;
+
+    @Before
+    public void setup() throws Exception {
+        final File repoDir = new File(createTempDirectory(),
+                                      "history-index.git");
+        git = new CreateRepository(repoDir).execute().get();
+
+        commit("create files",
+               "non-moving.txt",
+               "a");
+        commit("add moving",
+               "moving.txt",
+               "1");
+        commit("change non moving",
+               "non-moving.txt",
+               "b");
+        git.commit("master",
+                   new CommitInfo(null,
+                                  "name",
+                                  "name@example.com",
+                                  "rename moving file",
+                                  null,
+                                  null),
+                   false,
+                   null,
+                   new MoveCommitContent(Collections.singletonMap("moving.txt",
+                                                                  "dir/moved.txt")));
+        commit("change moved",
+               "dir/moved.txt",
+               "2");
+
+        indexDir = new File(createTempDirectory(),
+                            "index");
+        index = new PathHistoryIndex(git.getRepository(),
+                                     indexDir,
+                                     Runnable::run);
+    }
+
+    @Test
+    public void historyOfUnmovedFile() throws Exception {
+        final CommitHistory history = history("non-moving.txt",
+                                              0,
+                                              Integer.MAX_VALUE);
+
+        assertEquals("non-moving.txt",
+                     history.getTrackedFilePath());
+        assertEquals(messages(new ListCommits(git,
+                                              git.getRef("master"),
+                                              "non-moving.txt")),
+                     messages(history.getCommits()));
+    }
+
+    @Test
+    public void historyFollowsRenames() throws Exception {
+        final CommitHistory history = history("dir/moved.txt",
+                                              0,
+                                              Integer.MAX_VALUE);
+
+        assertEquals(messages(new ListCommits(git,
+                                              git.getRef("master"),
+                                              "dir/moved.txt")),
+                     messages(history.getCommits()));
+        assertEquals("/dir/moved.txt",
+                     history.trackedFileNameChangeFor(history.getCommits().get(1).getId()));
+        assertEquals("/moving.txt",
+                     history.trackedFileNameChangeFor(history.getCommits().get(2).getId()));
+    }
+
+    @Test
+    public void historyIsPaged() throws Exception {
+        final CommitHistory history = history("dir/moved.txt",
+                                              1,
+                                              1);
+
+        assertEquals(1,
+                     history.getCommits().size());
+        assertEquals("rename moving file",
+                     history.getCommits().get(0).getFullMessage());
+    }
+
+    @Test
+    public void walkIsPagedLikeTheIndex() throws Exception {
+        final CommitHistory walked = new ListCommits(git,
+                                                     git.getRef("master"),
+                                                     "dir/moved.txt",
+                                                     1,
+                                                     1).execute();
+
+        assertEquals(messages(history("dir/moved.txt",
+                                      1,
+                                      1).getCommits()),
+                     messages(walked.getCommits()));
+        assertEquals("/dir/moved.txt",
+                     walked.trackedFileNameChangeFor(walked.getCommits().get(0).getId()));
+    }
+
+    @Test
+    public void clearedIndexIsLoadedAgain() throws Exception {
+        history("non-moving.txt",
+                0,
+                Integer.MAX_VALUE);
+
+        index.clear();
+
+        assertEquals(2,
+                     history("non-moving.txt",
+                             0,
+                             Integer.MAX_VALUE).getCommits().size());
+        assertEquals(3,
+                     history("dir/moved.txt",
+                             0,
+                             Integer.MAX_VALUE).getCommits().size());
+    }
+
+    @Test
+    public void indexCatchesUpWithNewCommits() throws Exception {
+        assertEquals(2,
+                     history("non-moving.txt",
+                             0,
+                             Integer.MAX_VALUE).getCommits().size());
+
+        commit("change non moving again",
+               "non-moving.txt",
+               "c");
+
+        final CommitHistory history = history("non-moving.txt",
+                                              0,
+                                              Integer.MAX_VALUE);
+        assertEquals(3,
+                     history.getCommits().size());
+        assertEquals("change non moving again",
+                     history.getCommits().get(0).getFullMessage());
+    }
+
+    @Test
+    public void indexIsReloadedFromDisk() throws Exception {
+        history("non-moving.txt",
+                0,
+                Integer.MAX_VALUE);
+
+        final PathHistoryIndex reloaded = new PathHistoryIndex(git.getRepository(),
+                                                               indexDir,
+                                                               Runnable::run);
+        final CommitHistory history = reloaded.history("master",
+                                                       git.getRef("master").getObjectId(),
+                                                       "dir/moved.txt",
+                                                       0,
+                                                       Integer.MAX_VALUE);
+        assertEquals(3,
+                     history.getCommits().size());
+    }
+
+    @Test
+    public void indexIsBuiltInTheBackground() throws Exception {
+        final List<Runnable> builds = new ArrayList<>();
+        final PathHistoryIndex background = new PathHistoryIndex(git.getRepository(),
+                                                                 new File(createTempDirectory(),
+                                                                          "background"),
+                                                                 builds::add);
+
+        assertNull(background.history("master",
+                                      git.getRef("master").getObjectId(),
+                                      "non-moving.txt",
+                                      0,
+                                      Integer.MAX_VALUE));
+        assertNull(background.history("master",
+                                      git.getRef("master").getObjectId(),
+                                      "non-moving.txt",
+                                      0,
+                                      Integer.MAX_VALUE));
+        assertEquals(1,
+                     builds.size());
+
+        builds.get(0).run();
+
+        assertEquals(2,
+                     background.history("master",
+                                        git.getRef("master").getObjectId(),
+                                        "non-moving.txt",
+                                        0,
+                                        Integer.MAX_VALUE).getCommits().size());
+    }
+
+    @Test
+    public void indexSharedByTwoInstancesHasNoDuplicates() throws Exception {
+        final PathHistoryIndex other = new PathHistoryIndex(git.getRepository(),
+                                                            indexDir,
+                                                            Runnable::run);
+        history("non-moving.txt",
+                0,
+                Integer.MAX_VALUE);
+
+        commit("change non moving again",
+               "non-moving.txt",
+               "c");
+
+        //the other instance appends the new commit, this one has to pick it up instead of appending it again
+        assertEquals(3,
+                     other.history("master",
+                                   git.getRef("master").getObjectId(),
+                                   "non-moving.txt",
+                                   0,
+                                   Integer.MAX_VALUE).getCommits().size());
+        assertEquals(3,
+                     history("non-moving.txt",
+                             0,
+                             Integer.MAX_VALUE).getCommits().size());
+
+        final PathHistoryIndex reloaded = new PathHistoryIndex(git.getRepository(),
+                                                               indexDir,
+                                                               Runnable::run);
+        assertEquals(3,
+                     reloaded.history("master",
+                                      git.getRef("master").getObjectId(),
+                                      "non-moving.txt",
+                                      0,
+                                      Integer.MAX_VALUE).getCommits().size());
+    }
+
+    private CommitHistory history(final String path,
+                                  final int offset,
+                                  final int pageSize) throws Exception {
+        return index.history("master",
+                             git.getRef("master").getObjectId(),
+                             path,
+                             offset,
+                             pageSize);
+    }
+
+    private void commit(final String message,
+                        final String path,
+                        final String content) throws Exception {
+        new Commit(git,
+                   "master",
+                   "name",
+                   "name@example.com",
+                   message,
+                   null,
+                   new Date(),
+                   false,
+                   new HashMap<String, File>() {{
+                       put(path,
+                           tempFile(content));
+                   }}).execute();
+    }
+
+    private List<String> messages(final ListCommits listCommits) throws Exception {
+        return messages(listCommits.execute().getCommits());
+    }
+
+    private List<String> messages(final List<RevCommit> commits) {
+        return commits.stream().map(RevCommit::getFullMessage).collect(Collectors.toList());
+    }
+}
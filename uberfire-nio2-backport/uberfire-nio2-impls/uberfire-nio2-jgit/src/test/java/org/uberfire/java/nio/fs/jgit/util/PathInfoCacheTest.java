@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.uberfire.java.nio.fs.jgit.util.model.PathInfo;
+import org.uberfire.java.nio.fs.jgit.util.model.PathType;
+
+import static org.junit.Assert.*;
+
+public class PathInfoCacheTest {
+
+    private static final ObjectId TIP_1 = ObjectId.fromString("1111111111111111111111111111111111111111");
+    private static final ObjectId TIP_2 = ObjectId.fromString("2222222222222222222222222222222222222222");
+    private static final ObjectId TREE_1 = ObjectId.fromString("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    private static final ObjectId TREE_2 = ObjectId.fromString("bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+
+    private PathInfoCache cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        cache = new PathInfoCache(2,
+                                  10);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void treeIsLoadedOncePerTip() throws Exception {
+        assertEquals(TREE_1,
+                     cache.getTree("master",
+                                   TIP_1,
+                                   () -> load(TREE_1)));
+        assertEquals(TREE_1,
+                     cache.getTree("master",
+                                   TIP_1,
+                                   () -> load(TREE_1)));
+        assertEquals(1,
+                     loads.get());
+
+        assertEquals(TREE_2,
+                     cache.getTree("master",
+                                   TIP_2,
+                                   () -> load(TREE_2)));
+        assertEquals(2,
+                     loads.get());
+    }
+
+    @Test
+    public void pathInfoIsLoadedOncePerTree() throws Exception {
+        final PathInfo pathInfo = new PathInfo(null,
+                                               "dir/file.txt",
+                                               PathType.FILE);
+
+        assertSame(pathInfo,
+                   cache.getPathInfo(TREE_1,
+                                     "dir/file.txt",
+                                     () -> load(pathInfo)));
+        assertSame(pathInfo,
+                   cache.getPathInfo(TREE_1,
+                                     "dir/file.txt",
+                                     () -> load(pathInfo)));
+        assertEquals(1,
+                     loads.get());
+
+        cache.getPathInfo(TREE_2,
+                          "dir/file.txt",
+                          () -> load(pathInfo));
+        assertEquals(2,
+                     loads.get());
+    }
+
+    @Test
+    public void listPathContentReturnsCopies() throws Exception {
+        final List<PathInfo> content = new ArrayList<>(Collections.singletonList(new PathInfo(null,
+                                                                                              "dir/file.txt",
+                                                                                              PathType.FILE)));
+
+        final List<PathInfo> first = cache.listPathContent(TREE_1,
+                                                           "dir",
+                                                           () -> load(content));
+        first.clear();
+
+        final List<PathInfo> second = cache.listPathContent(TREE_1,
+                                                            "dir",
+                                                            () -> load(content));
+        assertEquals(1,
+                     second.size());
+        assertEquals(1,
+                     loads.get());
+    }
+
+    @Test
+    public void invalidateDropsBranchTipAndItsTree() throws Exception {
+        cache.getTree("master",
+                      TIP_1,
+                      () -> TREE_1);
+        cache.getPathInfo(TREE_1,
+                          "file.txt",
+                          () -> load(new PathInfo(null,
+                                                  "file.txt",
+                                                  PathType.FILE)));
+        assertEquals(1,
+                     cache.size());
+
+        cache.invalidate("master");
+
+        assertEquals(0,
+                     cache.size());
+        cache.getTree("master",
+                      TIP_1,
+                      () -> load(TREE_1));
+        assertEquals(2,
+                     loads.get());
+    }
+
+    @Test
+    public void treesAreEvictedInLruOrder() throws Exception {
+        final PathInfo pathInfo = new PathInfo(null,
+                                               "file.txt",
+                                               PathType.FILE);
+        final ObjectId tree3 = ObjectId.fromString("cccccccccccccccccccccccccccccccccccccccc");
+
+        cache.getPathInfo(TREE_1,
+                          "file.txt",
+                          () -> load(pathInfo));
+        cache.getPathInfo(TREE_2,
+                          "file.txt",
+                          () -> load(pathInfo));
+        cache.getPathInfo(tree3,
+                          "file.txt",
+                          () -> load(pathInfo));
+
+        assertEquals(2,
+                     cache.size());
+
+        cache.getPathInfo(TREE_1,
+                          "file.txt",
+                          () -> load(pathInfo));
+        assertEquals(4,
+                     loads.get());
+    }
+
+    private <T> T load(final T value) {
+        loads.incrementAndGet();
+        return value;
+    }
+}
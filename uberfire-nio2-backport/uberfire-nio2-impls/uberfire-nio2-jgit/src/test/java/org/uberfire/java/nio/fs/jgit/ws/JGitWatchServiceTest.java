@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.fs.jgit.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.uberfire.java.nio.file.WatchKey;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class JGitWatchServiceTest {
+
+    @Test
+    public void subscriberReceivesQueuedAndPublishedKeysInOrder() {
+        final JGitWatchService ws = new JGitWatchService("fs",
+                                                         p -> {
+                                                         });
+        final WatchKey first = mock(WatchKey.class);
+        final WatchKey second = mock(WatchKey.class);
+        final List<WatchKey> received = new ArrayList<>();
+
+        ws.publish(first);
+        assertTrue(ws.subscribe(received::add));
+        ws.publish(second);
+
+        assertEquals(2,
+                     received.size());
+        assertSame(first,
+                   received.get(0));
+        assertSame(second,
+                   received.get(1));
+        assertNull(ws.poll());
+    }
+}
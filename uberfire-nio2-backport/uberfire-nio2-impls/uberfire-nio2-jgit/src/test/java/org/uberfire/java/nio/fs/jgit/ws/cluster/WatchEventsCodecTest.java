@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.ws.cluster;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.uberfire.commons.cluster.ClusterParameters;
+import org.uberfire.commons.cluster.ClusterService;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+import org.uberfire.java.nio.fs.jgit.ws.JGitWatchEvent;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class WatchEventsCodecTest {
+
+    private static final URI ROOT = URI.create("git://master@space/repo/");
+    private static final URI FILE = URI.create("git://master@space/repo/dir/file.txt");
+    private static final URI MOVED = URI.create("git://master@space/repo/dir/moved.txt");
+
+    @Test
+    public void eventsSurviveEncoding() {
+        final WatchEventsWrapper wrapper = new WatchEventsWrapper("node1",
+                                                                  "space/repo",
+                                                                  path(ROOT),
+                                                                  Arrays.asList(event(StandardWatchEventKind.ENTRY_CREATE,
+                                                                                      null,
+                                                                                      FILE),
+                                                                                event(StandardWatchEventKind.ENTRY_RENAME,
+                                                                                      FILE,
+                                                                                      MOVED)));
+
+        final List<WatchEventsWrapper> decoded = WatchEventsCodec.decode(WatchEventsCodec.encode(Collections.singletonList(wrapper)));
+
+        assertEquals(1,
+                     decoded.size());
+        assertEquals("node1",
+                     decoded.get(0).getNodeId());
+        assertEquals("space/repo",
+                     decoded.get(0).getFsName());
+        assertEquals(ROOT,
+                     decoded.get(0).getWatchableUri());
+        assertEquals(Arrays.asList(new JGitWatchEvent("session",
+                                                      "user",
+                                                      "message",
+                                                      "ADD",
+                                                      (URI) null,
+                                                      FILE).toString(),
+                                   new JGitWatchEvent("session",
+                                                      "user",
+                                                      "message",
+                                                      "RENAME",
+                                                      FILE,
+                                                      MOVED).toString()),
+                     decoded.get(0).getEvents().stream().map(Object::toString).collect(Collectors.toList()));
+        assertEquals(StandardWatchEventKind.ENTRY_RENAME,
+                     decoded.get(0).getEvents().get(1).kind());
+    }
+
+    @Test
+    public void consecutiveEventsOfTheSameFileSystemAreCoalesced() {
+        final List<WatchEventsWrapper> wrappers = Arrays.asList(wrapper("space/repo1",
+                                                                        FILE),
+                                                                wrapper("space/repo1",
+                                                                        MOVED),
+                                                                wrapper("space/repo2",
+                                                                        FILE),
+                                                                wrapper("space/repo1",
+                                                                        FILE));
+
+        final List<WatchEventsWrapper> decoded = WatchEventsCodec.decode(WatchEventsCodec.encode(wrappers));
+
+        assertEquals(Arrays.asList("space/repo1",
+                                   "space/repo2",
+                                   "space/repo1"),
+                     decoded.stream().map(WatchEventsWrapper::getFsName).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(2,
+                                   1,
+                                   1),
+                     decoded.stream().map(w -> w.getEvents().size()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void eventsAreSentAsWrappersUnlessBinaryBatchesAreEnabled() {
+        final ClusterService clusterService = mock(ClusterService.class);
+        final JGitEventsBroadcast sender = new JGitEventsBroadcast(clusterService,
+                                                                   wrapper -> {
+                                                                   },
+                                                                   new ClusterParameters());
+
+        sender.broadcast("space/repo",
+                         path(ROOT),
+                         Collections.singletonList(event(StandardWatchEventKind.ENTRY_MODIFY,
+                                                         null,
+                                                         FILE)));
+        sender.flush();
+
+        verify(clusterService).broadcast(eq(ClusterService.DestinationType.PubSub),
+                                         eq("space"),
+                                         any(WatchEventsWrapper.class));
+        verify(clusterService,
+               never()).broadcastBinary(any(),
+                                        any(),
+                                        any());
+        assertEquals(1,
+                     sender.getMetrics().get("space").messageCount());
+        assertEquals(0,
+                     sender.getMetrics().get("space").pendingCount());
+    }
+
+    @Test
+    public void batchedEventsAreDeliveredToOtherNodesOnly() {
+        final ClusterService clusterService = mock(ClusterService.class);
+        final List<WatchEventsWrapper> received = new ArrayList<>();
+        final JGitEventsBroadcast sender;
+        final JGitEventsBroadcast receiver;
+        System.setProperty(ClusterParameters.APPFORMER_JMS_BINARY_BATCHES,
+                           "true");
+        try {
+            sender = new JGitEventsBroadcast(clusterService,
+                                             received::add,
+                                             new ClusterParameters());
+            receiver = new JGitEventsBroadcast(clusterService,
+                                               received::add,
+                                               new ClusterParameters());
+        } finally {
+            System.clearProperty(ClusterParameters.APPFORMER_JMS_BINARY_BATCHES);
+        }
+
+        sender.broadcast("space/repo",
+                         path(ROOT),
+                         Collections.singletonList(event(StandardWatchEventKind.ENTRY_MODIFY,
+                                                         null,
+                                                         FILE)));
+        sender.broadcast("space/repo",
+                         path(ROOT),
+                         Collections.singletonList(event(StandardWatchEventKind.ENTRY_DELETE,
+                                                         FILE,
+                                                         null)));
+        sender.flush();
+
+        final ArgumentCaptor<byte[]> payload = ArgumentCaptor.forClass(byte[].class);
+        verify(clusterService).broadcastBinary(eq(ClusterService.DestinationType.PubSub),
+                                               eq("space"),
+                                               payload.capture());
+        assertEquals(1,
+                     sender.getMetrics().get("space").messageCount());
+
+        sender.consume(payload.getValue());
+        assertTrue(received.isEmpty());
+
+        receiver.consume(payload.getValue());
+        assertEquals(1,
+                     received.size());
+        assertEquals(2,
+                     received.get(0).getEvents().size());
+
+        receiver.consume((Serializable) new WatchEventsWrapper("legacy-node",
+                                                                "space/repo",
+                                                                null,
+                                                                Collections.emptyList()));
+        assertEquals(2,
+                     received.size());
+    }
+
+    private static WatchEventsWrapper wrapper(final String fsName,
+                                              final URI file) {
+        return new WatchEventsWrapper("node1",
+                                      fsName,
+                                      path(ROOT),
+                                      Collections.singletonList(event(StandardWatchEventKind.ENTRY_MODIFY,
+                                                                      null,
+                                                                      file)));
+    }
+
+    private static Path path(final URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        final Path path = mock(Path.class);
+        when(path.toUri()).thenReturn(uri);
+        return path;
+    }
+
+    private static WatchEvent<?> event(final WatchEvent.Kind<?> kind,
+                                       final URI oldPath,
+                                       final URI newPath) {
+        final WatchContext context = mock(WatchContext.class);
+        final Path oldP = path(oldPath);
+        final Path newP = path(newPath);
+        when(context.getOldPath()).thenReturn(oldP);
+        when(context.getPath()).thenReturn(newP);
+        when(context.getSessionId()).thenReturn("session");
+        when(context.getUser()).thenReturn("user");
+        when(context.getMessage()).thenReturn("message");
+        final WatchEvent event = mock(WatchEvent.class);
+        when(event.kind()).thenReturn(kind);
+        when(event.context()).thenReturn(context);
+        return event;
+    }
+}
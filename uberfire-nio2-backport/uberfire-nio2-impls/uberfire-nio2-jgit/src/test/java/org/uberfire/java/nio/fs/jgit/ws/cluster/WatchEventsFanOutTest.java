@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.fs.jgit.ws.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.commons.cluster.ClusterLatencyRecorder;
+import org.uberfire.commons.cluster.ClusterParameters;
+import org.uberfire.commons.cluster.InMemoryCluster;
+import org.uberfire.commons.cluster.InMemoryClusterService;
+import org.uberfire.java.nio.base.WatchContext;
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.StandardWatchEventKind;
+import org.uberfire.java.nio.file.WatchEvent;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fan-out harness for JGit watch events: N simulated nodes broadcast watch events to each other through an
+ * {@link InMemoryCluster}, and the end-to-end latency percentiles and throughput are logged.
+ * <p>
+ * Runs a small configuration by default; use the org.appformer.cluster.harness.nodes and
+ * org.appformer.cluster.harness.events system properties for longer soak runs.
+ */
+public class WatchEventsFanOutTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WatchEventsFanOutTest.class);
+
+    private static final int NODES = Integer.getInteger("org.appformer.cluster.harness.nodes",
+                                                        4);
+    private static final int EVENTS_PER_NODE = Integer.getInteger("org.appformer.cluster.harness.events",
+                                                                  250);
+
+    @Test
+    public void watchEventsReachEveryOtherNode() throws Exception {
+        final InMemoryCluster cluster = new InMemoryCluster();
+        final ClusterLatencyRecorder recorder = new ClusterLatencyRecorder();
+        final CountDownLatch received = new CountDownLatch(NODES * (NODES - 1) * EVENTS_PER_NODE);
+        final List<JGitEventsBroadcast> broadcasts = new ArrayList<>();
+
+        final ClusterParameters clusterParameters;
+        System.setProperty(ClusterParameters.APPFORMER_JMS_BINARY_BATCHES,
+                           "true");
+        try {
+            clusterParameters = new ClusterParameters();
+        } finally {
+            System.clearProperty(ClusterParameters.APPFORMER_JMS_BINARY_BATCHES);
+        }
+        for (int i = 0; i < NODES; i++) {
+            final JGitEventsBroadcast broadcast = new JGitEventsBroadcast(new InMemoryClusterService(cluster),
+                                                                          wrapper -> wrapper.getEvents().forEach(event -> {
+                                                                              final WatchContext context = (WatchContext) event.context();
+                                                                              recorder.record(System.nanoTime() - Long.parseLong(context.getMessage()));
+                                                                              received.countDown();
+                                                                          }),
+                                                                          clusterParameters);
+            broadcast.createWatchServiceJMS("space/repo");
+            broadcasts.add(broadcast);
+        }
+
+        final ExecutorService senders = Executors.newFixedThreadPool(NODES);
+        final long start = System.nanoTime();
+        try {
+            for (int i = 0; i < NODES; i++) {
+                final JGitEventsBroadcast broadcast = broadcasts.get(i);
+                final String fsName = "space/repo" + i;
+                senders.execute(() -> {
+                    for (int j = 0; j < EVENTS_PER_NODE; j++) {
+                        broadcast.broadcast(fsName,
+                                            null,
+                                            Collections.singletonList(new TimestampedEvent()));
+                    }
+                    broadcast.flush();
+                });
+            }
+
+            assertTrue(received.await(60,
+                                      TimeUnit.SECONDS));
+        } finally {
+            senders.shutdownNow();
+            broadcasts.forEach(JGitEventsBroadcast::close);
+        }
+
+        LOGGER.info("Watch events fan-out, {} nodes: {}",
+                    NODES,
+                    recorder.report(System.nanoTime() - start));
+        assertEquals(NODES * (NODES - 1) * EVENTS_PER_NODE,
+                     recorder.count());
+    }
+
+    private static class TimestampedEvent implements WatchEvent {
+
+        private final String timestamp = String.valueOf(System.nanoTime());
+
+        @Override
+        public Kind kind() {
+            return StandardWatchEventKind.ENTRY_MODIFY;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public Object context() {
+            return new WatchContext() {
+                @Override
+                public Path getPath() {
+                    return null;
+                }
+
+                @Override
+                public Path getOldPath() {
+                    return null;
+                }
+
+                @Override
+                public String getSessionId() {
+                    return null;
+                }
+
+                @Override
+                public String getMessage() {
+                    return timestamp;
+                }
+
+                @Override
+                public String getUser() {
+                    return null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.uberfire.java.nio.base;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.uberfire.java.nio.base.options.CommentedOption;
+import org.uberfire.java.nio.file.Path;
+
+/**
+ * Implemented by file system providers that can write and delete a set of paths as a single atomic change.
+ */
+public interface BulkWriteSupport {
+
+    /**
+     * Writes the given contents and deletes the given paths as one change, all paths must belong to the same
+     * file system.
+     * @param contents content of the paths to create or overwrite
+     * @param deletions paths to delete, deleting a missing path is a no-op
+     * @param companionDeletions additional paths to delete that are not part of the change description, such as the
+     * attribute files of the deleted paths
+     * @param option author and message of the change, may be null
+     */
+    void writeAll(final Map<Path, byte[]> contents,
+                  final Set<Path> deletions,
+                  final Set<Path> companionDeletions,
+                  final CommentedOption option);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.uberfire.java.nio.base;
+
+import java.util.List;
+
+import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.WatchEvent;
+
+/**
+ * Implemented by versioned file system providers that can list what changed in a root directory between two
+ * versions, so that consumers can catch up with a version they missed instead of rescanning the whole tree.
+ */
+public interface FileSystemChangesSupport {
+
+    /**
+     * @param root a root directory of the file system
+     * @return id of the current version of the root, or null if it has none yet
+     */
+    String getVersion(final Path root);
+
+    /**
+     * Lists the changes between the given version and the current version of the root, as watch events of kind
+     * ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE or ENTRY_RENAME with a {@link WatchContext} context.
+     * @param root a root directory of the file system
+     * @param fromVersion a version previously returned by {@link #getVersion(Path)}
+     * @return the changes, or null if the given version is unknown
+     */
+    List<WatchEvent<?>> listChanges(final Path root,
+                                    final String fromVersion);
+}
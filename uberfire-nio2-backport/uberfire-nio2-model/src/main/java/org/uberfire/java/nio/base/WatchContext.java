@@ -29,4 +29,11 @@ public interface WatchContext {
     String getMessage();
 
     String getUser();
+
+    /**
+     * @return Id of the file system version the change belongs to, ie., a commit id, or null if unknown.
+     */
+    default String getVersion() {
+        return null;
+    }
 }
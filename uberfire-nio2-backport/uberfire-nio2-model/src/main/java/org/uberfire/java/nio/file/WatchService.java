@@ -17,6 +17,7 @@
 package org.uberfire.java.nio.file;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.uberfire.java.nio.Closeable;
 
@@ -30,4 +31,13 @@ public interface WatchService extends Closeable {
     WatchKey take() throws ClosedWatchServiceException, InterruptedException;
 
     boolean isClose();
+
+    /**
+     * Hands every key of this service to the given subscriber as soon as it is signalled, instead of queuing it
+     * for {@link #poll()} and {@link #take()}, so that no thread has to block waiting for it.
+     * @return false if this service does not support subscriptions.
+     */
+    default boolean subscribe(final Consumer<WatchKey> subscriber) {
+        return false;
+    }
 }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.common.services.builder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.enterprise.event.Event;
+
+import org.guvnor.common.services.project.builder.model.BuildResults;
+import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
+import org.guvnor.common.services.project.builder.service.BuildService;
+import org.guvnor.common.services.project.model.Module;
+import org.guvnor.common.services.project.service.ModuleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceChange;
+
+/**
+ * Schedules the incremental builds of {@link ResourceChangeIncrementalBuilder}, keyed by module.
+ * <p>
+ * The changes to a module are debounced: each change restarts the module's window, up to ten windows after its
+ * first pending change, and everything received in the meantime is applied in a single batch. A full build request
+ * supersedes the pending incremental changes of its module. At most one build per module runs at a time; changes
+ * received while it runs are built once it finishes.
+ */
+public class IncrementalBuildScheduler {
+
+    public static final String DEBOUNCE_WINDOW_PROPERTY = "org.guvnor.build.incremental.debounce";
+    public static final long DEFAULT_DEBOUNCE_WINDOW = 500;
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBuildScheduler.class);
+    private static final int MAX_DELAY_WINDOWS = 10;
+
+    private final Supplier<IncrementalBuilderExecutorManager> executorManager;
+    private final long window;
+    private final ScheduledExecutorService timer;
+
+    private final Map<Path, PendingBuild> pendingBuilds = new HashMap<>();
+    private final Set<Path> runningBuilds = new HashSet<>();
+
+    private final AtomicLong receivedChanges = new AtomicLong();
+    private final AtomicLong dispatchedBuilds = new AtomicLong();
+
+    public IncrementalBuildScheduler(final Supplier<IncrementalBuilderExecutorManager> executorManager) {
+        this(executorManager,
+             Long.getLong(DEBOUNCE_WINDOW_PROPERTY,
+                          DEFAULT_DEBOUNCE_WINDOW));
+    }
+
+    public IncrementalBuildScheduler(final Supplier<IncrementalBuilderExecutorManager> executorManager,
+                                     final long window) {
+        this.executorManager = executorManager;
+        this.window = Math.max(0,
+                               window);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "incremental-build-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void scheduleChange(final Module module,
+                                            final Path resource,
+                                            final ResourceChange change) {
+        final PendingBuild pendingBuild = pendingBuild(module);
+        if (!pendingBuild.fullBuild) {
+            pendingBuild.changes.computeIfAbsent(resource,
+                                                 k -> new ArrayList<>()).add(change);
+        }
+        receivedChanges.incrementAndGet();
+        debounce(pendingBuild);
+    }
+
+    public synchronized void scheduleChanges(final Module module,
+                                             final Map<Path, Collection<ResourceChange>> changes) {
+        final PendingBuild pendingBuild = pendingBuild(module);
+        changes.forEach((resource, resourceChanges) -> {
+            if (!pendingBuild.fullBuild) {
+                pendingBuild.changes.computeIfAbsent(resource,
+                                                     k -> new ArrayList<>()).addAll(resourceChanges);
+            }
+            receivedChanges.addAndGet(resourceChanges.size());
+        });
+        debounce(pendingBuild);
+    }
+
+    public synchronized void scheduleFullBuild(final Module module) {
+        final PendingBuild pendingBuild = pendingBuild(module);
+        pendingBuild.fullBuild = true;
+        pendingBuild.changes.clear();
+        receivedChanges.incrementAndGet();
+        debounce(pendingBuild);
+    }
+
+    /**
+     * @return Number of modules with changes waiting to be built.
+     */
+    public synchronized int getQueueDepth() {
+        return pendingBuilds.size();
+    }
+
+    public synchronized int getRunningBuildCount() {
+        return runningBuilds.size();
+    }
+
+    public long getReceivedChangeCount() {
+        return receivedChanges.get();
+    }
+
+    public long getDispatchedBuildCount() {
+        return dispatchedBuilds.get();
+    }
+
+    /**
+     * @return Average number of changes applied by each build.
+     */
+    public double getCoalescingRatio() {
+        final long builds = getDispatchedBuildCount();
+        return builds == 0 ? 0 : (double) getReceivedChangeCount() / builds;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private PendingBuild pendingBuild(final Module module) {
+        final PendingBuild pendingBuild = pendingBuilds.computeIfAbsent(module.getRootPath(),
+                                                                        k -> new PendingBuild(System.currentTimeMillis()));
+        //Keep the latest view of the module, its pom.xml may have changed
+        pendingBuild.module = module;
+        return pendingBuild;
+    }
+
+    private void debounce(final PendingBuild pendingBuild) {
+        if (pendingBuild.timer != null) {
+            pendingBuild.timer.cancel(false);
+        }
+        final long maxDelay = pendingBuild.firstChange + window * MAX_DELAY_WINDOWS - System.currentTimeMillis();
+        final Path key = pendingBuild.module.getRootPath();
+        pendingBuild.timer = timer.schedule(() -> dispatch(key),
+                                            Math.max(0,
+                                                     Math.min(window,
+                                                              maxDelay)),
+                                            TimeUnit.MILLISECONDS);
+    }
+
+    private void dispatch(final Path key) {
+        final PendingBuild pendingBuild;
+        synchronized (this) {
+            final PendingBuild pending = pendingBuilds.get(key);
+            if (pending == null) {
+                return;
+            }
+            pending.timer = null;
+            //Only one build per module at a time, completed() dispatches the changes received meanwhile
+            if (runningBuilds.contains(key)) {
+                return;
+            }
+            pendingBuild = pendingBuilds.remove(key);
+            runningBuilds.add(key);
+        }
+
+        dispatchedBuilds.incrementAndGet();
+        try {
+            executorManager.get().execute(new ModuleBuilder(key,
+                                                            pendingBuild));
+        } catch (Exception e) {
+            logger.error("Unable to schedule incremental build for " + pendingBuild.module.getModuleName(),
+                         e);
+            completed(key);
+        }
+    }
+
+    private void completed(final Path key) {
+        final boolean dispatchPending;
+        synchronized (this) {
+            runningBuilds.remove(key);
+            final PendingBuild pending = pendingBuilds.get(key);
+            dispatchPending = pending != null && pending.timer == null;
+        }
+        if (dispatchPending) {
+            timer.execute(() -> dispatch(key));
+        }
+    }
+
+    private static class PendingBuild {
+
+        private final long firstChange;
+        private final Map<Path, Collection<ResourceChange>> changes = new LinkedHashMap<>();
+        private Module module;
+        private boolean fullBuild = false;
+        private ScheduledFuture<?> timer;
+
+        private PendingBuild(final long firstChange) {
+            this.firstChange = firstChange;
+        }
+    }
+
+    private class ModuleBuilder implements AsyncIncrementalBuilder {
+
+        private final Path key;
+        private final PendingBuild pendingBuild;
+
+        private ModuleBuilder(final Path key,
+                              final PendingBuild pendingBuild) {
+            this.key = key;
+            this.pendingBuild = pendingBuild;
+        }
+
+        @Override
+        public void execute(final ModuleService projectService,
+                            final BuildService buildService,
+                            final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
+                            final Event<BuildResults> buildResultsEvent) {
+            try {
+                logger.info("Incremental build request being processed: " + getDescription() + ".");
+                final Module module = pendingBuild.module;
+
+                //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
+                if (!pendingBuild.fullBuild && buildService.isBuilt(module)) {
+                    final IncrementalBuildResults results = buildService.applyBatchResourceChanges(module,
+                                                                                                   pendingBuild.changes);
+                    incrementalBuildResultsEvent.fire(results);
+                } else {
+                    final BuildResults results = buildService.build(module);
+                    buildResultsEvent.fire(results);
+                }
+            } catch (Exception e) {
+                logger.error(e.getMessage(),
+                             e);
+            } finally {
+                completed(key);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "Incremental Build [" + pendingBuild.module.getModuleName() + " (" +
+                    (pendingBuild.fullBuild ? "full build" : pendingBuild.changes.size() + " resources") + ")]";
+        }
+    }
+}
@@ -22,13 +22,9 @@ import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
-import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import org.guvnor.common.services.project.builder.model.BuildResults;
-import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
-import org.guvnor.common.services.project.builder.service.BuildService;
 import org.guvnor.common.services.project.model.Module;
 import org.guvnor.common.services.project.model.Package;
 import org.guvnor.common.services.project.service.ModuleService;
@@ -37,7 +33,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.vfs.Path;
 import org.uberfire.commons.services.cdi.ApplicationStarted;
+import org.uberfire.workbench.events.ResourceAdded;
 import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceDeleted;
+import org.uberfire.workbench.events.ResourceUpdated;
 
 /**
  * Listener for changes to project resources to handle incremental builds
@@ -58,6 +57,7 @@ public class ResourceChangeIncrementalBuilder {
     @Inject
     private IncrementalBuilderExecutorManagerFactory executorManagerProducer;
     private IncrementalBuilderExecutorManager executorManager = null;
+    private IncrementalBuildScheduler buildScheduler = null;
 
     @PostConstruct
     private void setup() {
@@ -76,6 +76,9 @@ public class ResourceChangeIncrementalBuilder {
 
     @PreDestroy
     private void destroyExecutorService() {
+        if (buildScheduler != null) {
+            buildScheduler.shutdown();
+        }
         if (executorManager != null && !isEjb(executorManager,
                                               IncrementalBuilderExecutorManager.class)) {
             executorManager.shutdown();
@@ -98,6 +101,13 @@ public class ResourceChangeIncrementalBuilder {
         return executorManager;
     }
 
+    public synchronized IncrementalBuildScheduler getBuildScheduler() {
+        if (buildScheduler == null) {
+            buildScheduler = new IncrementalBuildScheduler(this::getExecutor);
+        }
+        return buildScheduler;
+    }
+
     public void addResource(final Path resource) {
         //Do nothing if incremental builds are disabled
         if (!isIncrementalEnabled) {
@@ -106,43 +116,8 @@ public class ResourceChangeIncrementalBuilder {
 
         logger.info("Incremental build request received for: " + resource.toURI() + " (added).");
 
-        //If resource is not within a Package it cannot be used for an incremental build
-        final Package pkg = moduleService.resolvePackage(resource);
-        if (pkg == null) {
-            return;
-        }
-
-        //Schedule an incremental build
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (added).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.addPackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (added)]";
-            }
-        });
+        scheduleResourceChange(resource,
+                               new ResourceAdded(""));
     }
 
     public void deleteResource(final Path resource) {
@@ -153,43 +128,8 @@ public class ResourceChangeIncrementalBuilder {
 
         logger.info("Incremental build request received for: " + resource.toURI() + " (deleted).");
 
-        //If resource is not within a Package it cannot be used for an incremental build
-        final Package pkg = moduleService.resolvePackage(resource);
-        if (pkg == null) {
-            return;
-        }
-
-        //Schedule an incremental build
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (deleted).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.deletePackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (deleted)]";
-            }
-        });
+        scheduleResourceChange(resource,
+                               new ResourceDeleted(""));
     }
 
     public void updateResource(final Path resource) {
@@ -204,11 +144,6 @@ public class ResourceChangeIncrementalBuilder {
         if (isProjectResourceUpdateNeeded(resource)) {
             scheduleProjectResourceUpdate(resource);
         } else {
-            //If resource is not within a Package it cannot be used for an incremental build
-            final Package pkg = moduleService.resolvePackage(resource);
-            if (pkg == null) {
-                return;
-            }
             schedulePackageResourceUpdate(resource);
         }
     }
@@ -220,62 +155,34 @@ public class ResourceChangeIncrementalBuilder {
     //Schedule a re-build of a Project (changes to pom.xml or kmodule.xml require a full build)
     protected void scheduleProjectResourceUpdate(final Path resource) {
         final Module module = moduleService.resolveModule(resource);
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + module.getRootPath() + " (updated).");
-                    final BuildResults results = buildService.build(module);
-                    buildResultsEvent.fire(results);
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
-
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (updated)]";
-            }
-        });
+        if (module == null) {
+            return;
+        }
+        getBuildScheduler().scheduleFullBuild(module);
     }
 
     //Schedule an incremental build for a package resource
     protected void schedulePackageResourceUpdate(final Path resource) {
-        getExecutor().execute(new AsyncIncrementalBuilder() {
-
-            @Override
-            public void execute(final ModuleService projectService,
-                                final BuildService buildService,
-                                final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                final Event<BuildResults> buildResultsEvent) {
-                try {
-                    logger.info("Incremental build request being processed: " + resource.toURI() + " (updated).");
-                    final Module module = projectService.resolveModule(resource);
-
-                    //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                    if (buildService.isBuilt(module)) {
-                        final IncrementalBuildResults results = buildService.updatePackageResource(resource);
-                        incrementalBuildResultsEvent.fire(results);
-                    } else {
-                        final BuildResults results = buildService.build(module);
-                        buildResultsEvent.fire(results);
-                    }
-                } catch (Exception e) {
-                    logger.error(e.getMessage(),
-                                 e);
-                }
-            }
+        scheduleResourceChange(resource,
+                               new ResourceUpdated(""));
+    }
 
-            @Override
-            public String getDescription() {
-                return "Incremental Build [" + resource.toURI() + " (updated)]";
-            }
-        });
+    private void scheduleResourceChange(final Path resource,
+                                        final ResourceChange change) {
+        //If resource is not within a Package it cannot be used for an incremental build
+        final Package pkg = moduleService.resolvePackage(resource);
+        if (pkg == null) {
+            return;
+        }
+        final Module module = moduleService.resolveModule(resource);
+        if (module == null) {
+            return;
+        }
+
+        //Changes to the same Module are coalesced into a single batch build
+        getBuildScheduler().scheduleChange(module,
+                                           resource,
+                                           change);
     }
 
     public void batchResourceChanges(final Map<Path, Collection<ResourceChange>> batch) {
@@ -314,38 +221,8 @@ public class ResourceChangeIncrementalBuilder {
 
         //Schedule an incremental build for each Project
         for (final Map.Entry<Module, Map<Path, Collection<ResourceChange>>> e : projectBatchChanges.entrySet()) {
-            getExecutor().execute(new AsyncIncrementalBuilder() {
-
-                @Override
-                public void execute(final ModuleService projectService,
-                                    final BuildService buildService,
-                                    final Event<IncrementalBuildResults> incrementalBuildResultsEvent,
-                                    final Event<BuildResults> buildResultsEvent) {
-                    try {
-                        logger.info("Batch incremental build request being processed.");
-                        final Module module = e.getKey();
-                        final Map<Path, Collection<ResourceChange>> changes = e.getValue();
-
-                        //Fall back to a Full Build in lieu of an Incremental Build if the Project has not been previously built
-                        if (buildService.isBuilt(module)) {
-                            final IncrementalBuildResults results = buildService.applyBatchResourceChanges(module,
-                                                                                                           changes);
-                            incrementalBuildResultsEvent.fire(results);
-                        } else {
-                            final BuildResults results = buildService.build(module);
-                            buildResultsEvent.fire(results);
-                        }
-                    } catch (Exception e) {
-                        logger.error(e.getMessage(),
-                                     e);
-                    }
-                }
-
-                @Override
-                public String getDescription() {
-                    return "Batch incremental build [" + e.getKey().getModuleName() + "]";
-                }
-            });
+            getBuildScheduler().scheduleChanges(e.getKey(),
+                                                e.getValue());
         }
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.guvnor.common.services.builder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.event.Event;
+
+import org.guvnor.common.services.project.builder.model.BuildResults;
+import org.guvnor.common.services.project.builder.model.IncrementalBuildResults;
+import org.guvnor.common.services.project.builder.service.BuildService;
+import org.guvnor.common.services.project.model.Module;
+import org.guvnor.common.services.project.service.ModuleService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.uberfire.backend.vfs.Path;
+import org.uberfire.workbench.events.ResourceAdded;
+import org.uberfire.workbench.events.ResourceChange;
+import org.uberfire.workbench.events.ResourceUpdated;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class IncrementalBuildSchedulerTest {
+
+    private static final long WINDOW = 100;
+
+    private BlockingQueue<AsyncIncrementalBuilder> dispatched;
+    private IncrementalBuildScheduler scheduler;
+
+    private ModuleService moduleService;
+    private BuildService buildService;
+    private Event<IncrementalBuildResults> incrementalBuildResultsEvent;
+    private Event<BuildResults> buildResultsEvent;
+
+    private Module module;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        dispatched = new LinkedBlockingQueue<>();
+        final IncrementalBuilderExecutorManager executorManager = mock(IncrementalBuilderExecutorManager.class);
+        doAnswer(invocation -> dispatched.add((AsyncIncrementalBuilder) invocation.getArguments()[0]))
+                .when(executorManager).execute(any(AsyncIncrementalBuilder.class));
+        scheduler = new IncrementalBuildScheduler(() -> executorManager,
+                                                  WINDOW);
+
+        moduleService = mock(ModuleService.class);
+        buildService = mock(BuildService.class);
+        incrementalBuildResultsEvent = mock(Event.class);
+        buildResultsEvent = mock(Event.class);
+        when(buildService.isBuilt(any(Module.class))).thenReturn(true);
+
+        module = module();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void changesToTheSameModuleAreCoalesced() throws Exception {
+        final Path resource1 = mock(Path.class);
+        final Path resource2 = mock(Path.class);
+
+        scheduler.scheduleChange(module,
+                                 resource1,
+                                 new ResourceAdded(""));
+        scheduler.scheduleChange(module,
+                                 resource1,
+                                 new ResourceUpdated(""));
+        scheduler.scheduleChange(module,
+                                 resource2,
+                                 new ResourceUpdated(""));
+
+        execute(nextBuild());
+
+        final ArgumentCaptor<Map> changes = ArgumentCaptor.forClass(Map.class);
+        verify(buildService).applyBatchResourceChanges(eq(module),
+                                                       changes.capture());
+        assertEquals(2,
+                     changes.getValue().size());
+        assertEquals(2,
+                     ((Collection<ResourceChange>) changes.getValue().get(resource1)).size());
+        verify(incrementalBuildResultsEvent).fire(any(IncrementalBuildResults.class));
+
+        assertNull(dispatched.poll(WINDOW * 3,
+                                   TimeUnit.MILLISECONDS));
+        assertEquals(0,
+                     scheduler.getQueueDepth());
+        assertEquals(3,
+                     scheduler.getReceivedChangeCount());
+        assertEquals(1,
+                     scheduler.getDispatchedBuildCount());
+        assertEquals(3.0,
+                     scheduler.getCoalescingRatio(),
+                     0);
+    }
+
+    @Test
+    public void modulesAreBuiltSeparately() throws Exception {
+        final Module otherModule = module();
+
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+        scheduler.scheduleChange(otherModule,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+
+        execute(nextBuild());
+        execute(nextBuild());
+
+        verify(buildService).applyBatchResourceChanges(eq(module),
+                                                       anyMap());
+        verify(buildService).applyBatchResourceChanges(eq(otherModule),
+                                                       anyMap());
+    }
+
+    @Test
+    public void fullBuildSupersedesPendingChanges() throws Exception {
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceUpdated(""));
+        scheduler.scheduleFullBuild(module);
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceUpdated(""));
+
+        execute(nextBuild());
+
+        verify(buildService).build(module);
+        verify(buildService,
+               never()).applyBatchResourceChanges(any(Module.class),
+                                                  anyMap());
+        verify(buildResultsEvent).fire(any(BuildResults.class));
+    }
+
+    @Test
+    public void moduleNotBuiltFallsBackToFullBuild() throws Exception {
+        when(buildService.isBuilt(module)).thenReturn(false);
+
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+
+        execute(nextBuild());
+
+        verify(buildService).build(module);
+        verify(buildService,
+               never()).applyBatchResourceChanges(any(Module.class),
+                                                  anyMap());
+    }
+
+    @Test
+    public void onlyOneBuildPerModuleAtATime() throws Exception {
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+        final AsyncIncrementalBuilder running = nextBuild();
+
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceUpdated(""));
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceUpdated(""));
+
+        assertNull(dispatched.poll(WINDOW * 3,
+                                   TimeUnit.MILLISECONDS));
+        assertEquals(1,
+                     scheduler.getQueueDepth());
+        assertEquals(1,
+                     scheduler.getRunningBuildCount());
+
+        execute(running);
+        execute(nextBuild());
+
+        verify(buildService,
+               times(2)).applyBatchResourceChanges(eq(module),
+                                                   anyMap());
+        assertEquals(0,
+                     scheduler.getQueueDepth());
+        assertEquals(0,
+                     scheduler.getRunningBuildCount());
+        assertEquals(1.5,
+                     scheduler.getCoalescingRatio(),
+                     0);
+    }
+
+    @Test
+    public void failedBuildReleasesModule() throws Exception {
+        when(buildService.applyBatchResourceChanges(any(Module.class),
+                                                    anyMap())).thenThrow(new RuntimeException("failed"));
+
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+        execute(nextBuild());
+
+        assertEquals(0,
+                     scheduler.getRunningBuildCount());
+
+        scheduler.scheduleChange(module,
+                                 mock(Path.class),
+                                 new ResourceAdded(""));
+        assertNotNull(nextBuild());
+    }
+
+    private AsyncIncrementalBuilder nextBuild() throws InterruptedException {
+        final AsyncIncrementalBuilder builder = dispatched.poll(WINDOW * 50,
+                                                                TimeUnit.MILLISECONDS);
+        assertNotNull(builder);
+        return builder;
+    }
+
+    private void execute(final AsyncIncrementalBuilder builder) {
+        builder.execute(moduleService,
+                        buildService,
+                        incrementalBuildResultsEvent,
+                        buildResultsEvent);
+    }
+
+    private Module module() {
+        final Module module = mock(Module.class);
+        final Path rootPath = mock(Path.class);
+        when(module.getRootPath()).thenReturn(rootPath);
+        when(module.getModuleName()).thenReturn("module");
+        return module;
+    }
+}
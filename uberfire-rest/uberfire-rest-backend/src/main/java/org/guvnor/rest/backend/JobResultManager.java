@@ -15,44 +15,127 @@
 
 package org.guvnor.rest.backend;
 
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 
 import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Keeps the results of the REST API jobs, so clients can poll their status.
+ * <p>
+ * Results live in a concurrent map, so polling never blocks. They expire after a time to live and the oldest ones
+ * are dropped once the max number of results is reached. When a store directory is configured, results are also
+ * written to it in the background, reloaded on start and read from it when not found in memory, so they survive
+ * restarts and, with a directory shared by the cluster nodes, can be polled from any node. Results read from the
+ * store are kept in memory as well, and only read again once their file changes.
+ * <p>
+ * The store holds plain job fields rather than serialized objects, so no class is ever instantiated from a shared
+ * directory.
+ */
 @ApplicationScoped
 public class JobResultManager {
 
+    public static final String MAX_SIZE_PROPERTY = "org.guvnor.rest.jobs.maxSize";
+    public static final String TTL_PROPERTY = "org.guvnor.rest.jobs.ttl";
+    public static final String STORE_DIR_PROPERTY = "org.guvnor.rest.jobs.store.dir";
+
+    private static final String JOB_FILE_SUFFIX = ".job";
+    private static final int FORMAT_VERSION = 1;
+
     private static final Logger logger = LoggerFactory.getLogger(JobResultManager.class);
     private static AtomicInteger created = new AtomicInteger(0);
 
-    private static class Cache extends LinkedHashMap<String, JobResult> {
+    private static class StoredJob {
 
-        private int maxSize = 1000;
+        private final JobResult job;
+        private final long storedAt;
+        // timestamp of the file the result was read from, 0 for results stored by this node
+        private final long fileModified;
+        // position in the storage order, set when stored in memory
+        private long sequence;
 
-        public Cache(int maxSize) {
-            this.maxSize = maxSize;
+        private StoredJob(JobResult job,
+                          long storedAt,
+                          long fileModified) {
+            this.job = job;
+            this.storedAt = storedAt;
+            this.fileModified = fileModified;
         }
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, JobResult> stringFutureEntry) {
-            return size() > maxSize;
-        }
-
-        public void setMaxSize(int maxSize) {
-            this.maxSize = maxSize;
+        private boolean isRead() {
+            return fileModified != 0;
         }
     }
 
-    private Map<String, JobResult> jobs = null;
+    // marks the pending deletion of a persisted result
+    private static final StoredJob DELETED = new StoredJob(null,
+                                                           0,
+                                                           0);
+
+    private final Map<String, StoredJob> jobs = new ConcurrentHashMap<>();
+    // storage order of the results, used to expire and evict the oldest first
+    private final ConcurrentNavigableMap<Long, StoredJob> storageOrder = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // latest result to write, or DELETED, per job; a job is queued once however many times it changes meanwhile
+    private final Map<String, StoredJob> pendingWrites = new ConcurrentHashMap<>();
 
-    private int maxCacheSize = 10000;
+    private int maxCacheSize;
+    private long ttl;
+    private File storeDir;
+    private LongSupplier clock;
+    private Executor writer;
+
+    public JobResultManager() {
+        this(Integer.getInteger(MAX_SIZE_PROPERTY,
+                                10000),
+             Long.getLong(TTL_PROPERTY,
+                          24 * 60 * 60 * 1000L),
+             storeDir(System.getProperty(STORE_DIR_PROPERTY)),
+             System::currentTimeMillis,
+             null);
+    }
+
+    JobResultManager(int maxCacheSize,
+                     long ttl,
+                     File storeDir,
+                     LongSupplier clock,
+                     Executor writer) {
+        this.maxCacheSize = maxCacheSize;
+        this.ttl = ttl;
+        this.storeDir = storeDir;
+        this.clock = clock;
+        this.writer = writer;
+    }
 
     @PostConstruct
     public void start() {
@@ -60,20 +143,293 @@ public class JobResultManager {
                                    1)) {
             throw new IllegalStateException("Only 1 JobResultManager instance is allowed per container!");
         }
-        Cache cache = new Cache(maxCacheSize);
-        jobs = Collections.synchronizedMap(cache);
+        load();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer instanceof ExecutorService) {
+            // let the pending results be written
+            final ExecutorService executorService = (ExecutorService) writer;
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(10,
+                                                 TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        created.set(0);
     }
 
     public JobResult getJob(String jobId) {
-        return jobs.get(jobId);
+        final StoredJob stored = jobs.get(jobId);
+        if (stored != null && isExpired(stored)) {
+            remove(jobId,
+                   stored);
+            return null;
+        }
+        if (stored != null && !stored.isRead()) {
+            return stored.job;
+        }
+        // may have been stored, updated or removed by another node sharing the store
+        final File file = jobFile(jobId);
+        final long fileModified = file == null ? 0 : file.lastModified();
+        if (fileModified == 0) {
+            if (stored != null) {
+                remove(jobId,
+                       stored);
+            }
+            return null;
+        }
+        if (stored != null && stored.fileModified == fileModified) {
+            return stored.job;
+        }
+        final StoredJob read = read(file);
+        if (read == null || isExpired(read)) {
+            return null;
+        }
+        store(read);
+        return read.job;
     }
 
     public void putJob(JobResult job) {
-        jobs.put(job.getJobId(),
-                 job);
+        final StoredJob stored = new StoredJob(job,
+                                               clock.getAsLong(),
+                                               0);
+        store(stored);
+        persist(job.getJobId(),
+                stored);
     }
 
     public JobResult removeJob(String jobId) {
-        return jobs.remove(jobId);
+        final StoredJob stored = jobs.remove(jobId);
+        if (stored != null) {
+            storageOrder.remove(stored.sequence,
+                                stored);
+        }
+        persist(jobId,
+                DELETED);
+        if (stored == null || isExpired(stored)) {
+            return null;
+        }
+        return stored.job;
+    }
+
+    int size() {
+        return jobs.size();
+    }
+
+    private boolean isExpired(StoredJob stored) {
+        return ttl > 0 && clock.getAsLong() - stored.storedAt >= ttl;
+    }
+
+    private void store(StoredJob stored) {
+        stored.sequence = sequence.incrementAndGet();
+        final StoredJob previous = jobs.put(stored.job.getJobId(),
+                                            stored);
+        if (previous != null) {
+            storageOrder.remove(previous.sequence,
+                                previous);
+        }
+        storageOrder.put(stored.sequence,
+                         stored);
+        evict();
+    }
+
+    /**
+     * Drops the expired results, and the oldest ones above the max size. Results are kept in storage order, so only
+     * the first one has to be checked.
+     */
+    private void evict() {
+        Map.Entry<Long, StoredJob> oldest;
+        while ((oldest = storageOrder.firstEntry()) != null) {
+            final StoredJob stored = oldest.getValue();
+            if (!isExpired(stored) && jobs.size() <= maxCacheSize) {
+                return;
+            }
+            if (storageOrder.remove(oldest.getKey(),
+                                    stored)) {
+                remove(stored.job.getJobId(),
+                       stored);
+            }
+        }
+    }
+
+    private void remove(String jobId,
+                        StoredJob stored) {
+        storageOrder.remove(stored.sequence,
+                            stored);
+        if (!jobs.remove(jobId,
+                         stored)) {
+            return;
+        }
+        if (!stored.isRead()) {
+            persist(jobId,
+                    DELETED);
+        } else if (isExpired(stored) && jobFile(jobId).lastModified() == stored.fileModified) {
+            // results read from the store are only deleted once expired, unless stored again since
+            delete(jobId);
+        }
+    }
+
+    void load() {
+        if (storeDir == null) {
+            return;
+        }
+        if (!storeDir.isDirectory() && !storeDir.mkdirs()) {
+            logger.warn("Unable to create job result store {}, results will not be persisted.",
+                        storeDir);
+            storeDir = null;
+            return;
+        }
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable,
+                                                 "job-result-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        final File[] files = storeDir.listFiles((dir, name) -> name.endsWith(JOB_FILE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.stream(files)
+                .map(this::read)
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingLong(stored -> stored.storedAt))
+                .forEach(this::store);
+        logger.debug("Loaded {} job results from {}",
+                     jobs.size(),
+                     storeDir);
+    }
+
+    private void persist(String jobId,
+                         StoredJob stored) {
+        if (storeDir == null || jobId == null) {
+            return;
+        }
+        if (pendingWrites.put(jobId,
+                              stored) == null) {
+            writer.execute(() -> flush(jobId));
+        }
+    }
+
+    private void flush(String jobId) {
+        final StoredJob stored = pendingWrites.remove(jobId);
+        if (stored == DELETED) {
+            delete(jobId);
+        } else if (stored != null) {
+            write(stored);
+        }
+    }
+
+    private StoredJob read(File file) {
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        final long fileModified = file.lastModified();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            final long storedAt = in.readLong();
+            final JobResult job = new JobResult();
+            job.setJobId(in.readUTF());
+            job.setStatus(in.readBoolean() ? JobStatus.valueOf(in.readUTF()) : null);
+            job.setResult(in.readBoolean() ? in.readUTF() : null);
+            if (in.readBoolean()) {
+                job.setLastModified(in.readLong());
+            }
+            if (in.readBoolean()) {
+                final int size = in.readInt();
+                final List<String> detailedResult = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    detailedResult.add(in.readUTF());
+                }
+                job.setDetailedResult(detailedResult);
+            }
+            return new StoredJob(job,
+                                 storedAt,
+                                 fileModified);
+        } catch (IOException | IllegalArgumentException e) {
+            // possibly being written by another node, or corrupted
+            logger.debug("Unable to read job result {}: {}",
+                         file,
+                         e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(StoredJob stored) {
+        final JobResult job = stored.job;
+        final File file = jobFile(job.getJobId());
+        final File tmp = new File(file.getParentFile(),
+                                  file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(stored.storedAt);
+                out.writeUTF(job.getJobId());
+                writeNullable(out,
+                              job.getStatus() == null ? null : job.getStatus().name());
+                writeNullable(out,
+                              job.getResult());
+                out.writeBoolean(job.getLastModified() != null);
+                if (job.getLastModified() != null) {
+                    out.writeLong(job.getLastModified());
+                }
+                final List<String> detailedResult = job.getDetailedResult();
+                out.writeBoolean(detailedResult != null);
+                if (detailedResult != null) {
+                    out.writeInt(detailedResult.size());
+                    for (String line : detailedResult) {
+                        out.writeUTF(String.valueOf(line));
+                    }
+                }
+            }
+            Files.move(tmp.toPath(),
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to persist job result {}: {}",
+                        job.getJobId(),
+                        e.getMessage());
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out,
+                                      String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private void delete(String jobId) {
+        final File file = jobFile(jobId);
+        if (file != null && file.exists() && !file.delete()) {
+            logger.warn("Unable to delete job result file {}",
+                        file);
+        }
+    }
+
+    private File jobFile(String jobId) {
+        if (storeDir == null || jobId == null) {
+            return null;
+        }
+        try {
+            return new File(storeDir,
+                            URLEncoder.encode(jobId,
+                                              "UTF-8") + JOB_FILE_SUFFIX);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static File storeDir(String path) {
+        return path == null || path.trim().isEmpty() ? null : new File(path.trim());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.rest.backend;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.guvnor.rest.client.JobResult;
+import org.guvnor.rest.client.JobStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class JobResultManagerTest {
+
+    private static final long TTL = 1000;
+
+    private AtomicLong clock;
+    private File storeDir;
+
+    @Before
+    public void setup() throws Exception {
+        clock = new AtomicLong();
+        storeDir = Files.createTempDirectory("job-results").toFile();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Files.walk(storeDir.toPath())
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void resultsExpireAfterTtl() {
+        final JobResultManager manager = manager(10,
+                                                 null);
+        manager.putJob(job("job1",
+                           JobStatus.ACCEPTED));
+        clock.set(TTL - 1);
+        assertNotNull(manager.getJob("job1"));
+
+        clock.set(TTL);
+        assertNull(manager.getJob("job1"));
+        assertEquals(0,
+                     manager.size());
+    }
+
+    @Test
+    public void oldestResultsAreEvictedAboveMaxSize() {
+        final JobResultManager manager = manager(2,
+                                                 null);
+        manager.putJob(job("job1",
+                           JobStatus.ACCEPTED));
+        manager.putJob(job("job2",
+                           JobStatus.ACCEPTED));
+        // updating a result makes it the newest one
+        manager.putJob(job("job1",
+                           JobStatus.SUCCESS));
+        manager.putJob(job("job3",
+                           JobStatus.ACCEPTED));
+
+        assertEquals(2,
+                     manager.size());
+        assertNull(manager.getJob("job2"));
+        assertEquals(JobStatus.SUCCESS,
+                     manager.getJob("job1").getStatus());
+        assertNotNull(manager.getJob("job3"));
+    }
+
+    @Test
+    public void persistedResultsSurviveRestart() {
+        final JobResultManager manager = manager(10,
+                                                 storeDir);
+        manager.putJob(job("job1",
+                           JobStatus.SUCCESS));
+        manager.putJob(job("job/2",
+                           JobStatus.ACCEPTED));
+        manager.removeJob("job/2");
+
+        final JobResultManager restarted = manager(10,
+                                                   storeDir);
+        assertEquals(1,
+                     restarted.size());
+        assertEquals(JobStatus.SUCCESS,
+                     restarted.getJob("job1").getStatus());
+        assertNull(restarted.getJob("job/2"));
+    }
+
+    @Test
+    public void resultsStoredByAnotherNodeAreFound() {
+        final JobResultManager node1 = manager(10,
+                                               storeDir);
+        final JobResultManager node2 = manager(10,
+                                               storeDir);
+
+        node1.putJob(job("job1",
+                         JobStatus.SUCCESS));
+
+        assertEquals(JobStatus.SUCCESS,
+                     node2.getJob("job1").getStatus());
+        clock.set(TTL);
+        assertNull(node2.getJob("job1"));
+    }
+
+    @Test
+    public void resultsUpdatedByAnotherNodeAreReadAgain() {
+        final JobResultManager node1 = manager(10,
+                                               storeDir);
+        final JobResultManager node2 = manager(10,
+                                               storeDir);
+
+        node1.putJob(job("job1",
+                         JobStatus.ACCEPTED));
+        assertEquals(JobStatus.ACCEPTED,
+                     node2.getJob("job1").getStatus());
+
+        node1.putJob(job("job1",
+                         JobStatus.SUCCESS));
+        // file timestamps may not have changed within the same second
+        new File(storeDir,
+                 "job1.job").setLastModified(System.currentTimeMillis() + 2000);
+        assertEquals(JobStatus.SUCCESS,
+                     node2.getJob("job1").getStatus());
+
+        node1.removeJob("job1");
+        assertNull(node2.getJob("job1"));
+        assertEquals(0,
+                     node2.size());
+    }
+
+    @Test
+    public void persistedResultsKeepTheirFields() {
+        final JobResultManager manager = manager(10,
+                                                 storeDir);
+        final JobResult job = job("job1",
+                                  JobStatus.FAIL);
+        job.setResult("Repository not found");
+        job.setLastModified(42L);
+        job.setDetailedResult(Arrays.asList("line1",
+                                            "line2"));
+        manager.putJob(job);
+
+        final JobResult read = manager(10,
+                                       storeDir).getJob("job1");
+        assertEquals(JobStatus.FAIL,
+                     read.getStatus());
+        assertEquals("Repository not found",
+                     read.getResult());
+        assertEquals(Long.valueOf(42L),
+                     read.getLastModified());
+        assertEquals(Arrays.asList("line1",
+                                   "line2"),
+                     read.getDetailedResult());
+    }
+
+    private JobResultManager manager(final int maxSize,
+                                     final File storeDir) {
+        final JobResultManager manager = new JobResultManager(maxSize,
+                                                              TTL,
+                                                              storeDir,
+                                                              clock::get,
+                                                              Runnable::run);
+        manager.load();
+        return manager;
+    }
+
+    private JobResult job(final String jobId,
+                          final JobStatus status) {
+        final JobResult job = new JobResult();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        return job;
+    }
+}
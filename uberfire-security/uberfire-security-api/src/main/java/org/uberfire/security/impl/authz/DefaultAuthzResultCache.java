@@ -15,61 +15,289 @@
  */
 package org.uberfire.security.impl.authz;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.errai.security.shared.api.identity.User;
 import org.uberfire.security.authz.AuthorizationResult;
 import org.uberfire.security.authz.Permission;
 
+/**
+ * Concurrent cache of authorization results, keyed by (user, permission).
+ * <p>
+ * Every entry is tagged with the version of the authorization policy and the generation of its user at the time
+ * it was stored, and is only returned while both are current. Invalidating a user just bumps its generation and
+ * {@link #clear()} bumps the policy version, so both are O(1); stale entries are dropped when read or when the
+ * cache is swept on reaching its max size. Entries also expire after a time to live.
+ * <p>
+ * Results have to be stored with the policy version and user generation read before computing them, see
+ * {@link #put(User, Permission, AuthorizationResult, long, long)}, so a result computed while either changed is
+ * never stored.
+ */
 public class DefaultAuthzResultCache {
 
-    final Map<Permission, Map<String, AuthorizationResult>> internal = new HashMap<>();
+    public static final int DEFAULT_MAX_SIZE = 10000;
+    public static final long DEFAULT_TTL = 30 * 60 * 1000L;
+
+    private final int maxSize;
+    private final long ttl;
+
+    final Map<Key, Entry> internal = new ConcurrentHashMap<>();
+    final Map<String, Long> userGenerations = new ConcurrentHashMap<>();
+    private final AtomicLong policyVersion = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public DefaultAuthzResultCache() {
+        this(DEFAULT_MAX_SIZE,
+             DEFAULT_TTL);
+    }
+
+    public DefaultAuthzResultCache(final int maxSize,
+                                   final long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
 
     public AuthorizationResult get(final User user,
                                    final Permission permission) {
-        Map<String, AuthorizationResult> result = internal.get(permission);
-        if (result == null) {
+        final String userId = getUserId(user);
+        if (userId == null) {
             return null;
         }
-        return result.get(user.getIdentifier());
+        final Key key = new Key(userId,
+                                permission);
+        final Entry entry = internal.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (!isValid(entry,
+                     userId,
+                     now())) {
+            internal.remove(key,
+                            entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.result;
     }
 
     public void put(final User user,
                     final Permission permission,
                     final AuthorizationResult authzResult) {
-        if (!internal.containsKey(permission)) {
-            internal.put(permission,
-                         new HashMap<>());
+        put(user,
+            permission,
+            authzResult,
+            getPolicyVersion(),
+            getUserGeneration(user));
+    }
+
+    /**
+     * Stores a result unless the policy version or the user generation changed since they were read, ie., while the
+     * result was being computed.
+     * @param policyVersion The {@link #getPolicyVersion()} read before computing the result.
+     * @param userGeneration The {@link #getUserGeneration(User)} read before computing the result.
+     */
+    public void put(final User user,
+                    final Permission permission,
+                    final AuthorizationResult authzResult,
+                    final long policyVersion,
+                    final long userGeneration) {
+        final String userId = getUserId(user);
+        if (userId == null || authzResult == null || !isCurrent(userId,
+                                                                 policyVersion,
+                                                                 userGeneration)) {
+            return;
+        }
+        final Key key = new Key(userId,
+                                permission);
+        final Entry entry = new Entry(authzResult,
+                                      policyVersion,
+                                      userGeneration,
+                                      now() + ttl);
+        internal.put(key,
+                     entry);
+        // invalidated meanwhile: the entry will never be valid, so don't keep it
+        if (!isCurrent(userId,
+                       policyVersion,
+                       userGeneration)) {
+            internal.remove(key,
+                            entry);
+            return;
         }
-        final Map<String, AuthorizationResult> result = internal.get(permission);
-        AuthorizationResult knowValue = result.get(user.getIdentifier());
-        if (!(result.containsKey(user.getIdentifier()) && authzResult.equals(knowValue))) {
-            result.put(user.getIdentifier(),
-                       authzResult);
+        if (internal.size() > maxSize) {
+            evict();
         }
     }
 
     public int size(User user) {
+        final String userId = getUserId(user);
+        if (userId == null) {
+            return 0;
+        }
+        final long now = now();
         int count = 0;
-        for (Map<String, AuthorizationResult> userCache : internal.values()) {
-            if (userCache.containsKey(user.getIdentifier())) {
+        for (Map.Entry<Key, Entry> entry : internal.entrySet()) {
+            if (userId.equals(entry.getKey().userId) && isValid(entry.getValue(),
+                                                                userId,
+                                                                now)) {
                 count++;
             }
         }
         return count;
     }
 
+    /**
+     * Invalidates all the cached results, e.g. when the authorization policy changes.
+     */
     public void clear() {
+        policyVersion.incrementAndGet();
         internal.clear();
+        // generations only need to differ within a policy version, results read before this one can't be stored
+        userGenerations.clear();
     }
 
     public void invalidate(final User user) {
         if (user == null || user.getIdentifier() == null || user.getIdentifier().isEmpty()) {
             return;
         }
-        for (Map<String, AuthorizationResult> entry : internal.values()) {
-            entry.remove(user.getIdentifier());
+        userGenerations.merge(user.getIdentifier(),
+                              1L,
+                              Long::sum);
+        // one generation is kept per invalidated user, start over rather than let them grow without bound
+        if (userGenerations.size() > maxSize) {
+            clear();
+        }
+    }
+
+    /**
+     * Version of the authorization policy, bumped on every {@link #clear()}. Results computed while it changed
+     * must not be stored.
+     */
+    public long getPolicyVersion() {
+        return policyVersion.get();
+    }
+
+    /**
+     * Generation of the given user, bumped on every {@link #invalidate(User)}. Results computed while it changed
+     * must not be stored.
+     */
+    public long getUserGeneration(final User user) {
+        final String userId = getUserId(user);
+        return userId == null ? 0 : getGeneration(userId);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isValid(final Entry entry,
+                            final String userId,
+                            final long now) {
+        return entry.policyVersion == policyVersion.get()
+                && entry.userGeneration == getGeneration(userId)
+                && (ttl <= 0 || now < entry.expiresAt);
+    }
+
+    private boolean isCurrent(final String userId,
+                              final long policyVersion,
+                              final long userGeneration) {
+        return policyVersion == this.policyVersion.get() && userGeneration == getGeneration(userId);
+    }
+
+    private long getGeneration(final String userId) {
+        final Long generation = userGenerations.get(userId);
+        return generation == null ? 0 : generation;
+    }
+
+    private String getUserId(final User user) {
+        return user == null ? null : user.getIdentifier();
+    }
+
+    /**
+     * Drops the stale and expired entries and, if still over the max size, enough of the remaining ones to get
+     * back to three quarters of it, so sweeps stay infrequent.
+     */
+    private void evict() {
+        final long now = now();
+        internal.entrySet().removeIf(entry -> !isValid(entry.getValue(),
+                                                       entry.getKey().userId,
+                                                       now));
+        final int target = maxSize * 3 / 4;
+        final Iterator<Key> it = internal.keySet().iterator();
+        while (internal.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    static class Key {
+
+        private final String userId;
+        private final Permission permission;
+        private final int hash;
+
+        Key(final String userId,
+            final Permission permission) {
+            this.userId = userId;
+            this.permission = permission;
+            this.hash = 31 * userId.hashCode() + (permission != null ? permission.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash
+                    && userId.equals(other.userId)
+                    && (permission != null ? permission.equals(other.permission) : other.permission == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static class Entry {
+
+        private final AuthorizationResult result;
+        private final long policyVersion;
+        private final long userGeneration;
+        private final long expiresAt;
+
+        Entry(final AuthorizationResult result,
+              final long policyVersion,
+              final long userGeneration,
+              final long expiresAt) {
+            this.result = result;
+            this.policyVersion = policyVersion;
+            this.userGeneration = userGeneration;
+            this.expiresAt = expiresAt;
         }
     }
 }
@@ -15,8 +15,10 @@
  */
 package org.uberfire.security.impl.authz;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 import org.jboss.errai.common.client.api.annotations.Portable;
@@ -27,6 +29,11 @@ import static org.uberfire.security.authz.AuthorizationResult.ACCESS_GRANTED;
 
 /**
  * A collection where the permissions are ordered by name.
+ * <p>
+ * The ordered set doubles as an index over the dot separated permission names: a permission can only be implied by
+ * name by the permissions named after it or after one of its dot separated prefixes, which are looked up one by one,
+ * and the permissions it implies by name are a contiguous range of the set. Lookups are therefore logarithmic in
+ * the size of the collection instead of linear.
  */
 @Portable
 public class DefaultPermissionCollection implements PermissionCollection {
@@ -68,13 +75,16 @@ public class DefaultPermissionCollection implements PermissionCollection {
 
     @Override
     public Permission get(String name) {
-        for (Permission p : permissionSet) {
-            if (equalsName(name,
-                           p.getName())) {
-                return p;
+        if (name == null) {
+            for (Permission p : permissionSet) {
+                if (p.getName() == null) {
+                    return p;
+                }
             }
+            return null;
         }
-        return null;
+        Permission p = permissionSet.ceiling(new DotNamedPermission(name));
+        return p != null && name.equals(p.getName()) ? p : null;
     }
 
     protected boolean equalsName(String s1,
@@ -84,7 +94,7 @@ public class DefaultPermissionCollection implements PermissionCollection {
 
     @Override
     public boolean implies(Permission permission) {
-        for (Permission p : permissionSet) {
+        for (Permission p : getImplyingCandidates(permission)) {
             if (p.implies(permission)) {
                 return true;
             }
@@ -94,7 +104,7 @@ public class DefaultPermissionCollection implements PermissionCollection {
 
     @Override
     public boolean impliesName(Permission permission) {
-        for (Permission p : permissionSet) {
+        for (Permission p : getImplyingCandidates(permission)) {
             if (p.impliesName(permission)) {
                 return true;
             }
@@ -102,6 +112,53 @@ public class DefaultPermissionCollection implements PermissionCollection {
         return false;
     }
 
+    /**
+     * Get the permissions that may imply the given one, i.e. those named after it or after one of its dot
+     * separated prefixes ("a" and "a.b" for "a.b.c").
+     */
+    protected Collection<Permission> getImplyingCandidates(Permission permission) {
+        String name = permission.getName();
+        if (name == null) {
+            return permissionSet;
+        }
+        List<Permission> candidates = new ArrayList<>();
+        for (int i = name.indexOf('.'); i >= 0; i = name.indexOf('.',
+                                                                  i + 1)) {
+            addIfNotNull(candidates,
+                         get(name.substring(0,
+                                            i)));
+        }
+        addIfNotNull(candidates,
+                     get(name));
+        return candidates;
+    }
+
+    /**
+     * Get the permissions the given one may imply, i.e. the one with the same name and those whose name starts
+     * with its name followed by a dot. They are a contiguous range of the set, as '/' follows '.'.
+     */
+    protected Collection<Permission> getImpliedCandidates(Permission permission) {
+        String name = permission.getName();
+        if (name == null) {
+            return new ArrayList<>(permissionSet);
+        }
+        List<Permission> candidates = new ArrayList<>();
+        addIfNotNull(candidates,
+                     get(name));
+        candidates.addAll(permissionSet.subSet(new DotNamedPermission(name + "."),
+                                               true,
+                                               new DotNamedPermission(name + "/"),
+                                               false));
+        return candidates;
+    }
+
+    private void addIfNotNull(List<Permission> permissions,
+                              Permission p) {
+        if (p != null) {
+            permissions.add(p);
+        }
+    }
+
     @Override
     public PermissionCollection merge(PermissionCollection other,
                                       int priority) {
@@ -137,11 +194,20 @@ public class DefaultPermissionCollection implements PermissionCollection {
         if (existing == null && !result.impliesName(p)) {
             result.add(p);
         } else if (grantedWins && ACCESS_GRANTED.equals(p.getResult())) {
-            Iterator<Permission> it = result.collection().iterator();
-            while (it.hasNext()) {
-                Permission next = it.next();
-                if (p.impliesName(next)) {
-                    it.remove();
+            if (result instanceof DefaultPermissionCollection) {
+                DefaultPermissionCollection indexed = (DefaultPermissionCollection) result;
+                for (Permission next : indexed.getImpliedCandidates(p)) {
+                    if (p.impliesName(next)) {
+                        indexed.remove(next);
+                    }
+                }
+            } else {
+                Iterator<Permission> it = result.collection().iterator();
+                while (it.hasNext()) {
+                    Permission next = it.next();
+                    if (p.impliesName(next)) {
+                        it.remove();
+                    }
                 }
             }
             result.add(p);
@@ -160,11 +226,9 @@ public class DefaultPermissionCollection implements PermissionCollection {
         target.setResult(target.getResult().invert());
 
         // After inverting the permission ensure no implied permissions are left
-        Iterator<Permission> it = permissionSet.iterator();
-        while (it.hasNext()) {
-            Permission p = it.next();
+        for (Permission p : getImpliedCandidates(target)) {
             if (!target.equals(p) && target.implies(p)) {
-                it.remove();
+                permissionSet.remove(p);
             }
         }
         return this;
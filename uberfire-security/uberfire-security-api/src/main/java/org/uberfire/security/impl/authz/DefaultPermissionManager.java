@@ -47,7 +47,7 @@ import static org.uberfire.security.authz.AuthorizationResult.ACCESS_GRANTED;
 public class DefaultPermissionManager implements PermissionManager {
 
     private PermissionTypeRegistry permissionTypeRegistry;
-    private AuthorizationPolicy authorizationPolicy = new DefaultAuthorizationPolicy();
+    private volatile AuthorizationPolicy authorizationPolicy = new DefaultAuthorizationPolicy();
     private DefaultAuthzResultCache cache;
     private VotingStrategy defaultVotingStrategy = VotingStrategy.PRIORITY;
     private Map<VotingStrategy, VotingAlgorithm> votingAlgorithmMap = new HashMap<>();
@@ -167,12 +167,17 @@ public class DefaultPermissionManager implements PermissionManager {
         AuthorizationResult result = cache.get(user,
                                                permission);
         if (result == null) {
+            // a result computed while the policy is replaced or the user invalidated is not cached
+            final long policyVersion = cache.getPolicyVersion();
+            final long userGeneration = cache.getUserGeneration(user);
             result = _checkPermission(permission,
                                       user,
                                       votingStrategy == null ? defaultVotingStrategy : votingStrategy);
             cache.put(user,
                       permission,
-                      result);
+                      result,
+                      policyVersion,
+                      userGeneration);
         }
         return result;
     }
@@ -8,11 +8,14 @@ import org.uberfire.security.authz.AuthorizationResult;
 import org.uberfire.security.authz.Permission;
 
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class DefaultAuthzResultCacheTest {
 
@@ -38,4 +41,118 @@ public class DefaultAuthzResultCacheTest {
         assertNull(cache.get(user, viewAll));
     }
 
+    @Test
+    public void testInvalidateOnlyAffectsTheUser() {
+        final User user = createUserMock("admin");
+        final User other = new UserImpl("other");
+        final Permission viewAll = new DotNamedPermission("resource.read", true);
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache();
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED);
+        cache.put(other, viewAll, AuthorizationResult.ACCESS_DENIED);
+
+        cache.invalidate(user);
+
+        assertNull(cache.get(user, viewAll));
+        assertEquals(AuthorizationResult.ACCESS_DENIED, cache.get(other, viewAll));
+
+        // results cached after the invalidation are valid again
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_DENIED);
+        assertEquals(AuthorizationResult.ACCESS_DENIED, cache.get(user, viewAll));
+        assertEquals(1, cache.size(user));
+    }
+
+    @Test
+    public void testClearInvalidatesAllUsers() {
+        final User user = createUserMock("admin");
+        final Permission viewAll = new DotNamedPermission("resource.read", true);
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache();
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED);
+        final long policyVersion = cache.getPolicyVersion();
+
+        cache.clear();
+
+        assertNull(cache.get(user, viewAll));
+        assertNotEquals(policyVersion, cache.getPolicyVersion());
+    }
+
+    @Test
+    public void testResultsComputedWhileInvalidatedAreNotStored() {
+        final User user = createUserMock("admin");
+        final Permission viewAll = new DotNamedPermission("resource.read", true);
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache();
+        long policyVersion = cache.getPolicyVersion();
+        long userGeneration = cache.getUserGeneration(user);
+        cache.invalidate(user);
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED, policyVersion, userGeneration);
+        assertNull(cache.get(user, viewAll));
+
+        policyVersion = cache.getPolicyVersion();
+        userGeneration = cache.getUserGeneration(user);
+        cache.clear();
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED, policyVersion, userGeneration);
+        assertNull(cache.get(user, viewAll));
+        assertEquals(0, cache.internal.size());
+    }
+
+    @Test
+    public void testUserGenerationsAreBounded() {
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache(10, 0);
+        for (int i = 0; i < 100; i++) {
+            cache.invalidate(new UserImpl("user" + i));
+        }
+
+        assertTrue(cache.userGenerations.size() <= 10);
+    }
+
+    @Test
+    public void testResultsExpire() {
+        final User user = createUserMock("admin");
+        final Permission viewAll = new DotNamedPermission("resource.read", true);
+        final AtomicLong clock = new AtomicLong();
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache(10, 1000) {
+            @Override
+            protected long now() {
+                return clock.get();
+            }
+        };
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED);
+        clock.set(999);
+        assertEquals(AuthorizationResult.ACCESS_GRANTED, cache.get(user, viewAll));
+
+        clock.set(1000);
+        assertNull(cache.get(user, viewAll));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        final User user = createUserMock("admin");
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache(100, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(user, new DotNamedPermission("resource" + i + ".read", true), AuthorizationResult.ACCESS_GRANTED);
+        }
+
+        assertTrue(cache.size(user) <= 100);
+    }
+
+    @Test
+    public void testHitRate() {
+        final User user = createUserMock("admin");
+        final Permission viewAll = new DotNamedPermission("resource.read", true);
+
+        DefaultAuthzResultCache cache = new DefaultAuthzResultCache();
+        assertNull(cache.get(user, viewAll));
+        cache.put(user, viewAll, AuthorizationResult.ACCESS_GRANTED);
+        cache.get(user, viewAll);
+        cache.get(user, viewAll);
+        cache.get(user, viewAll);
+
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.75, cache.getHitRate(), 0.001);
+    }
 }
@@ -15,6 +15,11 @@
  */
 package org.uberfire.security.impl.authz;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 import org.uberfire.security.authz.AuthorizationResult;
 import org.uberfire.security.authz.Permission;
@@ -285,4 +290,105 @@ public class PermissionCollectionTest {
         assertEquals(pc.get("resource.read").getResult(),
                      AuthorizationResult.ACCESS_DENIED);
     }
+
+    @Test
+    public void testIndexedLookupsMatchLinearScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            DefaultPermissionCollection indexed = new DefaultPermissionCollection();
+            LinearPermissionCollection linear = new LinearPermissionCollection();
+            for (int i = 0; i < 20; i++) {
+                Permission p = randomPermission(random);
+                indexed.add(p.clone());
+                linear.add(p.clone());
+            }
+            assertEquals(linear.toString(),
+                         indexed.toString());
+
+            for (int i = 0; i < 50; i++) {
+                Permission p = randomPermission(random);
+                assertEquals(p.toString(),
+                             linear.implies(p),
+                             indexed.implies(p));
+                assertEquals(p.toString(),
+                             linear.impliesName(p),
+                             indexed.impliesName(p));
+                assertEquals(p.toString(),
+                             linear.get(p.getName()),
+                             indexed.get(p.getName()));
+            }
+        }
+    }
+
+    @Test
+    public void testIndexedMergeMatchesLinearScan() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            DefaultPermissionCollection indexed1 = new DefaultPermissionCollection();
+            DefaultPermissionCollection indexed2 = new DefaultPermissionCollection();
+            LinearPermissionCollection linear1 = new LinearPermissionCollection();
+            LinearPermissionCollection linear2 = new LinearPermissionCollection();
+            for (int i = 0; i < 10; i++) {
+                Permission p1 = randomPermission(random);
+                Permission p2 = randomPermission(random);
+                indexed1.add(p1.clone());
+                linear1.add(p1.clone());
+                indexed2.add(p2.clone());
+                linear2.add(p2.clone());
+            }
+            for (int priority = -1; priority <= 1; priority++) {
+                assertEquals(linear1.merge(linear2,
+                                           priority).toString(),
+                             indexed1.merge(indexed2,
+                                            priority).toString());
+            }
+        }
+    }
+
+    private Permission randomPermission(Random random) {
+        StringBuilder name = new StringBuilder("resource");
+        int depth = random.nextInt(4);
+        for (int i = 0; i < depth; i++) {
+            name.append(".").append((char) ('a' + random.nextInt(3)));
+        }
+        return new DotNamedPermission(name.toString(),
+                                      AuthorizationResult.values()[random.nextInt(AuthorizationResult.values().length)]);
+    }
+
+    /**
+     * Reference implementation scanning the whole collection on every lookup.
+     */
+    private static class LinearPermissionCollection extends DefaultPermissionCollection {
+
+        @Override
+        public Permission get(String name) {
+            for (Permission p : collection()) {
+                if (equalsName(name,
+                               p.getName())) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected Collection<Permission> getImplyingCandidates(Permission permission) {
+            return collection();
+        }
+
+        @Override
+        protected Collection<Permission> getImpliedCandidates(Permission permission) {
+            return new ArrayList<>(collection());
+        }
+
+        @Override
+        public LinearPermissionCollection clone() {
+            LinearPermissionCollection clone = new LinearPermissionCollection();
+            List<Permission> permissions = new ArrayList<>(collection());
+            for (Permission p : permissions) {
+                clone.add(p.clone());
+            }
+            return clone;
+        }
+    }
 }
@@ -362,9 +362,11 @@ public class PermissionManagerTest {
                times(1)).resolvePermissions(user,
                                             VotingStrategy.PRIORITY);
         verify(authzResultCache,
-               times(1)).put(user,
-                             viewAll,
-                             AuthorizationResult.ACCESS_GRANTED);
+               times(1)).put(eq(user),
+                             eq(viewAll),
+                             eq(AuthorizationResult.ACCESS_GRANTED),
+                             anyLong(),
+                             anyLong());
         verify(authzResultCache,
                times(4)).get(user,
                              viewAll);
@@ -384,9 +386,11 @@ public class PermissionManagerTest {
                 times(2)).resolvePermissions(user,
                 VotingStrategy.PRIORITY);
         verify(authzResultCache,
-                times(2)).put(user,
-                viewAll,
-                AuthorizationResult.ACCESS_GRANTED);
+                times(2)).put(eq(user),
+                eq(viewAll),
+                eq(AuthorizationResult.ACCESS_GRANTED),
+                anyLong(),
+                anyLong());
         verify(authzResultCache,
                 times(5)).get(user,
                 viewAll);
@@ -440,6 +440,13 @@ public class MockIOService
         return null;
     }
 
+    @Override
+    public void writeAll(Map<Path, byte[]> contents,
+                         Set<Path> deletions,
+                         Option... options) throws IllegalArgumentException, IOException, UnsupportedOperationException {
+
+    }
+
     @Override
     public int priority() {
         return 0;
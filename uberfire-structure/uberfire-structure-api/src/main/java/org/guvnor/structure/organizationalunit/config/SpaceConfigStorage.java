@@ -85,5 +85,11 @@ public interface SpaceConfigStorage {
     List<Long> getChangeRequestCommentIds(final String repositoryAlias,
                                           final Long changeRequestId);
 
-
+    /**
+     * @return An identifier of the current content of the storage, which changes on every write, or null if the
+     * underlying file system can't provide one.
+     */
+    default String getVersion() {
+        return null;
+    }
 }
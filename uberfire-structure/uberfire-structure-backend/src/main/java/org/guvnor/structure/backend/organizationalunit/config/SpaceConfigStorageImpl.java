@@ -38,9 +38,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uberfire.backend.server.io.object.ObjectStorage;
 import org.uberfire.io.IOService;
+import org.uberfire.java.nio.base.FileSystemChangesSupport;
 import org.uberfire.java.nio.file.DirectoryStream;
 import org.uberfire.java.nio.file.Files;
 import org.uberfire.java.nio.file.Path;
+import org.uberfire.java.nio.file.spi.FileSystemProvider;
 import org.uberfire.spaces.SpacesAPI;
 import org.uberfire.util.URIUtil;
 
@@ -317,6 +319,22 @@ public class SpaceConfigStorageImpl implements SpaceConfigStorage {
         this.objectStorage.close();
     }
 
+    @Override
+    public String getVersion() {
+        try {
+            final Path root = getPath();
+            final FileSystemProvider provider = root.getFileSystem().provider();
+            if (provider instanceof FileSystemChangesSupport) {
+                return ((FileSystemChangesSupport) provider).getVersion(root);
+            }
+        } catch (final Exception e) {
+            logger.warn("Unable to read the version of space [{}] config.",
+                        spaceName,
+                        e);
+        }
+        return null;
+    }
+
     @Override
     public boolean isInitialized() {
         return this.loadSpaceInfo() != null;
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.backend.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.guvnor.structure.organizationalunit.config.SpaceConfigStorage;
+import org.guvnor.structure.organizationalunit.config.SpaceConfigStorageRegistry;
+import org.guvnor.structure.repositories.changerequest.portable.ChangeRequest;
+import org.guvnor.structure.repositories.changerequest.portable.ChangeRequestStatus;
+
+/**
+ * In memory index of the change requests of each repository, so listing, paginating and counting them does not
+ * deserialize every change request from the space config storage.
+ * <p>
+ * The change requests of a repository are loaded once, and indexed by target branch (used to apply branch
+ * permissions) and status, along with their searchable text. A snapshot is reloaded when it has been invalidated by
+ * a write, or when the version of the space config storage has changed since it was loaded. When the storage has no
+ * version, snapshots are not cached since changes made by other nodes can't be detected.
+ */
+public class ChangeRequestIndex {
+
+    private static final Comparator<ChangeRequest> NEWEST_FIRST = Comparator.comparing(ChangeRequest::getCreatedDate).reversed();
+
+    private final SpaceConfigStorageRegistry spaceConfigStorageRegistry;
+    private final Map<String, Map<String, Snapshot>> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, AtomicLong>> invalidations = new ConcurrentHashMap<>();
+
+    public ChangeRequestIndex(final SpaceConfigStorageRegistry spaceConfigStorageRegistry) {
+        this.spaceConfigStorageRegistry = spaceConfigStorageRegistry;
+    }
+
+    public Snapshot get(final String spaceName,
+                        final String repositoryAlias) {
+        final SpaceConfigStorage storage = spaceConfigStorageRegistry.get(spaceName);
+        final String version = storage.getVersion();
+        if (version == null) {
+            // without a version, changes made by other nodes can't be detected
+            return new Snapshot(null,
+                                storage.loadChangeRequests(repositoryAlias));
+        }
+
+        final Map<String, Snapshot> spaceSnapshots = snapshots.computeIfAbsent(spaceName,
+                                                                               k -> new ConcurrentHashMap<>());
+        final Snapshot current = spaceSnapshots.get(repositoryAlias);
+        if (current != null && version.equals(current.version)) {
+            return current;
+        }
+
+        final AtomicLong repositoryInvalidations = invalidations(spaceName,
+                                                                 repositoryAlias);
+        final long generation = repositoryInvalidations.get();
+        final Snapshot snapshot = new Snapshot(version,
+                                               storage.loadChangeRequests(repositoryAlias));
+        // a snapshot loaded while a write was invalidating the repository may miss that write
+        spaceSnapshots.compute(repositoryAlias,
+                               (k, previous) -> repositoryInvalidations.get() == generation ? snapshot : previous);
+        return snapshot;
+    }
+
+    public void invalidate(final String spaceName,
+                           final String repositoryAlias) {
+        invalidations(spaceName,
+                      repositoryAlias).incrementAndGet();
+        final Map<String, Snapshot> spaceSnapshots = snapshots.get(spaceName);
+        if (spaceSnapshots != null) {
+            spaceSnapshots.remove(repositoryAlias);
+        }
+    }
+
+    private AtomicLong invalidations(final String spaceName,
+                                     final String repositoryAlias) {
+        return invalidations.computeIfAbsent(spaceName,
+                                             k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(repositoryAlias,
+                                 k -> new AtomicLong());
+    }
+
+    static String composeSearchableElement(final ChangeRequest element) {
+        return element.toString().toLowerCase();
+    }
+
+    /**
+     * Immutable view of the change requests of a repository. Every list is sorted from the newest to the oldest.
+     */
+    public static class Snapshot {
+
+        private final String version;
+        private final List<ChangeRequest> all;
+        private final Map<Long, ChangeRequest> byId = new HashMap<>();
+        private final Map<String, Map<ChangeRequestStatus, List<ChangeRequest>>> byTargetBranch = new HashMap<>();
+        private final Map<ChangeRequest, String> searchableElements = new IdentityHashMap<>();
+        private final Map<ChangeRequest, Integer> positions = new IdentityHashMap<>();
+
+        Snapshot(final String version,
+                 final List<ChangeRequest> changeRequests) {
+            this.version = version;
+            final List<ChangeRequest> sorted = new ArrayList<>(changeRequests);
+            sorted.sort(NEWEST_FIRST);
+            this.all = Collections.unmodifiableList(sorted);
+
+            for (final ChangeRequest changeRequest : sorted) {
+                byId.putIfAbsent(changeRequest.getId(),
+                                 changeRequest);
+                searchableElements.put(changeRequest,
+                                       composeSearchableElement(changeRequest));
+                positions.put(changeRequest,
+                              positions.size());
+                byTargetBranch.computeIfAbsent(changeRequest.getTargetBranch(),
+                                               k -> new EnumMap<>(ChangeRequestStatus.class))
+                        .computeIfAbsent(changeRequest.getStatus(),
+                                         k -> new ArrayList<>())
+                        .add(changeRequest);
+            }
+        }
+
+        public List<ChangeRequest> getAll() {
+            return all;
+        }
+
+        public Optional<ChangeRequest> getById(final Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        /**
+         * @param targetBranches Branches the change requests must target.
+         * @param statusList     Statuses the change requests must be in, or null for any status.
+         * @param filter         Text the change requests must contain, or null for any text.
+         */
+        public List<ChangeRequest> find(final Collection<String> targetBranches,
+                                        final Collection<ChangeRequestStatus> statusList,
+                                        final String filter) {
+            final String searchFilter = filter == null ? null : filter.toLowerCase();
+            final List<ChangeRequest> result = new ArrayList<>();
+            for (final String targetBranch : targetBranches) {
+                final Map<ChangeRequestStatus, List<ChangeRequest>> byStatus = byTargetBranch.get(targetBranch);
+                if (byStatus == null) {
+                    continue;
+                }
+                byStatus.forEach((status, changeRequests) -> {
+                    if (statusList == null || statusList.contains(status)) {
+                        if (searchFilter == null) {
+                            result.addAll(changeRequests);
+                        } else {
+                            changeRequests.stream()
+                                    .filter(elem -> searchableElements.get(elem).contains(searchFilter))
+                                    .forEach(result::add);
+                        }
+                    }
+                });
+            }
+            if (targetBranches.size() > 1 || statusList == null || statusList.size() > 1) {
+                result.sort(Comparator.comparing(positions::get));
+            }
+            return result;
+        }
+
+        /**
+         * @param status Status the change requests must be in, or null for any status.
+         */
+        public int count(final Collection<String> targetBranches,
+                         final ChangeRequestStatus status) {
+            int count = 0;
+            for (final String targetBranch : targetBranches) {
+                final Map<ChangeRequestStatus, List<ChangeRequest>> byStatus = byTargetBranch.get(targetBranch);
+                if (byStatus == null) {
+                    continue;
+                }
+                if (status == null) {
+                    count += byStatus.values().stream().mapToInt(List::size).sum();
+                } else {
+                    count += byStatus.getOrDefault(status,
+                                                   Collections.emptyList()).size();
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -28,7 +28,6 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
@@ -110,6 +109,7 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
     private final Event<ChangeRequestStatusUpdatedEvent> changeRequestStatusUpdatedEventEvent;
     private final BranchAccessAuthorizer branchAccessAuthorizer;
     private final SessionInfo sessionInfo;
+    private final ChangeRequestIndex changeRequestIndex;
 
     private Logger logger = LoggerFactory.getLogger(ChangeRequestServiceImpl.class);
 
@@ -130,6 +130,7 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         this.changeRequestStatusUpdatedEventEvent = changeRequestStatusUpdatedEventEvent;
         this.branchAccessAuthorizer = branchAccessAuthorizer;
         this.sessionInfo = sessionInfo;
+        this.changeRequestIndex = new ChangeRequestIndex(spaceConfigStorageRegistry);
     }
 
     @Override
@@ -173,6 +174,8 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
 
         spaceConfigStorageRegistry.get(spaceName).saveChangeRequest(repositoryAlias,
                                                                     newChangeRequest);
+        changeRequestIndex.invalidate(spaceName,
+                                      repositoryAlias);
 
         changeRequestListUpdatedEvent.fire(new ChangeRequestListUpdatedEvent(repository.getIdentifier()));
 
@@ -185,11 +188,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotEmpty(SPACE_NAME_PARAM, spaceName);
         checkNotEmpty(REPOSITORY_ALIAS_PARAM, repositoryAlias);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     true,
-                                                     ChangeRequestPredicates.matchAll());
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      null,
+                                                                      null);
 
         return computeFullContent(spaceName,
                                   repositoryAlias,
@@ -203,14 +205,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotEmpty(SPACE_NAME_PARAM, spaceName);
         checkNotEmpty(REPOSITORY_ALIAS_PARAM, repositoryAlias);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     true,
-                                                     ChangeRequestPredicates
-                                                             .matchSearchFilter(filter,
-                                                                                ChangeRequestServiceImpl
-                                                                                ::composeSearchableElement));
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      null,
+                                                                      filter);
 
         return computeFullContent(spaceName,
                                   repositoryAlias,
@@ -225,11 +223,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotEmpty(REPOSITORY_ALIAS_PARAM, repositoryAlias);
         checkNotEmpty(STATUS_LIST_PARAM, statusList);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     true,
-                                                     ChangeRequestPredicates.matchInStatusList(statusList));
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      statusList,
+                                                                      null);
 
         return computeFullContent(spaceName,
                                   repositoryAlias,
@@ -245,15 +242,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotEmpty(REPOSITORY_ALIAS_PARAM, repositoryAlias);
         checkNotEmpty(STATUS_LIST_PARAM, statusList);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(
-                        spaceName,
-                        repositoryAlias,
-                        true,
-                        ChangeRequestPredicates.matchSearchFilterAndStatusList(filter,
-                                                                               ChangeRequestServiceImpl::
-                                                                                       composeSearchableElement,
-                                                                               statusList));
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      statusList,
+                                                                      filter);
 
         return computeFullContent(spaceName,
                                   repositoryAlias,
@@ -271,14 +263,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotNull(PAGE_PARAM, page);
         checkNotNull(PAGE_SIZE_PARAM, pageSize);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     true,
-                                                     ChangeRequestPredicates
-                                                             .matchSearchFilter(filter,
-                                                                                ChangeRequestServiceImpl::
-                                                                                        composeSearchableElement));
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      null,
+                                                                      filter);
 
         final List<ChangeRequest> paginatedChangeRequests = paginateChangeRequests(changeRequests,
                                                                                    page,
@@ -305,15 +293,10 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotNull(PAGE_SIZE_PARAM, pageSize);
         checkNotEmpty(STATUS_LIST_PARAM, statusList);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     true,
-                                                     ChangeRequestPredicates
-                                                             .matchSearchFilterAndStatusList(filter,
-                                                                                             ChangeRequestServiceImpl::
-                                                                                                     composeSearchableElement,
-                                                                                             statusList));
+        final List<ChangeRequest> changeRequests = findChangeRequests(spaceName,
+                                                                      repositoryAlias,
+                                                                      statusList,
+                                                                      filter);
 
         final List<ChangeRequest> paginatedChangeRequests = paginateChangeRequests(changeRequests,
                                                                                    page,
@@ -347,19 +330,16 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         checkNotEmpty(SPACE_NAME_PARAM, spaceName);
         checkNotEmpty(REPOSITORY_ALIAS_PARAM, repositoryAlias);
 
-        final List<ChangeRequest> changeRequests =
-                getFilteredChangeRequestsFromStorage(spaceName,
-                                                     repositoryAlias,
-                                                     false,
-                                                     ChangeRequestPredicates.matchAll());
-
-        final Integer total = changeRequests.size();
-        final long open = changeRequests.stream()
-                .filter(elem -> elem.getStatus() == ChangeRequestStatus.OPEN)
-                .count();
+        final ChangeRequestIndex.Snapshot snapshot = changeRequestIndex.get(spaceName,
+                                                                            repositoryAlias);
+        final List<String> branchesUserCanRead = getBranchesUserCanRead(resolveRepository(spaceName,
+                                                                                          repositoryAlias),
+                                                                        sessionInfo.getIdentity().getIdentifier());
 
-        return new ChangeRequestCountSummary(total,
-                                             (int) open);
+        return new ChangeRequestCountSummary(snapshot.count(branchesUserCanRead,
+                                                            null),
+                                             snapshot.count(branchesUserCanRead,
+                                                            ChangeRequestStatus.OPEN));
     }
 
     @Override
@@ -427,7 +407,6 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         final List<ChangeRequest> changeRequestsToDelete =
                 getFilteredChangeRequestsFromStorage(spaceName,
                                                      repositoryAlias,
-                                                     false,
                                                      ChangeRequestPredicates
                                                              .matchSourceOrTargetBranch(associatedBranchName),
                                                      userIdentifier);
@@ -436,6 +415,8 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
             changeRequestsToDelete.forEach(elem -> spaceConfigStorageRegistry.get(spaceName)
                     .deleteChangeRequest(repositoryAlias,
                                          elem.getId()));
+            changeRequestIndex.invalidate(spaceName,
+                                          repositoryAlias);
 
             final Repository repository = resolveRepository(spaceName,
                                                             repositoryAlias);
@@ -606,6 +587,8 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
 
         spaceConfigStorageRegistry.get(spaceName).saveChangeRequest(repositoryAlias,
                                                                     updatedChangeRequest);
+        changeRequestIndex.invalidate(spaceName,
+                                      repositoryAlias);
 
         changeRequestUpdatedEvent.fire(new ChangeRequestUpdatedEvent(repository.getIdentifier(),
                                                                      updatedChangeRequest.getId(),
@@ -646,6 +629,8 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
 
         spaceConfigStorageRegistry.get(spaceName).saveChangeRequest(repositoryAlias,
                                                                     updatedChangeRequest);
+        changeRequestIndex.invalidate(spaceName,
+                                      repositoryAlias);
 
         changeRequestUpdatedEvent.fire(new ChangeRequestUpdatedEvent(repository.getIdentifier(),
                                                                      updatedChangeRequest.getId(),
@@ -799,7 +784,6 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         final List<ChangeRequest> changeRequests =
                 this.getFilteredChangeRequestsFromStorage(spaceName,
                                                           repositoryAlias,
-                                                          false,
                                                           ChangeRequestPredicates.matchId(changeRequestId));
 
         if (changeRequests.isEmpty()) {
@@ -834,24 +818,51 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
 
     private List<ChangeRequest> getFilteredChangeRequestsFromStorage(final String spaceName,
                                                                      final String repositoryAlias,
-                                                                     final boolean sorted,
                                                                      final Predicate<ChangeRequest> predicate) {
         return getFilteredChangeRequestsFromStorage(spaceName,
                                              repositoryAlias,
-                                             sorted,
                                              predicate,
                                              sessionInfo.getIdentity().getIdentifier());
     }
 
     private List<ChangeRequest> getFilteredChangeRequestsFromStorage(final String spaceName,
                                                                      final String repositoryAlias,
-                                                                     final boolean sorted,
                                                                      final Predicate<ChangeRequest> predicate,
                                                                      final String userIdentifier) {
         final Repository repository = resolveRepository(spaceName,
                                                         repositoryAlias);
 
-        final List<String> branchesUserCanRead = repository.getBranches()
+        final List<String> branchesUserCanRead = getBranchesUserCanRead(repository,
+                                                                        userIdentifier);
+
+        // the index keeps the change requests sorted from the newest to the oldest
+        return changeRequestIndex.get(spaceName,
+                                      repositoryAlias)
+                .getAll()
+                .stream()
+                .filter(ChangeRequestPredicates.matchTargetBranchListAndOtherPredicate(branchesUserCanRead,
+                                                                                       predicate))
+                .collect(Collectors.toList());
+    }
+
+    private List<ChangeRequest> findChangeRequests(final String spaceName,
+                                                   final String repositoryAlias,
+                                                   final List<ChangeRequestStatus> statusList,
+                                                   final String filter) {
+        final Repository repository = resolveRepository(spaceName,
+                                                        repositoryAlias);
+
+        return changeRequestIndex.get(spaceName,
+                                      repositoryAlias)
+                .find(getBranchesUserCanRead(repository,
+                                             sessionInfo.getIdentity().getIdentifier()),
+                      statusList,
+                      filter);
+    }
+
+    private List<String> getBranchesUserCanRead(final Repository repository,
+                                                final String userIdentifier) {
+        return repository.getBranches()
                 .stream()
                 .map(Branch::getName)
                 .filter(branchName -> branchAccessAuthorizer.authorize(userIdentifier,
@@ -861,19 +872,6 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
                                                                        branchName,
                                                                        BranchAccessAuthorizer.AccessType.READ))
                 .collect(Collectors.toList());
-
-        final Stream<ChangeRequest> changeRequestStream =
-                spaceConfigStorageRegistry.get(spaceName).loadChangeRequests(repositoryAlias)
-                        .stream()
-                        .filter(ChangeRequestPredicates.matchTargetBranchListAndOtherPredicate(branchesUserCanRead,
-                                                                                               predicate));
-        if (sorted) {
-            return changeRequestStream
-                    .sorted(Comparator.comparing(ChangeRequest::getCreatedDate).reversed())
-                    .collect(Collectors.toList());
-        } else {
-            return changeRequestStream.collect(Collectors.toList());
-        }
     }
 
     private List<ChangeRequest> computeFullContent(final String spaceName,
@@ -915,10 +913,6 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
                 .collect(Collectors.toList());
     }
 
-    private static String composeSearchableElement(final ChangeRequest element) {
-        return element.toString().toLowerCase();
-    }
-
     private List<ChangeRequest> paginateChangeRequests(final List<ChangeRequest> changeRequests,
                                                        final Integer page,
                                                        final Integer pageSize) {
@@ -1045,6 +1039,8 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
 
         spaceConfigStorageRegistry.get(spaceName).saveChangeRequest(repositoryAlias,
                                                                     updatedChangeRequest);
+        changeRequestIndex.invalidate(spaceName,
+                                      repositoryAlias);
 
         changeRequestStatusUpdatedEventEvent.fire(
                 new ChangeRequestStatusUpdatedEvent(repository.getIdentifier(),
@@ -1256,7 +1252,6 @@ public class ChangeRequestServiceImpl implements ChangeRequestService {
         final List<ChangeRequest> changeRequests =
                 getFilteredChangeRequestsFromStorage(spaceName,
                                                      repositoryAlias,
-                                                     false,
                                                      ChangeRequestPredicates
                                                              .matchSourceAndTargetAndStatus(sourceBranchName,
                                                                                             targetBranchName,
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.guvnor.structure.backend.repositories;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.guvnor.structure.organizationalunit.config.SpaceConfigStorage;
+import org.guvnor.structure.organizationalunit.config.SpaceConfigStorageRegistry;
+import org.guvnor.structure.repositories.changerequest.portable.ChangeRequest;
+import org.guvnor.structure.repositories.changerequest.portable.ChangeRequestStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeRequestIndexTest {
+
+    @Mock
+    private SpaceConfigStorageRegistry spaceConfigStorageRegistry;
+
+    @Mock
+    private SpaceConfigStorage spaceConfigStorage;
+
+    private ChangeRequestIndex index;
+
+    @Before
+    public void setUp() {
+        doReturn(spaceConfigStorage).when(spaceConfigStorageRegistry).get("mySpace");
+        doReturn(Arrays.asList(changeRequest(1L,
+                                             "master",
+                                             ChangeRequestStatus.OPEN,
+                                             "first summary",
+                                             1000),
+                               changeRequest(2L,
+                                             "develop",
+                                             ChangeRequestStatus.OPEN,
+                                             "second summary",
+                                             2000),
+                               changeRequest(3L,
+                                             "master",
+                                             ChangeRequestStatus.ACCEPTED,
+                                             "third summary",
+                                             3000)))
+                .when(spaceConfigStorage).loadChangeRequests("myRepository");
+        doReturn("v1").when(spaceConfigStorage).getVersion();
+
+        index = new ChangeRequestIndex(spaceConfigStorageRegistry);
+    }
+
+    @Test
+    public void changeRequestsAreLoadedOnceAndSortedNewestFirst() {
+        final ChangeRequestIndex.Snapshot snapshot = index.get("mySpace",
+                                                               "myRepository");
+
+        assertSame(snapshot,
+                   index.get("mySpace",
+                             "myRepository"));
+        assertEquals(Arrays.asList(3L,
+                                   2L,
+                                   1L),
+                     ids(snapshot.getAll()));
+        verify(spaceConfigStorage,
+               times(1)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void snapshotIsReloadedWhenInvalidated() {
+        index.get("mySpace",
+                  "myRepository");
+
+        index.invalidate("mySpace",
+                         "myRepository");
+        index.get("mySpace",
+                  "myRepository");
+
+        verify(spaceConfigStorage,
+               times(2)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void snapshotLoadedWhileTheRepositoryIsInvalidatedIsNotCached() {
+        invalidateWhileLoading("myRepository");
+
+        index.get("mySpace",
+                  "myRepository");
+        index.get("mySpace",
+                  "myRepository");
+
+        verify(spaceConfigStorage,
+               times(2)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void snapshotLoadedWhileAnotherRepositoryIsInvalidatedIsCached() {
+        invalidateWhileLoading("otherRepository");
+
+        final ChangeRequestIndex.Snapshot snapshot = index.get("mySpace",
+                                                               "myRepository");
+
+        assertSame(snapshot,
+                   index.get("mySpace",
+                             "myRepository"));
+        verify(spaceConfigStorage,
+               times(1)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void snapshotIsReloadedWhenStorageVersionChanges() {
+        index.get("mySpace",
+                  "myRepository");
+        index.get("mySpace",
+                  "myRepository");
+
+        doReturn("v2").when(spaceConfigStorage).getVersion();
+        index.get("mySpace",
+                  "myRepository");
+
+        verify(spaceConfigStorage,
+               times(2)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void snapshotIsNotCachedWithoutStorageVersion() {
+        doReturn(null).when(spaceConfigStorage).getVersion();
+        index.get("mySpace",
+                  "myRepository");
+        index.get("mySpace",
+                  "myRepository");
+
+        verify(spaceConfigStorage,
+               times(2)).loadChangeRequests("myRepository");
+    }
+
+    @Test
+    public void findByTargetBranchStatusAndText() {
+        final ChangeRequestIndex.Snapshot snapshot = index.get("mySpace",
+                                                               "myRepository");
+
+        assertEquals(Arrays.asList(3L,
+                                   2L,
+                                   1L),
+                     ids(snapshot.find(Arrays.asList("master",
+                                                     "develop"),
+                                       null,
+                                       null)));
+        assertEquals(Arrays.asList(3L,
+                                   1L),
+                     ids(snapshot.find(Collections.singletonList("master"),
+                                       null,
+                                       null)));
+        assertEquals(Arrays.asList(2L,
+                                   1L),
+                     ids(snapshot.find(Arrays.asList("master",
+                                                     "develop"),
+                                       Collections.singletonList(ChangeRequestStatus.OPEN),
+                                       null)));
+        assertEquals(Collections.singletonList(2L),
+                     ids(snapshot.find(Arrays.asList("master",
+                                                     "develop"),
+                                       null,
+                                       "SECOND")));
+        assertTrue(snapshot.find(Collections.singletonList("hidden"),
+                                 null,
+                                 null).isEmpty());
+    }
+
+    @Test
+    public void countByTargetBranchAndStatus() {
+        final ChangeRequestIndex.Snapshot snapshot = index.get("mySpace",
+                                                               "myRepository");
+
+        assertEquals(3,
+                     snapshot.count(Arrays.asList("master",
+                                                  "develop"),
+                                    null));
+        assertEquals(2,
+                     snapshot.count(Arrays.asList("master",
+                                                  "develop"),
+                                    ChangeRequestStatus.OPEN));
+        assertEquals(1,
+                     snapshot.count(Collections.singletonList("master"),
+                                    ChangeRequestStatus.OPEN));
+    }
+
+    @Test
+    public void getById() {
+        final ChangeRequestIndex.Snapshot snapshot = index.get("mySpace",
+                                                               "myRepository");
+
+        assertEquals("second summary",
+                     snapshot.getById(2L).get().getSummary());
+        assertFalse(snapshot.getById(4L).isPresent());
+    }
+
+    private void invalidateWhileLoading(final String invalidatedRepositoryAlias) {
+        final boolean[] invalidated = new boolean[1];
+        doAnswer(invocation -> {
+            if (!invalidated[0]) {
+                invalidated[0] = true;
+                index.invalidate("mySpace",
+                                 invalidatedRepositoryAlias);
+            }
+            return Collections.emptyList();
+        }).when(spaceConfigStorage).loadChangeRequests("myRepository");
+    }
+
+    private static List<Long> ids(final List<ChangeRequest> changeRequests) {
+        return changeRequests.stream()
+                .map(ChangeRequest::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static ChangeRequest changeRequest(final Long id,
+                                               final String targetBranch,
+                                               final ChangeRequestStatus status,
+                                               final String summary,
+                                               final long createdDate) {
+        return new ChangeRequest(id,
+                                 "mySpace",
+                                 "myRepository",
+                                 "sourceBranch",
+                                 targetBranch,
+                                 status,
+                                 "author",
+                                 summary,
+                                 "description",
+                                 new Date(createdDate),
+                                 "commonCommitId",
+                                 null,
+                                 null);
+    }
+}